@@ -1,16 +1,21 @@
 package edu.kit.pse.beprepared.eventTypes.sensorThingsAddLocation;
 
+import de.fraunhofer.iosb.ilt.sta.StatusCodeException;
 import edu.kit.pse.beprepared.json.LocationJson;
 import edu.kit.pse.beprepared.model.Configuration;
 import edu.kit.pse.beprepared.model.Event;
 import edu.kit.pse.beprepared.model.EventType;
 import edu.kit.pse.beprepared.model.Scenario;
 import edu.kit.pse.beprepared.model.frontendDescriptors.*;
+import edu.kit.pse.beprepared.services.SensorThingsCache;
 import edu.kit.pse.beprepared.simulation.RequestRunner;
 import org.apache.log4j.Logger;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.Set;
 
 /**
  * This class is an {@link EventType} to add locations to a thing via the SensorThingsAPI on a FROST server.
@@ -104,4 +109,90 @@ public class SensorThingsAddLocationEventType extends EventType {
     public RequestRunner getRequestRunnerFor(Event event, Configuration configuration) {
         return new SensorThingsAddLocationRequestRunner((SensorThingsAddLocationEvent) event, configuration);
     }
+
+    /**
+     * Returns the key of the entity the given event affects at its target.
+     *
+     * @param event the event
+     * @return the id of the thing the location is added to
+     */
+    @Override
+    public String getOrderingKey(Event event) {
+        return "thing:" + ((SensorThingsAddLocationEvent) event).getThingId();
+    }
+
+    /**
+     * Returns the host of the SensorThings server as target key.
+     *
+     * @param event         the event
+     * @param configuration the {@link Configuration} of the simulation
+     * @return the host name of the server
+     */
+    @Override
+    public String getTargetKey(Event event, Configuration configuration) {
+        return getHost(configuration.getPropertyValue("frostServerUrl"));
+    }
+
+    /**
+     * Added locations replace the previous location of the thing.
+     *
+     * @return {@code true}
+     */
+    @Override
+    public boolean isStateLike() {
+        return true;
+    }
+
+    /**
+     * The SensorThings server is overloaded if it answers {@code 429 Too Many Requests} or
+     * {@code 503 Service Unavailable}.
+     *
+     * @param throwable the {@link Throwable} the runner has failed with
+     * @return {@code true}, if the target is overloaded
+     */
+    @Override
+    public boolean isOverloadSignal(Throwable throwable) {
+        return throwable instanceof StatusCodeException
+                && isOverloadStatus(((StatusCodeException) throwable).getStatusCode());
+    }
+
+    /**
+     * Adding a location creates entities at the SensorThings server, so a failed request may only be retried if the
+     * server has certainly not processed it: either it has answered {@code 429 Too Many Requests} or
+     * {@code 503 Service Unavailable}, or no connection could be established, see
+     * {@link this#isConnectFailure(Throwable)}. Any other failure, e.g. a read timeout or a
+     * {@code 500 Internal Server Error}, may have left the location behind, and repeating the request would add it
+     * twice.
+     *
+     * @param throwable the {@link Throwable} the runner has failed with
+     * @return {@code true}, if the runner may be retried
+     */
+    @Override
+    public boolean isRetryable(Throwable throwable) {
+        if (throwable instanceof StatusCodeException) {
+            return isOverloadStatus(((StatusCodeException) throwable).getStatusCode());
+        }
+        return isConnectFailure(throwable);
+    }
+
+    /**
+     * Looks up the things the events add locations to, so they are cached and the connection to the server is open
+     * before the first event.
+     *
+     * @param events        the events of this type the simulation runs
+     * @param configuration the {@link Configuration} of the simulation
+     * @throws Exception if a thing cannot be looked up
+     */
+    @Override
+    public void warmUp(Collection<Event> events, Configuration configuration) throws Exception {
+
+        String frostServerUrl = configuration.getPropertyValue("frostServerUrl").toString();
+        Set<Integer> thingIds = new HashSet<>();
+        for (Event event : events) {
+            thingIds.add(((SensorThingsAddLocationEvent) event).getThingId());
+        }
+        for (int thingId : thingIds) {
+            SensorThingsCache.getInstance().getThing(frostServerUrl, thingId);
+        }
+    }
 }
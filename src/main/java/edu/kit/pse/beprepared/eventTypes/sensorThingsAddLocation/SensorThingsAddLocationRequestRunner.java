@@ -4,9 +4,9 @@ import de.fraunhofer.iosb.ilt.sta.ServiceFailureException;
 import de.fraunhofer.iosb.ilt.sta.model.Location;
 import de.fraunhofer.iosb.ilt.sta.model.builder.LocationBuilder;
 import de.fraunhofer.iosb.ilt.sta.model.builder.api.AbstractLocationBuilder;
-import de.fraunhofer.iosb.ilt.sta.service.SensorThingsService;
 import edu.kit.pse.beprepared.model.Configuration;
 import edu.kit.pse.beprepared.model.Event;
+import edu.kit.pse.beprepared.services.SensorThingsCache;
 import edu.kit.pse.beprepared.simulation.ExecutionReport;
 import edu.kit.pse.beprepared.simulation.ExecutionStatus;
 import edu.kit.pse.beprepared.simulation.RequestRunner;
@@ -14,7 +14,6 @@ import org.apache.log4j.Logger;
 import org.geojson.Point;
 
 import java.net.MalformedURLException;
-import java.net.URI;
 
 public class SensorThingsAddLocationRequestRunner extends RequestRunner {
 
@@ -22,6 +21,10 @@ public class SensorThingsAddLocationRequestRunner extends RequestRunner {
      * The {@link Logger} instance used by objects of this class.
      */
     private final Logger log = Logger.getLogger(SensorThingsAddLocationRequestRunner.class);
+    /**
+     * The location added to the thing or {@code null}, if it has not been prepared yet.
+     */
+    private Location location;
 
     /**
      * Constructor.
@@ -56,20 +59,18 @@ public class SensorThingsAddLocationRequestRunner extends RequestRunner {
 
         SensorThingsAddLocationEvent event = (SensorThingsAddLocationEvent) this.event;
 
-        SensorThingsService service;
+        String frostServerUrl = this.configuration.getPropertyValue("frostServerUrl").toString();
+        SensorThingsCache cache = SensorThingsCache.getInstance();
         try {
 
-            service = new SensorThingsService(URI.create(this.configuration.getPropertyValue("frostServerUrl")
-                    .toString()));
-
-            Location location = LocationBuilder.builder()
-                    .name(event.getName())
-                    .description(event.getDescription())
-                    .location(new Point(event.getLon(), event.getLat()))
-                    .encodingType(AbstractLocationBuilder.ValueCode.GeoJSON)
-                    .build();
+            this.prepareRequest(event);
 
-            service.things().find(event.getThingId()).locations().create(location);
+            try {
+                cache.getThing(frostServerUrl, event.getThingId()).locations().create(this.location);
+            } catch (ServiceFailureException e) {
+                cache.invalidateThing(frostServerUrl, event.getThingId());
+                throw e;
+            }
 
             return new ExecutionReport(this, ExecutionStatus.COMPLETED_NORMAL, null, System.currentTimeMillis());
 
@@ -79,4 +80,32 @@ public class SensorThingsAddLocationRequestRunner extends RequestRunner {
         }
 
     }
+
+    /**
+     * Builds the location ahead of time.
+     */
+    @Override
+    public void prepare() {
+
+        if (this.event instanceof SensorThingsAddLocationEvent) {
+            this.prepareRequest((SensorThingsAddLocationEvent) this.event);
+        }
+    }
+
+    /**
+     * Builds {@link this#location}, unless this has been done before.
+     *
+     * @param event the event of this runner
+     */
+    private void prepareRequest(final SensorThingsAddLocationEvent event) {
+
+        if (this.location == null) {
+            this.location = LocationBuilder.builder()
+                    .name(event.getName())
+                    .description(event.getDescription())
+                    .location(new Point(event.getLon(), event.getLat()))
+                    .encodingType(AbstractLocationBuilder.ValueCode.GeoJSON)
+                    .build();
+        }
+    }
 }
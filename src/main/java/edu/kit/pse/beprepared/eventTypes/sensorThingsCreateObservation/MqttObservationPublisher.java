@@ -0,0 +1,190 @@
+package edu.kit.pse.beprepared.eventTypes.sensorThingsCreateObservation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.log4j.Logger;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Publishes observations to the MQTT broker of a FROST-Server.
+ * <p>
+ * FROST-Servers create an observation for every message published to the topic
+ * {@code v1.0/Datastreams(id)/Observations}. All runners publishing to the same broker share a small pool of
+ * connections. Every connection allows up to {@link this#MAX_INFLIGHT} unacknowledged messages, so many runners can
+ * publish at the same time without waiting for each other. The observations of a datastream are always published on
+ * the same connection, so the broker receives them in the order they have been published.
+ */
+class MqttObservationPublisher {
+
+    /**
+     * The number of connections opened to a single broker.
+     */
+    private static final int CONNECTIONS_PER_BROKER = 4;
+    /**
+     * The maximum number of unacknowledged messages per connection.
+     */
+    private static final int MAX_INFLIGHT = 1000;
+    /**
+     * The time in ms to wait for a connection to be established or a message to be acknowledged.
+     */
+    private static final long TIMEOUT_MILLIS = 10000;
+    /**
+     * The version prefix of the topics of the FROST-Server.
+     */
+    private static final String TOPIC_PREFIX = "v1.0/";
+    /**
+     * The {@link ObjectMapper} used to create the payloads.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    /**
+     * All publishers, mapped by the URL of their broker.
+     */
+    private static final ConcurrentHashMap<String, MqttObservationPublisher> PUBLISHERS = new ConcurrentHashMap<>();
+
+    /**
+     * The {@link Logger} instance used by objects of this class.
+     */
+    private final Logger log = Logger.getLogger(MqttObservationPublisher.class);
+    /**
+     * The URL of the broker, e.g. {@code tcp://localhost:1883}.
+     */
+    private final String brokerUrl;
+    /**
+     * The connections to the broker. An element is {@code null} until the connection has been established.
+     */
+    private final AtomicReferenceArray<MqttAsyncClient> connections;
+
+    /**
+     * Constructor.
+     *
+     * @param brokerUrl the URL of the broker
+     */
+    private MqttObservationPublisher(final String brokerUrl) {
+        this.brokerUrl = brokerUrl;
+        this.connections = new AtomicReferenceArray<>(CONNECTIONS_PER_BROKER);
+    }
+
+    /**
+     * Returns the publisher of a broker, creating it if necessary.
+     *
+     * @param brokerUrl the URL of the broker
+     * @return the publisher
+     */
+    static MqttObservationPublisher of(final String brokerUrl) {
+        return PUBLISHERS.computeIfAbsent(brokerUrl, MqttObservationPublisher::new);
+    }
+
+    /**
+     * Creates the topic observations of a datastream are published to.
+     *
+     * @param dataStreamId the id of the datastream
+     * @return the topic
+     */
+    static String topicOf(final long dataStreamId) {
+        return TOPIC_PREFIX + "Datastreams(" + dataStreamId + ")/Observations";
+    }
+
+    /**
+     * Creates the payload of an observation.
+     *
+     * @param phenomenonTime the phenomenon time of the observation
+     * @param result         the result of the observation
+     * @return the payload
+     * @throws JsonProcessingException if the observation cannot be serialized
+     */
+    static byte[] payloadOf(final Instant phenomenonTime, final String result) throws JsonProcessingException {
+
+        ObjectNode observation = MAPPER.createObjectNode();
+        observation.put("phenomenonTime", phenomenonTime.toString());
+        observation.put("result", result);
+        return MAPPER.writeValueAsBytes(observation);
+    }
+
+    /**
+     * Publishes an observation that has already been serialized with {@link this#payloadOf(Instant, String)} and
+     * waits until it has been handed to the network (QoS 0) or acknowledged by the broker (QoS 1 and 2).
+     *
+     * @param dataStreamId the id of the datastream the observation belongs to
+     * @param payload      the serialized observation
+     * @param qos          the MQTT quality of service level, i.e. 0, 1 or 2
+     * @throws MqttException if the connection cannot be established or the message cannot be delivered
+     */
+    void publish(final long dataStreamId, final byte[] payload, final int qos) throws MqttException {
+
+        MqttAsyncClient connection = this.connection(Math.floorMod(dataStreamId, CONNECTIONS_PER_BROKER));
+        connection.publish(topicOf(dataStreamId), payload, qos, false).waitForCompletion(TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Establishes all connections to the broker that have not been established yet.
+     *
+     * @throws MqttException if a connection cannot be established
+     */
+    void connectAll() throws MqttException {
+
+        for (int i = 0; i < CONNECTIONS_PER_BROKER; i++) {
+            this.connection(i);
+        }
+    }
+
+    /**
+     * Returns a connection to the broker, establishing it if necessary.
+     *
+     * @param index the index of the connection
+     * @return the connection
+     * @throws MqttException if the connection cannot be established
+     */
+    private MqttAsyncClient connection(final int index) throws MqttException {
+
+        MqttAsyncClient connection = this.connections.get(index);
+        if (connection != null) {
+            return connection;
+        }
+
+        synchronized (this) {
+            connection = this.connections.get(index);
+            if (connection == null) {
+                connection = this.connect();
+                this.connections.set(index, connection);
+            }
+            return connection;
+        }
+    }
+
+    /**
+     * Establishes a new connection to the broker.
+     *
+     * @return the connection
+     * @throws MqttException if the connection cannot be established
+     */
+    private MqttAsyncClient connect() throws MqttException {
+
+        MqttConnectOptions options = new MqttConnectOptions();
+        options.setCleanSession(true);
+        options.setAutomaticReconnect(true);
+        options.setMaxInflight(MAX_INFLIGHT);
+
+        MqttAsyncClient connection = new MqttAsyncClient(this.brokerUrl, MqttAsyncClient.generateClientId(),
+                new MemoryPersistence());
+        try {
+            connection.connect(options).waitForCompletion(TIMEOUT_MILLIS);
+        } catch (MqttException e) {
+            try {
+                connection.close();
+            } catch (MqttException closeFailure) {
+                log.debug("Closing the failed connection to " + this.brokerUrl + " failed", closeFailure);
+            }
+            throw e;
+        }
+        log.info("Connected to MQTT broker " + this.brokerUrl);
+        return connection;
+    }
+}
@@ -0,0 +1,372 @@
+package edu.kit.pse.beprepared.eventTypes.sensorThingsCreateObservation;
+
+import de.fraunhofer.iosb.ilt.sta.ServiceFailureException;
+import de.fraunhofer.iosb.ilt.sta.model.Datastream;
+import de.fraunhofer.iosb.ilt.sta.model.IdLong;
+import de.fraunhofer.iosb.ilt.sta.model.Observation;
+import de.fraunhofer.iosb.ilt.sta.model.ext.DataArrayDocument;
+import de.fraunhofer.iosb.ilt.sta.model.ext.DataArrayValue;
+import edu.kit.pse.beprepared.services.SensorThingsCache;
+import org.apache.log4j.Logger;
+
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the observations created at a FROST-Server within a time window and sends them as a single
+ * {@code dataArray} request.
+ * <p>
+ * The first observation added to an empty batch opens it, and a task scheduled on {@link this#SENDER} closes it once
+ * the window has passed. A batch that reaches {@link this#MAX_BATCH_SIZE} is closed right away. Closed batches are
+ * sent by {@link this#SENDER} one after the other in the order they have been opened, so observations of the same
+ * datastream arrive in the order they have been added. No caller waits for the window or the request, every caller
+ * gets a future of the result of its own observation.
+ * <p>
+ * The server answers a {@code dataArray} request with one entry per observation, either the URL of the created
+ * observation or {@code "error"}. This entry is handed back to the caller that added the observation.
+ */
+class ObservationBatcher {
+
+    /**
+     * The entry the server returns for an observation it could not create.
+     */
+    static final String ERROR = "error";
+    /**
+     * The maximum number of observations sent in a single request.
+     */
+    private static final int MAX_BATCH_SIZE = 1000;
+    /**
+     * The components sent for each observation.
+     */
+    private static final EnumSet<DataArrayValue.Property> COMPONENTS =
+            EnumSet.of(DataArrayValue.Property.PHENOMENON_TIME, DataArrayValue.Property.RESULT);
+    /**
+     * The number of threads of {@link this#SENDER}.
+     */
+    private static final int SENDER_THREADS = 4;
+    /**
+     * The threads that close the windows and send the batches of all servers. Since the batches of a server are sent
+     * one after the other, at most one thread per server is busy.
+     */
+    private static final ScheduledExecutorService SENDER = Executors.newScheduledThreadPool(SENDER_THREADS, r -> {
+        Thread thread = new Thread(r, "observation-batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * All batchers, mapped by the URL of their server.
+     */
+    private static final ConcurrentHashMap<String, ObservationBatcher> BATCHERS = new ConcurrentHashMap<>();
+
+    /**
+     * The {@link Logger} instance used by objects of this class.
+     */
+    private final Logger log = Logger.getLogger(ObservationBatcher.class);
+    /**
+     * The URL of the server.
+     */
+    private final String frostServerUrl;
+    /**
+     * Sends the batches to the server.
+     */
+    private final Transport transport;
+    /**
+     * The batch observations are currently added to or {@code null}, if no batch is open.
+     */
+    private Batch open;
+    /**
+     * The batch that has been closed last.
+     */
+    private Batch lastClosed;
+
+    /**
+     * Constructor.
+     * <p>
+     * Creates a batcher that sends the batches with the cached service of the server.
+     *
+     * @param frostServerUrl the URL of the server
+     */
+    private ObservationBatcher(final String frostServerUrl) {
+        this(frostServerUrl, document -> SensorThingsCache.getInstance().getService(frostServerUrl).observations()
+                .create(document));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param frostServerUrl the URL of the server
+     * @param transport      sends the batches to the server
+     */
+    ObservationBatcher(final String frostServerUrl, final Transport transport) {
+        this.frostServerUrl = frostServerUrl;
+        this.transport = transport;
+        this.open = null;
+        this.lastClosed = null;
+    }
+
+    /**
+     * Returns the batcher of a server, creating it if necessary.
+     *
+     * @param frostServerUrl the URL of the server
+     * @return the batcher
+     */
+    static ObservationBatcher of(final String frostServerUrl) {
+        return BATCHERS.computeIfAbsent(frostServerUrl, ObservationBatcher::new);
+    }
+
+    /**
+     * Adds an observation to the current batch.
+     * <p>
+     * The returned future completes once the batch has been sent. It completes exceptionally with a
+     * {@link MalformedURLException} if the URL of the server is invalid or with a {@link ServiceFailureException} if
+     * the request fails as a whole.
+     *
+     * @param dataStreamId the id of the datastream the observation belongs to
+     * @param observation  the observation
+     * @param windowMillis the time in ms the batch is kept open after its first observation has been added
+     * @return the future entry of the server for the observation, i.e. its URL or {@link this#ERROR}
+     */
+    CompletableFuture<String> add(final long dataStreamId, final Observation observation, final long windowMillis) {
+
+        Batch batch;
+        CompletableFuture<String> result;
+        boolean opened;
+        boolean full;
+        synchronized (this) {
+            opened = this.open == null;
+            if (opened) {
+                this.open = new Batch(this.lastClosed);
+            }
+            batch = this.open;
+            result = batch.add(dataStreamId, observation);
+            full = batch.size >= MAX_BATCH_SIZE;
+            if (full) {
+                this.close(batch);
+            }
+        }
+
+        if (full) {
+            this.send(batch);
+        } else if (opened) {
+            SENDER.schedule(() -> {
+                if (this.closeIfOpen(batch)) {
+                    this.send(batch);
+                }
+            }, windowMillis, TimeUnit.MILLISECONDS);
+        }
+
+        return result;
+    }
+
+    /**
+     * Closes a batch, so no further observations are added to it.
+     * <p>
+     * Must only be called while holding the monitor of this batcher.
+     *
+     * @param batch the currently open batch
+     */
+    private void close(final Batch batch) {
+        this.open = null;
+        this.lastClosed = batch;
+    }
+
+    /**
+     * Closes a batch, unless it has been closed already because it was full.
+     *
+     * @param batch the batch
+     * @return whether the batch has been closed by this call
+     */
+    private synchronized boolean closeIfOpen(final Batch batch) {
+
+        if (this.open != batch) {
+            return false;
+        }
+        this.close(batch);
+        return true;
+    }
+
+    /**
+     * Has a closed batch sent by {@link this#SENDER} once its predecessor has been sent, without waiting for it.
+     *
+     * @param batch the batch
+     */
+    private void send(final Batch batch) {
+
+        CompletableFuture<Void> previous = batch.previous != null ? batch.previous.sent
+                : CompletableFuture.completedFuture(null);
+        batch.previous = null;
+        previous.thenRunAsync(() -> this.post(batch), SENDER);
+    }
+
+    /**
+     * Sends a closed batch and completes the results of its observations.
+     *
+     * @param batch the batch
+     */
+    private void post(final Batch batch) {
+
+        try {
+            List<String> entries = this.transport.send(batch.document);
+            if (entries == null || entries.size() != batch.size) {
+                throw new ObservationRejectedException("Expected " + batch.size + " entries in the response, got "
+                        + (entries == null ? 0 : entries.size()));
+            }
+            batch.complete(entries);
+            log.debug("Sent " + batch.size + " observations to " + this.frostServerUrl);
+        } catch (MalformedURLException | ServiceFailureException | RuntimeException e) {
+            log.error("Sending " + batch.size + " observations to " + this.frostServerUrl + " failed", e);
+            batch.fail(e);
+        } finally {
+            batch.sent.complete(null);
+        }
+    }
+
+    /**
+     * Sends a {@code dataArray} request to the server.
+     */
+    @FunctionalInterface
+    interface Transport {
+
+        /**
+         * Sends a {@code dataArray} request to the server.
+         *
+         * @param document the document to send
+         * @return the entries of the response, in the order of the document
+         * @throws MalformedURLException   if the URL of the server is invalid
+         * @throws ServiceFailureException if the request fails
+         */
+        List<String> send(DataArrayDocument document) throws MalformedURLException, ServiceFailureException;
+    }
+
+    /**
+     * The observations sent in a single request.
+     * <p>
+     * The server answers with the entries of the observations of the first datastream in the document, followed by
+     * those of the second datastream and so on. The results are therefore grouped by datastream as well.
+     */
+    private static final class Batch {
+
+        /**
+         * The document sent to the server.
+         */
+        private final DataArrayDocument document;
+        /**
+         * The observations of this batch, mapped by the id of their datastream in the order of the document.
+         */
+        private final Map<Long, Group> groups;
+        /**
+         * Completed once this batch has been sent.
+         */
+        private final CompletableFuture<Void> sent;
+        /**
+         * The batch that has to be sent before this one or {@code null}.
+         */
+        private Batch previous;
+        /**
+         * The number of observations in this batch.
+         */
+        private int size;
+
+        /**
+         * Constructor.
+         *
+         * @param previous the batch that has to be sent before this one or {@code null}
+         */
+        private Batch(final Batch previous) {
+            this.document = new DataArrayDocument();
+            this.groups = new LinkedHashMap<>();
+            this.sent = new CompletableFuture<>();
+            this.previous = previous;
+            this.size = 0;
+        }
+
+        /**
+         * Adds an observation to this batch.
+         *
+         * @param dataStreamId the id of the datastream the observation belongs to
+         * @param observation  the observation
+         * @return the result of the observation
+         */
+        private CompletableFuture<String> add(final long dataStreamId, final Observation observation) {
+
+            Group group = this.groups.get(dataStreamId);
+            if (group == null) {
+                group = new Group(dataStreamId);
+                this.groups.put(dataStreamId, group);
+                this.document.addDataArrayValue(group.value);
+            }
+            group.value.addObservation(observation);
+
+            CompletableFuture<String> result = new CompletableFuture<>();
+            group.results.add(result);
+            this.size++;
+            return result;
+        }
+
+        /**
+         * Completes the results of all observations of this batch.
+         *
+         * @param entries the entries of the response, in the order of the document
+         */
+        private void complete(final List<String> entries) {
+
+            int index = 0;
+            for (Group group : this.groups.values()) {
+                for (CompletableFuture<String> result : group.results) {
+                    result.complete(entries.get(index++));
+                }
+            }
+        }
+
+        /**
+         * Completes the results of all observations of this batch exceptionally.
+         *
+         * @param failure the reason the request failed
+         */
+        private void fail(final Exception failure) {
+
+            for (Group group : this.groups.values()) {
+                for (CompletableFuture<String> result : group.results) {
+                    result.completeExceptionally(failure);
+                }
+            }
+        }
+    }
+
+    /**
+     * The observations of a batch that belong to the same datastream.
+     */
+    private static final class Group {
+
+        /**
+         * The observations sent to the server.
+         */
+        private final DataArrayValue value;
+        /**
+         * The results of the observations, in the order they have been added.
+         */
+        private final List<CompletableFuture<String>> results;
+
+        /**
+         * Constructor.
+         *
+         * @param dataStreamId the id of the datastream
+         */
+        private Group(final long dataStreamId) {
+
+            Datastream datastream = new Datastream();
+            datastream.setId(new IdLong(dataStreamId));
+            this.value = new DataArrayValue(datastream, COMPONENTS);
+            this.results = new ArrayList<>();
+        }
+    }
+}
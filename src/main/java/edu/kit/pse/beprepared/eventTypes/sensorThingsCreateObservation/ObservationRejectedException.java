@@ -0,0 +1,20 @@
+package edu.kit.pse.beprepared.eventTypes.sensorThingsCreateObservation;
+
+import de.fraunhofer.iosb.ilt.sta.ServiceFailureException;
+
+/**
+ * Exception thrown if the FROST-Server has rejected an observation, or its answer to a batch cannot be matched to the
+ * observations of the batch. Repeating the request would either be rejected again or create observations twice, so
+ * it is not retried.
+ */
+class ObservationRejectedException extends ServiceFailureException {
+
+    /**
+     * Constructs a new exception with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    ObservationRejectedException(String message) {
+        super(message);
+    }
+}
@@ -1,24 +1,62 @@
 package edu.kit.pse.beprepared.eventTypes.sensorThingsCreateObservation;
 
+import de.fraunhofer.iosb.ilt.sta.StatusCodeException;
 import edu.kit.pse.beprepared.model.Configuration;
 import edu.kit.pse.beprepared.model.Event;
 import edu.kit.pse.beprepared.model.EventType;
 import edu.kit.pse.beprepared.model.Scenario;
 import edu.kit.pse.beprepared.model.frontendDescriptors.FastViewDescriptor;
 import edu.kit.pse.beprepared.model.frontendDescriptors.InputFormDescriptor;
+import edu.kit.pse.beprepared.model.frontendDescriptors.MultipleChoiceInputField;
 import edu.kit.pse.beprepared.model.frontendDescriptors.NumericInputField;
 import edu.kit.pse.beprepared.model.frontendDescriptors.UrlInputField;
+import edu.kit.pse.beprepared.services.SensorThingsCache;
 import edu.kit.pse.beprepared.simulation.RequestRunner;
 import org.apache.log4j.Logger;
+import org.eclipse.paho.client.mqttv3.MqttException;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.Set;
 
 /**
  * This class is an {@link EventType} to create sensor events for the "SensorThins API" on a FROST-Server.
  */
 public class SensorThingsCreateObservationEventType extends EventType {
 
+    /**
+     * The key of the configuration property holding the time window in ms within which observations are sent as a
+     * single {@code dataArray} request. 0 sends every observation on its own. Only applies to the HTTP transport.
+     */
+    static final String BATCH_WINDOW_PROPERTY = "observationBatchWindowMs";
+    /**
+     * The key of the configuration property holding the transport observations are created with.
+     */
+    static final String TRANSPORT_PROPERTY = "observationTransport";
+    /**
+     * The option of {@link this#TRANSPORT_PROPERTY} that creates observations with HTTP requests.
+     */
+    static final int TRANSPORT_HTTP = 0;
+    /**
+     * The option of {@link this#TRANSPORT_PROPERTY} that publishes observations to the MQTT broker of the server.
+     */
+    static final int TRANSPORT_MQTT = 1;
+    /**
+     * The key of the configuration property holding the URL of the MQTT broker of the server.
+     */
+    static final String MQTT_BROKER_URL_PROPERTY = "mqttBrokerUrl";
+    /**
+     * The URL of the MQTT broker used if none is configured.
+     */
+    static final String DEFAULT_MQTT_BROKER_URL = "tcp://localhost:1883";
+    /**
+     * The key of the configuration property holding the MQTT quality of service level. The index of the selected
+     * option is the level.
+     */
+    static final String MQTT_QOS_PROPERTY = "mqttQos";
+
     /**
      * The {@link Logger} used by objects of this type.
      */
@@ -49,6 +87,17 @@ public class SensorThingsCreateObservationEventType extends EventType {
         }});
         this.configurationInputFields = new LinkedList<>(){{
             add(new UrlInputField("frostServerUrl", "https://localhost", true));
+            add(new NumericInputField(BATCH_WINDOW_PROPERTY, 0, 0, 10000, 10, false));
+            add(new MultipleChoiceInputField(TRANSPORT_PROPERTY, new LinkedList<>() {{
+                add("HTTP");
+                add("MQTT");
+            }}, true));
+            add(new UrlInputField(MQTT_BROKER_URL_PROPERTY, DEFAULT_MQTT_BROKER_URL, false));
+            add(new MultipleChoiceInputField(MQTT_QOS_PROPERTY, new LinkedList<>() {{
+                add("0 (at most once)");
+                add("1 (at least once)");
+                add("2 (exactly once)");
+            }}, true));
         }};
 
     }
@@ -101,4 +150,126 @@ public class SensorThingsCreateObservationEventType extends EventType {
 
         return new SensorThingsCreateObservationRequestRunner(event, configuration);
     }
+
+    /**
+     * Returns the key of the entity the given event affects at its target.
+     *
+     * @param event the event
+     * @return the id of the datastream the observation is created in
+     */
+    @Override
+    public String getOrderingKey(Event event) {
+        return "datastream:" + ((SensorThingsCreateObservationEvent) event).getDataStreamId();
+    }
+
+    /**
+     * Returns the host of the MQTT broker or, for the HTTP transport, of the SensorThings server as target key.
+     *
+     * @param event         the event
+     * @param configuration the {@link Configuration} of the simulation
+     * @return the host name of the broker or server
+     */
+    @Override
+    public String getTargetKey(Event event, Configuration configuration) {
+        if (SensorThingsCreateObservationRequestRunner.isMqttTransport(configuration)) {
+            return getHost(SensorThingsCreateObservationRequestRunner.getMqttBrokerUrl(configuration));
+        }
+        return getHost(configuration.getPropertyValue("frostServerUrl"));
+    }
+
+    /**
+     * The SensorThings server is overloaded if it answers {@code 429 Too Many Requests} or
+     * {@code 503 Service Unavailable}. The MQTT broker is overloaded if it does not acknowledge the messages in
+     * flight fast enough, so the client refuses to send another one
+     * ({@link MqttException#REASON_CODE_MAX_INFLIGHT}).
+     *
+     * @param throwable the {@link Throwable} the runner has failed with
+     * @return {@code true}, if the target is overloaded
+     */
+    @Override
+    public boolean isOverloadSignal(Throwable throwable) {
+        if (throwable instanceof MqttException) {
+            return ((MqttException) throwable).getReasonCode() == MqttException.REASON_CODE_MAX_INFLIGHT;
+        }
+        return throwable instanceof StatusCodeException
+                && isOverloadStatus(((StatusCodeException) throwable).getStatusCode());
+    }
+
+    /**
+     * Creating an observation is not idempotent, so a failed request may only be retried if the SensorThings server
+     * has certainly not processed it: either it has answered {@code 429 Too Many Requests} or
+     * {@code 503 Service Unavailable}, or no connection could be established, see
+     * {@link this#isConnectFailure(Throwable)}. Any other failure, e.g. a read timeout, a
+     * {@code 500 Internal Server Error} or a rejected observation ({@link ObservationRejectedException}), may have
+     * left the observation behind, and repeating the request would create it twice. The same rule applies to batches,
+     * whose observations are retried one by one. A message to the MQTT broker may be retried if it has certainly not
+     * been sent, see {@link this#isTransientReason(MqttException)}.
+     *
+     * @param throwable the {@link Throwable} the runner has failed with
+     * @return {@code true}, if the runner may be retried
+     */
+    @Override
+    public boolean isRetryable(Throwable throwable) {
+        if (throwable instanceof StatusCodeException) {
+            return isOverloadStatus(((StatusCodeException) throwable).getStatusCode());
+        }
+        if (throwable instanceof MqttException) {
+            return isTransientReason((MqttException) throwable);
+        }
+        return isConnectFailure(throwable);
+    }
+
+    /**
+     * Checks whether an {@link MqttException} means that the message has certainly not been sent, i.e. the broker
+     * could not be reached, the client is not connected (yet) or too many messages are in flight. Timeouts and lost
+     * connections are not retried, since the broker may have received the message already. Failures wrapped by the
+     * client are classified by their cause.
+     *
+     * @param exception the exception
+     * @return {@code true}, if the message may be published again
+     */
+    private boolean isTransientReason(MqttException exception) {
+        switch (exception.getReasonCode()) {
+            case MqttException.REASON_CODE_BROKER_UNAVAILABLE:
+            case MqttException.REASON_CODE_SERVER_CONNECT_ERROR:
+            case MqttException.REASON_CODE_CLIENT_NOT_CONNECTED:
+            case MqttException.REASON_CODE_CONNECT_IN_PROGRESS:
+            case MqttException.REASON_CODE_MAX_INFLIGHT:
+                return true;
+            case MqttException.REASON_CODE_CLIENT_EXCEPTION:
+                return isConnectFailure(exception.getCause());
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Opens the connections needed by the events before the first event: the connections to the MQTT broker or, for
+     * the HTTP transport, the connection to the server, which is used to look up and cache the datastreams.
+     *
+     * @param events        the events of this type the simulation runs
+     * @param configuration the {@link Configuration} of the simulation
+     * @throws Exception if the broker or a datastream cannot be reached
+     */
+    @Override
+    public void warmUp(Collection<Event> events, Configuration configuration) throws Exception {
+
+        if (events.isEmpty()) {
+            return;
+        }
+        if (SensorThingsCreateObservationRequestRunner.isMqttTransport(configuration)) {
+            MqttObservationPublisher.of(SensorThingsCreateObservationRequestRunner.getMqttBrokerUrl(configuration))
+                    .connectAll();
+            return;
+        }
+
+        String frostServerUrl = configuration.getPropertyValue("frostServerUrl").toString();
+        Set<Integer> dataStreamIds = new HashSet<>();
+        for (Event event : events) {
+            dataStreamIds.add(((SensorThingsCreateObservationEvent) event).getDataStreamId());
+        }
+        for (int dataStreamId : dataStreamIds) {
+            SensorThingsCache.getInstance().getDatastream(frostServerUrl, dataStreamId);
+        }
+    }
 }
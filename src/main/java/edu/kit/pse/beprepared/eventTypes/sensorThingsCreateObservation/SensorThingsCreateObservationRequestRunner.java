@@ -1,22 +1,26 @@
 package edu.kit.pse.beprepared.eventTypes.sensorThingsCreateObservation;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import de.fraunhofer.iosb.ilt.sta.ServiceFailureException;
 import de.fraunhofer.iosb.ilt.sta.model.Observation;
 import de.fraunhofer.iosb.ilt.sta.model.TimeObject;
 import de.fraunhofer.iosb.ilt.sta.model.builder.ObservationBuilder;
-import de.fraunhofer.iosb.ilt.sta.service.SensorThingsService;
 import edu.kit.pse.beprepared.model.Configuration;
 import edu.kit.pse.beprepared.model.Event;
+import edu.kit.pse.beprepared.services.SensorThingsCache;
 import edu.kit.pse.beprepared.simulation.ExecutionReport;
 import edu.kit.pse.beprepared.simulation.ExecutionStatus;
 import edu.kit.pse.beprepared.simulation.RequestRunner;
 import org.apache.log4j.Logger;
+import org.eclipse.paho.client.mqttv3.MqttException;
 
 import java.net.MalformedURLException;
-import java.net.URI;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * This class is a {@link RequestRunner} to create sensor events using the SensorThings API on a FROST-Server.
@@ -27,6 +31,14 @@ public class SensorThingsCreateObservationRequestRunner extends RequestRunner {
      * The logger instance used by this {@link RequestRunner}.
      */
     private final Logger log = Logger.getLogger(SensorThingsCreateObservationRequestRunner.class);
+    /**
+     * The observation created with HTTP requests or {@code null}, if it has not been prepared yet.
+     */
+    private Observation observation;
+    /**
+     * The payload published to the MQTT broker or {@code null}, if it has not been prepared yet.
+     */
+    private byte[] mqttPayload;
 
     /**
      * Constructor.
@@ -61,26 +73,212 @@ public class SensorThingsCreateObservationRequestRunner extends RequestRunner {
 
         SensorThingsCreateObservationEvent event = (SensorThingsCreateObservationEvent) this.event;
 
-        SensorThingsService service;
+        String frostServerUrl = this.configuration.getPropertyValue("frostServerUrl").toString();
+        SensorThingsCache cache = SensorThingsCache.getInstance();
         try {
 
-            service = new SensorThingsService(URI.create(this.configuration.getPropertyValue("frostServerUrl")
-                    .toString()));
-            Observation observation = ObservationBuilder.builder()
-                    .phenomenonTime(new TimeObject(ZonedDateTime.ofInstant(Instant.ofEpochMilli(getAbsoluteEventTime()),
-                            ZoneId.of("UTC"))))
-                    .result(event.getResult())
-                    .build();
+            this.prepareRequest(event);
 
-            service.datastreams().find(event.getDataStreamId()).observations()
-                    .create(observation);
+            if (isMqttTransport(this.configuration)) {
+                MqttObservationPublisher.of(getMqttBrokerUrl(this.configuration)).publish(event.getDataStreamId(),
+                        this.mqttPayload, getMqttQos(this.configuration));
+                return new ExecutionReport(this, ExecutionStatus.COMPLETED_NORMAL, null, System.currentTimeMillis());
+            }
+
+            long batchWindow = getBatchWindow(this.configuration);
+            if (batchWindow > 0) {
+                return this.addToBatch(event, frostServerUrl, batchWindow).join();
+            }
+
+            try {
+                cache.getDatastream(frostServerUrl, event.getDataStreamId()).observations().create(this.observation);
+            } catch (ServiceFailureException e) {
+                cache.invalidateDatastream(frostServerUrl, event.getDataStreamId());
+                throw e;
+            }
 
             return new ExecutionReport(this, ExecutionStatus.COMPLETED_NORMAL, null, System.currentTimeMillis());
 
-        } catch (MalformedURLException | ServiceFailureException e) {
+        } catch (MalformedURLException | ServiceFailureException | MqttException | JsonProcessingException e) {
             log.error(e);
             return new ExecutionReport(this, ExecutionStatus.COMPLETED_EXCEPTIONALLY, e, System.currentTimeMillis());
         }
 
     }
+
+    /**
+     * Adds the observation to the batch of the server, if observations are batched, without waiting for the batch to
+     * be sent. The worker is freed in the meantime, so a batch may collect far more observations than there are
+     * workers. Otherwise, this runner has to be run by {@link this#call()}.
+     *
+     * @return the future result of this runner or {@code null}, if observations are not batched
+     */
+    @Override
+    public CompletableFuture<ExecutionReport> callAsync() {
+
+        if (!(this.event instanceof SensorThingsCreateObservationEvent) || isMqttTransport(this.configuration)) {
+            return null;
+        }
+        long batchWindow = getBatchWindow(this.configuration);
+        if (batchWindow <= 0) {
+            return null;
+        }
+
+        log.info("Running " + this.toString());
+        return this.addToBatch((SensorThingsCreateObservationEvent) this.event,
+                this.configuration.getPropertyValue("frostServerUrl").toString(), batchWindow);
+    }
+
+    /**
+     * Adds the observation to the batch of the server.
+     *
+     * @param event          the event of this runner
+     * @param frostServerUrl the URL of the server
+     * @param batchWindow    the time in ms a batch is kept open after its first observation has been added
+     * @return the future result of this runner, which never completes exceptionally
+     */
+    private CompletableFuture<ExecutionReport> addToBatch(final SensorThingsCreateObservationEvent event,
+                                                          final String frostServerUrl, final long batchWindow) {
+
+        try {
+            this.prepareRequest(event);
+        } catch (JsonProcessingException e) {
+            log.error(e);
+            return CompletableFuture.completedFuture(new ExecutionReport(this,
+                    ExecutionStatus.COMPLETED_EXCEPTIONALLY, e, System.currentTimeMillis()));
+        }
+
+        return ObservationBatcher.of(frostServerUrl).add(event.getDataStreamId(), this.observation, batchWindow)
+                .handle((entry, failure) -> {
+                    Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                            ? failure.getCause() : failure;
+                    if (cause == null && ObservationBatcher.ERROR.equals(entry)) {
+                        cause = new ObservationRejectedException("Observation has been rejected by the server");
+                    }
+                    if (cause != null) {
+                        log.error(cause);
+                        return new ExecutionReport(this, ExecutionStatus.COMPLETED_EXCEPTIONALLY, cause,
+                                System.currentTimeMillis());
+                    }
+                    return new ExecutionReport(this, ExecutionStatus.COMPLETED_NORMAL, null,
+                            System.currentTimeMillis());
+                });
+    }
+
+    /**
+     * Builds the observation, or its MQTT payload, ahead of time.
+     */
+    @Override
+    public void prepare() {
+
+        if (!(this.event instanceof SensorThingsCreateObservationEvent)) {
+            return;
+        }
+        try {
+            this.prepareRequest((SensorThingsCreateObservationEvent) this.event);
+        } catch (JsonProcessingException e) {
+            log.debug("Preparing " + this.toString() + " failed", e);
+        }
+    }
+
+    /**
+     * Builds {@link this#observation} or {@link this#mqttPayload}, depending on the configured transport, unless
+     * this has been done before.
+     *
+     * @param event the event of this runner
+     * @throws JsonProcessingException if the MQTT payload cannot be serialized
+     */
+    private void prepareRequest(final SensorThingsCreateObservationEvent event) throws JsonProcessingException {
+
+        Instant phenomenonTime = Instant.ofEpochMilli(getAbsoluteEventTime());
+        if (isMqttTransport(this.configuration)) {
+            if (this.mqttPayload == null) {
+                this.mqttPayload = MqttObservationPublisher.payloadOf(phenomenonTime, event.getResult());
+            }
+        } else if (this.observation == null) {
+            this.observation = ObservationBuilder.builder()
+                    .phenomenonTime(new TimeObject(ZonedDateTime.ofInstant(phenomenonTime, ZoneId.of("UTC"))))
+                    .result(event.getResult())
+                    .build();
+        }
+    }
+
+    /**
+     * Checks whether observations are published to the MQTT broker of the server instead of being created with HTTP
+     * requests.
+     *
+     * @param configuration the configuration of the simulation
+     * @return whether MQTT is the configured transport
+     */
+    static boolean isMqttTransport(final Configuration configuration) {
+        return getSelectedOption(configuration, SensorThingsCreateObservationEventType.TRANSPORT_PROPERTY,
+                SensorThingsCreateObservationEventType.TRANSPORT_HTTP)
+                == SensorThingsCreateObservationEventType.TRANSPORT_MQTT;
+    }
+
+    /**
+     * Getter for the time window within which observations are collected into a single request.
+     *
+     * @param configuration the configuration of the simulation
+     * @return the window in ms or 0, if every observation should be sent on its own
+     */
+    static long getBatchWindow(final Configuration configuration) {
+
+        Object value = configuration.getPropertyValue(
+                SensorThingsCreateObservationEventType.BATCH_WINDOW_PROPERTY);
+        if (value == null || value.toString().isEmpty()) {
+            return 0;
+        }
+        return Math.max(0, Math.round(Double.parseDouble(value.toString())));
+    }
+
+    /**
+     * Getter for the URL of the MQTT broker observations are published to.
+     *
+     * @param configuration the configuration of the simulation
+     * @return the configured URL or {@link SensorThingsCreateObservationEventType#DEFAULT_MQTT_BROKER_URL}
+     */
+    static String getMqttBrokerUrl(final Configuration configuration) {
+
+        Object value = configuration.getPropertyValue(
+                SensorThingsCreateObservationEventType.MQTT_BROKER_URL_PROPERTY);
+        if (value == null || value.toString().isEmpty()) {
+            return SensorThingsCreateObservationEventType.DEFAULT_MQTT_BROKER_URL;
+        }
+        return value.toString();
+    }
+
+    /**
+     * Getter for the MQTT quality of service level observations are published with.
+     *
+     * @param configuration the configuration of the simulation
+     * @return the configured level or 1, if none is configured
+     */
+    static int getMqttQos(final Configuration configuration) {
+        return getSelectedOption(configuration, SensorThingsCreateObservationEventType.MQTT_QOS_PROPERTY, 1);
+    }
+
+    /**
+     * Getter for the option selected in a single choice configuration property.
+     * <p>
+     * The frontend stores the indices of the selected options as a list.
+     *
+     * @param configuration the configuration of the simulation
+     * @param key           the key of the property
+     * @param defaultOption the index of the option used if none is selected
+     * @return the index of the selected option
+     */
+    private static int getSelectedOption(final Configuration configuration, final String key,
+                                         final int defaultOption) {
+
+        Object value = configuration.getPropertyValue(key);
+        if (value instanceof Collection) {
+            Collection<?> selected = (Collection<?>) value;
+            value = selected.isEmpty() ? null : selected.iterator().next();
+        }
+        if (value == null || value.toString().isEmpty()) {
+            return defaultOption;
+        }
+        return (int) Double.parseDouble(value.toString());
+    }
 }
@@ -0,0 +1,33 @@
+package edu.kit.pse.beprepared.eventTypes.teamPosition;
+
+import org.apache.http.HttpException;
+
+/**
+ * Thrown if the team position server answers a request with an unexpected status code.
+ */
+public class HttpStatusException extends HttpException {
+
+    /**
+     * The status code of the response.
+     */
+    private final int statusCode;
+
+    /**
+     * Constructor.
+     *
+     * @param statusCode the status code of the response
+     */
+    public HttpStatusException(final int statusCode) {
+        super("Request failed with status code: " + statusCode);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Getter for {@link this#statusCode}.
+     *
+     * @return the value of {@link this#statusCode}
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -8,6 +8,7 @@ import edu.kit.pse.beprepared.model.Event;
 import edu.kit.pse.beprepared.model.EventType;
 import edu.kit.pse.beprepared.model.Scenario;
 import edu.kit.pse.beprepared.simulation.RequestRunner;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
 
@@ -105,4 +106,83 @@ public class TeamPositionEventType extends EventType {
     public RequestRunner getRequestRunnerFor(Event event, Configuration configuration) {
         return new TeamPositionRequestRunner((TeamPositionEvent) event, configuration);
     }
+
+    /**
+     * Returns the key of the entity the given event affects at its target.
+     *
+     * @param event the event
+     * @return the id of the team the position belongs to
+     */
+    @Override
+    public String getOrderingKey(Event event) {
+        return "team:" + ((TeamPositionEvent) event).getTeamID();
+    }
+
+    /**
+     * Returns the host of the team position server as target key.
+     *
+     * @param event         the event
+     * @param configuration the {@link Configuration} of the simulation
+     * @return the host name of the server
+     */
+    @Override
+    public String getTargetKey(Event event, Configuration configuration) {
+        return getHost(configuration.getPropertyValue("frostServerUrl"));
+    }
+
+    /**
+     * Team positions replace the previous position of the team.
+     *
+     * @return {@code true}
+     */
+    @Override
+    public boolean isStateLike() {
+        return true;
+    }
+
+    /**
+     * The team position server is overloaded if it answers {@code 429 Too Many Requests} or
+     * {@code 503 Service Unavailable}.
+     *
+     * @param throwable the {@link Throwable} the runner has failed with
+     * @return {@code true}, if the target is overloaded
+     */
+    @Override
+    public boolean isOverloadSignal(Throwable throwable) {
+        return throwable instanceof HttpStatusException
+                && isOverloadStatus(((HttpStatusException) throwable).getStatusCode());
+    }
+
+    /**
+     * A position update may be retried if the connection to the team position server has failed or the server has
+     * answered with a transient status code.
+     *
+     * @param throwable the {@link Throwable} the runner has failed with
+     * @return {@code true}, if the runner may be retried
+     */
+    @Override
+    public boolean isRetryable(Throwable throwable) {
+        if (throwable instanceof HttpStatusException) {
+            return isTransientStatus(((HttpStatusException) throwable).getStatusCode());
+        }
+        return super.isRetryable(throwable);
+    }
+
+    /**
+     * Logs in at the team position server, so the session and its connection are ready before the first event.
+     *
+     * @param events        the events of this type the simulation runs
+     * @param configuration the {@link Configuration} of the simulation
+     * @throws Exception if the login fails
+     */
+    @Override
+    public void warmUp(Collection<Event> events, Configuration configuration) throws Exception {
+
+        if (events.isEmpty()) {
+            return;
+        }
+        TeamPositionSession.of(configuration.getPropertyValue("frostServerUrl").toString(),
+                configuration.getPropertyValue("tpUname").toString(),
+                configuration.getPropertyValue("tpPswd").toString()).warmUp();
+    }
 }
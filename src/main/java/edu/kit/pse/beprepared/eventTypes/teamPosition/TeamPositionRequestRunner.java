@@ -7,15 +7,12 @@ import edu.kit.pse.beprepared.simulation.ExecutionStatus;
 import edu.kit.pse.beprepared.simulation.RequestRunner;
 import org.apache.http.HttpException;
 import org.apache.http.HttpStatus;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 
 public class TeamPositionRequestRunner extends RequestRunner {
@@ -28,7 +25,10 @@ public class TeamPositionRequestRunner extends RequestRunner {
      * The {@link Logger} instance used by objects of this class.
      */
     private final Logger log = Logger.getLogger(TeamPositionRequestRunner.class);
-    private CloseableHttpClient httpClient = HttpClients.createDefault();
+    /**
+     * The request sent to the server or {@code null}, if it has not been prepared yet.
+     */
+    private HttpPost request;
 
 
     /**
@@ -81,40 +81,51 @@ public class TeamPositionRequestRunner extends RequestRunner {
     }
 
 
-    private void sendRequest(String serverBase, TeamPositionEvent event) throws IOException, HttpException {
-        login(serverBase, this.configuration.getPropertyValue("tpUname").toString(),
-                this.configuration.getPropertyValue("tpPswd").toString());
-        HttpPost httpPost = new HttpPost(serverBase + TEAMPOSITION_PREFIX);
+    /**
+     * Builds the request ahead of time.
+     */
+    @Override
+    public void prepare() {
+
+        if (this.event instanceof TeamPositionEvent) {
+            this.prepareRequest(this.configuration.getPropertyValue("frostServerUrl").toString(),
+                    (TeamPositionEvent) this.event);
+        }
+    }
 
+    /**
+     * Builds {@link this#request} including its serialized body, unless this has been done before.
+     *
+     * @param serverBase the base URL of the server
+     * @param event      the event of this runner
+     */
+    private void prepareRequest(String serverBase, TeamPositionEvent event) {
+
+        if (this.request != null) {
+            return;
+        }
+
+        HttpPost httpPost = new HttpPost(serverBase + TEAMPOSITION_PREFIX);
         String json =
                 "{\n" + "               \"position\": {\n" + "                              \"latitude\": " + event
                         .getLat() + ",\n" + "                              \"longitude\": " + event.getLon() + "\n"
                         + "               },\n" + "               \"status\": \"Not ready\",\n"
                         + "               \"description\": \"\"\n" + "}\n";
-        StringEntity entity = new StringEntity(json);
-        httpPost.setEntity(entity);
+        httpPost.setEntity(new ByteArrayEntity(json.getBytes(StandardCharsets.ISO_8859_1)));
         httpPost.setHeader("Accept", "application/json");
         httpPost.setHeader("Content-type", "application/json");
-
-        CloseableHttpResponse response = httpClient.execute(httpPost);
-        int statusCode = response.getStatusLine().getStatusCode();
-        if (statusCode != HttpStatus.SC_OK) {
-            httpClient.close();
-            throw new HttpException("Request failed with status code: " + statusCode);
-        }
-        httpClient.close();
+        this.request = httpPost;
     }
 
+    private void sendRequest(String serverBase, TeamPositionEvent event) throws IOException, HttpException {
+        TeamPositionSession session = TeamPositionSession.of(serverBase,
+                this.configuration.getPropertyValue("tpUname").toString(),
+                this.configuration.getPropertyValue("tpPswd").toString());
+        this.prepareRequest(serverBase, event);
 
-    public boolean login(String baseServer, String username, String password) {
-        try {
-            final HttpGet loginGet = new HttpGet(baseServer + loginPostfix(username, password));
-            loginGet.setHeader(HTTPREQUEST_HEADER_ACCEPT, HTTPREQUEST_TYPE_JSON);
-            httpClient.execute(loginGet);
-            return true;
-        } catch (IOException e) {
-            log.info(e.getMessage(), e);
-            return false;
+        int statusCode = session.execute(this.request);
+        if (statusCode != HttpStatus.SC_OK) {
+            throw new HttpStatusException(statusCode);
         }
     }
 }
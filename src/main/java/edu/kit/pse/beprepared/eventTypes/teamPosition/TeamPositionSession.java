@@ -0,0 +1,232 @@
+package edu.kit.pse.beprepared.eventTypes.teamPosition;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A logged-in session of a user at a team position server.
+ * <p>
+ * Sessions are shared by all {@link TeamPositionRequestRunner}s that use the same server and user, so the login is
+ * performed once instead of before every request. All sessions of a server share a pool of keep-alive connections.
+ * If the server rejects a request with {@code 401 Unauthorized}, the session logs in again and the request is
+ * repeated once.
+ */
+class TeamPositionSession {
+
+    /**
+     * The maximum number of connections kept open to a single server.
+     */
+    private static final int MAX_CONNECTIONS_PER_SERVER = 64;
+    /**
+     * The connection pools, mapped by the base URL of their server.
+     */
+    private static final ConcurrentHashMap<String, PoolingHttpClientConnectionManager> CONNECTION_POOLS =
+            new ConcurrentHashMap<>();
+    /**
+     * All sessions, mapped by the base URL of their server and their user name.
+     */
+    private static final ConcurrentHashMap<String, TeamPositionSession> SESSIONS = new ConcurrentHashMap<>();
+
+    /**
+     * The {@link Logger} instance used by objects of this class.
+     */
+    private final Logger log = Logger.getLogger(TeamPositionSession.class);
+    /**
+     * The base URL of the server.
+     */
+    private final String serverBase;
+    /**
+     * The name of the user.
+     */
+    private final String username;
+    /**
+     * The client used for all requests of this session. Holds the session cookies.
+     */
+    private final CloseableHttpClient httpClient;
+    /**
+     * The cookies of this session.
+     */
+    private final BasicCookieStore cookieStore;
+    /**
+     * The password of the user.
+     */
+    private volatile String password;
+    /**
+     * Whether the user is currently logged in.
+     */
+    private boolean loggedIn;
+    /**
+     * The number of logins performed so far. Used to avoid logging in again for every request that has been rejected
+     * by the same expired session.
+     */
+    private int loginCount;
+
+    /**
+     * Constructor.
+     *
+     * @param serverBase the base URL of the server
+     * @param username   the name of the user
+     * @param password   the password of the user
+     */
+    private TeamPositionSession(final String serverBase, final String username, final String password) {
+
+        this.serverBase = serverBase;
+        this.username = username;
+        this.password = password;
+        this.cookieStore = new BasicCookieStore();
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(CONNECTION_POOLS.computeIfAbsent(serverBase,
+                        s -> createConnectionPool()))
+                .setConnectionManagerShared(true)
+                .setDefaultCookieStore(this.cookieStore)
+                .build();
+        this.loggedIn = false;
+        this.loginCount = 0;
+    }
+
+    /**
+     * Returns the session of a user at a server, creating it if necessary.
+     *
+     * @param serverBase the base URL of the server
+     * @param username   the name of the user
+     * @param password   the password of the user, which replaces the password of an existing session
+     * @return the session
+     */
+    static TeamPositionSession of(final String serverBase, final String username, final String password) {
+
+        TeamPositionSession session = SESSIONS.computeIfAbsent(serverBase + '\n' + username,
+                k -> new TeamPositionSession(serverBase, username, password));
+        session.password = password;
+        return session;
+    }
+
+    /**
+     * Creates the connection pool of a server.
+     *
+     * @return the connection pool
+     */
+    private static PoolingHttpClientConnectionManager createConnectionPool() {
+
+        PoolingHttpClientConnectionManager pool = new PoolingHttpClientConnectionManager();
+        pool.setMaxTotal(MAX_CONNECTIONS_PER_SERVER);
+        pool.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_SERVER);
+        return pool;
+    }
+
+    /**
+     * Executes a request within this session, logging in first if necessary.
+     * <p>
+     * If the server responds with {@code 401 Unauthorized}, the session logs in again and the request is repeated
+     * once. The response body is discarded, so the connection can be reused.
+     *
+     * @param request the request
+     * @return the status code of the response
+     * @throws IOException   if the request fails
+     * @throws HttpException if the login is rejected by the server
+     */
+    int execute(final HttpRequestBase request) throws IOException, HttpException {
+
+        int login = this.ensureLoggedIn();
+        int statusCode = this.executeAndDiscard(request);
+        if (statusCode == HttpStatus.SC_UNAUTHORIZED) {
+            log.debug("Session of " + this.username + " at " + this.serverBase + " has expired, logging in again");
+            this.loginAgain(login);
+            statusCode = this.executeAndDiscard(request);
+        }
+        return statusCode;
+    }
+
+    /**
+     * Logs in ahead of the first request, unless the user is logged in already. This also opens the first
+     * connection of the pool of the server.
+     *
+     * @throws IOException   if the login request fails
+     * @throws HttpException if the login is rejected by the server
+     */
+    void warmUp() throws IOException, HttpException {
+        this.ensureLoggedIn();
+    }
+
+    /**
+     * Logs in, unless the user is logged in already.
+     *
+     * @return the number of the current login
+     * @throws IOException   if the login request fails
+     * @throws HttpException if the login is rejected by the server
+     */
+    private synchronized int ensureLoggedIn() throws IOException, HttpException {
+
+        if (!this.loggedIn) {
+            this.login();
+        }
+        return this.loginCount;
+    }
+
+    /**
+     * Logs in again, unless this has already been done by another request since the supplied login.
+     *
+     * @param expiredLogin the number of the login that has been rejected
+     * @throws IOException   if the login request fails
+     * @throws HttpException if the login is rejected by the server
+     */
+    private synchronized void loginAgain(final int expiredLogin) throws IOException, HttpException {
+
+        if (this.loginCount == expiredLogin) {
+            this.loggedIn = false;
+            this.cookieStore.clear();
+            this.login();
+        }
+    }
+
+    /**
+     * Performs the login request.
+     * <p>
+     * Must only be called while holding the monitor of this session.
+     *
+     * @throws IOException   if the login request fails
+     * @throws HttpException if the login is rejected by the server
+     */
+    private void login() throws IOException, HttpException {
+
+        HttpGet loginGet = new HttpGet(this.serverBase
+                + TeamPositionRequestRunner.loginPostfix(this.username, this.password));
+        loginGet.setHeader(TeamPositionRequestRunner.HTTPREQUEST_HEADER_ACCEPT,
+                TeamPositionRequestRunner.HTTPREQUEST_TYPE_JSON);
+
+        int statusCode = this.executeAndDiscard(loginGet);
+        if (statusCode >= 400) {
+            throw new HttpException("Login failed with status code: " + statusCode);
+        }
+
+        this.loggedIn = true;
+        this.loginCount++;
+        log.info("Logged in " + this.username + " at " + this.serverBase);
+    }
+
+    /**
+     * Executes a request and discards the response body.
+     *
+     * @param request the request
+     * @return the status code of the response
+     * @throws IOException if the request fails
+     */
+    private int executeAndDiscard(final HttpRequestBase request) throws IOException {
+
+        try (CloseableHttpResponse response = this.httpClient.execute(request)) {
+            EntityUtils.consume(response.getEntity());
+            return response.getStatusLine().getStatusCode();
+        }
+    }
+}
@@ -1,18 +1,67 @@
 package edu.kit.pse.beprepared.eventTypes.telegramMessageEvent;
 
+import org.apache.log4j.Logger;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A custom Telegram bot used for bePrepared.
+ * <p>
+ * There is one bot per token, shared by all {@link MessageEventRequestRunner}s. Sending is throttled to the limits
+ * Telegram imposes on a bot: {@link this#GLOBAL_MESSAGES_PER_SECOND} in total and
+ * {@link this#CHAT_MESSAGES_PER_MINUTE} per group or channel. A runner takes its turn with {@link this#tryAcquire()}
+ * before it sends anything, so no thread waits for its turn. If Telegram still rejects a request with
+ * {@code 429 Too Many Requests}, sending to the chat is paused for the time Telegram asks for, and the runner is
+ * retried once the pause is over.
  */
 public class BpTelegramBot extends TelegramLongPollingBot {
 
+    /**
+     * The maximum number of messages a bot may send per second.
+     */
+    private static final double GLOBAL_MESSAGES_PER_SECOND = 30;
+    /**
+     * The maximum number of messages a bot may send to the same group or channel per minute.
+     */
+    private static final double CHAT_MESSAGES_PER_MINUTE = 20;
+    /**
+     * The HTTP status code Telegram rejects requests with if a limit has been exceeded.
+     */
+    static final int TOO_MANY_REQUESTS = 429;
+    /**
+     * The HTTP status code Telegram rejects requests with if they are invalid, e.g. refer to an unknown file.
+     */
+    private static final int BAD_REQUEST = 400;
+    /**
+     * All bots, mapped by their token and channel name.
+     */
+    private static final ConcurrentHashMap<String, BpTelegramBot> BOTS = new ConcurrentHashMap<>();
+
+    /**
+     * The {@link Logger} instance used by objects of this class.
+     */
+    private final Logger log = Logger.getLogger(BpTelegramBot.class);
+    /**
+     * The limit of all requests sent by this bot.
+     */
+    private final TokenBucket globalLimit;
+    /**
+     * The limit of the requests sent to {@link this#channelName}.
+     */
+    private final TokenBucket chatLimit;
+    /**
+     * The {@code file_id}s of the documents uploaded by this bot.
+     */
+    private final TelegramFileIdCache fileIds;
     /**
      * The bot token.
      */
@@ -31,6 +80,20 @@ public class BpTelegramBot extends TelegramLongPollingBot {
     public BpTelegramBot(String botToken, String channelName) {
         this.botToken = botToken;
         this.channelName = channelName;
+        this.globalLimit = new TokenBucket(GLOBAL_MESSAGES_PER_SECOND, GLOBAL_MESSAGES_PER_SECOND);
+        this.chatLimit = new TokenBucket(CHAT_MESSAGES_PER_MINUTE / 60, 1);
+        this.fileIds = new TelegramFileIdCache();
+    }
+
+    /**
+     * Returns the bot with the supplied token and channel, creating it if necessary.
+     *
+     * @param botToken    the bot token
+     * @param channelName the channel name
+     * @return the bot
+     */
+    static BpTelegramBot of(String botToken, String channelName) {
+        return BOTS.computeIfAbsent(botToken + '\n' + channelName, k -> new BpTelegramBot(botToken, channelName));
     }
 
     @Override
@@ -50,26 +113,52 @@ public class BpTelegramBot extends TelegramLongPollingBot {
 
     /**
      * Sends a document with a supplied caption to {@link #channelName}.
+     * <p>
+     * A document that has been uploaded before is sent by the {@code file_id} Telegram has assigned to it instead of
+     * being uploaded again. The caller must have taken its turn, see {@link this#tryAcquire()}; if Telegram rejects
+     * the {@code file_id}, the document is uploaded right away, as the rejected request has not been delivered.
      *
      * @param caption  the caption
      * @param document the document
+     * @throws TelegramApiException if the request fails
+     * @throws IOException          if the document cannot be read
      */
-    void sendDocument(String caption, File document) throws TelegramApiException {
+    void sendDocument(String caption, File document) throws TelegramApiException, IOException {
 
         SendDocument request = new SendDocument();
         if (caption != null) {
             request.setCaption(caption);
         }
-        request.setDocument(document);
         request.setChatId(this.channelName);
 
-        execute(request);
+        String fileId = this.fileIds.get(document);
+        if (fileId != null) {
+            request.setDocument(fileId);
+            try {
+                this.send(() -> execute(request));
+                return;
+            } catch (TelegramApiRequestException e) {
+                if (e.getErrorCode() == null || e.getErrorCode() != BAD_REQUEST) {
+                    throw e;
+                }
+                log.warn("Telegram rejected file_id of " + document.getName() + ", uploading it again");
+                this.fileIds.remove(document);
+            }
+        }
+
+        request.setDocument(document);
+        Message message = this.send(() -> execute(request));
+        if (message != null && message.hasDocument()) {
+            this.fileIds.put(document, message.getDocument().getFileId());
+        }
     }
 
     /**
-     * Sends a supplied message to {@link #channelName}.
+     * Sends a supplied message to {@link #channelName}. The caller must have taken its turn, see
+     * {@link this#tryAcquire()}.
      *
      * @param message the message to send
+     * @throws TelegramApiException if the request fails
      */
     void sendMessage(String message) throws TelegramApiException {
 
@@ -77,7 +166,79 @@ public class BpTelegramBot extends TelegramLongPollingBot {
         request.setChatId(this.channelName);
         request.setText(message);
 
-        execute(request);
+        this.send(() -> execute(request));
+    }
+
+    /**
+     * Calls {@code getMe}, which checks the token and opens the connection to the Telegram Bot API before the first
+     * message is sent. Only counts against the global limit, as no chat is involved. Waits for its turn, since the
+     * simulation is warmed up before any runner is started.
+     *
+     * @throws TelegramApiException if the request fails, e.g. because the token is invalid
+     * @throws InterruptedException if the calling thread is interrupted while waiting for its turn
+     */
+    void warmUp() throws TelegramApiException, InterruptedException {
+
+        this.globalLimit.acquire();
+        getMe();
+    }
+
+    /**
+     * Takes a turn to send a request to {@link this#channelName}, if both limits allow for one right now.
+     *
+     * @return 0, if a turn has been taken, otherwise the time in ns until the next turn may be free
+     */
+    synchronized long tryAcquire() {
+
+        long nowNanos = System.nanoTime();
+        long waitNanos = this.chatLimit.tryAcquire(nowNanos);
+        if (waitNanos == 0) {
+            waitNanos = this.globalLimit.tryAcquire(nowNanos);
+            if (waitNanos > 0) {
+                this.chatLimit.refund();
+            }
+        }
+        return waitNanos;
+    }
+
+    /**
+     * Sends a request. If Telegram asks to retry later, sending to {@link this#channelName} is paused for the time it
+     * asks for, so the next turn is not free before.
+     *
+     * @param request the request
+     * @param <T>     the type of the response
+     * @return the response
+     * @throws TelegramApiException if the request fails
+     */
+    private <T> T send(Request<T> request) throws TelegramApiException {
+
+        try {
+            return request.send();
+        } catch (TelegramApiRequestException e) {
+            Integer retryAfter = e.getParameters() == null ? null : e.getParameters().getRetryAfter();
+            if (e.getErrorCode() != null && e.getErrorCode() == TOO_MANY_REQUESTS && retryAfter != null) {
+                log.warn("Telegram asked to retry after " + retryAfter + "s, pausing " + this.channelName);
+                this.chatLimit.pause(System.nanoTime(), retryAfter * 1000L);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * A request to the Telegram Bot API.
+     *
+     * @param <T> the type of the response
+     */
+    @FunctionalInterface
+    private interface Request<T> {
+
+        /**
+         * Sends the request.
+         *
+         * @return the response
+         * @throws TelegramApiException if the request fails
+         */
+        T send() throws TelegramApiException;
     }
 
 }
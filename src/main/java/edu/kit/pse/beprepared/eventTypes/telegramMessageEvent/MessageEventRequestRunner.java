@@ -15,6 +15,11 @@ import java.io.IOException;
 
 public class MessageEventRequestRunner extends RequestRunner {
 
+    /**
+     * The channel messages are sent to.
+     */
+    static final String CHANNEL_NAME = "@bePreparedPSE2019";
+
     /**
      * The logger instance used by this class.
      */
@@ -33,8 +38,17 @@ public class MessageEventRequestRunner extends RequestRunner {
     public MessageEventRequestRunner(Event event, Configuration configuration) {
         super(event, configuration);
         String apiKey = configuration.getPropertyValue("telegramAuthToken").toString();
-        String channelName = "@bePreparedPSE2019";
-        this.chatBot = new BpTelegramBot(apiKey, channelName);
+        this.chatBot = BpTelegramBot.of(apiKey, CHANNEL_NAME);
+    }
+
+    /**
+     * Takes the turn of this runner to send to the channel, see {@link BpTelegramBot#tryAcquire()}.
+     *
+     * @return 0, if this runner may be run right now, otherwise the time in ns after which to ask again
+     */
+    @Override
+    public long tryStart() {
+        return this.chatBot.tryAcquire();
     }
 
     /**
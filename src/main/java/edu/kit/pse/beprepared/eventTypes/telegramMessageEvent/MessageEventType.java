@@ -6,14 +6,22 @@ import edu.kit.pse.beprepared.model.EventType;
 import edu.kit.pse.beprepared.model.Scenario;
 import edu.kit.pse.beprepared.model.frontendDescriptors.*;
 import edu.kit.pse.beprepared.simulation.RequestRunner;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
 
 public class MessageEventType extends EventType {
 
+    /**
+     * The target key of all messages, which are all sent through the Telegram Bot API.
+     */
+    static final String TARGET_KEY = "api.telegram.org";
+
     @Override
     public void init() {
 
@@ -92,4 +100,63 @@ public class MessageEventType extends EventType {
         return new MessageEventRequestRunner(event, configuration);
     }
 
+    /**
+     * Returns the host of the Telegram Bot API as target key.
+     *
+     * @param event         the event
+     * @param configuration the {@link Configuration} of the simulation
+     * @return {@link this#TARGET_KEY}
+     */
+    @Override
+    public String getTargetKey(Event event, Configuration configuration) {
+        return TARGET_KEY;
+    }
+
+    /**
+     * The Telegram Bot API is overloaded if it answers {@code 429 Too Many Requests} although the bot keeps to the
+     * limits Telegram imposes, see {@link BpTelegramBot}.
+     *
+     * @param throwable the {@link Throwable} the runner has failed with
+     * @return {@code true}, if the target is overloaded
+     */
+    @Override
+    public boolean isOverloadSignal(Throwable throwable) {
+        return throwable instanceof TelegramApiRequestException
+                && ((TelegramApiRequestException) throwable).getErrorCode() != null
+                && isOverloadStatus(((TelegramApiRequestException) throwable).getErrorCode());
+    }
+
+    /**
+     * A message may be retried if Telegram could not be reached, has failed with a server error or has answered
+     * {@code 429 Too Many Requests}, after which {@link BpTelegramBot} holds the retry back until the time Telegram
+     * asked for has passed. Other rejected requests are not retried, and neither are documents that cannot be read.
+     *
+     * @param throwable the {@link Throwable} the runner has failed with
+     * @return {@code true}, if the runner may be retried
+     */
+    @Override
+    public boolean isRetryable(Throwable throwable) {
+        if (throwable instanceof TelegramApiRequestException) {
+            Integer errorCode = ((TelegramApiRequestException) throwable).getErrorCode();
+            return errorCode != null && (errorCode >= 500 || errorCode == BpTelegramBot.TOO_MANY_REQUESTS);
+        }
+        return throwable instanceof TelegramApiException;
+    }
+
+    /**
+     * Checks the token of the bot, which also opens the connection to the Telegram Bot API before the first event.
+     *
+     * @param events        the events of this type the simulation runs
+     * @param configuration the {@link Configuration} of the simulation
+     * @throws Exception if the token is rejected or Telegram cannot be reached
+     */
+    @Override
+    public void warmUp(Collection<Event> events, Configuration configuration) throws Exception {
+
+        if (events.isEmpty()) {
+            return;
+        }
+        BpTelegramBot.of(configuration.getPropertyValue("telegramAuthToken").toString(),
+                MessageEventRequestRunner.CHANNEL_NAME).warmUp();
+    }
 }
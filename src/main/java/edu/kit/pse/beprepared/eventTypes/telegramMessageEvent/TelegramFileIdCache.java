@@ -0,0 +1,153 @@
+package edu.kit.pse.beprepared.eventTypes.telegramMessageEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps the files uploaded by a bot to the {@code file_id} Telegram has assigned to them.
+ * <p>
+ * A file that has been uploaded once can be sent again by its {@code file_id}, which avoids uploading its content
+ * again. Files are identified by their name and the SHA-256 hash of their content, so a file that has been replaced
+ * under the same name is uploaded again. The hash of a file is only computed again if its size or modification time
+ * has changed.
+ */
+class TelegramFileIdCache {
+
+    /**
+     * The {@code file_id}s, mapped by the key of their file.
+     */
+    private final ConcurrentHashMap<String, String> fileIds;
+    /**
+     * The hashes of the files, mapped by their absolute path.
+     */
+    private final ConcurrentHashMap<String, Hash> hashes;
+
+    /**
+     * Constructor.
+     * <p>
+     * Creates a new, empty cache.
+     */
+    TelegramFileIdCache() {
+        this.fileIds = new ConcurrentHashMap<>();
+        this.hashes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Looks up the {@code file_id} of a file.
+     *
+     * @param file the file
+     * @return the {@code file_id} or {@code null}, if the file has not been uploaded yet
+     * @throws IOException if the file cannot be read
+     */
+    String get(final File file) throws IOException {
+        return this.fileIds.get(this.keyOf(file));
+    }
+
+    /**
+     * Stores the {@code file_id} of an uploaded file.
+     *
+     * @param file   the file
+     * @param fileId the {@code file_id} Telegram has assigned to the file
+     * @throws IOException if the file cannot be read
+     */
+    void put(final File file, final String fileId) throws IOException {
+        this.fileIds.put(this.keyOf(file), fileId);
+    }
+
+    /**
+     * Removes the {@code file_id} of a file, e.g. because Telegram does not accept it anymore.
+     *
+     * @param file the file
+     * @throws IOException if the file cannot be read
+     */
+    void remove(final File file) throws IOException {
+        this.fileIds.remove(this.keyOf(file));
+    }
+
+    /**
+     * Creates the key of a file from its name and the hash of its content.
+     *
+     * @param file the file
+     * @return the key
+     * @throws IOException if the file cannot be read
+     */
+    private String keyOf(final File file) throws IOException {
+
+        long length = file.length();
+        long lastModified = file.lastModified();
+        Hash hash = this.hashes.get(file.getAbsolutePath());
+        if (hash == null || hash.length != length || hash.lastModified != lastModified) {
+            hash = new Hash(length, lastModified, sha256Of(file));
+            this.hashes.put(file.getAbsolutePath(), hash);
+        }
+        return file.getName() + '\n' + hash.sha256;
+    }
+
+    /**
+     * Computes the SHA-256 hash of the content of a file.
+     *
+     * @param file the file
+     * @return the hash as hexadecimal {@link String}
+     * @throws IOException if the file cannot be read
+     */
+    private static String sha256Of(final File file) throws IOException {
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file.toPath()), digest)) {
+            while (in.read(buffer) != -1) {
+                // the stream updates the digest
+            }
+        }
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * The hash of a file together with the size and modification time it has been computed for.
+     */
+    private static final class Hash {
+
+        /**
+         * The size of the file in bytes.
+         */
+        private final long length;
+        /**
+         * The modification time of the file.
+         */
+        private final long lastModified;
+        /**
+         * The SHA-256 hash of the content of the file.
+         */
+        private final String sha256;
+
+        /**
+         * Constructor.
+         *
+         * @param length       the size of the file in bytes
+         * @param lastModified the modification time of the file
+         * @param sha256       the SHA-256 hash of the content of the file
+         */
+        private Hash(final long length, final long lastModified, final String sha256) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.sha256 = sha256;
+        }
+    }
+}
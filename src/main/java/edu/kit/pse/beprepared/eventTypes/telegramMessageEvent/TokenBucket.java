@@ -0,0 +1,125 @@
+package edu.kit.pse.beprepared.eventTypes.telegramMessageEvent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket limiting the rate of requests.
+ * <p>
+ * The bucket holds up to {@link this#capacity} tokens and is refilled at {@link this#tokensPerSecond}. Every request
+ * takes one token, so no more than {@link this#capacity} requests are sent in a burst. Callers that must not block
+ * take a token with {@link this#tryAcquire(long)}, which tells them how long to wait if the bucket is empty. Other
+ * callers borrow the token from the future with {@link this#acquire()} and wait until it would have been refilled.
+ */
+class TokenBucket {
+
+    /**
+     * The number of tokens refilled per second.
+     */
+    private final double tokensPerSecond;
+    /**
+     * The maximum number of tokens.
+     */
+    private final double capacity;
+    /**
+     * The number of tokens at {@link this#updatedNanos}. Negative if tokens have been borrowed.
+     */
+    private double tokens;
+    /**
+     * The point in time (as in {@link System#nanoTime()}) {@link this#tokens} has been updated.
+     */
+    private long updatedNanos;
+
+    /**
+     * Constructor.
+     * <p>
+     * Creates a full bucket.
+     *
+     * @param tokensPerSecond the number of tokens refilled per second
+     * @param capacity        the maximum number of tokens
+     */
+    TokenBucket(final double tokensPerSecond, final double capacity) {
+        this.tokensPerSecond = tokensPerSecond;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.updatedNanos = System.nanoTime();
+    }
+
+    /**
+     * Takes a token and waits until it is available.
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    void acquire() throws InterruptedException {
+
+        long waitNanos = this.reserve(System.nanoTime());
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Takes a token, if one is available right now.
+     *
+     * @param nowNanos the current point in time as in {@link System#nanoTime()}
+     * @return 0, if a token has been taken, otherwise the time in ns until one is available
+     */
+    synchronized long tryAcquire(final long nowNanos) {
+
+        this.refill(nowNanos);
+        if (this.tokens >= 1) {
+            this.tokens--;
+            return 0;
+        }
+        return (long) Math.ceil((1 - this.tokens) / this.tokensPerSecond * 1e9);
+    }
+
+    /**
+     * Puts back a token that has been taken but not used.
+     */
+    synchronized void refund() {
+        this.tokens = Math.min(this.capacity, this.tokens + 1);
+    }
+
+    /**
+     * Takes a token.
+     *
+     * @param nowNanos the current point in time as in {@link System#nanoTime()}
+     * @return the time in ns until the token is available
+     */
+    synchronized long reserve(final long nowNanos) {
+
+        this.refill(nowNanos);
+        this.tokens--;
+        return this.tokens >= 0 ? 0 : (long) Math.ceil(-this.tokens / this.tokensPerSecond * 1e9);
+    }
+
+    /**
+     * Empties the bucket for a period of time, e.g. because the server asked to retry after it.
+     * <p>
+     * Callers already waiting are not affected. Callers asking for a token afterwards wait until the period has
+     * passed, or longer if even more tokens have been borrowed already.
+     *
+     * @param nowNanos    the current point in time as in {@link System#nanoTime()}
+     * @param pauseMillis the period in ms
+     */
+    synchronized void pause(final long nowNanos, final long pauseMillis) {
+
+        this.refill(nowNanos);
+        double pausedTokens = 1 - TimeUnit.MILLISECONDS.toNanos(pauseMillis) / 1e9 * this.tokensPerSecond;
+        this.tokens = Math.min(this.tokens, pausedTokens);
+    }
+
+    /**
+     * Adds the tokens refilled since {@link this#updatedNanos}.
+     *
+     * @param nowNanos the current point in time as in {@link System#nanoTime()}
+     */
+    private void refill(final long nowNanos) {
+
+        long elapsedNanos = nowNanos - this.updatedNanos;
+        if (elapsedNanos > 0) {
+            this.tokens = Math.min(this.capacity, this.tokens + elapsedNanos / 1e9 * this.tokensPerSecond);
+            this.updatedNanos = nowNanos;
+        }
+    }
+}
@@ -18,6 +18,7 @@ public class EventJson {
     private long eventID;
     private String type;
     private long pointInTime;
+    private Long pointInTimeNanos;
     private HashMap<String, Object> data;
 
 
@@ -33,6 +34,7 @@ public class EventJson {
         this.eventID = event.getId();
         this.type = event.getEventTypeInstance().getTypeName();
         this.pointInTime = event.getPointInTime();
+        this.pointInTimeNanos = event.getPointInTimeNanos();
         this.data = event.getData();
 
     }
@@ -40,20 +42,23 @@ public class EventJson {
     /**
      * Instantiates a new {@link EventJson}.
      *
-     * @param eventID       the event id
-     * @param type          the type
-     * @param pointInTime   the point in time
-     * @param data          the data
+     * @param eventID          the event id
+     * @param type             the type
+     * @param pointInTime      the point in time in ms
+     * @param pointInTimeNanos the point in time in ns, which takes precedence over {@code pointInTime} if present
+     * @param data             the data
      */
     @JsonCreator
     public EventJson(
             @JsonProperty(value = "eventID") final long eventID,
             @JsonProperty(value = "type") final String type,
             @JsonProperty(value = "pointInTime") final long pointInTime,
+            @JsonProperty(value = "pointInTimeNanos") final Long pointInTimeNanos,
             @JsonProperty(value = "data") final HashMap<String, Object> data) {
         this.eventID = eventID;
         this.type = type;
         this.pointInTime = pointInTime;
+        this.pointInTimeNanos = pointInTimeNanos;
         this.data = data;
     }
 
@@ -111,6 +116,24 @@ public class EventJson {
         this.pointInTime = pointInTime;
     }
 
+    /**
+     * Getter for {@link this#pointInTimeNanos}.
+     *
+     * @return the point in time in ns or {@code null}, if only {@link this#pointInTime} is given
+     */
+    public Long getPointInTimeNanos() {
+        return pointInTimeNanos;
+    }
+
+    /**
+     * Setter for {@link this#pointInTimeNanos}.
+     *
+     * @param pointInTimeNanos the point in time in ns
+     */
+    public void setPointInTimeNanos(final Long pointInTimeNanos) {
+        this.pointInTimeNanos = pointInTimeNanos;
+    }
+
     /**
      * Getter for {@link this#data}.
      *
@@ -140,6 +163,7 @@ public class EventJson {
                 "eventID=" + eventID +
                 ", type='" + type + '\'' +
                 ", pointInTime=" + pointInTime +
+                ", pointInTimeNanos=" + pointInTimeNanos +
                 ", data=" + data +
                 '}';
     }
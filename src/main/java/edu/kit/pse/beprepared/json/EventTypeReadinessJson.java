@@ -0,0 +1,133 @@
+package edu.kit.pse.beprepared.json;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import edu.kit.pse.beprepared.simulation.PreparationReport;
+
+/**
+ * JSON representation of the readiness of an event type reported by {@link PreparationReport}.
+ */
+public class EventTypeReadinessJson {
+
+    /**
+     * The name of the event type.
+     */
+    private String eventType;
+    /**
+     * Whether the targets of the event type have been warmed up successfully.
+     */
+    private boolean ready;
+    /**
+     * The reason warming up failed or {@code null}, if it succeeded.
+     */
+    private String error;
+    /**
+     * The time in ms warming up took.
+     */
+    private long durationMillis;
+
+    /**
+     * Constructor.
+     *
+     * @param eventType      the name of the event type
+     * @param ready          whether the targets of the event type have been warmed up successfully
+     * @param error          the reason warming up failed or {@code null}, if it succeeded
+     * @param durationMillis the time in ms warming up took
+     */
+    @JsonCreator
+    public EventTypeReadinessJson(@JsonProperty(value = "eventType") String eventType,
+                                  @JsonProperty(value = "ready") boolean ready,
+                                  @JsonProperty(value = "error") String error,
+                                  @JsonProperty(value = "durationMillis") long durationMillis) {
+        this.eventType = eventType;
+        this.ready = ready;
+        this.error = error;
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * Constructor.
+     * <p>
+     * Constructs a new {@link EventTypeReadinessJson} from the supplied {@link PreparationReport.Entry}.
+     *
+     * @param entry the entry this JSON represents
+     */
+    public EventTypeReadinessJson(PreparationReport.Entry entry) {
+        this.eventType = entry.getEventType();
+        this.ready = entry.isReady();
+        this.error = entry.getError();
+        this.durationMillis = entry.getDurationMillis();
+    }
+
+    /**
+     * Getter for {@link this#eventType}.
+     *
+     * @return the value of {@link this#eventType}
+     */
+    public String getEventType() {
+        return eventType;
+    }
+
+    /**
+     * Setter for {@link this#eventType}.
+     *
+     * @param eventType the new value for {@link this#eventType}
+     */
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    /**
+     * Getter for {@link this#ready}.
+     *
+     * @return the value of {@link this#ready}
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Setter for {@link this#ready}.
+     *
+     * @param ready the new value for {@link this#ready}
+     */
+    public void setReady(boolean ready) {
+        this.ready = ready;
+    }
+
+    /**
+     * Getter for {@link this#error}.
+     *
+     * @return the value of {@link this#error}
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Setter for {@link this#error}.
+     *
+     * @param error the new value for {@link this#error}
+     */
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    /**
+     * Getter for {@link this#durationMillis}.
+     *
+     * @return the value of {@link this#durationMillis}
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Setter for {@link this#durationMillis}.
+     *
+     * @param durationMillis the new value for {@link this#durationMillis}
+     */
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+}
@@ -2,7 +2,10 @@ package edu.kit.pse.beprepared.json;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import edu.kit.pse.beprepared.model.Configuration;
+import edu.kit.pse.beprepared.model.Event;
 import edu.kit.pse.beprepared.simulation.ExecutionReport;
+import edu.kit.pse.beprepared.simulation.ExecutionResultStore;
 import edu.kit.pse.beprepared.simulation.ExecutionStatus;
 import edu.kit.pse.beprepared.simulation.RequestRunner;
 
@@ -15,6 +18,7 @@ public class ExecutionReportJson {
     private ExecutionStatus executionStatus;
     private String throwable;
     private long pointInTime;
+    private int attempts;
 
     /**
      * Constructor.
@@ -22,16 +26,19 @@ public class ExecutionReportJson {
      * @param requestRunner   a JSON representation of the {@link RequestRunner} this report belongs to
      * @param executionStatus the status of the request runner
      * @param throwable       the throwable that may have occured during the execution
+     * @param attempts        the number of times the request runner has been run, including retries
      */
     @JsonCreator
     public ExecutionReportJson(@JsonProperty(value = "requestRunner") RequestRunnerJson requestRunner,
                                @JsonProperty(value = "executionStatus") ExecutionStatus executionStatus,
                                @JsonProperty(value = "throwable") String throwable,
-                               @JsonProperty(value = "pointInTime") long pointInTime) {
+                               @JsonProperty(value = "pointInTime") long pointInTime,
+                               @JsonProperty(value = "attempts") int attempts) {
         this.requestRunner = requestRunner;
         this.executionStatus = executionStatus;
         this.throwable = throwable;
         this.pointInTime = pointInTime;
+        this.attempts = attempts;
     }
 
     /**
@@ -49,6 +56,30 @@ public class ExecutionReportJson {
             this.throwable = report.getThrowable().getClass().getSimpleName() + ": " + report.getThrowable().getMessage();
         }
         this.pointInTime = report.getPointInTime();
+        this.attempts = 1;
+
+    }
+
+    /**
+     * Constructor.
+     * <p>
+     * Constructs a new {@link ExecutionReportJson} from a row of the supplied {@link ExecutionResultStore}.
+     *
+     * @param results       the store containing the result
+     * @param row           the index of the row in the store
+     * @param event         the event the result belongs to or {@code null}, if it does not exist any more
+     * @param configuration the configuration the event has been executed with
+     */
+    public ExecutionReportJson(ExecutionResultStore results, int row, Event event, Configuration configuration) {
+
+        EventJson eventJson = event != null
+                ? new EventJson(event)
+                : new EventJson(results.getEventId(row), null, 0, null, null);
+        this.requestRunner = new RequestRunnerJson(eventJson, new ConfigurationJson(configuration));
+        this.executionStatus = results.getStatus(row);
+        this.throwable = results.getError(row);
+        this.pointInTime = results.toEpochMillis(results.getCompletionNanos(row));
+        this.attempts = results.getAttempts(row);
 
     }
 
@@ -123,4 +154,22 @@ public class ExecutionReportJson {
     public void setPointInTime(long pointInTime) {
         this.pointInTime = pointInTime;
     }
+
+    /**
+     * Getter for {@link this#attempts}.
+     *
+     * @return the value of {@link this#attempts}
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Setter for {@link this#attempts}.
+     *
+     * @param attempts the new value for {@link this#attempts}
+     */
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
 }
@@ -0,0 +1,107 @@
+package edu.kit.pse.beprepared.json;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import edu.kit.pse.beprepared.simulation.SimulationMetrics;
+
+/**
+ * JSON representation of {@link SimulationMetrics.Latencies}.
+ */
+public class LatenciesJson {
+
+    /**
+     * The dispatch lateness.
+     */
+    private LatencyHistogramJson dispatchLateness;
+    /**
+     * The queue wait.
+     */
+    private LatencyHistogramJson queueWait;
+    /**
+     * The execution latency.
+     */
+    private LatencyHistogramJson executionLatency;
+
+    /**
+     * Constructor.
+     *
+     * @param dispatchLateness the dispatch lateness
+     * @param queueWait        the queue wait
+     * @param executionLatency the execution latency
+     */
+    @JsonCreator
+    public LatenciesJson(@JsonProperty(value = "dispatchLateness") LatencyHistogramJson dispatchLateness,
+                         @JsonProperty(value = "queueWait") LatencyHistogramJson queueWait,
+                         @JsonProperty(value = "executionLatency") LatencyHistogramJson executionLatency) {
+        this.dispatchLateness = dispatchLateness;
+        this.queueWait = queueWait;
+        this.executionLatency = executionLatency;
+    }
+
+    /**
+     * Constructor.
+     * <p>
+     * Constructs a new {@link LatenciesJson} from the supplied {@link SimulationMetrics.Latencies}.
+     *
+     * @param latencies the latencies this JSON represents
+     */
+    public LatenciesJson(SimulationMetrics.Latencies latencies) {
+        this.dispatchLateness = new LatencyHistogramJson(latencies.getDispatchLateness());
+        this.queueWait = new LatencyHistogramJson(latencies.getQueueWait());
+        this.executionLatency = new LatencyHistogramJson(latencies.getExecutionLatency());
+    }
+
+    /**
+     * Getter for {@link this#dispatchLateness}.
+     *
+     * @return the value of {@link this#dispatchLateness}
+     */
+    public LatencyHistogramJson getDispatchLateness() {
+        return dispatchLateness;
+    }
+
+    /**
+     * Setter for {@link this#dispatchLateness}.
+     *
+     * @param dispatchLateness the new value for {@link this#dispatchLateness}
+     */
+    public void setDispatchLateness(LatencyHistogramJson dispatchLateness) {
+        this.dispatchLateness = dispatchLateness;
+    }
+
+    /**
+     * Getter for {@link this#queueWait}.
+     *
+     * @return the value of {@link this#queueWait}
+     */
+    public LatencyHistogramJson getQueueWait() {
+        return queueWait;
+    }
+
+    /**
+     * Setter for {@link this#queueWait}.
+     *
+     * @param queueWait the new value for {@link this#queueWait}
+     */
+    public void setQueueWait(LatencyHistogramJson queueWait) {
+        this.queueWait = queueWait;
+    }
+
+    /**
+     * Getter for {@link this#executionLatency}.
+     *
+     * @return the value of {@link this#executionLatency}
+     */
+    public LatencyHistogramJson getExecutionLatency() {
+        return executionLatency;
+    }
+
+    /**
+     * Setter for {@link this#executionLatency}.
+     *
+     * @param executionLatency the new value for {@link this#executionLatency}
+     */
+    public void setExecutionLatency(LatencyHistogramJson executionLatency) {
+        this.executionLatency = executionLatency;
+    }
+}
@@ -0,0 +1,242 @@
+package edu.kit.pse.beprepared.json;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import edu.kit.pse.beprepared.simulation.LatencyHistogram;
+
+/**
+ * JSON representation of a {@link LatencyHistogram}. All durations are in ms.
+ */
+public class LatencyHistogramJson {
+
+    /**
+     * The number of ns per ms.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * The number of recorded values.
+     */
+    private long count;
+    /**
+     * The smallest recorded value in ms.
+     */
+    private double min;
+    /**
+     * The largest recorded value in ms.
+     */
+    private double max;
+    /**
+     * The mean of all recorded values in ms.
+     */
+    private double mean;
+    /**
+     * The median in ms.
+     */
+    private double p50;
+    /**
+     * The 90th percentile in ms.
+     */
+    private double p90;
+    /**
+     * The 99th percentile in ms.
+     */
+    private double p99;
+    /**
+     * The 99.9th percentile in ms.
+     */
+    private double p999;
+
+    /**
+     * Constructor.
+     *
+     * @param count the number of recorded values
+     * @param min   the smallest recorded value in ms
+     * @param max   the largest recorded value in ms
+     * @param mean  the mean of all recorded values in ms
+     * @param p50   the median in ms
+     * @param p90   the 90th percentile in ms
+     * @param p99   the 99th percentile in ms
+     * @param p999  the 99.9th percentile in ms
+     */
+    @JsonCreator
+    public LatencyHistogramJson(@JsonProperty(value = "count") long count,
+                                @JsonProperty(value = "min") double min,
+                                @JsonProperty(value = "max") double max,
+                                @JsonProperty(value = "mean") double mean,
+                                @JsonProperty(value = "p50") double p50,
+                                @JsonProperty(value = "p90") double p90,
+                                @JsonProperty(value = "p99") double p99,
+                                @JsonProperty(value = "p999") double p999) {
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+    }
+
+    /**
+     * Constructor.
+     * <p>
+     * Constructs a new {@link LatencyHistogramJson} from the supplied {@link LatencyHistogram}.
+     *
+     * @param histogram the histogram this JSON represents
+     */
+    public LatencyHistogramJson(LatencyHistogram histogram) {
+        this.count = histogram.getCount();
+        this.min = histogram.getMin() / NANOS_PER_MILLI;
+        this.max = histogram.getMax() / NANOS_PER_MILLI;
+        this.mean = histogram.getMean() / NANOS_PER_MILLI;
+        this.p50 = histogram.getValueAtPercentile(50) / NANOS_PER_MILLI;
+        this.p90 = histogram.getValueAtPercentile(90) / NANOS_PER_MILLI;
+        this.p99 = histogram.getValueAtPercentile(99) / NANOS_PER_MILLI;
+        this.p999 = histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Getter for {@link this#count}.
+     *
+     * @return the value of {@link this#count}
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Setter for {@link this#count}.
+     *
+     * @param count the new value for {@link this#count}
+     */
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    /**
+     * Getter for {@link this#min}.
+     *
+     * @return the value of {@link this#min}
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Setter for {@link this#min}.
+     *
+     * @param min the new value for {@link this#min}
+     */
+    public void setMin(double min) {
+        this.min = min;
+    }
+
+    /**
+     * Getter for {@link this#max}.
+     *
+     * @return the value of {@link this#max}
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Setter for {@link this#max}.
+     *
+     * @param max the new value for {@link this#max}
+     */
+    public void setMax(double max) {
+        this.max = max;
+    }
+
+    /**
+     * Getter for {@link this#mean}.
+     *
+     * @return the value of {@link this#mean}
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Setter for {@link this#mean}.
+     *
+     * @param mean the new value for {@link this#mean}
+     */
+    public void setMean(double mean) {
+        this.mean = mean;
+    }
+
+    /**
+     * Getter for {@link this#p50}.
+     *
+     * @return the value of {@link this#p50}
+     */
+    public double getP50() {
+        return p50;
+    }
+
+    /**
+     * Setter for {@link this#p50}.
+     *
+     * @param p50 the new value for {@link this#p50}
+     */
+    public void setP50(double p50) {
+        this.p50 = p50;
+    }
+
+    /**
+     * Getter for {@link this#p90}.
+     *
+     * @return the value of {@link this#p90}
+     */
+    public double getP90() {
+        return p90;
+    }
+
+    /**
+     * Setter for {@link this#p90}.
+     *
+     * @param p90 the new value for {@link this#p90}
+     */
+    public void setP90(double p90) {
+        this.p90 = p90;
+    }
+
+    /**
+     * Getter for {@link this#p99}.
+     *
+     * @return the value of {@link this#p99}
+     */
+    public double getP99() {
+        return p99;
+    }
+
+    /**
+     * Setter for {@link this#p99}.
+     *
+     * @param p99 the new value for {@link this#p99}
+     */
+    public void setP99(double p99) {
+        this.p99 = p99;
+    }
+
+    /**
+     * Getter for {@link this#p999}.
+     *
+     * @return the value of {@link this#p999}
+     */
+    public double getP999() {
+        return p999;
+    }
+
+    /**
+     * Setter for {@link this#p999}.
+     *
+     * @param p999 the new value for {@link this#p999}
+     */
+    public void setP999(double p999) {
+        this.p999 = p999;
+    }
+}
@@ -0,0 +1,165 @@
+package edu.kit.pse.beprepared.json;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import edu.kit.pse.beprepared.simulation.PreparationReport;
+import edu.kit.pse.beprepared.simulation.Simulation;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * JSON representation of the {@link PreparationReport} of a {@link Simulation}.
+ */
+public class PreparationReportJson {
+
+    /**
+     * The id of the simulation.
+     */
+    private int simulationID;
+    /**
+     * Whether all event types are ready.
+     */
+    private boolean ready;
+    /**
+     * The time in ms preparing the simulation took.
+     */
+    private long durationMillis;
+    /**
+     * The number of request runners prepared to warm up their code paths.
+     */
+    private int warmedUpRunners;
+    /**
+     * The readiness of the event types used by the simulation.
+     */
+    private List<EventTypeReadinessJson> eventTypes;
+
+    /**
+     * Constructor.
+     *
+     * @param simulationID    the id of the simulation
+     * @param ready           whether all event types are ready
+     * @param durationMillis  the time in ms preparing the simulation took
+     * @param warmedUpRunners the number of request runners prepared to warm up their code paths
+     * @param eventTypes      the readiness of the event types used by the simulation
+     */
+    @JsonCreator
+    public PreparationReportJson(@JsonProperty(value = "simulationID") int simulationID,
+                                 @JsonProperty(value = "ready") boolean ready,
+                                 @JsonProperty(value = "durationMillis") long durationMillis,
+                                 @JsonProperty(value = "warmedUpRunners") int warmedUpRunners,
+                                 @JsonProperty(value = "eventTypes") List<EventTypeReadinessJson> eventTypes) {
+        this.simulationID = simulationID;
+        this.ready = ready;
+        this.durationMillis = durationMillis;
+        this.warmedUpRunners = warmedUpRunners;
+        this.eventTypes = eventTypes;
+    }
+
+    /**
+     * Constructor.
+     * <p>
+     * Constructs a new {@link PreparationReportJson} from the supplied {@link PreparationReport}.
+     *
+     * @param simulationID the id of the simulation that has been prepared
+     * @param report       the report this JSON represents
+     */
+    public PreparationReportJson(int simulationID, PreparationReport report) {
+        this.simulationID = simulationID;
+        this.ready = report.isReady();
+        this.durationMillis = report.getDurationMillis();
+        this.warmedUpRunners = report.getWarmedUpRunners();
+        this.eventTypes = report.getEntries().stream().map(EventTypeReadinessJson::new).collect(Collectors.toList());
+    }
+
+    /**
+     * Getter for {@link this#simulationID}.
+     *
+     * @return the value of {@link this#simulationID}
+     */
+    public int getSimulationID() {
+        return simulationID;
+    }
+
+    /**
+     * Setter for {@link this#simulationID}.
+     *
+     * @param simulationID the new value for {@link this#simulationID}
+     */
+    public void setSimulationID(int simulationID) {
+        this.simulationID = simulationID;
+    }
+
+
+    /**
+     * Getter for {@link this#ready}.
+     *
+     * @return the value of {@link this#ready}
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Setter for {@link this#ready}.
+     *
+     * @param ready the new value for {@link this#ready}
+     */
+    public void setReady(boolean ready) {
+        this.ready = ready;
+    }
+
+    /**
+     * Getter for {@link this#durationMillis}.
+     *
+     * @return the value of {@link this#durationMillis}
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Setter for {@link this#durationMillis}.
+     *
+     * @param durationMillis the new value for {@link this#durationMillis}
+     */
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * Getter for {@link this#warmedUpRunners}.
+     *
+     * @return the value of {@link this#warmedUpRunners}
+     */
+    public int getWarmedUpRunners() {
+        return warmedUpRunners;
+    }
+
+    /**
+     * Setter for {@link this#warmedUpRunners}.
+     *
+     * @param warmedUpRunners the new value for {@link this#warmedUpRunners}
+     */
+    public void setWarmedUpRunners(int warmedUpRunners) {
+        this.warmedUpRunners = warmedUpRunners;
+    }
+
+    /**
+     * Getter for {@link this#eventTypes}.
+     *
+     * @return the value of {@link this#eventTypes}
+     */
+    public List<EventTypeReadinessJson> getEventTypes() {
+        return eventTypes;
+    }
+
+    /**
+     * Setter for {@link this#eventTypes}.
+     *
+     * @param eventTypes the new value for {@link this#eventTypes}
+     */
+    public void setEventTypes(List<EventTypeReadinessJson> eventTypes) {
+        this.eventTypes = eventTypes;
+    }
+}
@@ -2,6 +2,7 @@ package edu.kit.pse.beprepared.json;
 
 import edu.kit.pse.beprepared.model.Phase;
 import edu.kit.pse.beprepared.simulation.Simulation;
+import edu.kit.pse.beprepared.simulation.SimulationMode;
 import edu.kit.pse.beprepared.simulation.SimulationState;
 
 import java.util.List;
@@ -21,6 +22,7 @@ public class SimulationJson {
     private List<Integer> selectedPhaseIDs;
     private long pointInTime;
     private double speed;
+    private SimulationMode mode;
 
     /**
      * Instantiates a new {@link SimulationJson}.
@@ -50,6 +52,7 @@ public class SimulationJson {
                 .collect(Collectors.toList());
         this.pointInTime = simulation.getPointInTime();
         this.speed = simulation.getCurrentSpeed();
+        this.mode = simulation.getMode();
     }
 
     /**
@@ -160,6 +163,24 @@ public class SimulationJson {
         this.speed = speed;
     }
 
+    /**
+     * Getter for {@link this#mode}.
+     *
+     * @return the value of {@link this#mode}
+     */
+    public SimulationMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Setter for {@link this#mode}.
+     *
+     * @param mode the new value for {@link this#mode}
+     */
+    public void setMode(SimulationMode mode) {
+        this.mode = mode;
+    }
+
     /**
      * Getter for a {@link String} representation of this object.
      *
@@ -173,6 +194,7 @@ public class SimulationJson {
                 ", configuration=" + configuration +
                 ", selectedPhaseIDs=" + selectedPhaseIDs +
                 ", pointInTime=" + pointInTime +
+                ", mode=" + mode +
                 '}';
     }
 }
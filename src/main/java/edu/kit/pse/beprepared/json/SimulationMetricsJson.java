@@ -0,0 +1,243 @@
+package edu.kit.pse.beprepared.json;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import edu.kit.pse.beprepared.simulation.Simulation;
+import edu.kit.pse.beprepared.simulation.SimulationMetrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * JSON representation of the {@link SimulationMetrics} of a {@link Simulation}.
+ */
+public class SimulationMetricsJson {
+
+    /**
+     * The id of the simulation.
+     */
+    private int simulationID;
+    /**
+     * The sustained number of completed request runners per second.
+     */
+    private double requestsPerSecond;
+    /**
+     * The metrics of all request runners.
+     */
+    private LatenciesJson total;
+    /**
+     * The metrics of the request runners, mapped by the name of their event type.
+     */
+    private Map<String, LatenciesJson> eventTypes;
+    /**
+     * The time in ms the simulation is behind its scenario clock.
+     */
+    private double lagMillis;
+    /**
+     * The number of request runners of the simulation in flight.
+     */
+    private int inFlightRunners;
+    /**
+     * The number of request runners that have been dropped due to back-pressure.
+     */
+    private long shedRunners;
+    /**
+     * The number of request runners that have been dropped in favor of a later one with the same ordering key.
+     */
+    private long coalescedRunners;
+
+    /**
+     * Constructor.
+     *
+     * @param simulationID      the id of the simulation
+     * @param requestsPerSecond the sustained number of completed request runners per second
+     * @param total             the metrics of all request runners
+     * @param eventTypes        the metrics of the request runners, mapped by the name of their event type
+     * @param lagMillis         the time in ms the simulation is behind its scenario clock
+     * @param inFlightRunners   the number of request runners of the simulation in flight
+     * @param shedRunners       the number of request runners that have been dropped due to back-pressure
+     * @param coalescedRunners  the number of request runners that have been dropped in favor of a later one
+     */
+    @JsonCreator
+    public SimulationMetricsJson(@JsonProperty(value = "simulationID") int simulationID,
+                                 @JsonProperty(value = "requestsPerSecond") double requestsPerSecond,
+                                 @JsonProperty(value = "total") LatenciesJson total,
+                                 @JsonProperty(value = "eventTypes") Map<String, LatenciesJson> eventTypes,
+                                 @JsonProperty(value = "lagMillis") double lagMillis,
+                                 @JsonProperty(value = "inFlightRunners") int inFlightRunners,
+                                 @JsonProperty(value = "shedRunners") long shedRunners,
+                                 @JsonProperty(value = "coalescedRunners") long coalescedRunners) {
+        this.simulationID = simulationID;
+        this.requestsPerSecond = requestsPerSecond;
+        this.total = total;
+        this.eventTypes = eventTypes;
+        this.lagMillis = lagMillis;
+        this.inFlightRunners = inFlightRunners;
+        this.shedRunners = shedRunners;
+        this.coalescedRunners = coalescedRunners;
+    }
+
+    /**
+     * Constructor.
+     * <p>
+     * Constructs a new {@link SimulationMetricsJson} from the supplied {@link SimulationMetrics}.
+     *
+     * @param simulationID the id of the simulation the metrics belong to
+     * @param metrics      the metrics this JSON represents
+     */
+    public SimulationMetricsJson(int simulationID, SimulationMetrics metrics) {
+        this.simulationID = simulationID;
+        this.requestsPerSecond = metrics.getRequestsPerSecond();
+        this.total = new LatenciesJson(metrics.getTotal());
+        this.eventTypes = new TreeMap<>();
+        metrics.getByEventType().forEach((type, latencies) -> this.eventTypes.put(type, new LatenciesJson(latencies)));
+        this.lagMillis = metrics.getLagNanos() / 1e6;
+        this.inFlightRunners = metrics.getInFlightRunners();
+        this.shedRunners = metrics.getShedRunners();
+        this.coalescedRunners = metrics.getCoalescedRunners();
+    }
+
+    /**
+     * Getter for {@link this#simulationID}.
+     *
+     * @return the value of {@link this#simulationID}
+     */
+    public int getSimulationID() {
+        return simulationID;
+    }
+
+    /**
+     * Setter for {@link this#simulationID}.
+     *
+     * @param simulationID the new value for {@link this#simulationID}
+     */
+    public void setSimulationID(int simulationID) {
+        this.simulationID = simulationID;
+    }
+
+    /**
+     * Getter for {@link this#requestsPerSecond}.
+     *
+     * @return the value of {@link this#requestsPerSecond}
+     */
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    /**
+     * Setter for {@link this#requestsPerSecond}.
+     *
+     * @param requestsPerSecond the new value for {@link this#requestsPerSecond}
+     */
+    public void setRequestsPerSecond(double requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    /**
+     * Getter for {@link this#total}.
+     *
+     * @return the value of {@link this#total}
+     */
+    public LatenciesJson getTotal() {
+        return total;
+    }
+
+    /**
+     * Setter for {@link this#total}.
+     *
+     * @param total the new value for {@link this#total}
+     */
+    public void setTotal(LatenciesJson total) {
+        this.total = total;
+    }
+
+    /**
+     * Getter for {@link this#eventTypes}.
+     *
+     * @return the value of {@link this#eventTypes}
+     */
+    public Map<String, LatenciesJson> getEventTypes() {
+        return eventTypes;
+    }
+
+    /**
+     * Setter for {@link this#eventTypes}.
+     *
+     * @param eventTypes the new value for {@link this#eventTypes}
+     */
+    public void setEventTypes(Map<String, LatenciesJson> eventTypes) {
+        this.eventTypes = eventTypes;
+    }
+
+    /**
+     * Getter for {@link this#lagMillis}.
+     *
+     * @return the value of {@link this#lagMillis}
+     */
+    public double getLagMillis() {
+        return lagMillis;
+    }
+
+    /**
+     * Setter for {@link this#lagMillis}.
+     *
+     * @param lagMillis the new value for {@link this#lagMillis}
+     */
+    public void setLagMillis(double lagMillis) {
+        this.lagMillis = lagMillis;
+    }
+
+    /**
+     * Getter for {@link this#inFlightRunners}.
+     *
+     * @return the value of {@link this#inFlightRunners}
+     */
+    public int getInFlightRunners() {
+        return inFlightRunners;
+    }
+
+    /**
+     * Setter for {@link this#inFlightRunners}.
+     *
+     * @param inFlightRunners the new value for {@link this#inFlightRunners}
+     */
+    public void setInFlightRunners(int inFlightRunners) {
+        this.inFlightRunners = inFlightRunners;
+    }
+
+    /**
+     * Getter for {@link this#shedRunners}.
+     *
+     * @return the value of {@link this#shedRunners}
+     */
+    public long getShedRunners() {
+        return shedRunners;
+    }
+
+    /**
+     * Setter for {@link this#shedRunners}.
+     *
+     * @param shedRunners the new value for {@link this#shedRunners}
+     */
+    public void setShedRunners(long shedRunners) {
+        this.shedRunners = shedRunners;
+    }
+
+    /**
+     * Getter for {@link this#coalescedRunners}.
+     *
+     * @return the value of {@link this#coalescedRunners}
+     */
+    public long getCoalescedRunners() {
+        return coalescedRunners;
+    }
+
+    /**
+     * Setter for {@link this#coalescedRunners}.
+     *
+     * @param coalescedRunners the new value for {@link this#coalescedRunners}
+     */
+    public void setCoalescedRunners(long coalescedRunners) {
+        this.coalescedRunners = coalescedRunners;
+    }
+}
@@ -3,6 +3,7 @@ package edu.kit.pse.beprepared.model;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class represents the abstract construct of an event. To make specific events, extend this class.
@@ -21,9 +22,9 @@ public abstract class Event implements Comparable<Event> {
     private final EventType eventType;
 
     /**
-     * Point in time of the event relative to the start of the {@link Scenario} in ms.
+     * Point in time of the event relative to the start of the {@link Scenario} in ns.
      */
-    private long pointInTime;
+    private long pointInTimeNanos;
 
     /**
      * Constructor
@@ -35,7 +36,7 @@ public abstract class Event implements Comparable<Event> {
      */
     public Event(final EventType eventType, final long pointInTime) {
         this.eventType = eventType;
-        this.pointInTime = pointInTime;
+        this.pointInTimeNanos = TimeUnit.MILLISECONDS.toNanos(pointInTime);
         this.id = nextID++;
     }
 
@@ -51,10 +52,10 @@ public abstract class Event implements Comparable<Event> {
     /**
      * Gets the point in time of the event.
      *
-     * @return point in time of the evnt
+     * @return point in time of the evnt in ms, rounded down
      */
     public long getPointInTime() {
-        return pointInTime;
+        return Math.floorDiv(pointInTimeNanos, TimeUnit.MILLISECONDS.toNanos(1));
     }
 
     /**
@@ -63,7 +64,25 @@ public abstract class Event implements Comparable<Event> {
      * @param pointInTime the new point in time of the event relative to the start of the {@link Scenario} in ms.
      */
     public void setPointInTime(final long pointInTime) {
-        this.pointInTime = pointInTime;
+        this.pointInTimeNanos = TimeUnit.MILLISECONDS.toNanos(pointInTime);
+    }
+
+    /**
+     * Getter for the point in time of the event with sub-millisecond resolution.
+     *
+     * @return the point in time of the event relative to the start of the {@link Scenario} in ns
+     */
+    public long getPointInTimeNanos() {
+        return pointInTimeNanos;
+    }
+
+    /**
+     * Sets the point in time of the event with sub-millisecond resolution.
+     *
+     * @param pointInTimeNanos the new point in time of the event relative to the start of the {@link Scenario} in ns
+     */
+    public void setPointInTimeNanos(final long pointInTimeNanos) {
+        this.pointInTimeNanos = pointInTimeNanos;
     }
 
     /**
@@ -106,7 +125,7 @@ public abstract class Event implements Comparable<Event> {
      */
     @Override
     public int compareTo(final Event e) {
-        return Long.compare(this.pointInTime, e.pointInTime);
+        return Long.compare(this.pointInTimeNanos, e.pointInTimeNanos);
     }
 
     /**
@@ -118,7 +137,7 @@ public abstract class Event implements Comparable<Event> {
     public String toString() {
         return "Event{" +
                 "id=" + id +
-                ", pointInTime=" + pointInTime +
+                ", pointInTimeNanos=" + pointInTimeNanos +
                 '}';
     }
 }
@@ -6,6 +6,13 @@ import edu.kit.pse.beprepared.model.frontendDescriptors.InputField;
 import edu.kit.pse.beprepared.model.frontendDescriptors.InputFormDescriptor;
 import edu.kit.pse.beprepared.simulation.RequestRunner;
 
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.MalformedURLException;
+import java.net.NoRouteToHostException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -137,6 +144,158 @@ public abstract class EventType {
      */
     public abstract RequestRunner getRequestRunnerFor(final Event event, final Configuration configuration);
 
+    /**
+     * Returns the key of the entity the given event affects at its target, e.g. a team or a datastream.
+     * <p>
+     * The {@link RequestRunner}s of a simulation whose events share a key are executed one after another in
+     * chronological order, while runners with different keys may be executed in parallel. The default implementation
+     * returns {@code null}, i.e. the events of this type are not ordered.
+     *
+     * @param event the event
+     * @return the ordering key of the event or {@code null}, if it does not need to be ordered
+     */
+    public String getOrderingKey(final Event event) {
+        return null;
+    }
+
+    /**
+     * Returns the key of the target the given event is sent to, usually the host name of the server.
+     * <p>
+     * A simulation limits the number of {@link RequestRunner}s in flight per target key, so a slow server does not
+     * tie up all workers. The default implementation returns {@code null}, i.e. the runners of this type are only
+     * limited per simulation.
+     *
+     * @param event         the event
+     * @param configuration the {@link Configuration} of the simulation
+     * @return the target key of the event or {@code null}, if it is unknown
+     */
+    public String getTargetKey(final Event event, final Configuration configuration) {
+        return null;
+    }
+
+    /**
+     * Checks whether the events of this type replace the state of the entity they affect, e.g. a position, rather
+     * than adding to it, e.g. a message.
+     * <p>
+     * If a simulation falls behind, it may drop the older of several pending events of such a type with the same
+     * ordering key (see {@link this#getOrderingKey(Event)}) and only send the latest one. The default implementation
+     * returns {@code false}.
+     *
+     * @return {@code true}, if only the latest event per ordering key matters
+     */
+    public boolean isStateLike() {
+        return false;
+    }
+
+    /**
+     * Checks whether a failure of a {@link RequestRunner} of this type means that its target is overloaded, e.g.
+     * because it has answered {@code 429 Too Many Requests} or {@code 503 Service Unavailable}.
+     * <p>
+     * The concurrency limit of the target is reduced sharply on such a failure, see
+     * {@link edu.kit.pse.beprepared.simulation.RequestRunnerExecutor}. The default implementation returns
+     * {@code false}.
+     *
+     * @param throwable the {@link Throwable} the runner has failed with
+     * @return {@code true}, if the target is overloaded
+     */
+    public boolean isOverloadSignal(final Throwable throwable) {
+        return false;
+    }
+
+    /**
+     * Checks whether a failure of a {@link RequestRunner} of this type is transient, so the runner may succeed if it
+     * is run again, e.g. a lost connection or a {@code 503 Service Unavailable}.
+     * <p>
+     * Runners that fail transiently are retried with backoff, see
+     * {@link edu.kit.pse.beprepared.simulation.RetryPolicy}. The default implementation regards I/O errors as
+     * transient, except for malformed URLs.
+     *
+     * @param throwable the {@link Throwable} the runner has failed with
+     * @return {@code true}, if the runner may be retried
+     */
+    public boolean isRetryable(final Throwable throwable) {
+        return throwable instanceof IOException && !(throwable instanceof MalformedURLException);
+    }
+
+    /**
+     * Helper method that checks whether an HTTP status code signals a failure that may go away if the request is
+     * repeated.
+     *
+     * @param statusCode the status code
+     * @return {@code true} for {@code 408 Request Timeout}, {@code 429 Too Many Requests}, {@code 500 Internal Server
+     * Error}, {@code 502 Bad Gateway}, {@code 503 Service Unavailable} and {@code 504 Gateway Timeout}
+     */
+    protected static boolean isTransientStatus(final int statusCode) {
+        return statusCode == 408 || statusCode == 429 || statusCode == 500 || statusCode == 502
+                || statusCode == 503 || statusCode == 504;
+    }
+
+    /**
+     * Helper method that checks whether a request has certainly not reached its target, because no connection could
+     * be established, i.e. the host name could not be resolved, the host could not be reached or it refused the
+     * connection. The causes of the {@link Throwable} are checked as well, since clients usually wrap these failures.
+     * <p>
+     * Requests that are not idempotent, e.g. those creating entities, may only be retried in this case, since the
+     * target may have processed the request after any other failure, e.g. a read timeout.
+     *
+     * @param throwable the {@link Throwable} the request has failed with
+     * @return {@code true}, if the request has not been sent
+     */
+    protected static boolean isConnectFailure(final Throwable throwable) {
+
+        Throwable cause = throwable;
+        for (int depth = 0; cause != null && depth < 8; depth++) {
+            if (cause instanceof ConnectException || cause instanceof NoRouteToHostException
+                    || cause instanceof UnknownHostException) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * Helper method that checks whether an HTTP status code signals that the server is overloaded.
+     *
+     * @param statusCode the status code
+     * @return {@code true} for {@code 429 Too Many Requests} and {@code 503 Service Unavailable}
+     */
+    protected static boolean isOverloadStatus(final int statusCode) {
+        return statusCode == 429 || statusCode == 503;
+    }
+
+    /**
+     * Helper method that extracts the host name from a URL, e.g. to be used as target key.
+     *
+     * @param url the URL, may be {@code null}
+     * @return the host name, the URL itself if it has no host name, or {@code null}, if the URL is {@code null}
+     */
+    protected static String getHost(final Object url) {
+
+        if (url == null) {
+            return null;
+        }
+        try {
+            String host = new URI(url.toString().trim()).getHost();
+            return host != null ? host : url.toString();
+        } catch (URISyntaxException e) {
+            return url.toString();
+        }
+    }
+
+    /**
+     * Warms up the targets of the supplied events before a simulation is started, e.g. by resolving host names,
+     * opening connections and logging in, so the first events of the simulation do not have to.
+     * <p>
+     * The default implementation does nothing.
+     *
+     * @param events        the events of this type the simulation runs
+     * @param configuration the {@link Configuration} of the simulation
+     * @throws Exception if a target cannot be reached
+     */
+    public void warmUp(final Collection<Event> events, final Configuration configuration) throws Exception {
+    }
+
     /**
      * Returns the typeName of this event type.
      *
@@ -5,6 +5,7 @@ import edu.kit.pse.beprepared.json.PhaseJson;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class represents a phase.
@@ -70,9 +71,14 @@ public class Phase {
 
         this(phaseJson.getName());
 
-        phaseJson.getEvents().stream().map(eventJson -> EventTypeManager.getInstance().getEventTypeByName(
-                eventJson.getType()).createEvent(eventJson.getPointInTime(), eventJson.getData()))
-                .forEach(this.events::add);
+        phaseJson.getEvents().stream().map(eventJson -> {
+            Event event = EventTypeManager.getInstance().getEventTypeByName(eventJson.getType())
+                    .createEvent(eventJson.getPointInTime(), eventJson.getData());
+            if (eventJson.getPointInTimeNanos() != null) {
+                event.setPointInTimeNanos(eventJson.getPointInTimeNanos());
+            }
+            return event;
+        }).forEach(this.events::add);
 
     }
 
@@ -151,13 +157,14 @@ public class Phase {
      */
     public void shiftEventTimes(final long t) {
 
+        final long tNanos = TimeUnit.MILLISECONDS.toNanos(t);
         this.events.forEach(e -> {
-            if (e.getPointInTime() + t < 0) {
+            if (e.getPointInTimeNanos() + tNanos < 0) {
                 throw new IllegalArgumentException("Can't shift events to have a relative time smaller than zero!");
             }
         });
 
-        this.events.forEach(e -> e.setPointInTime(e.getPointInTime() + t));
+        this.events.forEach(e -> e.setPointInTimeNanos(e.getPointInTimeNanos() + tNanos));
 
     }
 
@@ -1,6 +1,11 @@
 package edu.kit.pse.beprepared.model;
 
+import edu.kit.pse.beprepared.simulation.BackPressurePolicy;
+import edu.kit.pse.beprepared.simulation.RequestRunnerExecutor;
 import edu.kit.pse.beprepared.simulation.Simulation;
+import edu.kit.pse.beprepared.simulation.SimulationScheduler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.util.Collection;
@@ -17,15 +22,110 @@ public class SimulationRepository {
      * Container for all {@link Simulation}s.
      */
     private final LinkedList<Simulation> simulations;
+    /**
+     * The {@link SimulationScheduler} that drives all {@link Simulation}s created by this repository.
+     */
+    private final SimulationScheduler simulationScheduler;
+    /**
+     * The {@link RequestRunnerExecutor} shared by all {@link Simulation}s created by this repository.
+     */
+    private final RequestRunnerExecutor requestRunnerExecutor;
+    /**
+     * The time in ms the {@link Simulation}s created by this repository prepare their request runners ahead of time.
+     */
+    private final long prepareLeadMillis;
+    /**
+     * The maximum number of request runners of every {@link Simulation} in flight at the same time, 0 for no limit.
+     */
+    private final int maxInFlight;
+    /**
+     * The maximum number of request runners of all {@link Simulation}s in flight to the same target at the same time,
+     * 0 for no limit.
+     */
+    private final int maxInFlightPerTarget;
+    /**
+     * What the {@link Simulation}s do with due request runners that exceed one of the in-flight limits.
+     */
+    private final BackPressurePolicy backPressurePolicy;
+    /**
+     * The time in ms a request runner of a state-like event must be behind schedule before the {@link Simulation}s
+     * created by this repository drop it in favor of a later update, negative to disable.
+     */
+    private final long coalesceAfterMillis;
+    /**
+     * The number of throwaway request runners per event type the {@link Simulation}s created by this repository warm
+     * up the JIT with while being prepared.
+     */
+    private final int jitWarmupIterations;
 
+    /**
+     * Constructor.
+     * <p>
+     * Initializes {@link this#simulations} with an empty {@link LinkedList<Simulation>}.
+     *
+     * @param simulationScheduler   the {@link SimulationScheduler} that drives all simulations
+     * @param requestRunnerExecutor the {@link RequestRunnerExecutor} shared by all simulations
+     */
+    public SimulationRepository(final SimulationScheduler simulationScheduler,
+                                final RequestRunnerExecutor requestRunnerExecutor) {
+        this(simulationScheduler, requestRunnerExecutor, 0);
+    }
+
+    /**
+     * Constructor.
+     * <p>
+     * Initializes {@link this#simulations} with an empty {@link LinkedList<Simulation>}.
+     *
+     * @param simulationScheduler   the {@link SimulationScheduler} that drives all simulations
+     * @param requestRunnerExecutor the {@link RequestRunnerExecutor} shared by all simulations
+     * @param prepareLeadMillis     the time in ms request runners are prepared ahead of their events, 0 to disable
+     */
+    public SimulationRepository(final SimulationScheduler simulationScheduler,
+                                final RequestRunnerExecutor requestRunnerExecutor,
+                                final long prepareLeadMillis) {
+        this(simulationScheduler, requestRunnerExecutor, prepareLeadMillis, 0, 0, BackPressurePolicy.BLOCK, -1,
+                Simulation.DEFAULT_JIT_WARMUP_ITERATIONS);
+    }
 
     /**
      * Constructor.
      * <p>
      * Initializes {@link this#simulations} with an empty {@link LinkedList<Simulation>}.
+     *
+     * @param simulationScheduler   the {@link SimulationScheduler} that drives all simulations
+     * @param requestRunnerExecutor the {@link RequestRunnerExecutor} shared by all simulations
+     * @param prepareLeadMillis     the time in ms request runners are prepared ahead of their events, 0 to disable
+     * @param maxInFlight           the maximum number of request runners of every simulation in flight, 0 for no
+     *                              limit
+     * @param maxInFlightPerTarget  the maximum number of request runners in flight to the same target, 0 for no limit
+     * @param backPressurePolicy    what happens to due request runners that exceed one of the limits
+     * @param coalesceAfterMillis   the time in ms a request runner of a state-like event must be behind schedule
+     *                              before it is dropped in favor of a later update, negative to disable
+     * @param jitWarmupIterations   the number of throwaway request runners per event type created while preparing a
+     *                              simulation, 0 to disable
      */
-    public SimulationRepository() {
+    @Autowired
+    public SimulationRepository(final SimulationScheduler simulationScheduler,
+                                final RequestRunnerExecutor requestRunnerExecutor,
+                                @Value("${beprepared.simulation.prepare-lead-ms:50}") final long prepareLeadMillis,
+                                @Value("${beprepared.simulation.max-in-flight:0}") final int maxInFlight,
+                                @Value("${beprepared.simulation.max-in-flight-per-target:0}")
+                                final int maxInFlightPerTarget,
+                                @Value("${beprepared.simulation.back-pressure:BLOCK}")
+                                final BackPressurePolicy backPressurePolicy,
+                                @Value("${beprepared.simulation.coalesce-after-ms:-1}")
+                                final long coalesceAfterMillis,
+                                @Value("${beprepared.simulation.jit-warmup-iterations:10000}")
+                                final int jitWarmupIterations) {
         this.simulations = new LinkedList<>();
+        this.simulationScheduler = simulationScheduler;
+        this.requestRunnerExecutor = requestRunnerExecutor;
+        this.prepareLeadMillis = prepareLeadMillis;
+        this.maxInFlight = maxInFlight;
+        this.maxInFlightPerTarget = maxInFlightPerTarget;
+        this.backPressurePolicy = backPressurePolicy;
+        this.coalesceAfterMillis = coalesceAfterMillis;
+        this.jitWarmupIterations = jitWarmupIterations;
     }
 
     /**
@@ -39,7 +139,12 @@ public class SimulationRepository {
      */
     public Simulation createSimulation(final Scenario scenario, final Collection<Phase> selectedPhases,
                                        final Configuration configuration, final double speed) {
-        Simulation s = new Simulation(scenario, selectedPhases, configuration, speed);
+        Simulation s = new Simulation(scenario, selectedPhases, configuration, speed, this.simulationScheduler,
+                this.requestRunnerExecutor);
+        s.setPrepareLeadMillis(this.prepareLeadMillis);
+        s.setBackPressure(this.maxInFlight, this.maxInFlightPerTarget, this.backPressurePolicy);
+        s.setCoalesceAfterMillis(this.coalesceAfterMillis);
+        s.setJitWarmupIterations(this.jitWarmupIterations);
         simulations.add(s);
         return s;
     }
@@ -1,6 +1,9 @@
 package edu.kit.pse.beprepared.restController;
 
+import edu.kit.pse.beprepared.json.PreparationReportJson;
 import edu.kit.pse.beprepared.json.SimulationJson;
+import edu.kit.pse.beprepared.json.SimulationMetricsJson;
+import edu.kit.pse.beprepared.restController.exceptions.BadRequestException;
 import edu.kit.pse.beprepared.restController.exceptions.InternalServerErrorException;
 import edu.kit.pse.beprepared.restController.exceptions.NotFoundException;
 import edu.kit.pse.beprepared.services.SimulationManagementService;
@@ -8,7 +11,9 @@ import edu.kit.pse.beprepared.services.exceptions.ConfigurationNotFoundException
 import edu.kit.pse.beprepared.services.exceptions.PhaseNotFoundException;
 import edu.kit.pse.beprepared.services.exceptions.ScenarioNotFoundException;
 import edu.kit.pse.beprepared.services.exceptions.SimulationNotFoundException;
+import edu.kit.pse.beprepared.simulation.SeekMode;
 import edu.kit.pse.beprepared.simulation.Simulation;
+import edu.kit.pse.beprepared.simulation.SimulationMode;
 import edu.kit.pse.beprepared.simulation.SimulationState;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -82,15 +87,45 @@ public class SimulationManagementController {
         log.debug("Received requestBody: \"" + simulationJson.toString() + "\"");
 
         try {
-            return new SimulationJson(this.simulationManagementService.createSimulation(scenarioId,
+            Simulation simulation = this.simulationManagementService.createSimulation(scenarioId,
                     simulationJson.getConfiguration().getConfigurationID(), simulationJson.getSelectedPhaseIDs(),
-                    simulationJson.getSpeed()));
-        } catch (ScenarioNotFoundException | ConfigurationNotFoundException | PhaseNotFoundException e) {
+                    simulationJson.getSpeed());
+            if (simulationJson.getMode() != null) {
+                this.simulationManagementService.changeSimulationMode(simulation.getId(), simulationJson.getMode());
+            }
+            return new SimulationJson(simulation);
+        } catch (ScenarioNotFoundException | ConfigurationNotFoundException | PhaseNotFoundException
+                | SimulationNotFoundException e) {
             log.warn(e);
             throw new NotFoundException(e);
         }
     }
 
+    /**
+     * Mapping for {@code /simulations/{simulationId}/prepare} (POST).
+     *
+     * @param simulationId the simulation to prepare
+     * @return the report on the readiness of the event types of the simulation
+     */
+    @RequestMapping(value = "/simulations/{simulationId}/prepare", method = RequestMethod.POST,
+            produces = "application/json")
+    public @ResponseBody
+    PreparationReportJson prepareSimulation(@PathVariable final int simulationId) {
+
+        log.info("Received request: \"/simulations/" + simulationId + "/prepare\" Method: POST");
+
+        try {
+            return new PreparationReportJson(simulationId,
+                    this.simulationManagementService.prepareSimulation(simulationId));
+        } catch (SimulationNotFoundException e) {
+            log.warn(e);
+            throw new NotFoundException(e);
+        } catch (IllegalStateException e) {
+            log.warn(e);
+            throw new BadRequestException(e);
+        }
+    }
+
     /**
      * Mapping for {@code /simulations/{simulationId}/play} (POST)
      *
@@ -173,6 +208,85 @@ public class SimulationManagementController {
         }
     }
 
+    /**
+     * Mapping for {@code /simulations/{simulationId}/seek} (POST).
+     *
+     * @param simulationId the simulation to move forward
+     * @param pointInTime  the relative point in time in ms to move the simulation to
+     * @param seekMode     what should happen to the events that are jumped over
+     * @return the simulation state
+     */
+    @RequestMapping(value = "/simulations/{simulationId}/seek", method = RequestMethod.POST)
+    public @ResponseBody
+    SimulationState seek(@PathVariable final int simulationId,
+                         @RequestParam("pointInTime") final long pointInTime,
+                         @RequestParam(value = "mode", defaultValue = "EXECUTE") final SeekMode seekMode) {
+
+        log.info("Received request: \"/simulations/" + simulationId + "/seek\" Method: POST");
+        log.debug("Received request params pointInTime=" + pointInTime + ", mode=" + seekMode);
+
+        try {
+            return this.simulationManagementService.seekSimulation(simulationId, pointInTime, seekMode);
+        } catch (SimulationNotFoundException e) {
+            log.warn(e);
+            throw new NotFoundException(e);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            log.warn(e);
+            throw new BadRequestException(e);
+        }
+    }
+
+    /**
+     * Mapping for {@code /simulations/{simulationId}/rewind} (POST).
+     *
+     * @param simulationId the simulation to rewind
+     * @param pointInTime  the relative point in time in ms to rewind the simulation to
+     * @return the simulation state
+     */
+    @RequestMapping(value = "/simulations/{simulationId}/rewind", method = RequestMethod.POST)
+    public @ResponseBody
+    SimulationState rewind(@PathVariable final int simulationId,
+                           @RequestParam("pointInTime") final long pointInTime) {
+
+        log.info("Received request: \"/simulations/" + simulationId + "/rewind\" Method: POST");
+        log.debug("Received request param pointInTime=" + pointInTime);
+
+        try {
+            return this.simulationManagementService.rewindSimulation(simulationId, pointInTime);
+        } catch (SimulationNotFoundException e) {
+            log.warn(e);
+            throw new NotFoundException(e);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            log.warn(e);
+            throw new BadRequestException(e);
+        }
+    }
+
+    /**
+     * Mapping for {@code /simulations/{simulationId}/rewind/{eventId}} (POST)
+     *
+     * @param simulationId the simulation to rewind
+     * @param eventId      the event to rewind to
+     * @return the simulation state
+     */
+    @RequestMapping(value = "/simulations/{simulationId}/rewind/{eventId}", method = RequestMethod.POST)
+    public @ResponseBody
+    SimulationState rewindToEvent(@PathVariable final int simulationId,
+                                  @PathVariable final long eventId) {
+
+        log.info("Received request: \"/simulations/" + simulationId + "/rewind/" + eventId + "\" Method: POST");
+
+        try {
+            return this.simulationManagementService.rewindSimulationToEvent(simulationId, eventId);
+        } catch (SimulationNotFoundException | IllegalArgumentException e) {
+            log.warn(e);
+            throw new NotFoundException(e);
+        } catch (IllegalStateException e) {
+            log.warn(e);
+            throw new BadRequestException(e);
+        }
+    }
+
     /**
      * Mapping for {@code /simulations/{simulationId}/collect} (GET).
      *
@@ -203,6 +317,52 @@ public class SimulationManagementController {
 
     }
 
+    /**
+     * Mapping for {@code /simulations/{simulationId}/mode} (POST).
+     *
+     * @param simulationId the id of the simulation
+     * @param mode         the new mode of the simulation
+     */
+    @RequestMapping(value = "/simulations/{simulationId}/mode", method = RequestMethod.POST)
+    public void setMode(@PathVariable int simulationId, @RequestParam("mode") SimulationMode mode) {
+
+        log.info("Received request: \"/simulations/" + simulationId + "/mode\" Method: POST");
+        log.debug("Received request param mode=" + mode);
+
+        try {
+            this.simulationManagementService.changeSimulationMode(simulationId, mode);
+        } catch (SimulationNotFoundException e) {
+            log.warn(e);
+            throw new NotFoundException(e);
+        } catch (IllegalStateException e) {
+            log.warn(e);
+            throw new BadRequestException(e);
+        }
+
+    }
+
+    /**
+     * Mapping for {@code /simulations/{simulationId}/metrics} (GET).
+     *
+     * @param simulationId the id of the simulation
+     * @return the lateness, queue wait and execution latency histograms of the simulation
+     */
+    @RequestMapping(value = "/simulations/{simulationId}/metrics", method = RequestMethod.GET,
+            produces = "application/json")
+    public @ResponseBody
+    SimulationMetricsJson getMetrics(@PathVariable final int simulationId) {
+
+        log.info("Received request: \"/simulations/" + simulationId + "/metrics\" Method: GET");
+
+        try {
+            return new SimulationMetricsJson(simulationId,
+                    this.simulationManagementService.getSimulationMetrics(simulationId));
+        } catch (SimulationNotFoundException e) {
+            log.warn(e);
+            throw new NotFoundException(e);
+        }
+    }
+
     /**
      * Mapping for {@code /simulations/{simulationId}/speed} (POST).
      *
@@ -224,4 +384,28 @@ public class SimulationManagementController {
 
     }
 
+    /**
+     * Mapping for {@code /simulations/{simulationId}/weight} (POST).
+     *
+     * @param simulationId the id of the simulation
+     * @param weight       the new share of the request runner executor the simulation should get
+     */
+    @RequestMapping(value = "/simulations/{simulationId}/weight", method = RequestMethod.POST)
+    public void setWeight(@PathVariable int simulationId, @RequestParam("weight") double weight) {
+
+        log.info("Received request: \"/simulations/" + simulationId + "/weight\" Method: POST");
+        log.debug("Received request param weight=" + weight);
+
+        try {
+            this.simulationManagementService.changeSimulationWeight(simulationId, weight);
+        } catch (SimulationNotFoundException e) {
+            log.warn(e);
+            throw new NotFoundException(e);
+        } catch (IllegalArgumentException e) {
+            log.warn(e);
+            throw new BadRequestException(e);
+        }
+
+    }
+
 }
@@ -14,6 +14,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class manages all {@link Event}-related activities.
@@ -209,10 +210,13 @@ public class EventManagementService {
         for (int eventCount = 0; eventCount < numOfEvents; eventCount++) {
 
             pitExp.setVariable("x", eventCount);
-            long pointInTime = (long) pitExp.evaluate();
+            double pointInTime = pitExp.evaluate();
             HashMap<String, Object> eventData = toEvaluatedData(data, eventCount);
 
-            Event event = this.createEvent(scenarioId, phaseId, eventTypeName, eventData, pointInTime);
+            Event event = this.createEvent(scenarioId, phaseId, eventTypeName, eventData,
+                    (long) Math.floor(pointInTime));
+            // keep the fraction of a ms, so e.g. "x * 0.5" yields a 2 kHz series
+            event.setPointInTimeNanos(Math.round(pointInTime * TimeUnit.MILLISECONDS.toNanos(1)));
 
         }
 
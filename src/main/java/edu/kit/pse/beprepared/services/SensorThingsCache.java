@@ -0,0 +1,204 @@
+package edu.kit.pse.beprepared.services;
+
+import de.fraunhofer.iosb.ilt.sta.ServiceFailureException;
+import de.fraunhofer.iosb.ilt.sta.model.Datastream;
+import de.fraunhofer.iosb.ilt.sta.model.Thing;
+import de.fraunhofer.iosb.ilt.sta.service.SensorThingsService;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A cache for the {@link SensorThingsService}s and the entities used by the SensorThings request runners.
+ * <p>
+ * A {@link SensorThingsService} is created once per server URL, so all runners share its HTTP client and its
+ * connections. {@link Datastream}s and {@link Thing}s that have been looked up are kept for
+ * {@link this#ENTITY_TTL_NANOS}, so creating an observation or a location takes a single POST instead of a GET
+ * followed by a POST.
+ */
+public class SensorThingsCache {
+
+    /**
+     * The time an entity is kept after it has been looked up.
+     */
+    private static final long ENTITY_TTL_NANOS = TimeUnit.MINUTES.toNanos(5);
+    /**
+     * The only instance of this class.
+     */
+    private static final SensorThingsCache instance = new SensorThingsCache();
+
+    /**
+     * The services, mapped by the URL of their server.
+     */
+    private final ConcurrentHashMap<String, SensorThingsService> services;
+    /**
+     * The entities that have been looked up, mapped by the URL of their server, their type and their id.
+     */
+    private final ConcurrentHashMap<String, CachedEntity> entities;
+
+    /**
+     * Constructor.
+     */
+    private SensorThingsCache() {
+        this.services = new ConcurrentHashMap<>();
+        this.entities = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Getter for {@link SensorThingsCache#instance}.
+     *
+     * @return the value of {@link SensorThingsCache#instance}
+     */
+    public static SensorThingsCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the {@link SensorThingsService} for a server, creating it if necessary.
+     *
+     * @param url the URL of the server
+     * @return the service
+     * @throws MalformedURLException if the URL is invalid
+     */
+    public SensorThingsService getService(final String url) throws MalformedURLException {
+
+        SensorThingsService service = this.services.get(url);
+        if (service == null) {
+            SensorThingsService created = new SensorThingsService(URI.create(url));
+            service = this.services.putIfAbsent(url, created);
+            if (service == null) {
+                service = created;
+            }
+        }
+        return service;
+    }
+
+    /**
+     * Returns the {@link Datastream} with the supplied id, looking it up if it is not cached or has expired.
+     *
+     * @param url the URL of the server
+     * @param id  the id of the datastream
+     * @return the datastream
+     * @throws MalformedURLException   if the URL is invalid
+     * @throws ServiceFailureException if looking the datastream up fails
+     */
+    public Datastream getDatastream(final String url, final long id)
+            throws MalformedURLException, ServiceFailureException {
+
+        String key = datastreamKey(url, id);
+        Datastream datastream = (Datastream) this.getCached(key);
+        if (datastream == null) {
+            datastream = this.getService(url).datastreams().find(id);
+            this.entities.put(key, new CachedEntity(datastream));
+        }
+        return datastream;
+    }
+
+    /**
+     * Returns the {@link Thing} with the supplied id, looking it up if it is not cached or has expired.
+     *
+     * @param url the URL of the server
+     * @param id  the id of the thing
+     * @return the thing
+     * @throws MalformedURLException   if the URL is invalid
+     * @throws ServiceFailureException if looking the thing up fails
+     */
+    public Thing getThing(final String url, final long id) throws MalformedURLException, ServiceFailureException {
+
+        String key = thingKey(url, id);
+        Thing thing = (Thing) this.getCached(key);
+        if (thing == null) {
+            thing = this.getService(url).things().find(id);
+            this.entities.put(key, new CachedEntity(thing));
+        }
+        return thing;
+    }
+
+    /**
+     * Removes a {@link Datastream} from the cache, e.g. because a request referring to it has failed.
+     *
+     * @param url the URL of the server
+     * @param id  the id of the datastream
+     */
+    public void invalidateDatastream(final String url, final long id) {
+        this.entities.remove(datastreamKey(url, id));
+    }
+
+    /**
+     * Removes a {@link Thing} from the cache, e.g. because a request referring to it has failed.
+     *
+     * @param url the URL of the server
+     * @param id  the id of the thing
+     */
+    public void invalidateThing(final String url, final long id) {
+        this.entities.remove(thingKey(url, id));
+    }
+
+    /**
+     * Returns a cached entity, unless it has expired.
+     *
+     * @param key the key of the entity
+     * @return the entity or {@code null}, if it is not cached or has expired
+     */
+    private Object getCached(final String key) {
+
+        CachedEntity cached = this.entities.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (System.nanoTime() - cached.cachedAtNanos > ENTITY_TTL_NANOS) {
+            this.entities.remove(key, cached);
+            return null;
+        }
+        return cached.entity;
+    }
+
+    /**
+     * Creates the key of a {@link Datastream}.
+     *
+     * @param url the URL of the server
+     * @param id  the id of the datastream
+     * @return the key
+     */
+    private static String datastreamKey(final String url, final long id) {
+        return url + "/Datastreams(" + id + ")";
+    }
+
+    /**
+     * Creates the key of a {@link Thing}.
+     *
+     * @param url the URL of the server
+     * @param id  the id of the thing
+     * @return the key
+     */
+    private static String thingKey(final String url, final long id) {
+        return url + "/Things(" + id + ")";
+    }
+
+    /**
+     * An entity together with the point in time it has been looked up.
+     */
+    private static final class CachedEntity {
+
+        /**
+         * The entity.
+         */
+        private final Object entity;
+        /**
+         * The point in time (as in {@link System#nanoTime()}) the entity has been looked up.
+         */
+        private final long cachedAtNanos;
+
+        /**
+         * Constructor.
+         *
+         * @param entity the entity
+         */
+        private CachedEntity(final Object entity) {
+            this.entity = entity;
+            this.cachedAtNanos = System.nanoTime();
+        }
+    }
+}
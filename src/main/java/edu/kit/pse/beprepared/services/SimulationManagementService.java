@@ -9,9 +9,14 @@ import edu.kit.pse.beprepared.services.exceptions.ConfigurationNotFoundException
 import edu.kit.pse.beprepared.services.exceptions.PhaseNotFoundException;
 import edu.kit.pse.beprepared.services.exceptions.ScenarioNotFoundException;
 import edu.kit.pse.beprepared.services.exceptions.SimulationNotFoundException;
-import edu.kit.pse.beprepared.simulation.ExecutionReport;
+import edu.kit.pse.beprepared.simulation.ExecutionResultStore;
 import edu.kit.pse.beprepared.simulation.ExecutionStatus;
+import edu.kit.pse.beprepared.simulation.LatencyHistogram;
+import edu.kit.pse.beprepared.simulation.PreparationReport;
+import edu.kit.pse.beprepared.simulation.SeekMode;
 import edu.kit.pse.beprepared.simulation.Simulation;
+import edu.kit.pse.beprepared.simulation.SimulationMetrics;
+import edu.kit.pse.beprepared.simulation.SimulationMode;
 import edu.kit.pse.beprepared.simulation.SimulationState;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -21,12 +26,14 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
@@ -115,6 +122,18 @@ public class SimulationManagementService {
         return simulationRepository.getAllSimulations();
     }
 
+    /**
+     * Prepares a {@link Simulation} that has not been started yet, see {@link Simulation#prepare()}.
+     *
+     * @param simulationId the simulation to prepare
+     * @return the report on the readiness of the event types of the simulation
+     * @throws SimulationNotFoundException if no simulation with the supplied id can be found
+     * @throws IllegalStateException       if the simulation has already been started
+     */
+    public PreparationReport prepareSimulation(int simulationId) throws SimulationNotFoundException {
+        return this.getSimulationById(simulationId).prepare();
+    }
+
     /**
      * Start a {@link Simulation}.
      *
@@ -166,6 +185,51 @@ public class SimulationManagementService {
         return s.fastForwardTo(eventId);
     }
 
+    /**
+     * Moves the supplied simulation forward to a point in time.
+     *
+     * @param simulationId the id of the simulation that should be moved forward
+     * @param pointInTime  the relative point in time in ms the simulation should be moved to
+     * @param seekMode     what should happen to the events that are jumped over
+     * @return the simulation state
+     * @throws SimulationNotFoundException if no simulation with the supplied id exists
+     * @throws IllegalArgumentException    if the point in time lies before the current point in time of the simulation
+     * @throws IllegalStateException       if the simulation is neither running nor paused
+     */
+    public SimulationState seekSimulation(int simulationId, long pointInTime, SeekMode seekMode)
+            throws SimulationNotFoundException {
+        return this.getSimulationById(simulationId).seekTo(pointInTime, seekMode);
+    }
+
+    /**
+     * Rewinds the supplied simulation to a point in time.
+     *
+     * @param simulationId the id of the simulation that should be rewound
+     * @param pointInTime  the relative point in time in ms the simulation should be rewound to
+     * @return the simulation state
+     * @throws SimulationNotFoundException if no simulation with the supplied id exists
+     * @throws IllegalArgumentException    if the point in time is negative
+     * @throws IllegalStateException       if the simulation has not been started yet
+     */
+    public SimulationState rewindSimulation(int simulationId, long pointInTime) throws SimulationNotFoundException {
+        return this.getSimulationById(simulationId).rewindTo(pointInTime);
+    }
+
+    /**
+     * Rewinds the supplied simulation to a specified event.
+     *
+     * @param simulationId the id of the simulation that should be rewound
+     * @param eventId      the id of the event the simulation should be rewound to
+     * @return the simulation state
+     * @throws SimulationNotFoundException if no simulation with the supplied id exists
+     * @throws IllegalArgumentException    if no event belonging to the supplied simulation has the supplied id
+     * @throws IllegalStateException       if the simulation has not been started yet
+     */
+    public SimulationState rewindSimulationToEvent(int simulationId, long eventId)
+            throws SimulationNotFoundException {
+        return this.getSimulationById(simulationId).rewindToEvent(eventId);
+    }
+
     /**
      * Get a {@link Simulation} by its id.
      *
@@ -209,7 +273,7 @@ public class SimulationManagementService {
             throw new SimulationNotFoundException("can not find simulation with id " + simulationId);
         }
 
-        Collection<Future<ExecutionReport>> futures = simulation.getFutures();
+        ExecutionResultStore results = simulation.getResults();
 
         File reportFile = Files.createTempFile("bePREPARED-simulation-report", ".beprepared-report").toFile();
         reportFile.deleteOnExit();
@@ -224,17 +288,27 @@ public class SimulationManagementService {
         }
         writer.println();
 
-        long normal = futures.stream().map(executionReportFuture -> {
-            try {
-                return executionReportFuture.get();
-            } catch (Exception e) {
-                return null;
-            }
-        }).filter(Objects::nonNull).map(r -> r.getStatus() == ExecutionStatus.COMPLETED_NORMAL).count();
-        int total = futures.size();
+        int total = results.size();
+        int normal = results.count(ExecutionStatus.COMPLETED_NORMAL);
         writer.printf("Completed normal:\t%d\n", normal);
         writer.printf("Completed exceptionally:\t%d\n", total - normal);
         writer.printf("Total number of runners:\t%d\n", total);
+        writer.printf("Retries:\t%d\n", results.countRetries());
+        writer.println();
+
+        SimulationMetrics metrics = simulation.getMetrics();
+        writer.printf(Locale.ROOT, "Sustained requests/second:\t%.2f\n", metrics.getRequestsPerSecond());
+        writer.printf("Shed runners:\t%d\n", metrics.getShedRunners());
+        writer.printf("Coalesced runners:\t%d\n", metrics.getCoalescedRunners());
+        for (Map.Entry<String, Long> entry : new TreeMap<>(metrics.getCoalescedByEventType()).entrySet()) {
+            writer.printf("Coalesced runners (%s):\t%d\n", entry.getKey(), entry.getValue());
+        }
+        this.printLatencies(writer, "all event types", metrics.getTotal());
+        TreeMap<String, SimulationMetrics.Latencies> byEventType = new TreeMap<>(metrics.getByEventType());
+        for (Map.Entry<String, SimulationMetrics.Latencies> entry : byEventType.entrySet()) {
+            this.printLatencies(writer, entry.getKey(), entry.getValue());
+        }
+        writer.println();
 
         writer.flush();
 
@@ -242,13 +316,18 @@ public class SimulationManagementService {
         mapper.enable(SerializationFeature.INDENT_OUTPUT);
         JsonGenerator generator = mapper.getFactory().createGenerator(reportOutputStream);
 
-        mapper.writeValue(generator, futures.stream().map(f -> {
-            try {
-                return f.get();
-            } catch (InterruptedException | ExecutionException ignored) {
-                return null;
+        HashMap<Long, Event> eventsById = new HashMap<>();
+        for (Phase phase : simulation.getSelectedPhases()) {
+            for (Event event : phase.getAllEvents()) {
+                eventsById.put(event.getId(), event);
             }
-        }).map(report -> report != null ? new ExecutionReportJson(report) : null).collect(Collectors.toList()));
+        }
+        List<ExecutionReportJson> reports = new ArrayList<>(total);
+        for (int row = 0; row < total; row++) {
+            reports.add(new ExecutionReportJson(results, row, eventsById.get(results.getEventId(row)),
+                    simulation.getConfiguration()));
+        }
+        mapper.writeValue(generator, reports);
 
         writer.close();
 
@@ -256,6 +335,61 @@ public class SimulationManagementService {
 
     }
 
+    /**
+     * Writes the percentiles of the supplied {@link SimulationMetrics.Latencies} to a report.
+     *
+     * @param writer    the writer of the report
+     * @param label     the label of the latencies
+     * @param latencies the latencies
+     */
+    private void printLatencies(final PrintWriter writer, final String label,
+                                final SimulationMetrics.Latencies latencies) {
+
+        writer.printf("Latencies for %s [ms]:\n", label);
+        this.printHistogram(writer, "Dispatch lateness", latencies.getDispatchLateness());
+        this.printHistogram(writer, "Queue wait", latencies.getQueueWait());
+        this.printHistogram(writer, "Execution latency", latencies.getExecutionLatency());
+    }
+
+    /**
+     * Writes the percentiles of the supplied {@link LatencyHistogram} to a report.
+     *
+     * @param writer    the writer of the report
+     * @param label     the label of the histogram
+     * @param histogram the histogram
+     */
+    private void printHistogram(final PrintWriter writer, final String label, final LatencyHistogram histogram) {
+
+        writer.printf(Locale.ROOT, "  %s:\tcount=%d\tmean=%.3f\tp50=%.3f\tp90=%.3f\tp99=%.3f\tp99.9=%.3f\tmax=%.3f\n",
+                label, histogram.getCount(), histogram.getMean() / 1e6,
+                histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(90) / 1e6,
+                histogram.getValueAtPercentile(99) / 1e6, histogram.getValueAtPercentile(99.9) / 1e6,
+                histogram.getMax() / 1e6);
+    }
+
+    /**
+     * Changes the {@link SimulationMode} of a {@link Simulation} that has not been started yet.
+     *
+     * @param simulationId the id of the simulation
+     * @param mode         the new mode
+     * @throws SimulationNotFoundException if no simulation with the supplied id exists
+     * @throws IllegalStateException       if the simulation has already been started
+     */
+    public void changeSimulationMode(int simulationId, SimulationMode mode) throws SimulationNotFoundException {
+        this.getSimulationById(simulationId).setMode(mode);
+    }
+
+    /**
+     * Getter for the timing metrics of a {@link Simulation}.
+     *
+     * @param simulationId the id of the simulation
+     * @return the metrics of the simulation
+     * @throws SimulationNotFoundException if no simulation with the supplied id exists
+     */
+    public SimulationMetrics getSimulationMetrics(int simulationId) throws SimulationNotFoundException {
+        return this.getSimulationById(simulationId).getMetrics();
+    }
+
     /**
      * Changes the current speed of a {@link Simulation}.
      *
@@ -274,4 +408,17 @@ public class SimulationManagementService {
         s.changeSpeed(speed);
     }
 
+    /**
+     * Changes the share a {@link Simulation} gets of the executor that runs the request runners of all simulations.
+     *
+     * @param simulationId the id of the simulation
+     * @param weight       the new weight
+     * @throws SimulationNotFoundException if no simulation with the supplied id exists
+     * @throws IllegalArgumentException    if the weight is not positive
+     */
+    public void changeSimulationWeight(int simulationId, double weight) throws SimulationNotFoundException {
+
+        this.getSimulationById(simulationId).setDispatchWeight(weight);
+    }
+
 }
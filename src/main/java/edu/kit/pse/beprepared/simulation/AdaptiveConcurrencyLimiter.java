@@ -0,0 +1,192 @@
+package edu.kit.pse.beprepared.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Limits the number of requests in flight to a single target to a limit that adapts to the target's capacity.
+ * <p>
+ * The limit follows additive increase, multiplicative decrease (AIMD): as long as requests complete with a latency
+ * close to the baseline, i.e. the median latency of the last {@link this#BASELINE_WINDOW} requests, and the limit is
+ * actually used, it grows by one per limit's worth of completed requests. If the smoothed latency, i.e. an
+ * exponentially weighted moving average over about the last {@link this#SMOOTHING_SAMPLES} requests, exceeds the
+ * baseline by {@link this#LATENCY_TOLERANCE}, the target is regarded as queueing requests and the limit shrinks by
+ * {@link this#LATENCY_BACKOFF_RATIO}. Comparing averages rather than single requests keeps the usual tail latency of
+ * a healthy target from being mistaken for queueing. If the target signals that it is overloaded (e.g.
+ * {@code 429 Too Many Requests} or {@code 503 Service Unavailable}), the limit shrinks by
+ * {@link this#OVERLOAD_BACKOFF_RATIO}. The limit shrinks at most once per round trip, i.e. only requests that have
+ * been started after the last decrease can cause the next one.
+ */
+class AdaptiveConcurrencyLimiter {
+
+    /**
+     * The factor the limit is multiplied with if the target signals that it is overloaded.
+     */
+    static final double OVERLOAD_BACKOFF_RATIO = 0.5;
+    /**
+     * The factor the limit is multiplied with on a latency spike.
+     */
+    static final double LATENCY_BACKOFF_RATIO = 0.9;
+    /**
+     * The factor by which the smoothed latency must exceed the baseline to count as a latency spike.
+     */
+    static final double LATENCY_TOLERANCE = 2.0;
+    /**
+     * The number of latency samples after which the baseline is taken anew, so it follows lasting changes of the
+     * target, e.g. a longer network path.
+     */
+    static final int BASELINE_WINDOW = 100;
+    /**
+     * The number of latency samples the smoothed latency is averaged over, roughly.
+     */
+    static final int SMOOTHING_SAMPLES = 10;
+
+    /**
+     * The lowest limit.
+     */
+    private final int minLimit;
+    /**
+     * The highest limit.
+     */
+    private final int maxLimit;
+    /**
+     * The current limit. Only its integral part is enforced.
+     */
+    private double limit;
+    /**
+     * The number of requests that have been admitted and not yet been released.
+     */
+    private int inFlight;
+    /**
+     * The number of requests that have been admitted so far, used to tell requests started before and after a
+     * decrease apart.
+     */
+    private long admitted;
+    /**
+     * The value of {@link this#admitted} at the last decrease of the limit.
+     */
+    private long admittedAtDecrease;
+    /**
+     * The median latency in ns of the last complete window or {@link Long#MAX_VALUE}, if no window has completed yet.
+     */
+    private long baselineNanos;
+    /**
+     * The latency samples of the current window.
+     */
+    private final long[] window;
+    /**
+     * The number of latency samples in the current window.
+     */
+    private int windowSamples;
+    /**
+     * The exponentially weighted moving average of the latency in ns or a negative value, if there has been no sample
+     * yet.
+     */
+    private double smoothedNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param initialLimit the initial limit
+     * @param minLimit     the lowest limit
+     * @param maxLimit     the highest limit
+     * @throws IllegalArgumentException if the limits are not positive or not in order
+     */
+    AdaptiveConcurrencyLimiter(final int initialLimit, final int minLimit, final int maxLimit) {
+
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("limits must satisfy 1 <= min <= initial <= max!");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+        this.inFlight = 0;
+        this.admitted = 0;
+        this.admittedAtDecrease = 0;
+        this.baselineNanos = Long.MAX_VALUE;
+        this.window = new long[BASELINE_WINDOW];
+        this.windowSamples = 0;
+        this.smoothedNanos = -1;
+    }
+
+    /**
+     * Admits a request, if the limit has not been reached.
+     *
+     * @return a ticket that has to be passed to {@link this#release(long, long, boolean)} once the request has
+     * completed, or -1, if the limit has been reached
+     */
+    synchronized long tryAcquire() {
+
+        if (this.inFlight >= (int) this.limit) {
+            return -1;
+        }
+        this.inFlight++;
+        return ++this.admitted;
+    }
+
+    /**
+     * Releases an admitted request and adapts the limit to how it went.
+     *
+     * @param ticket       the ticket returned by {@link this#tryAcquire()}
+     * @param latencyNanos the latency of the request in ns or a negative value, if it has not been sent at all
+     * @param overloaded   whether the target has signalled that it is overloaded
+     */
+    synchronized void release(final long ticket, final long latencyNanos, final boolean overloaded) {
+
+        int inFlightBefore = this.inFlight;
+        this.inFlight--;
+        if (latencyNanos < 0) {
+            return;
+        }
+
+        boolean spike = this.sample(latencyNanos);
+        if (overloaded || spike) {
+            if (ticket > this.admittedAtDecrease) {
+                double ratio = overloaded ? OVERLOAD_BACKOFF_RATIO : LATENCY_BACKOFF_RATIO;
+                this.limit = Math.max(this.minLimit, this.limit * ratio);
+                this.admittedAtDecrease = this.admitted;
+            }
+        } else if (inFlightBefore * 2 >= (int) this.limit) {
+            this.limit = Math.min(this.maxLimit, this.limit + 1 / this.limit);
+        }
+    }
+
+    /**
+     * Adds a latency sample to the smoothed latency and the baseline.
+     *
+     * @param latencyNanos the latency in ns
+     * @return whether the smoothed latency is a latency spike compared to the baseline
+     */
+    private boolean sample(final long latencyNanos) {
+
+        this.smoothedNanos = this.smoothedNanos < 0 ? latencyNanos
+                : this.smoothedNanos + (latencyNanos - this.smoothedNanos) / SMOOTHING_SAMPLES;
+        boolean spike = this.baselineNanos != Long.MAX_VALUE
+                && this.smoothedNanos > this.baselineNanos * LATENCY_TOLERANCE;
+
+        this.window[this.windowSamples++] = latencyNanos;
+        if (this.windowSamples == BASELINE_WINDOW) {
+            Arrays.sort(this.window);
+            this.baselineNanos = this.window[BASELINE_WINDOW / 2];
+            this.windowSamples = 0;
+        }
+        return spike;
+    }
+
+    /**
+     * Getter for the integral part of {@link this#limit}.
+     *
+     * @return the number of requests that may be in flight at the same time
+     */
+    synchronized int getLimit() {
+        return (int) this.limit;
+    }
+
+    /**
+     * Getter for {@link this#inFlight}.
+     *
+     * @return the value of {@link this#inFlight}
+     */
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+}
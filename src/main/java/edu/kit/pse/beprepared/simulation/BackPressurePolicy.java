@@ -0,0 +1,24 @@
+package edu.kit.pse.beprepared.simulation;
+
+/**
+ * This enum contains the different ways a {@link Simulation} can handle a due {@link RequestRunner} while the maximum
+ * number of its runners or of the runners of its target are in flight.
+ */
+public enum BackPressurePolicy {
+    /**
+     * The runner and all runners after it wait until a runner in flight has completed. No events are lost, but the
+     * simulation falls behind its scenario clock.
+     */
+    BLOCK,
+    /**
+     * The runner is dropped and counted as shed, so the simulation keeps up with its scenario clock at the expense
+     * of the dropped events.
+     */
+    SHED,
+    /**
+     * The runner is dropped and counted as coalesced if its event type is state-like (see
+     * {@link edu.kit.pse.beprepared.model.EventType#isStateLike()}) and a later event with the same ordering key is
+     * due as well, since only the latest state matters. All other runners wait as with {@link #BLOCK}.
+     */
+    COALESCE
+}
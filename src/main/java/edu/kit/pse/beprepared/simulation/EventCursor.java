@@ -0,0 +1,355 @@
+package edu.kit.pse.beprepared.simulation;
+
+import edu.kit.pse.beprepared.model.Event;
+import edu.kit.pse.beprepared.model.Phase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * A cursor over the {@link Event}s of several {@link Phase}s in chronological order.
+ * <p>
+ * The events of every phase are sorted once when the cursor is created. Afterwards the phases are merged lazily: the
+ * cursor only keeps a position per phase and a heap of the phases ordered by their next event, so advancing it costs
+ * {@code O(log k)} for {@code k} phases and no per-event objects are created.
+ * <p>
+ * Every phase additionally keeps its events sorted by id, so events can be looked up by id and the cursor can skip
+ * ahead or rewind to a point in time in {@code O(k log n)} for {@code n} events per phase. Since the sorted events
+ * are never modified, a rewound cursor returns the same events as before.
+ */
+public class EventCursor {
+
+    /**
+     * Orders events by their id.
+     */
+    private static final Comparator<Event> BY_ID = Comparator.comparingLong(Event::getId);
+
+    /**
+     * The phases that still have events left, ordered by the point in time of their next event.
+     */
+    private final PriorityQueue<PhaseCursor> heads;
+    /**
+     * All phases that had events when the cursor was created, including those that have no events left.
+     */
+    private final List<PhaseCursor> phases;
+    /**
+     * The number of events that have not been returned by {@link this#next()} yet.
+     */
+    private long remaining;
+
+    /**
+     * Constructor.
+     * <p>
+     * Takes a snapshot of the events of the supplied phases. Later changes to the phases do not affect this cursor.
+     *
+     * @param phases the phases whose events should be iterated
+     */
+    public EventCursor(final Collection<Phase> phases) {
+
+        this.heads = new PriorityQueue<>(Math.max(1, phases.size()));
+        this.phases = new ArrayList<>(phases.size());
+        this.remaining = 0;
+
+        int order = 0;
+        for (Phase phase : phases) {
+            Event[] events = phase.getAllEvents().toArray(new Event[0]);
+            Arrays.sort(events);
+            if (events.length > 0) {
+                PhaseCursor cursor = new PhaseCursor(events, order);
+                this.heads.add(cursor);
+                this.phases.add(cursor);
+                this.remaining += events.length;
+            }
+            order++;
+        }
+    }
+
+    /**
+     * Checks whether there are events left.
+     *
+     * @return {@code true}, if there are events left
+     */
+    public boolean hasNext() {
+        return !this.heads.isEmpty();
+    }
+
+    /**
+     * Returns the next event without advancing the cursor.
+     *
+     * @return the next event
+     * @throws NoSuchElementException if there are no events left
+     */
+    public Event peek() {
+
+        if (this.heads.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return this.heads.peek().current();
+    }
+
+    /**
+     * Returns the next event and advances the cursor.
+     *
+     * @return the next event
+     * @throws NoSuchElementException if there are no events left
+     */
+    public Event next() {
+
+        PhaseCursor head = this.heads.poll();
+        if (head == null) {
+            throw new NoSuchElementException();
+        }
+
+        Event event = head.current();
+        head.position++;
+        if (head.position < head.events.length) {
+            this.heads.add(head);
+        }
+        this.remaining--;
+
+        return event;
+    }
+
+    /**
+     * Returns and advances the cursor past all events that take place before a point in time.
+     *
+     * @param pointInTimeNanos the point in time in ns
+     * @return the events before the point in time in chronological order
+     */
+    public List<Event> nextUntil(final long pointInTimeNanos) {
+
+        List<Event> events = new ArrayList<>();
+        while (!this.heads.isEmpty() && this.heads.peek().current().getPointInTimeNanos() < pointInTimeNanos) {
+            events.add(this.next());
+        }
+        return events;
+    }
+
+    /**
+     * Advances the cursor past all events that take place before a point in time without returning them.
+     * <p>
+     * The new position within every phase is found by binary search, so no work is done per skipped event.
+     *
+     * @param pointInTimeNanos the point in time in ns
+     * @return the number of events that have been skipped
+     */
+    public long skipUntil(final long pointInTimeNanos) {
+
+        long skipped = 0;
+        this.heads.clear();
+        for (PhaseCursor phase : this.phases) {
+            int position = phase.lowerBound(pointInTimeNanos);
+            if (position > phase.position) {
+                skipped += position - phase.position;
+                phase.position = position;
+            }
+            if (phase.position < phase.events.length) {
+                this.heads.add(phase);
+            }
+        }
+        this.remaining -= skipped;
+
+        return skipped;
+    }
+
+    /**
+     * Moves the cursor to the first event that does not take place before a point in time, regardless of whether the
+     * cursor is currently before or after it. Afterwards, {@link this#next()} returns all events from that point in
+     * time on again.
+     *
+     * @param pointInTimeNanos the point in time in ns
+     */
+    public void rewindTo(final long pointInTimeNanos) {
+
+        this.heads.clear();
+        this.remaining = 0;
+        for (PhaseCursor phase : this.phases) {
+            phase.position = phase.lowerBound(pointInTimeNanos);
+            if (phase.position < phase.events.length) {
+                this.heads.add(phase);
+                this.remaining += phase.events.length - phase.position;
+            }
+        }
+    }
+
+    /**
+     * Looks up an event by its id, regardless of whether it has been returned by {@link this#next()} already.
+     *
+     * @param eventId the id of the event
+     * @return the event or {@code null}, if no phase of this cursor contains it
+     */
+    public Event find(final long eventId) {
+
+        for (PhaseCursor phase : this.phases) {
+            int position = phase.indexOf(eventId);
+            if (position >= 0) {
+                return phase.events[position];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Looks up an event that has not been returned by {@link this#next()} yet by its id.
+     *
+     * @param eventId the id of the event
+     * @return the event or {@code null}, if there is no such event ahead of the cursor
+     */
+    public Event findAhead(final long eventId) {
+
+        for (PhaseCursor phase : this.phases) {
+            int position = phase.indexOf(eventId);
+            if (position >= phase.position) {
+                return phase.events[position];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether an event with the supplied id has not been returned by {@link this#next()} yet.
+     *
+     * @param eventId the id of the event
+     * @return {@code true}, if the event is still ahead of the cursor
+     */
+    public boolean containsAhead(final long eventId) {
+        return this.findAhead(eventId) != null;
+    }
+
+    /**
+     * Getter for {@link this#remaining}.
+     *
+     * @return the value of {@link this#remaining}
+     */
+    public long getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * Getter for a {@link String} representation of this cursor.
+     *
+     * @return a {@link String} representation of this cursor
+     */
+    @Override
+    public String toString() {
+        return "EventCursor{" +
+                "phases=" + heads.size() +
+                ", remaining=" + remaining +
+                '}';
+    }
+
+    /**
+     * The position within the sorted events of a single phase.
+     */
+    private static final class PhaseCursor implements Comparable<PhaseCursor> {
+
+        /**
+         * The events of the phase, sorted by point in time.
+         */
+        private final Event[] events;
+        /**
+         * The events of the phase, sorted by id.
+         */
+        private final Event[] eventsById;
+        /**
+         * The order of the phase, used to break ties between events of different phases.
+         */
+        private final int order;
+        /**
+         * The index of the next event.
+         */
+        private int position;
+
+        /**
+         * Constructor.
+         *
+         * @param events the events of the phase, sorted by point in time
+         * @param order  the order of the phase
+         */
+        private PhaseCursor(final Event[] events, final int order) {
+            this.events = events;
+            this.eventsById = events.clone();
+            Arrays.sort(this.eventsById, BY_ID);
+            this.order = order;
+            this.position = 0;
+        }
+
+        /**
+         * Getter for the next event of the phase.
+         *
+         * @return the next event of the phase
+         */
+        private Event current() {
+            return this.events[this.position];
+        }
+
+        /**
+         * Finds the index of the first event that does not take place before a point in time.
+         *
+         * @param pointInTimeNanos the point in time in ns
+         * @return the index of the first event at or after the point in time, or the number of events if there is
+         * none
+         */
+        private int lowerBound(final long pointInTimeNanos) {
+
+            int low = 0;
+            int high = this.events.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (this.events[middle].getPointInTimeNanos() < pointInTimeNanos) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Finds the index of an event within {@link this#events}.
+         *
+         * @param eventId the id of the event
+         * @return the index of the event or -1, if it does not belong to the phase
+         */
+        private int indexOf(final long eventId) {
+
+            int low = 0;
+            int high = this.eventsById.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long id = this.eventsById[middle].getId();
+                if (id < eventId) {
+                    low = middle + 1;
+                } else if (id > eventId) {
+                    high = middle - 1;
+                } else {
+                    Event event = this.eventsById[middle];
+                    for (int i = this.lowerBound(event.getPointInTimeNanos()); i < this.events.length; i++) {
+                        if (this.events[i] == event) {
+                            return i;
+                        }
+                    }
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Compares this cursor with another one by the point in time of their next events.
+         *
+         * @param other the cursor to compare with
+         * @return a value < 0 if the next event of this cursor takes place first, a value > 0 otherwise
+         */
+        @Override
+        public int compareTo(final PhaseCursor other) {
+            int result = this.current().compareTo(other.current());
+            return result != 0 ? result : Integer.compare(this.order, other.order);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package edu.kit.pse.beprepared.simulation;
+
+/**
+ * The different ways the {@link RequestRunnerExecutor} can run {@link RequestRunner}s.
+ */
+public enum ExecutionMode {
+    /**
+     * Every runner is run on one of a fixed number of platform threads.
+     */
+    PLATFORM,
+    /**
+     * Every runner is run on its own virtual thread. The number of runners running at the same time is limited by a
+     * semaphore. Requires a JDK that supports virtual threads; falls back to {@link #PLATFORM} otherwise.
+     */
+    VIRTUAL
+}
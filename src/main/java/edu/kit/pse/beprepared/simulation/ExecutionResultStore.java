@@ -0,0 +1,340 @@
+package edu.kit.pse.beprepared.simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class stores the results of all {@link RequestRunner}s executed by a {@link Simulation}.
+ * <p>
+ * Instead of keeping an {@link ExecutionReport} (and with it the runner, its event and the configuration) per
+ * execution, the results are stored column by column in primitive arrays. Error messages are deduplicated through a
+ * string table, since most failures of a run share the same few messages. A row therefore takes a few dozen bytes,
+ * no matter how large the event or the configuration are.
+ * <p>
+ * All times are taken from the {@link SimulationClock} of the simulation, i.e. they are virtual for a
+ * {@link VirtualSimulationClock}. Use {@link this#toEpochMillis(long)} to convert them.
+ */
+public class ExecutionResultStore {
+
+    /**
+     * The value of {@link this#errorIndices} for rows without an error.
+     */
+    public static final int NO_ERROR = -1;
+    /**
+     * The initial number of rows space is reserved for.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The wall-clock time in ms that corresponds to {@link this#baseNanos}.
+     */
+    private final long baseEpochMillis;
+    /**
+     * The value of {@link SimulationClock#nanoTime()} at {@link this#baseEpochMillis}.
+     */
+    private final long baseNanos;
+    /**
+     * The string table of all distinct error messages.
+     */
+    private final ArrayList<String> errors;
+    /**
+     * Maps each error message to its index in {@link this#errors}.
+     */
+    private final HashMap<String, Integer> errorIndexByMessage;
+    /**
+     * The ids of the executed events.
+     */
+    private long[] eventIds;
+    /**
+     * The ordinals of the {@link ExecutionStatus}es the runners terminated with.
+     */
+    private byte[] statuses;
+    /**
+     * The points in time the events were due at.
+     */
+    private long[] scheduledNanos;
+    /**
+     * The points in time the runners were handed to the executor.
+     */
+    private long[] dispatchNanos;
+    /**
+     * The points in time the runners completed.
+     */
+    private long[] completionNanos;
+    /**
+     * The indices of the error messages in {@link this#errors} or {@link this#NO_ERROR}.
+     */
+    private int[] errorIndices;
+    /**
+     * The number of times the runners were run, including retries, capped at {@link Short#MAX_VALUE}.
+     */
+    private short[] attempts;
+    /**
+     * The number of rows.
+     */
+    private int size;
+
+    /**
+     * Constructor.
+     * <p>
+     * Creates a new, empty store for times taken from {@link System#nanoTime()}.
+     */
+    public ExecutionResultStore() {
+        this(new SystemSimulationClock());
+    }
+
+    /**
+     * Constructor.
+     * <p>
+     * Creates a new, empty store for times taken from a clock.
+     *
+     * @param clock the clock the times are taken from
+     */
+    public ExecutionResultStore(final SimulationClock clock) {
+
+        this.baseEpochMillis = System.currentTimeMillis();
+        this.baseNanos = clock.nanoTime();
+        this.errors = new ArrayList<>();
+        this.errorIndexByMessage = new HashMap<>();
+        this.eventIds = new long[INITIAL_CAPACITY];
+        this.statuses = new byte[INITIAL_CAPACITY];
+        this.scheduledNanos = new long[INITIAL_CAPACITY];
+        this.dispatchNanos = new long[INITIAL_CAPACITY];
+        this.completionNanos = new long[INITIAL_CAPACITY];
+        this.errorIndices = new int[INITIAL_CAPACITY];
+        this.attempts = new short[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * Records the result of an executed {@link RequestRunner}.
+     *
+     * @param eventId         the id of the executed event
+     * @param status          the {@link ExecutionStatus} the runner terminated with
+     * @param throwable       the {@link Throwable} in case the runner terminated exceptionally or {@code null}
+     * @param scheduledNanos  the point in time the event was due at
+     * @param dispatchNanos   the point in time the runner was handed to the executor
+     * @param completionNanos the point in time the runner completed
+     */
+    public void record(final long eventId, final ExecutionStatus status, final Throwable throwable,
+                       final long scheduledNanos, final long dispatchNanos, final long completionNanos) {
+        this.record(eventId, status, throwable, scheduledNanos, dispatchNanos, completionNanos, 1);
+    }
+
+    /**
+     * Records the result of an executed {@link RequestRunner}.
+     *
+     * @param eventId         the id of the executed event
+     * @param status          the {@link ExecutionStatus} the runner terminated with
+     * @param throwable       the {@link Throwable} in case the runner terminated exceptionally or {@code null}
+     * @param scheduledNanos  the point in time the event was due at
+     * @param dispatchNanos   the point in time the runner was handed to the executor
+     * @param completionNanos the point in time the runner completed
+     * @param attempts        the number of times the runner was run, including retries
+     */
+    public synchronized void record(final long eventId, final ExecutionStatus status, final Throwable throwable,
+                                    final long scheduledNanos, final long dispatchNanos,
+                                    final long completionNanos, final int attempts) {
+
+        if (this.size == this.eventIds.length) {
+            this.grow();
+        }
+
+        this.eventIds[this.size] = eventId;
+        this.statuses[this.size] = (byte) status.ordinal();
+        this.scheduledNanos[this.size] = scheduledNanos;
+        this.dispatchNanos[this.size] = dispatchNanos;
+        this.completionNanos[this.size] = completionNanos;
+        this.errorIndices[this.size] = throwable == null ? NO_ERROR : this.indexOf(describe(throwable));
+        this.attempts[this.size] = (short) Math.min(attempts, Short.MAX_VALUE);
+        this.size++;
+    }
+
+    /**
+     * Getter for the number of rows.
+     *
+     * @return the number of rows
+     */
+    public synchronized int size() {
+        return this.size;
+    }
+
+    /**
+     * Counts the rows with the supplied {@link ExecutionStatus}.
+     *
+     * @param status the status
+     * @return the number of rows with the supplied status
+     */
+    public synchronized int count(final ExecutionStatus status) {
+
+        int count = 0;
+        for (int i = 0; i < this.size; i++) {
+            if (this.statuses[i] == status.ordinal()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the retries of all rows, i.e. the attempts beyond the first one.
+     *
+     * @return the number of retries
+     */
+    public synchronized long countRetries() {
+
+        long retries = 0;
+        for (int i = 0; i < this.size; i++) {
+            retries += Math.max(0, this.attempts[i] - 1);
+        }
+        return retries;
+    }
+
+    /**
+     * Getter for the id of the event of a row.
+     *
+     * @param row the index of the row
+     * @return the id of the event
+     */
+    public synchronized long getEventId(final int row) {
+        this.checkRow(row);
+        return this.eventIds[row];
+    }
+
+    /**
+     * Getter for the {@link ExecutionStatus} of a row.
+     *
+     * @param row the index of the row
+     * @return the status
+     */
+    public synchronized ExecutionStatus getStatus(final int row) {
+        this.checkRow(row);
+        return ExecutionStatus.values()[this.statuses[row]];
+    }
+
+    /**
+     * Getter for the error message of a row.
+     *
+     * @param row the index of the row
+     * @return the error message or {@code null}, if the runner did not terminate with a {@link Throwable}
+     */
+    public synchronized String getError(final int row) {
+        this.checkRow(row);
+        return this.errorIndices[row] == NO_ERROR ? null : this.errors.get(this.errorIndices[row]);
+    }
+
+    /**
+     * Getter for the point in time the event of a row was due at.
+     *
+     * @param row the index of the row
+     * @return the point in time as in {@link SimulationClock#nanoTime()}
+     */
+    public synchronized long getScheduledNanos(final int row) {
+        this.checkRow(row);
+        return this.scheduledNanos[row];
+    }
+
+    /**
+     * Getter for the point in time the runner of a row was handed to the executor.
+     *
+     * @param row the index of the row
+     * @return the point in time as in {@link SimulationClock#nanoTime()}
+     */
+    public synchronized long getDispatchNanos(final int row) {
+        this.checkRow(row);
+        return this.dispatchNanos[row];
+    }
+
+    /**
+     * Getter for the point in time the runner of a row completed.
+     *
+     * @param row the index of the row
+     * @return the point in time as in {@link SimulationClock#nanoTime()}
+     */
+    public synchronized long getCompletionNanos(final int row) {
+        this.checkRow(row);
+        return this.completionNanos[row];
+    }
+
+    /**
+     * Getter for the number of times the runner of a row was run.
+     *
+     * @param row the index of the row
+     * @return the number of attempts, including retries
+     */
+    public synchronized int getAttempts(final int row) {
+        this.checkRow(row);
+        return this.attempts[row];
+    }
+
+    /**
+     * Converts a point in time as in {@link SimulationClock#nanoTime()} to unix time.
+     * <p>
+     * The time elapsed on the clock since this store has been created is added to the wall-clock time of its
+     * creation. For a {@link VirtualSimulationClock}, the result is therefore the point in time the result would have
+     * had, if the simulation had run in real time.
+     *
+     * @param nanos the point in time as in {@link SimulationClock#nanoTime()}
+     * @return the point in time in ms since the epoch
+     */
+    public long toEpochMillis(final long nanos) {
+        return this.baseEpochMillis + TimeUnit.NANOSECONDS.toMillis(nanos - this.baseNanos);
+    }
+
+    /**
+     * Creates the message stored for a {@link Throwable}.
+     *
+     * @param throwable the throwable
+     * @return the message
+     */
+    private static String describe(final Throwable throwable) {
+        return throwable.getClass().getSimpleName() + ": " + throwable.getMessage();
+    }
+
+    /**
+     * Looks up the index of an error message in {@link this#errors}, adding it if necessary.
+     *
+     * @param message the error message
+     * @return the index of the message
+     */
+    private int indexOf(final String message) {
+
+        Integer index = this.errorIndexByMessage.get(message);
+        if (index == null) {
+            index = this.errors.size();
+            this.errors.add(message);
+            this.errorIndexByMessage.put(message, index);
+        }
+        return index;
+    }
+
+    /**
+     * Doubles the capacity of all columns.
+     */
+    private void grow() {
+
+        int capacity = this.eventIds.length * 2;
+        this.eventIds = Arrays.copyOf(this.eventIds, capacity);
+        this.statuses = Arrays.copyOf(this.statuses, capacity);
+        this.scheduledNanos = Arrays.copyOf(this.scheduledNanos, capacity);
+        this.dispatchNanos = Arrays.copyOf(this.dispatchNanos, capacity);
+        this.completionNanos = Arrays.copyOf(this.completionNanos, capacity);
+        this.errorIndices = Arrays.copyOf(this.errorIndices, capacity);
+        this.attempts = Arrays.copyOf(this.attempts, capacity);
+    }
+
+    /**
+     * Checks whether a row exists.
+     *
+     * @param row the index of the row
+     * @throws IndexOutOfBoundsException if the row does not exist
+     */
+    private void checkRow(final int row) {
+
+        if (row < 0 || row >= this.size) {
+            throw new IndexOutOfBoundsException("row " + row + " does not exist, size is " + this.size);
+        }
+    }
+}
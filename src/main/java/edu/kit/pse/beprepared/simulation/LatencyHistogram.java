@@ -0,0 +1,197 @@
+package edu.kit.pse.beprepared.simulation;
+
+/**
+ * A histogram of durations in ns with a fixed memory footprint.
+ * <p>
+ * The buckets are laid out like in HdrHistogram: the values are split into ranges of powers of two, and every range
+ * is split into {@link this#SUB_BUCKET_COUNT} linear sub-buckets. The relative error of every recorded value is
+ * therefore below {@code 1 / SUB_BUCKET_COUNT}, no matter whether it is a few microseconds or several minutes. Values are
+ * tracked up to {@code 2^MAX_MAGNITUDE} ns (about 4.9 hours); larger values are counted in the last bucket, but still
+ * reported correctly by {@link this#getMax()}.
+ */
+public class LatencyHistogram {
+
+    /**
+     * The magnitude of {@link this#SUB_BUCKET_COUNT}.
+     */
+    private static final int SUB_BUCKET_MAGNITUDE = 6;
+    /**
+     * The number of linear sub-buckets per power of two.
+     */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_MAGNITUDE;
+    /**
+     * The magnitude of the largest value that is tracked exactly.
+     */
+    private static final int MAX_MAGNITUDE = 44;
+    /**
+     * The total number of buckets.
+     */
+    private static final int BUCKET_COUNT = (MAX_MAGNITUDE - SUB_BUCKET_MAGNITUDE + 2) * SUB_BUCKET_COUNT;
+
+    /**
+     * The number of recorded values per bucket.
+     */
+    private final long[] counts;
+    /**
+     * The total number of recorded values.
+     */
+    private long totalCount;
+    /**
+     * The sum of all recorded values.
+     */
+    private long sum;
+    /**
+     * The smallest recorded value.
+     */
+    private long min;
+    /**
+     * The largest recorded value.
+     */
+    private long max;
+
+    /**
+     * Constructor.
+     * <p>
+     * Creates a new, empty histogram.
+     */
+    public LatencyHistogram() {
+        this.counts = new long[BUCKET_COUNT];
+        this.totalCount = 0;
+        this.sum = 0;
+        this.min = Long.MAX_VALUE;
+        this.max = 0;
+    }
+
+    /**
+     * Records a duration. Negative durations are recorded as 0.
+     *
+     * @param nanos the duration in ns
+     */
+    public synchronized void record(final long nanos) {
+
+        long value = Math.max(0, nanos);
+        this.counts[bucketIndexOf(value)]++;
+        this.totalCount++;
+        this.sum += value;
+        this.min = Math.min(this.min, value);
+        this.max = Math.max(this.max, value);
+    }
+
+    /**
+     * Getter for the number of recorded values.
+     *
+     * @return the number of recorded values
+     */
+    public synchronized long getCount() {
+        return this.totalCount;
+    }
+
+    /**
+     * Getter for the smallest recorded value.
+     *
+     * @return the smallest recorded value in ns or 0, if no value has been recorded yet
+     */
+    public synchronized long getMin() {
+        return this.totalCount == 0 ? 0 : this.min;
+    }
+
+    /**
+     * Getter for the largest recorded value.
+     *
+     * @return the largest recorded value in ns or 0, if no value has been recorded yet
+     */
+    public synchronized long getMax() {
+        return this.max;
+    }
+
+    /**
+     * Getter for the mean of all recorded values.
+     *
+     * @return the mean in ns or 0, if no value has been recorded yet
+     */
+    public synchronized double getMean() {
+        return this.totalCount == 0 ? 0 : (double) this.sum / this.totalCount;
+    }
+
+    /**
+     * Getter for the value at a percentile, i.e. the value that the supplied percentage of all recorded values is
+     * smaller than or equal to.
+     *
+     * @param percentile the percentile between 0 and 100
+     * @return the value at the percentile in ns or 0, if no value has been recorded yet
+     * @throws IllegalArgumentException if the percentile is not between 0 and 100
+     */
+    public synchronized long getValueAtPercentile(final double percentile) {
+
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100!");
+        }
+        if (this.totalCount == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * this.totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += this.counts[i];
+            if (seen >= rank) {
+                long highest = i == BUCKET_COUNT - 1 ? this.max : highestValueOf(i);
+                return Math.max(this.getMin(), Math.min(this.max, highest));
+            }
+        }
+        return this.max;
+    }
+
+    /**
+     * Computes the index of the bucket a value is counted in.
+     *
+     * @param value the non-negative value
+     * @return the index of the bucket
+     */
+    private static int bucketIndexOf(final long value) {
+
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        if (magnitude > MAX_MAGNITUDE) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = magnitude - SUB_BUCKET_MAGNITUDE;
+        int subBucket = (int) (value >>> shift);
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket - SUB_BUCKET_COUNT;
+    }
+
+    /**
+     * Computes the largest value that is counted in a bucket.
+     *
+     * @param index the index of the bucket
+     * @return the largest value counted in the bucket
+     */
+    private static long highestValueOf(final int index) {
+
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        int shift = (index >> SUB_BUCKET_MAGNITUDE) - 1;
+        long subBucket = (index & (SUB_BUCKET_COUNT - 1)) + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Getter for a {@link String} representation of this histogram.
+     *
+     * @return a {@link String} representation of this histogram
+     */
+    @Override
+    public synchronized String toString() {
+        return "LatencyHistogram{" +
+                "count=" + totalCount +
+                ", min=" + this.getMin() +
+                ", max=" + max +
+                ", mean=" + this.getMean() +
+                '}';
+    }
+}
@@ -0,0 +1,169 @@
+package edu.kit.pse.beprepared.simulation;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * This class reports how preparing a {@link Simulation} went, see {@link Simulation#prepare()}.
+ */
+public class PreparationReport {
+
+    /**
+     * The results of warming up the targets of the event types used by the simulation.
+     */
+    private final List<Entry> entries;
+    /**
+     * The number of {@link RequestRunner}s that have been prepared to warm up their code paths.
+     */
+    private int warmedUpRunners;
+    /**
+     * The time in ms preparing the simulation took.
+     */
+    private long durationMillis;
+
+    /**
+     * Constructor.
+     * <p>
+     * Creates a new, empty report.
+     */
+    public PreparationReport() {
+        this.entries = new LinkedList<>();
+        this.warmedUpRunners = 0;
+        this.durationMillis = 0;
+    }
+
+    /**
+     * Adds the result of warming up the targets of an event type.
+     *
+     * @param eventType      the name of the event type
+     * @param failure        the reason warming up failed or {@code null}, if it succeeded
+     * @param durationMillis the time in ms warming up took
+     */
+    void add(final String eventType, final Throwable failure, final long durationMillis) {
+        this.entries.add(new Entry(eventType, failure == null ? null
+                : failure.getClass().getSimpleName() + ": " + failure.getMessage(), durationMillis));
+    }
+
+    /**
+     * Checks whether the targets of all event types have been warmed up successfully.
+     *
+     * @return whether the simulation is ready to be started
+     */
+    public boolean isReady() {
+        return this.entries.stream().allMatch(Entry::isReady);
+    }
+
+    /**
+     * Getter for {@link this#entries}.
+     *
+     * @return an unmodifiable view of {@link this#entries}
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Getter for {@link this#warmedUpRunners}.
+     *
+     * @return the value of {@link this#warmedUpRunners}
+     */
+    public int getWarmedUpRunners() {
+        return warmedUpRunners;
+    }
+
+    /**
+     * Setter for {@link this#warmedUpRunners}.
+     *
+     * @param warmedUpRunners the new value for {@link this#warmedUpRunners}
+     */
+    void setWarmedUpRunners(final int warmedUpRunners) {
+        this.warmedUpRunners = warmedUpRunners;
+    }
+
+    /**
+     * Getter for {@link this#durationMillis}.
+     *
+     * @return the value of {@link this#durationMillis}
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Setter for {@link this#durationMillis}.
+     *
+     * @param durationMillis the new value for {@link this#durationMillis}
+     */
+    void setDurationMillis(final long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * The result of warming up the targets of a single event type.
+     */
+    public static final class Entry {
+
+        /**
+         * The name of the event type.
+         */
+        private final String eventType;
+        /**
+         * The reason warming up failed or {@code null}, if it succeeded.
+         */
+        private final String error;
+        /**
+         * The time in ms warming up took.
+         */
+        private final long durationMillis;
+
+        /**
+         * Constructor.
+         *
+         * @param eventType      the name of the event type
+         * @param error          the reason warming up failed or {@code null}, if it succeeded
+         * @param durationMillis the time in ms warming up took
+         */
+        private Entry(final String eventType, final String error, final long durationMillis) {
+            this.eventType = eventType;
+            this.error = error;
+            this.durationMillis = durationMillis;
+        }
+
+        /**
+         * Getter for {@link this#eventType}.
+         *
+         * @return the value of {@link this#eventType}
+         */
+        public String getEventType() {
+            return eventType;
+        }
+
+        /**
+         * Getter for {@link this#error}.
+         *
+         * @return the value of {@link this#error}
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Checks whether warming up succeeded.
+         *
+         * @return whether warming up succeeded
+         */
+        public boolean isReady() {
+            return error == null;
+        }
+
+        /**
+         * Getter for {@link this#durationMillis}.
+         *
+         * @return the value of {@link this#durationMillis}
+         */
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+    }
+}
@@ -2,8 +2,10 @@ package edu.kit.pse.beprepared.simulation;
 
 import edu.kit.pse.beprepared.model.Configuration;
 import edu.kit.pse.beprepared.model.Event;
+import edu.kit.pse.beprepared.model.EventType;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This is the interface for all request runners.
@@ -18,7 +20,14 @@ public abstract class RequestRunner implements Callable<ExecutionReport> {
      * The configuration for the simulation.
      */
     protected final Configuration configuration;
-
+    /**
+     * The target key of {@link this#event}, resolved on first use.
+     */
+    private String targetKey;
+    /**
+     * Whether {@link this#targetKey} has been resolved.
+     */
+    private boolean targetKeyResolved;
 
     /**
      * Constructor.
@@ -49,6 +58,87 @@ public abstract class RequestRunner implements Callable<ExecutionReport> {
         return configuration;
     }
 
+    /**
+     * Prepares the request of this runner ahead of the point in time its event is due, e.g. by building and
+     * serializing it, so {@link this#call()} only has to send it.
+     * <p>
+     * The {@link Simulation} calls this method on its dispatcher thread shortly before the event is due, but it may
+     * also be called not at all. Runners must therefore prepare the request in {@link this#call()} themselves, if it
+     * has not been prepared before. Failures should be left to {@link this#call()} as well, which reports them.
+     * The default implementation does nothing.
+     */
+    public void prepare() {
+    }
+
+    /**
+     * Checks whether this runner may be run right now, taking its share of the request rate of its target if so.
+     * <p>
+     * The {@link RequestRunnerExecutor} calls this method right before every attempt of this runner. Runners whose
+     * target limits the rate of requests should wait for their turn here rather than in {@link this#call()}, which
+     * would block a worker: if this method returns a delay, the executor hands the runner back to the workers once it
+     * has passed and asks again, holding neither a worker nor a permit of the target in the meantime. The default
+     * implementation returns 0.
+     *
+     * @return 0, if this runner may be run right now, otherwise the time in ns after which to ask again
+     */
+    public long tryStart() {
+        return 0;
+    }
+
+    /**
+     * Starts this runner without waiting for its request to complete, if the request is sent on another thread, e.g.
+     * as part of a batch.
+     * <p>
+     * The {@link RequestRunnerExecutor} calls this method instead of {@link this#call()} for every attempt and frees
+     * the worker until the returned future completes. It also releases the ordering lane and the permit of the target
+     * of this runner right away, so the runner must have fixed the position of its request relative to those of later
+     * runners with the same ordering key by the time this method returns, and whoever sends the request limits the
+     * load on the target. The returned future must not complete exceptionally, failures are reported through the
+     * {@link ExecutionReport} as in {@link this#call()}. The default implementation returns {@code null}.
+     *
+     * @return the future result of this runner or {@code null}, if this runner has to be run by {@link this#call()}
+     */
+    public CompletableFuture<ExecutionReport> callAsync() {
+        return null;
+    }
+
+    /**
+     * Getter for the ordering key of {@link this#event} as declared by the type of the event.
+     *
+     * @return the ordering key or {@code null}, if the event does not need to be ordered
+     */
+    public String getOrderingKey() {
+        return this.event.getEventTypeInstance().getOrderingKey(this.event);
+    }
+
+    /**
+     * Getter for the target key of {@link this#event} as declared by the type of the event. The key is resolved once
+     * and cached, since it is needed both when the runner is submitted and when it completes.
+     *
+     * @return the target key or {@code null}, if it is unknown
+     */
+    public String getTargetKey() {
+        if (!this.targetKeyResolved) {
+            this.targetKey = this.event.getEventTypeInstance().getTargetKey(this.event, this.configuration);
+            this.targetKeyResolved = true;
+        }
+        return this.targetKey;
+    }
+
+    /**
+     * Getter for the key under which {@link this#event} may be coalesced with later events, i.e. the name of its type
+     * and its ordering key, if its type is state-like (see {@link EventType#isStateLike()}).
+     *
+     * @return the coalescing key or {@code null}, if every event of this runner's type has to be sent
+     */
+    public String getCoalescingKey() {
+        if (!this.event.getEventTypeInstance().isStateLike()) {
+            return null;
+        }
+        String orderingKey = this.getOrderingKey();
+        return orderingKey == null ? null : this.event.getEventTypeInstance().getTypeName() + "/" + orderingKey;
+    }
+
     /**
      * Helper method that calculates the absolute point in time of an event.
      * <p>
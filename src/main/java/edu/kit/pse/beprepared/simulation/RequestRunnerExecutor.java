@@ -0,0 +1,1302 @@
+package edu.kit.pse.beprepared.simulation;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is the process-wide, bounded executor that runs the {@link RequestRunner}s of all {@link Simulation}s.
+ * <p>
+ * Every simulation submits its runners through its own {@link DispatchQueue}. The worker threads serve the queues
+ * according to start-time fair queuing: each runner is tagged with a virtual start time that depends on the weight
+ * of its queue, and the workers always pick the runner with the smallest tag. A simulation that submits a burst of
+ * runners therefore only delays its own runners, while the runners of all other simulations keep getting their
+ * share of the workers.
+ * <p>
+ * Depending on the {@link ExecutionMode}, the runners are either run by a fixed number of platform worker threads or
+ * each on its own virtual thread. Since runners mostly block on network I/O, the latter allows for a lot more
+ * requests in flight without exhausting threads. In both modes, the number of runners running at the same time is
+ * bounded.
+ * <p>
+ * Runners whose events declare the same ordering key (see {@link RequestRunner#getOrderingKey()}) are executed one
+ * after another in submission order. Every queue hashes the keys onto a fixed number of lanes; a lane releases its
+ * next runner to the workers only when the previous one has completed. Runners on different lanes and runners without
+ * a key run in parallel.
+ * <p>
+ * Runners whose events are sent to a known target (see {@link RequestRunner#getTargetKey()}) additionally pass through
+ * an {@link AdaptiveConcurrencyLimiter} per target, which is shared by all queues. A runner that would exceed the
+ * current limit of its target is parked until another runner sent to the target completes, so the workers keep
+ * serving the other targets in the meantime. A runner whose target limits the rate of requests rather than their
+ * concurrency is held back the same way until its turn has come, see {@link RequestRunner#tryStart()}.
+ * <p>
+ * Runners that fail transiently are retried according to a {@link RetryPolicy}. A runner waiting for its retry holds
+ * neither a worker nor a permit of its target: it releases both after the failed attempt and is handed back to the
+ * workers by the {@link WakeupScheduler} of its queue once the delay has passed. It keeps its place on its ordering
+ * lane, so later runners with the same ordering key still wait for it.
+ */
+@Component
+public class RequestRunnerExecutor {
+
+    /**
+     * The {@link Logger} used by objects of this class.
+     */
+    private final Logger log = Logger.getLogger(RequestRunnerExecutor.class);
+    /**
+     * The runners that have been submitted and not yet been started, ordered by their start tags.
+     */
+    private final PriorityBlockingQueue<FairShareTask> runQueue;
+    /**
+     * The mode this executor runs in.
+     */
+    private final ExecutionMode mode;
+    /**
+     * The maximum number of runners running at the same time.
+     */
+    private final int maxConcurrency;
+    /**
+     * The number of ordering lanes of every queue.
+     */
+    private final int orderingLanes;
+    /**
+     * The platform worker threads in {@link ExecutionMode#PLATFORM} or the single thread that starts the virtual
+     * threads in {@link ExecutionMode#VIRTUAL}.
+     */
+    private final Thread[] threads;
+    /**
+     * Limits the number of virtual threads running at the same time. Only used in {@link ExecutionMode#VIRTUAL}.
+     */
+    private final Semaphore permits;
+    /**
+     * Creates the virtual threads. Only used in {@link ExecutionMode#VIRTUAL}.
+     */
+    private final ThreadFactory virtualThreadFactory;
+    /**
+     * All queues that have been opened and not yet closed, mapped by their simulation id.
+     */
+    private final ConcurrentHashMap<Integer, DispatchQueue> queues;
+    /**
+     * Used to break ties between runners with the same start tag in submission order.
+     */
+    private final AtomicLong sequence;
+    /**
+     * The number of runners of all queues that have been submitted and not yet completed, mapped by their target key.
+     */
+    private final ConcurrentHashMap<String, AtomicInteger> targetsInFlight;
+    /**
+     * The adaptive concurrency limits of all targets, mapped by their target key.
+     */
+    private final ConcurrentHashMap<String, TargetLane> targetLanes;
+    /**
+     * The initial concurrency limit of every target or 0, if the targets are not limited adaptively.
+     */
+    private final int initialTargetLimit;
+    /**
+     * The highest concurrency limit of every target.
+     */
+    private final int maxTargetLimit;
+    /**
+     * The policy failed runners are retried according to.
+     */
+    private final RetryPolicy retryPolicy;
+    /**
+     * The current virtual time, which is the start tag of the runner that has been started most recently.
+     */
+    private double virtualTime;
+    /**
+     * Whether {@link this#shutdown()} has been called.
+     */
+    private volatile boolean shutdown;
+
+    /**
+     * Constructor.
+     * <p>
+     * Creates a new executor in {@link ExecutionMode#PLATFORM}.
+     *
+     * @param threads the number of worker threads
+     */
+    public RequestRunnerExecutor(final int threads) {
+        this(threads, ExecutionMode.PLATFORM, threads, 64);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param threads               the number of worker threads in {@link ExecutionMode#PLATFORM}
+     * @param mode                  the mode the executor should run in
+     * @param virtualMaxConcurrency the maximum number of runners running at the same time in
+     *                              {@link ExecutionMode#VIRTUAL}
+     * @param orderingLanes         the number of lanes the ordering keys of every queue are hashed onto
+     */
+    public RequestRunnerExecutor(final int threads, final ExecutionMode mode, final int virtualMaxConcurrency,
+                                 final int orderingLanes) {
+        this(threads, mode, virtualMaxConcurrency, orderingLanes, 16, 512);
+    }
+
+    /**
+     * Constructor.
+     * <p>
+     * Creates a new executor that retries failed runners according to a {@link RetryPolicy} with default settings.
+     *
+     * @param threads               the number of worker threads in {@link ExecutionMode#PLATFORM}
+     * @param mode                  the mode the executor should run in
+     * @param virtualMaxConcurrency the maximum number of runners running at the same time in
+     *                              {@link ExecutionMode#VIRTUAL}
+     * @param orderingLanes         the number of lanes the ordering keys of every queue are hashed onto
+     * @param initialTargetLimit    the initial concurrency limit of every target, 0 to disable adaptive limiting
+     * @param maxTargetLimit        the highest concurrency limit of every target
+     */
+    public RequestRunnerExecutor(final int threads, final ExecutionMode mode, final int virtualMaxConcurrency,
+                                 final int orderingLanes, final int initialTargetLimit, final int maxTargetLimit) {
+        this(threads, mode, virtualMaxConcurrency, orderingLanes, initialTargetLimit, maxTargetLimit,
+                new RetryPolicy());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param threads               the number of worker threads in {@link ExecutionMode#PLATFORM}
+     * @param mode                  the mode the executor should run in
+     * @param virtualMaxConcurrency the maximum number of runners running at the same time in
+     *                              {@link ExecutionMode#VIRTUAL}
+     * @param orderingLanes         the number of lanes the ordering keys of every queue are hashed onto
+     * @param initialTargetLimit    the initial concurrency limit of every target, 0 to disable adaptive limiting
+     * @param maxTargetLimit        the highest concurrency limit of every target
+     * @param retryPolicy           the policy failed runners are retried according to
+     */
+    @Autowired
+    public RequestRunnerExecutor(@Value("${beprepared.executor.threads:32}") final int threads,
+                                 @Value("${beprepared.executor.mode:PLATFORM}") final ExecutionMode mode,
+                                 @Value("${beprepared.executor.virtual.max-concurrency:10000}")
+                                 final int virtualMaxConcurrency,
+                                 @Value("${beprepared.executor.ordering-lanes:64}") final int orderingLanes,
+                                 @Value("${beprepared.executor.target-limit.initial:16}") final int initialTargetLimit,
+                                 @Value("${beprepared.executor.target-limit.max:512}") final int maxTargetLimit,
+                                 final RetryPolicy retryPolicy) {
+
+        ThreadFactory virtualThreadFactory = mode == ExecutionMode.VIRTUAL ? createVirtualThreadFactory() : null;
+        if (mode == ExecutionMode.VIRTUAL && virtualThreadFactory == null) {
+            log.warn("Virtual threads are not supported by this JVM, falling back to " + ExecutionMode.PLATFORM);
+        }
+
+        this.mode = virtualThreadFactory != null ? ExecutionMode.VIRTUAL : ExecutionMode.PLATFORM;
+        this.maxConcurrency = this.mode == ExecutionMode.VIRTUAL ? virtualMaxConcurrency : threads;
+        if (this.maxConcurrency < 1) {
+            throw new IllegalArgumentException("at least one runner must be allowed to run at a time!");
+        }
+        if (orderingLanes < 1) {
+            throw new IllegalArgumentException("at least one ordering lane is required!");
+        }
+        this.orderingLanes = orderingLanes;
+        if (initialTargetLimit < 0 || initialTargetLimit > 0 && maxTargetLimit < initialTargetLimit) {
+            throw new IllegalArgumentException("target limits must satisfy 0 <= initial <= max!");
+        }
+        this.initialTargetLimit = initialTargetLimit;
+        this.maxTargetLimit = maxTargetLimit;
+        this.retryPolicy = retryPolicy;
+
+        this.runQueue = new PriorityBlockingQueue<>();
+        this.queues = new ConcurrentHashMap<>();
+        this.sequence = new AtomicLong();
+        this.targetsInFlight = new ConcurrentHashMap<>();
+        this.targetLanes = new ConcurrentHashMap<>();
+        this.virtualTime = 0;
+        this.shutdown = false;
+        this.virtualThreadFactory = virtualThreadFactory;
+
+        if (this.mode == ExecutionMode.VIRTUAL) {
+            this.permits = new Semaphore(this.maxConcurrency);
+            this.threads = new Thread[] {new Thread(this::virtualDispatchLoop, "request-runner-dispatcher")};
+        } else {
+            this.permits = null;
+            this.threads = new Thread[this.maxConcurrency];
+            for (int i = 0; i < this.threads.length; i++) {
+                this.threads[i] = new Thread(this::workerLoop, "request-runner-" + i);
+            }
+        }
+        for (Thread thread : this.threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        log.info("Started request runner executor in mode " + this.mode + " running at most " + this.maxConcurrency
+                + " runner(s) at a time");
+    }
+
+    /**
+     * Creates a {@link ThreadFactory} for virtual threads, if the running JVM supports them.
+     * <p>
+     * Virtual threads are looked up reflectively, so this class still compiles and runs on JDKs without them.
+     *
+     * @return a {@link ThreadFactory} for virtual threads or {@code null}, if they are not supported
+     */
+    private static ThreadFactory createVirtualThreadFactory() {
+
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class)
+                    .invoke(builder, "request-runner-virtual-", 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Opens a new {@link DispatchQueue} for a simulation driven by a {@link WakeupScheduler}. The points in time
+     * reported to the listener are measured with the clock of the scheduler, and runners waiting for a retry are
+     * handed back to the workers by the scheduler.
+     *
+     * @param simulationId the id of the simulation
+     * @param weight       the share of the workers the simulation should get relative to the other simulations
+     * @param scheduler    the scheduler of the simulation
+     * @param listener     the listener that is notified whenever a runner submitted through the queue completes
+     * @return the new queue
+     */
+    public DispatchQueue open(final int simulationId, final double weight, final WakeupScheduler scheduler,
+                              final CompletionListener listener) {
+
+        DispatchQueue queue = new DispatchQueue(simulationId, weight, scheduler, listener);
+        this.queues.put(simulationId, queue);
+        return queue;
+    }
+
+    /**
+     * Getter for the number of runners of all simulations that have been submitted and not yet completed and whose
+     * events are sent to a target, see {@link RequestRunner#getTargetKey()}.
+     *
+     * @param targetKey the target key
+     * @return the number of runners in flight to the target
+     */
+    public int getInFlight(final String targetKey) {
+        AtomicInteger inFlight = this.targetsInFlight.get(targetKey);
+        return inFlight != null ? inFlight.get() : 0;
+    }
+
+    /**
+     * Getter for the current adaptive concurrency limit of a target, see {@link AdaptiveConcurrencyLimiter}.
+     *
+     * @param targetKey the target key
+     * @return the number of runners that may be running for the target at the same time or 0, if the target is not
+     * limited (yet)
+     */
+    public int getConcurrencyLimit(final String targetKey) {
+        TargetLane lane = this.targetLanes.get(targetKey);
+        return lane != null ? lane.limiter.getLimit() : 0;
+    }
+
+    /**
+     * Getter for the lane all runners sent to a target pass through.
+     *
+     * @param targetKey the target key, may be {@code null}
+     * @return the lane or {@code null}, if the target is unknown or the targets are not limited adaptively
+     */
+    private TargetLane getTargetLane(final String targetKey) {
+        if (targetKey == null || this.initialTargetLimit == 0) {
+            return null;
+        }
+        return this.targetLanes.computeIfAbsent(targetKey, k -> new TargetLane(
+                new AdaptiveConcurrencyLimiter(this.initialTargetLimit, 1, this.maxTargetLimit)));
+    }
+
+    /**
+     * Getter for all queues that have been opened and not yet closed.
+     *
+     * @return all open queues
+     */
+    public Collection<DispatchQueue> getOpenQueues() {
+        return this.queues.values();
+    }
+
+    /**
+     * Getter for {@link this#mode}.
+     *
+     * @return the value of {@link this#mode}
+     */
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Getter for {@link this#maxConcurrency}.
+     *
+     * @return the value of {@link this#maxConcurrency}
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Stops all worker threads and cancels all runners that have not been started yet.
+     */
+    @PreDestroy
+    public void shutdown() {
+
+        this.shutdown = true;
+        for (Thread thread : this.threads) {
+            thread.interrupt();
+        }
+        FairShareTask task;
+        while ((task = this.runQueue.poll()) != null) {
+            task.cancel(false);
+        }
+        this.queues.clear();
+
+        log.info("Stopped request runner executor");
+    }
+
+    /**
+     * The loop executed by every platform worker thread in {@link ExecutionMode#PLATFORM}.
+     */
+    private void workerLoop() {
+
+        while (!this.shutdown) {
+            FairShareTask task;
+            try {
+                task = this.runQueue.take();
+            } catch (InterruptedException e) {
+                log.trace(e);
+                continue;
+            }
+
+            this.advanceVirtualTime(task.startTag);
+            this.runGuarded(task);
+        }
+    }
+
+    /**
+     * The loop that starts a virtual thread for every runner in {@link ExecutionMode#VIRTUAL}.
+     */
+    private void virtualDispatchLoop() {
+
+        while (!this.shutdown) {
+            FairShareTask task;
+            try {
+                task = this.runQueue.take();
+            } catch (InterruptedException e) {
+                log.trace(e);
+                continue;
+            }
+
+            try {
+                this.permits.acquire();
+            } catch (InterruptedException e) {
+                log.trace(e);
+                task.cancel(false);
+                continue;
+            }
+
+            this.advanceVirtualTime(task.startTag);
+            this.virtualThreadFactory.newThread(() -> {
+                try {
+                    this.runGuarded(task);
+                } finally {
+                    this.permits.release();
+                }
+            }).start();
+        }
+    }
+
+    /**
+     * Runs a runner on the current worker thread. Anything the runner lets escape is logged, so that the worker
+     * survives it.
+     *
+     * @param task the runner
+     */
+    private void runGuarded(final FairShareTask task) {
+
+        try {
+            task.run();
+        } catch (Throwable t) {
+            log.error("Request runner of simulation " + task.queue.simulationId + " failed", t);
+        }
+    }
+
+    /**
+     * Advances {@link this#virtualTime} to the start tag of a runner that is about to be started.
+     *
+     * @param startTag the start tag of the runner
+     */
+    private synchronized void advanceVirtualTime(final double startTag) {
+        this.virtualTime = Math.max(this.virtualTime, startTag);
+    }
+
+    /**
+     * Getter for {@link this#virtualTime}.
+     *
+     * @return the value of {@link this#virtualTime}
+     */
+    private synchronized double getVirtualTime() {
+        return this.virtualTime;
+    }
+
+    /**
+     * Is notified whenever a {@link RequestRunner} submitted through a {@link DispatchQueue} completes.
+     * <p>
+     * The listener is called on the thread that ran the runner. Runners that are cancelled before they have been
+     * started are not reported. All points in time are as in {@link SimulationClock#nanoTime()} of the clock the
+     * queue has been opened with.
+     */
+    @FunctionalInterface
+    public interface CompletionListener {
+
+        /**
+         * Called when a runner has completed.
+         *
+         * @param runner          the runner
+         * @param report          the report returned by the runner or {@code null}, if it threw
+         * @param failure         the {@link Throwable} thrown by the runner or {@code null}, if it returned a report
+         * @param scheduledNanos  the point in time the event of the runner was due at
+         * @param dispatchNanos   the point in time the runner was submitted
+         * @param startNanos      the point in time the runner was started
+         * @param completionNanos the point in time the runner completed
+         * @param attempts        the number of times the runner has been run, including retries
+         */
+        void onCompletion(RequestRunner runner, ExecutionReport report, Throwable failure, long scheduledNanos,
+                          long dispatchNanos, long startNanos, long completionNanos, int attempts);
+    }
+
+    /**
+     * The queue through which a single {@link Simulation} submits its {@link RequestRunner}s.
+     */
+    public final class DispatchQueue {
+
+        /**
+         * The id of the simulation this queue belongs to.
+         */
+        private final int simulationId;
+        /**
+         * The runners that have been submitted through this queue and have not been started yet.
+         */
+        private final Set<FairShareTask> pending;
+        /**
+         * The number of runners that have been submitted through this queue and have not completed or been cancelled
+         * yet.
+         */
+        private final AtomicInteger inFlight;
+        /**
+         * The runners that have been submitted through this queue and have not been started yet per coalescing key
+         * (see {@link RequestRunner#getCoalescingKey()}), in submission order.
+         */
+        private final ConcurrentHashMap<String, ArrayDeque<FairShareTask>> pendingByCoalescingKey;
+        /**
+         * The runners that have been handed back to the workers after a delay (see {@link this#resubmit}) and have
+         * not started their next attempt yet.
+         */
+        private final Set<FairShareTask> waitingForRetry;
+        /**
+         * The scheduler that hands runners waiting for a retry back to the workers.
+         */
+        private final WakeupScheduler scheduler;
+        /**
+         * The clock of {@link this#scheduler}, which the points in time reported to {@link this#listener} are
+         * measured with.
+         */
+        private final SimulationClock clock;
+        /**
+         * The listener that is notified whenever a runner submitted through this queue completes.
+         */
+        private final CompletionListener listener;
+        /**
+         * The lanes the ordering keys of the runners are hashed onto.
+         */
+        private final OrderingLane[] lanes;
+        /**
+         * The weight of this queue.
+         */
+        private volatile double weight;
+        /**
+         * The finish tag of the runner that has been submitted most recently.
+         */
+        private double lastFinishTag;
+        /**
+         * Whether this queue has been closed.
+         */
+        private volatile boolean closed;
+        /**
+         * Whether this queue has been closed and all runners that have not been started yet have been cancelled.
+         */
+        private volatile boolean cancelled;
+
+        /**
+         * Constructor.
+         *
+         * @param simulationId the id of the simulation this queue belongs to
+         * @param weight       the weight of this queue
+         * @param scheduler    the scheduler that hands runners waiting for a retry back to the workers
+         * @param listener     the listener that is notified whenever a runner submitted through this queue completes
+         */
+        private DispatchQueue(final int simulationId, final double weight, final WakeupScheduler scheduler,
+                              final CompletionListener listener) {
+            this.simulationId = simulationId;
+            this.pending = ConcurrentHashMap.newKeySet();
+            this.inFlight = new AtomicInteger();
+            this.pendingByCoalescingKey = new ConcurrentHashMap<>();
+            this.waitingForRetry = ConcurrentHashMap.newKeySet();
+            this.scheduler = scheduler;
+            this.clock = scheduler.getClock();
+            this.listener = listener;
+            this.lanes = new OrderingLane[orderingLanes];
+            for (int i = 0; i < this.lanes.length; i++) {
+                this.lanes[i] = new OrderingLane();
+            }
+            this.lastFinishTag = 0;
+            this.closed = false;
+            this.cancelled = false;
+            this.setWeight(weight);
+        }
+
+        /**
+         * Submits a {@link RequestRunner} for execution.
+         * <p>
+         * If the runner has an ordering key and another runner with a key on the same lane has not completed yet,
+         * the runner is held back until all runners submitted before it on that lane have completed.
+         *
+         * @param runner         the runner
+         * @param scheduledNanos the point in time (as in {@link SimulationClock#nanoTime()}) the event of the runner
+         *                       was due at
+         * @return a {@link Future} representing the pending {@link ExecutionReport}
+         * @throws IllegalStateException if this queue has already been closed
+         */
+        public Future<ExecutionReport> submit(final RequestRunner runner, final long scheduledNanos) {
+
+            if (this.closed) {
+                throw new IllegalStateException("dispatch queue of simulation " + simulationId + " is closed");
+            }
+
+            double startTag;
+            synchronized (this) {
+                startTag = Math.max(getVirtualTime(), this.lastFinishTag);
+                this.lastFinishTag = startTag + 1 / this.weight;
+            }
+
+            String orderingKey = runner.getOrderingKey();
+            OrderingLane lane = orderingKey == null ? null
+                    : this.lanes[Math.floorMod(orderingKey.hashCode(), this.lanes.length)];
+
+            FairShareTask task = new FairShareTask(this, retryPolicy.wrap(runner), startTag,
+                    sequence.getAndIncrement(), scheduledNanos, lane, getTargetLane(runner.getTargetKey()));
+            this.pending.add(task);
+            this.enter(task);
+            if (lane == null || lane.admit(task)) {
+                runQueue.add(task);
+            }
+            return task;
+        }
+
+        /**
+         * Submits several {@link RequestRunner}s for execution at once, in the order they are supplied.
+         * <p>
+         * Behaves like calling {@link this#submit(RequestRunner, long)} for every runner, but assigns the start tags
+         * of all runners under a single lock, so large batches (e.g. when fast-forwarding) are submitted quickly.
+         *
+         * @param runners        the runners
+         * @param scheduledNanos the point in time (as in {@link SimulationClock#nanoTime()}) the events of the runners
+         *                       are regarded as due at
+         * @throws IllegalStateException if this queue has already been closed
+         */
+        public void submitAll(final List<RequestRunner> runners, final long scheduledNanos) {
+
+            if (this.closed) {
+                throw new IllegalStateException("dispatch queue of simulation " + simulationId + " is closed");
+            }
+            if (runners.isEmpty()) {
+                return;
+            }
+
+            double[] startTags = new double[runners.size()];
+            synchronized (this) {
+                double startTag = Math.max(getVirtualTime(), this.lastFinishTag);
+                for (int i = 0; i < startTags.length; i++) {
+                    startTags[i] = startTag;
+                    startTag += 1 / this.weight;
+                }
+                this.lastFinishTag = startTag;
+            }
+
+            List<FairShareTask> admitted = new ArrayList<>(runners.size());
+            for (int i = 0; i < startTags.length; i++) {
+                RequestRunner runner = runners.get(i);
+                String orderingKey = runner.getOrderingKey();
+                OrderingLane lane = orderingKey == null ? null
+                        : this.lanes[Math.floorMod(orderingKey.hashCode(), this.lanes.length)];
+
+                FairShareTask task = new FairShareTask(this, retryPolicy.wrap(runner), startTags[i],
+                        sequence.getAndIncrement(), scheduledNanos, lane, getTargetLane(runner.getTargetKey()));
+                this.pending.add(task);
+                this.enter(task);
+                if (lane == null || lane.admit(task)) {
+                    admitted.add(task);
+                }
+            }
+            runQueue.addAll(admitted);
+        }
+
+        /**
+         * Counts a submitted runner as in flight, both for this queue and for its target.
+         *
+         * @param task the submitted runner
+         */
+        private void enter(final FairShareTask task) {
+
+            this.inFlight.incrementAndGet();
+            if (task.coalescingKey != null) {
+                ArrayDeque<FairShareTask> sameKey =
+                        this.pendingByCoalescingKey.computeIfAbsent(task.coalescingKey, k -> new ArrayDeque<>());
+                synchronized (sameKey) {
+                    sameKey.addLast(task);
+                }
+            }
+            if (task.targetKey != null) {
+                targetsInFlight.computeIfAbsent(task.targetKey, k -> new AtomicInteger()).incrementAndGet();
+            }
+        }
+
+        /**
+         * Cancels the pending runners an update supersedes, i.e. all runners with the same coalescing key (see
+         * {@link RequestRunner#getCoalescingKey()}) that have not been started yet, if the oldest of them has been
+         * waiting for a worker or its lane for a minimum time. This way, only the latest of several state updates is
+         * sent to the target once the workers fall behind.
+         * <p>
+         * Cancelled runners are not reported to {@link this#listener}.
+         *
+         * @param runner       the update that is about to be submitted
+         * @param minWaitNanos the minimum time in ns the oldest pending runner must have been waiting
+         * @return the runners that have been cancelled, in submission order
+         */
+        public List<RequestRunner> supersede(final RequestRunner runner, final long minWaitNanos) {
+
+            String coalescingKey = runner.getCoalescingKey();
+            ArrayDeque<FairShareTask> sameKey = coalescingKey == null ? null
+                    : this.pendingByCoalescingKey.get(coalescingKey);
+            if (sameKey == null) {
+                return Collections.emptyList();
+            }
+
+            List<FairShareTask> superseded;
+            synchronized (sameKey) {
+                FairShareTask oldest = sameKey.peekFirst();
+                if (oldest == null || this.clock.nanoTime() - oldest.dispatchNanos < minWaitNanos) {
+                    return Collections.emptyList();
+                }
+                superseded = new ArrayList<>(sameKey);
+                sameKey.clear();
+            }
+
+            List<RequestRunner> cancelled = new ArrayList<>(superseded.size());
+            for (FairShareTask task : superseded) {
+                if (this.pending.remove(task)) {
+                    runQueue.remove(task);
+                    task.cancel(false);
+                    cancelled.add(task.runner);
+                }
+            }
+            return cancelled;
+        }
+
+        /**
+         * Stops counting a completed or cancelled runner as in flight.
+         *
+         * @param task the completed or cancelled runner
+         */
+        private void exit(final FairShareTask task) {
+
+            this.inFlight.decrementAndGet();
+            if (task.targetKey != null) {
+                targetsInFlight.get(task.targetKey).decrementAndGet();
+            }
+        }
+
+        /**
+         * Releases the next runner of the lane of a completed or cancelled runner to the workers. Does nothing if the
+         * runner has released its lane already, see {@link FairShareTask#run()}.
+         *
+         * @param task the completed or cancelled runner
+         */
+        private void release(final FairShareTask task) {
+
+            if (task.lane == null) {
+                return;
+            }
+            FairShareTask next = task.lane.release(task);
+            if (next != null) {
+                runQueue.add(next);
+            }
+        }
+
+        /**
+         * Releases the concurrency permit of a completed or cancelled runner at its target and passes the runners
+         * waiting for a permit of the target to the workers, as far as the limit allows.
+         *
+         * @param task         the completed or cancelled runner
+         * @param latencyNanos the time in ns the runner has been running or a negative value, if it has not been
+         *                     started
+         * @param overloaded   whether the target has signalled that it is overloaded
+         */
+        private void releaseTarget(final FairShareTask task, final long latencyNanos, final boolean overloaded) {
+
+            if (task.targetLane == null) {
+                return;
+            }
+            runQueue.addAll(task.targetLane.release(task, latencyNanos, overloaded));
+        }
+
+        /**
+         * Hands a runner back to the workers after a delay, e.g. because it has failed transiently or its target
+         * limits the rate of requests. The runner must have released its permit of the target already.
+         * <p>
+         * The runner is cancelled instead, if the executor has been shut down or this queue has been closed with
+         * its pending runners cancelled in the meantime.
+         *
+         * @param task       the runner
+         * @param delayNanos the delay in ns
+         */
+        private void resubmit(final FairShareTask task, final long delayNanos) {
+
+            this.waitingForRetry.add(task);
+            if (this.cancelled) {
+                this.waitingForRetry.remove(task);
+                task.cancel(false);
+                return;
+            }
+            this.scheduler.scheduleTask(() -> {
+                if (shutdown || this.cancelled) {
+                    task.cancel(false);
+                } else {
+                    runQueue.add(task);
+                }
+            }, this.clock.nanoTime() + delayNanos);
+        }
+
+        /**
+         * Closes this queue.
+         * <p>
+         * Runners that have already been submitted are still executed, unless {@code cancelPending} is set. In this
+         * case, all runners that have not been started yet or are waiting for a retry are cancelled.
+         *
+         * @param cancelPending whether runners that have not been started yet should be cancelled
+         */
+        public void close(final boolean cancelPending) {
+
+            this.closed = true;
+            queues.remove(this.simulationId, this);
+
+            if (cancelPending) {
+                this.cancelled = true;
+                for (FairShareTask task : this.pending) {
+                    runQueue.remove(task);
+                    task.cancel(false);
+                }
+                this.pending.clear();
+                for (FairShareTask task : this.waitingForRetry) {
+                    runQueue.remove(task);
+                    task.cancel(false);
+                }
+                this.waitingForRetry.clear();
+            }
+        }
+
+        /**
+         * Getter for the number of runners that have been submitted and not yet been started.
+         *
+         * @return the number of pending runners
+         */
+        public int getPendingRunners() {
+            return this.pending.size();
+        }
+
+        /**
+         * Getter for the number of runners that have been submitted through this queue and have not completed or
+         * been cancelled yet.
+         *
+         * @return the number of runners in flight
+         */
+        public int getInFlightRunners() {
+            return this.inFlight.get();
+        }
+
+        /**
+         * Getter for {@link this#simulationId}.
+         *
+         * @return the value of {@link this#simulationId}
+         */
+        public int getSimulationId() {
+            return simulationId;
+        }
+
+        /**
+         * Getter for {@link this#weight}.
+         *
+         * @return the value of {@link this#weight}
+         */
+        public double getWeight() {
+            return weight;
+        }
+
+        /**
+         * Setter for {@link this#weight}. Only affects runners that are submitted afterwards.
+         *
+         * @param weight the new value for {@link this#weight}
+         * @throws IllegalArgumentException if the weight is not positive
+         */
+        public void setWeight(final double weight) {
+            if (!(weight > 0)) {
+                throw new IllegalArgumentException("weight must be positive!");
+            }
+            this.weight = weight;
+        }
+
+        /**
+         * Getter for {@link this#closed}.
+         *
+         * @return the value of {@link this#closed}
+         */
+        public boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * Getter for a {@link String} representation of this queue.
+         *
+         * @return a {@link String} representation of this queue
+         */
+        @Override
+        public String toString() {
+            return "DispatchQueue{" +
+                    "simulationId=" + simulationId +
+                    ", pending=" + pending.size() +
+                    ", weight=" + weight +
+                    ", closed=" + closed +
+                    '}';
+        }
+    }
+
+    /**
+     * A submitted {@link RequestRunner}, ordered by its start tag.
+     */
+    private static final class FairShareTask extends FutureTask<ExecutionReport>
+            implements Comparable<FairShareTask> {
+
+        /**
+         * The queue the runner has been submitted through.
+         */
+        private final DispatchQueue queue;
+        /**
+         * The runner.
+         */
+        private final RequestRunner runner;
+        /**
+         * The execution of the runner including its retries.
+         */
+        private final RetryPolicy.Execution execution;
+        /**
+         * The virtual start tag of the runner.
+         */
+        private final double startTag;
+        /**
+         * The submission sequence number of the runner.
+         */
+        private final long sequenceNumber;
+        /**
+         * The point in time the event of the runner was due at.
+         */
+        private final long scheduledNanos;
+        /**
+         * The point in time the runner was submitted.
+         */
+        private final long dispatchNanos;
+        /**
+         * The point in time the runner was started.
+         */
+        private volatile long startNanos;
+        /**
+         * The point in time the latest attempt of the runner was started.
+         */
+        private volatile long attemptStartNanos;
+        /**
+         * The ordering lane of the runner or {@code null}, if it has no ordering key.
+         */
+        private final OrderingLane lane;
+        /**
+         * The target key of the runner or {@code null}, if it is unknown.
+         */
+        private final String targetKey;
+        /**
+         * The coalescing key of the runner or {@code null}, if it may not be coalesced.
+         */
+        private final String coalescingKey;
+        /**
+         * The lane of the target of the runner or {@code null}, if the target is not limited.
+         */
+        private final TargetLane targetLane;
+        /**
+         * The ticket of the concurrency permit the runner holds at {@link this#targetLane} or -1, if it holds none.
+         * Guarded by {@link this#targetLane}.
+         */
+        private long ticket;
+
+        /**
+         * Constructor.
+         *
+         * @param queue          the queue the runner has been submitted through
+         * @param execution      the execution of the runner including its retries
+         * @param startTag       the virtual start tag of the runner
+         * @param sequenceNumber the submission sequence number of the runner
+         * @param scheduledNanos the point in time the event of the runner was due at
+         * @param lane           the ordering lane of the runner or {@code null}, if it has no ordering key
+         * @param targetLane     the lane of the target of the runner or {@code null}, if the target is not limited
+         */
+        private FairShareTask(final DispatchQueue queue, final RetryPolicy.Execution execution,
+                              final double startTag, final long sequenceNumber, final long scheduledNanos,
+                              final OrderingLane lane, final TargetLane targetLane) {
+            super(execution.getRunner());
+            this.queue = queue;
+            this.runner = execution.getRunner();
+            this.execution = execution;
+            this.startTag = startTag;
+            this.sequenceNumber = sequenceNumber;
+            this.scheduledNanos = scheduledNanos;
+            this.dispatchNanos = queue.clock.nanoTime();
+            this.lane = lane;
+            this.targetKey = this.runner.getTargetKey();
+            this.coalescingKey = this.runner.getCoalescingKey();
+            this.targetLane = targetLane;
+            this.ticket = -1;
+        }
+
+        /**
+         * Runs an attempt of the runner. Before the first attempt, the runner is removed from the pending runners of
+         * its queue. Does nothing if it has been removed already, since it is about to be cancelled in this case, see
+         * {@link DispatchQueue#supersede}.
+         * <p>
+         * If the target of the runner has reached its concurrency limit, the runner is parked at
+         * {@link this#targetLane} instead, which passes it to the workers again once it has got a permit. If the
+         * runner may not be started yet (see {@link RequestRunner#tryStart()}) or the attempt fails and
+         * {@link this#execution} asks for a retry, the permit is released and the runner is handed back to the
+         * workers after the delay, see {@link DispatchQueue#resubmit}. Otherwise, the result of the attempt becomes
+         * the result of this task. The runner itself is never run by {@link FutureTask#run()}, so anything thrown
+         * while handling the attempt becomes the result of this task instead.
+         * <p>
+         * If the runner sends its request on another thread (see {@link RequestRunner#callAsync()}), the worker
+         * returns right away, and the runner releases its lane and its permit, since the request is limited by
+         * whoever sends it. The attempt is then completed on the thread that completes the request.
+         */
+        @Override
+        public void run() {
+            try {
+                this.runAttempt();
+            } catch (Throwable t) {
+                this.leavePending();
+                this.setException(t);
+            }
+        }
+
+        /**
+         * Runs an attempt of the runner, see {@link this#run()}.
+         */
+        private void runAttempt() {
+            if (this.targetLane != null && !this.targetLane.acquire(this)) {
+                return;
+            }
+            if (this.isDone()) {
+                this.queue.releaseTarget(this, -1, false);
+                return;
+            }
+            long startDelayNanos = this.runner.tryStart();
+            if (startDelayNanos > 0) {
+                this.queue.releaseTarget(this, -1, false);
+                this.queue.resubmit(this, startDelayNanos);
+                return;
+            }
+            if (this.execution.getAttempts() == 0) {
+                if (!this.leavePending()) {
+                    this.queue.releaseTarget(this, -1, false);
+                    return;
+                }
+                this.startNanos = this.queue.clock.nanoTime();
+            }
+
+            this.queue.waitingForRetry.remove(this);
+            this.attemptStartNanos = this.queue.clock.nanoTime();
+            CompletableFuture<Long> attempt = this.execution.attempt();
+            if (!attempt.isDone()) {
+                this.queue.releaseTarget(this, -1, false);
+                this.queue.release(this);
+            }
+            attempt.whenComplete(this::completeAttempt);
+        }
+
+        /**
+         * Completes an attempt of the runner, see {@link this#run()}.
+         *
+         * @param retryDelayNanos the delay in ns before the runner should be run again, a negative value, if it should
+         *                        not be run again, or {@code null}, if deciding this has failed
+         * @param failure         the {@link Throwable} deciding this has failed with or {@code null}
+         */
+        private void completeAttempt(final Long retryDelayNanos, final Throwable failure) {
+            try {
+                if (failure != null) {
+                    this.setException(failure instanceof CompletionException && failure.getCause() != null
+                            ? failure.getCause() : failure);
+                } else if (retryDelayNanos >= 0) {
+                    this.queue.releaseTarget(this, this.queue.clock.nanoTime() - this.attemptStartNanos,
+                            this.isOverloadSignal(this.execution.getFailure()));
+                    this.queue.resubmit(this, retryDelayNanos);
+                } else if (this.execution.getThrown() != null) {
+                    this.setException(this.execution.getThrown());
+                } else {
+                    this.set(this.execution.getReport());
+                }
+            } catch (Throwable t) {
+                this.setException(t);
+            }
+        }
+
+        /**
+         * Removes this runner from the pending runners of its queue.
+         *
+         * @return {@code true}, if the runner has been pending, {@code false}, if it has been removed already
+         */
+        private boolean leavePending() {
+
+            if (!this.queue.pending.remove(this)) {
+                return false;
+            }
+            if (this.coalescingKey != null) {
+                ArrayDeque<FairShareTask> sameKey = this.queue.pendingByCoalescingKey.get(this.coalescingKey);
+                synchronized (sameKey) {
+                    sameKey.remove(this);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Checks whether a failure of the runner signals that its target is overloaded. A failing check counts as
+         * no signal, so that it cannot keep the permit of the runner from being released.
+         *
+         * @param failure the failure or {@code null}
+         * @return {@code true}, if the failure signals an overloaded target, {@code false} otherwise
+         */
+        private boolean isOverloadSignal(final Throwable failure) {
+
+            if (failure == null) {
+                return false;
+            }
+            try {
+                return this.runner.getEvent().getEventTypeInstance().isOverloadSignal(failure);
+            } catch (RuntimeException e) {
+                Logger.getLogger(RequestRunnerExecutor.class).error("Overload check of simulation "
+                        + this.queue.simulationId + " failed", e);
+                return false;
+            }
+        }
+
+        /**
+         * Stops counting this runner as in flight, releases the next runner of its lane and notifies the listener of
+         * the queue, unless the runner has been cancelled before it has been started.
+         */
+        @Override
+        protected void done() {
+
+            this.queue.exit(this);
+            this.queue.waitingForRetry.remove(this);
+            this.queue.release(this);
+            if (this.isCancelled()) {
+                this.queue.releaseTarget(this, -1, false);
+                return;
+            }
+
+            long completionNanos = this.queue.clock.nanoTime();
+            ExecutionReport report = null;
+            Throwable failure = null;
+            try {
+                report = this.get();
+            } catch (ExecutionException e) {
+                failure = e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = e;
+            }
+            Throwable throwable = report != null ? report.getThrowable() : failure;
+            this.queue.releaseTarget(this, completionNanos - this.attemptStartNanos, this.isOverloadSignal(throwable));
+            try {
+                this.queue.listener.onCompletion(this.runner, report, failure, this.scheduledNanos,
+                        this.dispatchNanos, this.startNanos, completionNanos, this.execution.getAttempts());
+            } catch (RuntimeException e) {
+                Logger.getLogger(RequestRunnerExecutor.class).error("Completion listener of simulation "
+                        + this.queue.simulationId + " failed", e);
+            }
+        }
+
+        /**
+         * Compares this task with another one by start tag and submission order.
+         *
+         * @param other the task to compare with
+         * @return a value < 0 if this task should be started first, a value > 0 otherwise
+         */
+        @Override
+        public int compareTo(final FairShareTask other) {
+            int result = Double.compare(this.startTag, other.startTag);
+            return result != 0 ? result : Long.compare(this.sequenceNumber, other.sequenceNumber);
+        }
+    }
+
+    /**
+     * A lane of a {@link DispatchQueue} that runs the runners hashed onto it one after another.
+     */
+    private static final class OrderingLane {
+
+        /**
+         * The runners waiting for {@link this#current} to complete, in submission order.
+         */
+        private final ArrayDeque<FairShareTask> backlog;
+        /**
+         * The runner that has been released to the workers and has not completed yet or {@code null}, if there is
+         * none.
+         */
+        private FairShareTask current;
+
+        /**
+         * Constructor.
+         */
+        private OrderingLane() {
+            this.backlog = new ArrayDeque<>();
+            this.current = null;
+        }
+
+        /**
+         * Admits a runner to this lane.
+         *
+         * @param task the runner
+         * @return {@code true}, if the runner may be released to the workers right away, {@code false}, if it has
+         * been added to the backlog
+         */
+        private synchronized boolean admit(final FairShareTask task) {
+
+            if (this.current == null) {
+                this.current = task;
+                return true;
+            }
+            this.backlog.addLast(task);
+            return false;
+        }
+
+        /**
+         * Releases the next runner of the backlog after a runner has completed.
+         *
+         * @param task the completed runner
+         * @return the runner that may be released to the workers now or {@code null}, if there is none
+         */
+        private synchronized FairShareTask release(final FairShareTask task) {
+
+            if (this.current != task) {
+                return null;
+            }
+            FairShareTask next = this.backlog.pollFirst();
+            while (next != null && next.isCancelled()) {
+                next = this.backlog.pollFirst();
+            }
+            this.current = next;
+            return next;
+        }
+    }
+
+    /**
+     * The lane all runners sent to the same target pass through, which admits them according to the adaptive
+     * concurrency limit of the target.
+     */
+    private static final class TargetLane {
+
+        /**
+         * The concurrency limit of the target.
+         */
+        private final AdaptiveConcurrencyLimiter limiter;
+        /**
+         * The runners waiting for a permit, in the order they have been taken by the workers.
+         */
+        private final ArrayDeque<FairShareTask> waiting;
+
+        /**
+         * Constructor.
+         *
+         * @param limiter the concurrency limit of the target
+         */
+        private TargetLane(final AdaptiveConcurrencyLimiter limiter) {
+            this.limiter = limiter;
+            this.waiting = new ArrayDeque<>();
+        }
+
+        /**
+         * Gets a permit for a runner that is about to be started, unless it holds one already.
+         *
+         * @param task the runner
+         * @return {@code true}, if the runner holds a permit now, {@code false}, if it has been parked
+         */
+        private synchronized boolean acquire(final FairShareTask task) {
+
+            if (task.ticket >= 0) {
+                return true;
+            }
+            task.ticket = this.limiter.tryAcquire();
+            if (task.ticket < 0) {
+                this.waiting.addLast(task);
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Releases the permit of a runner, if it holds one, and hands out permits to the waiting runners.
+         *
+         * @param task         the completed or cancelled runner
+         * @param latencyNanos the time in ns the runner has been running or a negative value, if it has not been
+         *                     started
+         * @param overloaded   whether the target has signalled that it is overloaded
+         * @return the waiting runners that hold a permit now
+         */
+        private synchronized List<FairShareTask> release(final FairShareTask task, final long latencyNanos,
+                                                         final boolean overloaded) {
+
+            if (task.ticket < 0) {
+                return Collections.emptyList();
+            }
+            this.limiter.release(task.ticket, latencyNanos, overloaded);
+            task.ticket = -1;
+
+            List<FairShareTask> admitted = new ArrayList<>();
+            while (!this.waiting.isEmpty()) {
+                FairShareTask next = this.waiting.peekFirst();
+                if (!next.isCancelled()) {
+                    next.ticket = this.limiter.tryAcquire();
+                    if (next.ticket < 0) {
+                        break;
+                    }
+                    admitted.add(next);
+                }
+                this.waiting.pollFirst();
+            }
+            return admitted;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package edu.kit.pse.beprepared.simulation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class decides whether and when a failed {@link RequestRunner} is run again.
+ * <p>
+ * A runner is retried if the type of its event classifies the failure as transient (see
+ * {@link edu.kit.pse.beprepared.model.EventType#isRetryable(Throwable)}), it has not used up
+ * {@link this#maxAttempts} yet and the retry budget of its target allows for another retry. Before every retry, the
+ * runner waits for an exponentially growing delay with full jitter, i.e. a random delay between 0 and
+ * {@link this#baseDelayNanos} times 2 to the power of the number of retries so far, capped at
+ * {@link this#maxDelayNanos}. This spreads the retries of runners that have failed at the same time. The delay is
+ * waited for by the {@link RequestRunnerExecutor}, which does not hold a worker in the meantime.
+ * <p>
+ * The retry budget of a target is refilled by {@link this#budgetRatio} with every runner sent to it and holds at
+ * most {@link this#BUDGET_RESERVE} retries. Retries therefore add at most this fraction of the base traffic to a
+ * target, plus a small reserve for short bursts of failures, so retries can not overwhelm a target that is down.
+ */
+@Component
+public class RetryPolicy {
+
+    /**
+     * The maximum number of retries a retry budget holds, which is also the number of retries it starts with.
+     */
+    static final double BUDGET_RESERVE = 10;
+
+    /**
+     * The maximum number of times a runner is run, including the first attempt.
+     */
+    private final int maxAttempts;
+    /**
+     * The delay in ns before the first retry, which is doubled with every further retry.
+     */
+    private final long baseDelayNanos;
+    /**
+     * The maximum delay in ns before a retry.
+     */
+    private final long maxDelayNanos;
+    /**
+     * The number of retries a target's budget is refilled by with every runner sent to it.
+     */
+    private final double budgetRatio;
+    /**
+     * The retry budgets of all targets, mapped by their target key. Runners without a target key share a budget.
+     */
+    private final ConcurrentHashMap<String, RetryBudget> budgets;
+
+    /**
+     * Constructor.
+     * <p>
+     * Creates a policy that runs every runner up to 3 times, starting with a delay of 100 ms, and adds at most 10%
+     * retries to the base traffic.
+     */
+    public RetryPolicy() {
+        this(3, 100, 2000, 0.1);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxAttempts     the maximum number of times a runner is run, including the first attempt, 1 to disable
+     *                        retries
+     * @param baseDelayMillis the delay in ms before the first retry
+     * @param maxDelayMillis  the maximum delay in ms before a retry
+     * @param budgetRatio     the maximum number of retries per runner sent to a target, on average
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    @Autowired
+    public RetryPolicy(@Value("${beprepared.executor.retry.max-attempts:3}") final int maxAttempts,
+                       @Value("${beprepared.executor.retry.base-delay-ms:100}") final long baseDelayMillis,
+                       @Value("${beprepared.executor.retry.max-delay-ms:2000}") final long maxDelayMillis,
+                       @Value("${beprepared.executor.retry.budget-ratio:0.1}") final double budgetRatio) {
+
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("at least one attempt is required!");
+        }
+        if (baseDelayMillis < 0 || maxDelayMillis < baseDelayMillis) {
+            throw new IllegalArgumentException("delays must satisfy 0 <= base <= max!");
+        }
+        if (budgetRatio < 0) {
+            throw new IllegalArgumentException("budgetRatio must not be negative!");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayNanos = TimeUnit.MILLISECONDS.toNanos(baseDelayMillis);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.budgetRatio = budgetRatio;
+        this.budgets = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Wraps a {@link RequestRunner}, so it is retried according to this policy.
+     *
+     * @param runner the runner
+     * @return the wrapped runner
+     */
+    Execution wrap(final RequestRunner runner) {
+        String targetKey = runner.getTargetKey();
+        return new Execution(runner, this.budgets.computeIfAbsent(targetKey != null ? targetKey : "",
+                k -> new RetryBudget(this.budgetRatio)));
+    }
+
+    /**
+     * Computes the delay before a retry.
+     *
+     * @param retry the number of the retry, starting with 1
+     * @return the delay in ns
+     */
+    long getBackoffNanos(final int retry) {
+
+        long ceilingNanos = this.baseDelayNanos;
+        for (int i = 1; i < retry && ceilingNanos < this.maxDelayNanos; i++) {
+            ceilingNanos *= 2;
+        }
+        ceilingNanos = Math.min(ceilingNanos, this.maxDelayNanos);
+        return ThreadLocalRandom.current().nextLong(ceilingNanos + 1);
+    }
+
+    /**
+     * Getter for {@link this#maxAttempts}.
+     *
+     * @return the value of {@link this#maxAttempts}
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * The execution of a single {@link RequestRunner} including its retries.
+     * <p>
+     * Every call of {@link this#attempt()} runs the runner once and tells how long to wait before the next attempt, so
+     * the caller decides where to wait for it. Runners that send their request on another thread (see
+     * {@link RequestRunner#callAsync()}) are not waited for.
+     */
+    final class Execution {
+
+        /**
+         * The runner.
+         */
+        private final RequestRunner runner;
+        /**
+         * The retry budget of the target of the runner.
+         */
+        private final RetryBudget budget;
+        /**
+         * The number of times the runner has been run so far.
+         */
+        private volatile int attempts;
+        /**
+         * The report returned by the last attempt or {@code null}, if it threw.
+         */
+        private volatile ExecutionReport report;
+        /**
+         * The exception thrown by the last attempt or {@code null}, if it returned a report.
+         */
+        private volatile Exception thrown;
+        /**
+         * The {@link Throwable} the last attempt has failed with or {@code null}, if it has succeeded.
+         */
+        private volatile Throwable failure;
+
+        /**
+         * Constructor.
+         *
+         * @param runner the runner
+         * @param budget the retry budget of the target of the runner
+         */
+        private Execution(final RequestRunner runner, final RetryBudget budget) {
+            this.runner = runner;
+            this.budget = budget;
+            this.attempts = 0;
+        }
+
+        /**
+         * Runs the runner once and decides whether it is run again.
+         * <p>
+         * The runner is started by {@link RequestRunner#callAsync()}, or run by {@link RequestRunner#call()} on the
+         * calling thread, if it does not support this. In the latter case, the returned future has completed already.
+         *
+         * @return the future delay in ns before the runner should be run again, or a negative value, if it has
+         * succeeded, failed permanently or may not be retried anymore
+         */
+        CompletableFuture<Long> attempt() {
+
+            if (this.attempts == 0) {
+                this.budget.deposit();
+            }
+            this.attempts++;
+
+            this.report = null;
+            this.thrown = null;
+            CompletableFuture<ExecutionReport> pending;
+            try {
+                pending = this.runner.callAsync();
+                if (pending == null) {
+                    return CompletableFuture.completedFuture(this.evaluate(this.runner.call(), null));
+                }
+            } catch (Exception e) {
+                return CompletableFuture.completedFuture(this.evaluate(null, e));
+            }
+            return pending.thenApply(report -> this.evaluate(report, null));
+        }
+
+        /**
+         * Records the outcome of an attempt and decides whether the runner is run again.
+         *
+         * @param report the report returned by the attempt or {@code null}, if it threw
+         * @param thrown the exception thrown by the attempt or {@code null}, if it returned a report
+         * @return the delay in ns before the runner should be run again, or a negative value, if it has succeeded,
+         * failed permanently or may not be retried anymore
+         */
+        private long evaluate(final ExecutionReport report, final Exception thrown) {
+
+            this.report = report;
+            this.thrown = thrown;
+            this.failure = this.thrown != null ? this.thrown
+                    : this.report.getStatus() == ExecutionStatus.COMPLETED_EXCEPTIONALLY ? this.report.getThrowable()
+                    : null;
+
+            if (this.failure == null || !this.mayRetry(this.failure)) {
+                return -1;
+            }
+            return getBackoffNanos(this.attempts);
+        }
+
+        /**
+         * Checks whether the runner may be retried after a failed attempt, taking a retry from the budget if so.
+         *
+         * @param failure the {@link Throwable} the attempt has failed with
+         * @return {@code true}, if the runner should be run again
+         */
+        private boolean mayRetry(final Throwable failure) {
+            return this.attempts < maxAttempts
+                    && this.runner.getEvent().getEventTypeInstance().isRetryable(failure)
+                    && this.budget.tryWithdraw();
+        }
+
+        /**
+         * Getter for {@link this#runner}.
+         *
+         * @return the value of {@link this#runner}
+         */
+        RequestRunner getRunner() {
+            return runner;
+        }
+
+        /**
+         * Getter for {@link this#attempts}.
+         *
+         * @return the value of {@link this#attempts}
+         */
+        int getAttempts() {
+            return attempts;
+        }
+
+        /**
+         * Getter for {@link this#report}.
+         *
+         * @return the value of {@link this#report}
+         */
+        ExecutionReport getReport() {
+            return report;
+        }
+
+        /**
+         * Getter for {@link this#thrown}.
+         *
+         * @return the value of {@link this#thrown}
+         */
+        Exception getThrown() {
+            return thrown;
+        }
+
+        /**
+         * Getter for {@link this#failure}.
+         *
+         * @return the value of {@link this#failure}
+         */
+        Throwable getFailure() {
+            return failure;
+        }
+    }
+
+    /**
+     * The retries a target may still receive.
+     */
+    static final class RetryBudget {
+
+        /**
+         * The number of retries the budget is refilled by with every runner.
+         */
+        private final double ratio;
+        /**
+         * The number of retries left.
+         */
+        private double tokens;
+
+        /**
+         * Constructor.
+         * <p>
+         * Creates a budget holding {@link RetryPolicy#BUDGET_RESERVE} retries.
+         *
+         * @param ratio the number of retries the budget is refilled by with every runner
+         */
+        RetryBudget(final double ratio) {
+            this.ratio = ratio;
+            this.tokens = BUDGET_RESERVE;
+        }
+
+        /**
+         * Refills the budget for a runner that is about to be run for the first time.
+         */
+        synchronized void deposit() {
+            this.tokens = Math.min(BUDGET_RESERVE, this.tokens + this.ratio);
+        }
+
+        /**
+         * Takes a retry from the budget.
+         *
+         * @return {@code true}, if a retry was left
+         */
+        synchronized boolean tryWithdraw() {
+
+            if (this.tokens < 1) {
+                return false;
+            }
+            this.tokens--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package edu.kit.pse.beprepared.simulation;
+
+/**
+ * This enum contains the different ways a {@link Simulation} can treat the events it jumps over when it seeks to a
+ * later point in time.
+ */
+public enum SeekMode {
+    /**
+     * The {@link RequestRunner}s of the events that are jumped over are submitted right away, as if their events had
+     * been due.
+     */
+    EXECUTE,
+    /**
+     * The events that are jumped over are dropped without creating {@link RequestRunner}s for them.
+     */
+    SKIP
+}
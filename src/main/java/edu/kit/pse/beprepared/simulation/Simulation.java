@@ -2,39 +2,102 @@ package edu.kit.pse.beprepared.simulation;
 
 import edu.kit.pse.beprepared.model.Configuration;
 import edu.kit.pse.beprepared.model.Event;
+import edu.kit.pse.beprepared.model.EventType;
 import edu.kit.pse.beprepared.model.Phase;
 import edu.kit.pse.beprepared.model.Scenario;
 import org.apache.log4j.Logger;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * This class represents a simulation.
+ * <p>
+ * A simulation does not own a thread. It is driven by the shared {@link SimulationScheduler}, which wakes it up
+ * whenever its next event is due.
+ * <p>
+ * The state of a simulation has a single writer. Control operations, wakeups and completed runners are enqueued as
+ * commands on a lock-free mailbox, and a thread of the scheduler applies all pending commands one after another, see
+ * {@link this#execute(Runnable)}. No thread ever waits for a monitor: control operations only wait for their own
+ * command to be applied, and the thread dispatching the runners never contends with them. After every
+ * command, an immutable {@link Timeline} is published, from which other threads read the state and the current point
+ * in time.
  */
-public class Simulation implements Runnable {
+public class Simulation {
 
     /**
      * The next id.
      */
     private static int nextId = 0;
-
     /**
-     * Time in ms that run() is put to sleep when simulation is paused before checking the simulation state again
+     * The weight a new simulation gets when sharing the {@link RequestRunnerExecutor} with other simulations.
+     */
+    public static final double DEFAULT_DISPATCH_WEIGHT = 1;
+    /**
+     * The maximum number of {@link RequestRunner}s that are created ahead of time.
+     */
+    private static final int RUNNER_WINDOW_SIZE = 64;
+    /**
+     * The maximum number of submitted {@link RequestRunner}s waiting for a worker in
+     * {@link SimulationMode#AS_FAST_AS_POSSIBLE}.
+     */
+    private static final int MAX_PENDING_RUNNERS = RUNNER_WINDOW_SIZE;
+    /**
+     * The default for {@link this#jitWarmupIterations}.
+     */
+    public static final int DEFAULT_JIT_WARMUP_ITERATIONS = 10000;
+    /**
+     * The time in ns after which a simulation that is blocked by the in-flight limit of a target checks again, since
+     * it is not notified when the runners of other simulations complete.
      */
-    private final long SLEEP_INTERVAL_WHEN_PAUSED = 1000;
+    private static final long TARGET_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
     /**
      * The {@link Logger} used by objects of this class.
      */
     private final Logger log = Logger.getLogger(Simulation.class);
     /**
-     * The {@link ExecutorService} that runs the {@link RequestRunner}s.
+     * The shared {@link RequestRunnerExecutor} that runs the {@link RequestRunner}s of this simulation.
+     */
+    private final RequestRunnerExecutor executor;
+    /**
+     * The queue of {@link this#executor} this simulation submits its {@link RequestRunner}s to. A new queue is opened
+     * when a finished or terminated simulation is rewound.
+     */
+    private volatile RequestRunnerExecutor.DispatchQueue dispatchQueue;
+    /**
+     * The {@link WakeupScheduler} that wakes this simulation up when its next event is due.
+     */
+    private final WakeupScheduler scheduler;
+    /**
+     * The clock of {@link this#scheduler}, which the simulated timeline is measured with.
      */
-    private final ExecutorService threadPool;
+    private final SimulationClock clock;
+    /**
+     * The commands that have been enqueued and not yet been applied.
+     */
+    private final ConcurrentLinkedQueue<Runnable> mailbox;
+    /**
+     * The number of commands that have been enqueued and not yet been applied. Whoever raises it from 0 has commands
+     * applied until it drops back to 0, see {@link this#drain()}.
+     */
+    private final AtomicInteger pendingCommands;
+    /**
+     * The snapshot of the timeline published after the most recent command.
+     */
+    private volatile Timeline timeline;
     /**
      * The id of this phase.
      */
@@ -44,37 +107,46 @@ public class Simulation implements Runnable {
      */
     private final Scenario scenario;
     /**
-     * The queue of {@link RequestRunner}s.
+     * The events that have not been turned into {@link RequestRunner}s yet, in chronological order.
+     */
+    private final EventCursor eventCursor;
+    /**
+     * The queue of {@link RequestRunner}s for the next events, holding at most {@link this#RUNNER_WINDOW_SIZE}
+     * runners.
      */
-    private final LinkedList<RequestRunner> runnerQueue;
+    private final ArrayDeque<RequestRunner> runnerQueue;
     /**
      * Threshold used to check whether the speed has changed
      */
     private final double THRESHOLD = .0001;
     /**
-     * The start time of the simulation.
+     * The point in time (as in {@link SimulationClock#nanoTime()}) the simulation has been started at.
      */
-    private long simulationStarttime;
+    private long startNanos;
     /**
      * The current state of this {@link Simulation}.
      */
     private SimulationState simulationState;
     /**
-     * The amount of time the simulation has been on hold.
+     * The amount of time in ns the simulation has been on hold.
      */
-    private long pausedMillis;
+    private long pausedNanos;
     /**
-     * The point in time where the simulation has been put on hold.
+     * The point in time (as in {@link SimulationClock#nanoTime()}) the simulation has been put on hold at.
      */
-    private long putOnHoldOn;
+    private long putOnHoldNanos;
     /**
-     * The time the simulation terminated or finished.
+     * The point in time (as in {@link SimulationClock#nanoTime()}) the simulation terminated or finished at.
      */
-    private long simulationEndTime;
+    private long endNanos;
     /**
-     * List of {@link java.util.concurrent.Future}s for further use.
+     * The results of all {@link RequestRunner}s that have completed so far.
      */
-    private LinkedList<Future<ExecutionReport>> futures;
+    private final ExecutionResultStore results;
+    /**
+     * The timing metrics of all {@link RequestRunner}s that have completed so far.
+     */
+    private final SimulationMetrics metrics;
     /**
      * The configuration this simulation uses.
      */
@@ -83,328 +155,1450 @@ public class Simulation implements Runnable {
      * The phases this simulation runs.
      */
     private LinkedList<Phase> selectedPhases;
+    /**
+     * The time in ms the {@link RequestRunner}s are prepared ahead of the point in time their events are due at.
+     */
+    private volatile long prepareLeadMillis;
+    /**
+     * The number of {@link RequestRunner}s at the head of {@link this#runnerQueue} that have been prepared.
+     */
+    private int preparedRunners;
+    /**
+     * The report of the last call of {@link this#prepare()} or {@code null}, if the simulation has not been prepared.
+     */
+    private volatile PreparationReport preparationReport;
+    /**
+     * The way this simulation dispatches its {@link RequestRunner}s.
+     */
+    private volatile SimulationMode mode;
+    /**
+     * The point in time in ns of the event that has been dispatched most recently in
+     * {@link SimulationMode#AS_FAST_AS_POSSIBLE}.
+     */
+    private long lastDispatchedPointInTimeNanos;
     /**
      * The current simulation speed.
      */
     private double currentSpeed;
     /**
-     * Used for correct time calculation when changing the simulation speed while the simulation is running
+     * Used for correct time calculation when changing the simulation speed while the simulation is running, in ns.
      */
-    private long speedUpMillis;
+    private long speedUpNanos;
     /**
-     * Used for correct time calculation when fast forwarding the simulation.
+     * Used for correct time calculation when fast forwarding or rewinding the simulation, in ns.
      */
-    private long fastForwardedMillis;
-
+    private long fastForwardedNanos;
+    /**
+     * The wakeup currently registered at {@link this#scheduler} or {@code null}, if there is none.
+     */
+    private Wakeup pendingWakeup;
+    /**
+     * The maximum number of {@link RequestRunner}s of this simulation in flight at the same time, 0 for no limit.
+     */
+    private volatile int maxInFlight;
+    /**
+     * The maximum number of {@link RequestRunner}s of all simulations in flight to the same target at the same time,
+     * see {@link RequestRunner#getTargetKey()}, 0 for no limit.
+     */
+    private volatile int maxInFlightPerTarget;
+    /**
+     * What happens to a due {@link RequestRunner} that exceeds {@link this#maxInFlight} or
+     * {@link this#maxInFlightPerTarget}.
+     */
+    private volatile BackPressurePolicy backPressurePolicy;
+    /**
+     * The time in ms a {@link RequestRunner} of a state-like event (see {@link EventType#isStateLike()}) must be
+     * behind schedule before it is dropped in favor of a later runner with the same ordering key, or a negative value,
+     * if such runners are never coalesced due to lag.
+     */
+    private volatile long coalesceAfterMillis;
+    /**
+     * The number of {@link RequestRunner}s created and prepared per {@link EventType} while preparing the simulation,
+     * so the JIT has compiled their code paths before the first event is due, 0 to skip this.
+     */
+    private volatile int jitWarmupIterations;
     /**
-     * The thread the simulation is running in.
+     * Whether dispatching waits for a {@link RequestRunner} in flight to complete.
      */
-    private Thread thread;
+    private boolean blocked;
 
     /**
      * Constructor.
      * <p>
-     * Initializes all attributes and constructs the {@link RequestRunner}s for all the events in the selected phases.
+     * Initializes all attributes and takes a snapshot of the events in the selected phases. The {@link RequestRunner}s
+     * for these events are not created here, but just in time while the simulation is running.
      *
      * @param scenario       the scenario that is simulated
      * @param selectedPhases the phases that should be simulated
      * @param configuration  the {@link Configuration} of the simulation
      * @param initialSpeed   the initial speed of the simulation
+     * @param scheduler      the {@link WakeupScheduler} that drives this simulation, usually the
+     *                       {@link SimulationScheduler}
+     * @param executor       the {@link RequestRunnerExecutor} that runs the {@link RequestRunner}s
      */
     public Simulation(final Scenario scenario, final Collection<Phase> selectedPhases,
-                      final Configuration configuration, final double initialSpeed) {
+                      final Configuration configuration, final double initialSpeed,
+                      final WakeupScheduler scheduler, final RequestRunnerExecutor executor) {
 
         this.id = Simulation.nextId++;
         this.scenario = scenario;
-        this.runnerQueue = new LinkedList<>();
-        this.pausedMillis = 0;
-        this.simulationEndTime = 0;
+        this.eventCursor = new EventCursor(selectedPhases);
+        this.runnerQueue = new ArrayDeque<>(RUNNER_WINDOW_SIZE);
+        this.pausedNanos = 0;
+        this.endNanos = 0;
         this.simulationState = SimulationState.INITIALIZED;
         this.configuration = configuration;
         this.selectedPhases = new LinkedList<>(selectedPhases);
-        this.simulationStarttime = 0;
-        this.futures = new LinkedList<>();
-        this.threadPool = Executors.newCachedThreadPool();
+        this.startNanos = 0;
+        this.results = new ExecutionResultStore(scheduler.getClock());
+        this.metrics = new SimulationMetrics();
+        this.metrics.setGauges(this::getLagNanos, () -> this.dispatchQueue.getInFlightRunners());
+        this.executor = executor;
+        this.dispatchQueue = executor.open(this.id, DEFAULT_DISPATCH_WEIGHT, scheduler, this::onCompletion);
+        this.prepareLeadMillis = 0;
+        this.preparedRunners = 0;
+        this.preparationReport = null;
+        this.mode = SimulationMode.PACED;
+        this.lastDispatchedPointInTimeNanos = 0;
         this.currentSpeed = initialSpeed;
-        this.speedUpMillis = 0;
-        this.fastForwardedMillis = 0;
+        this.speedUpNanos = 0;
+        this.fastForwardedNanos = 0;
+        this.scheduler = scheduler;
+        this.clock = scheduler.getClock();
+        this.pendingWakeup = null;
+        this.mailbox = new ConcurrentLinkedQueue<>();
+        this.pendingCommands = new AtomicInteger();
+        this.maxInFlight = 0;
+        this.maxInFlightPerTarget = 0;
+        this.backPressurePolicy = BackPressurePolicy.BLOCK;
+        this.coalesceAfterMillis = -1;
+        this.jitWarmupIterations = DEFAULT_JIT_WARMUP_ITERATIONS;
+        this.blocked = false;
+        this.timeline = new Timeline(this);
+
+        log.info("Created simulation " + id);
+        log.debug("Created simulation " + this.toString());
+    }
 
-        final LinkedList<Event> events = new LinkedList<>();
-        selectedPhases.forEach(p -> events.addAll(p.getAllEvents()));
+    /**
+     * Called by the {@link WakeupScheduler} when a wakeup registered by this simulation has expired. Enqueues the
+     * dispatch of the due {@link RequestRunner}s, see {@link this#dispatch(Wakeup)}, and applies the pending commands
+     * right away, since the calling thread belongs to the scheduler already.
+     *
+     * @param wakeup the expired wakeup
+     */
+    void onWakeup(final Wakeup wakeup) {
 
-        Collections.sort(events);
+        if (this.enqueue(() -> this.dispatch(wakeup))) {
+            this.drain();
+        }
+    }
 
-        events.forEach(e -> runnerQueue.add(e.getEventTypeInstance().getRequestRunnerFor(e, configuration)));
+    /**
+     * Submits all {@link RequestRunner}s that are due, prepares those that are due within
+     * {@link this#prepareLeadMillis} and registers a wakeup for the next one. Wakeups that have been superseded in the
+     * meantime (e.g. because the simulation has been paused or its speed has changed) are ignored.
+     *
+     * @param wakeup the expired wakeup
+     */
+    private void dispatch(final Wakeup wakeup) {
 
-        this.thread = new Thread(this);
+        if (wakeup != this.pendingWakeup || this.simulationState != SimulationState.RUNNING) {
+            log.trace("Ignoring stale wakeup of simulation " + id);
+            return;
+        }
+        this.pendingWakeup = null;
 
-        log.info("Created simulation " + id);
-        log.debug("Created simulation " + this.toString());
+        try {
+            if (this.mode == SimulationMode.AS_FAST_AS_POSSIBLE) {
+                this.dispatchAsFastAsPossible();
+            } else {
+                this.dispatchDueRunners();
+            }
+        } catch (RuntimeException e) {
+            // the runners that have not been dispatched are picked up by the next wakeup, so the simulation goes on
+            log.error("Dispatching runners of simulation " + id + " failed", e);
+        }
+
+        if (this.runnerQueue.isEmpty()) {
+            //no elements left in the queue. The {@link Simulation} is finished.
+            this.endNanos = this.clock.nanoTime();
+            this.simulationState = SimulationState.FINISHED;
+            this.dispatchQueue.close(false);
+            log.info("Finished simulation " + id);
+            return;
+        }
+
+        if (this.mode == SimulationMode.PACED) {
+            this.prepareUpcomingRunners();
+            if (!this.blocked) {
+                this.scheduleNextWakeup();
+            }
+        }
     }
 
     /**
-     * When an object implementing interface <code>Runnable</code> is used
-     * to create a thread, starting the thread causes the object's
-     * <code>run</code> method to be called in that separately executing
-     * thread.
+     * Enqueues a command. If no command has been pending, all pending commands are applied on a thread of
+     * {@link this#scheduler}, see {@link this#drain()}, so the calling thread returns right away and never ends up
+     * dispatching runners.
      * <p>
-     * The general contract of the method <code>run</code> is that it may
-     * take any action whatsoever.
+     * Commands are applied one after another in the order they have been enqueued, so they can access the state of
+     * this simulation without locking. After every command, {@link this#timeline} is published.
      *
-     * @see Thread#run()
+     * @param command the command
      */
-    @Override
-    public void run() {
+    private void execute(final Runnable command) {
 
-        while (this.simulationState == SimulationState.RUNNING || this.simulationState == SimulationState.PAUSED) {
-            if (this.simulationState == SimulationState.RUNNING) {
+        if (this.enqueue(command)) {
+            this.scheduler.execute(this::drain);
+        }
+    }
 
-                synchronized (this) {
-                    if (this.runnerQueue.isEmpty()) {
-                        //no elements left in the queue. The {@link Simulation} is finished.
-                        this.simulationEndTime = System.currentTimeMillis();
-                        this.simulationState = SimulationState.FINISHED;
-                        break;
-                    }
+    /**
+     * Adds a command to {@link this#mailbox}.
+     *
+     * @param command the command
+     * @return {@code true}, if no command has been pending, so the caller has to apply the pending commands
+     */
+    private boolean enqueue(final Runnable command) {
+
+        this.mailbox.offer(command);
+        return this.pendingCommands.getAndIncrement() == 0;
+    }
+
+    /**
+     * Applies pending commands until {@link this#pendingCommands} drops back to 0. Only the thread that has raised
+     * it from 0 may call this method.
+     */
+    private void drain() {
+
+        int missed = 1;
+        do {
+            Runnable next;
+            while ((next = this.mailbox.poll()) != null) {
+                try {
+                    next.run();
+                } catch (Throwable t) {
+                    log.error("Applying a command to simulation " + id + " failed", t);
                 }
-                RequestRunner runner = this.runnerQueue.removeFirst();
-                log.trace("Trying to run " + runner.toString());
-
-                if (this.getPointInTime() < runner.event.getPointInTime()) {
-                    log.trace("current point in time " + this.getPointInTime() + " was smaller" +
-                            " than event point in time " + runner.event.getPointInTime());
-                    this.runnerQueue.addFirst(runner);
-                    log.trace("runner queue after re-queueing: " + runnerQueue.toString());
-                    try {
-                        /*go to sleep till the next event is due. This will be interrupted if fastForward, stop or
-                        pause is called or if the speed is changed.*/
-                        long pit;
-                        if (runner.event.getPointInTime() > (pit = this.getPointInTime())) {
-                            Thread.sleep((long) ((runner.event.getPointInTime() - pit) / currentSpeed));
-                        }
-                    } catch (InterruptedException e) {
-                        log.trace(e);
-                    }
+                this.timeline = new Timeline(this);
+            }
+            missed = this.pendingCommands.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * Enqueues a command, see {@link this#execute(Runnable)}, and waits until it has been applied.
+     * <p>
+     * Must not be called from within a command, since the command would never be applied.
+     *
+     * @param command the command
+     * @param <T>     the type of the result of the command
+     * @return the result of the command
+     * @throws RuntimeException if the command threw it
+     * @throws Error           if the command threw it
+     */
+    private <T> T call(final Supplier<T> command) {
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        this.execute(() -> {
+            try {
+                result.complete(command.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Submits all {@link RequestRunner}s whose events are due at the current point in time.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
+     */
+    private void dispatchDueRunners() {
+
+        final long pointInTimeNanos = this.currentPointInTimeNanos();
+        final long nowNanos = this.clock.nanoTime();
+        final long coalesceAfterNanos = TimeUnit.MILLISECONDS.toNanos(this.coalesceAfterMillis);
+        this.fillRunnerQueue();
+        this.blocked = false;
+        while (!this.runnerQueue.isEmpty()
+                && this.runnerQueue.getFirst().event.getPointInTimeNanos() <= pointInTimeNanos) {
+            RequestRunner next = this.runnerQueue.getFirst();
+            long lateNanos = (long) ((pointInTimeNanos - next.event.getPointInTimeNanos()) / this.currentSpeed);
+            try {
+                if (coalesceAfterNanos >= 0 && lateNanos >= coalesceAfterNanos
+                        && this.isSuperseded(next, pointInTimeNanos)) {
+                    this.recordCoalesced(this.pollRunner());
+                    this.fillRunnerQueue();
                     continue;
                 }
+                if (!this.mayAdmit(next)) {
+                    if (this.applyBackPressure(next, pointInTimeNanos)) {
+                        continue;
+                    }
+                    this.blocked = true;
+                    break;
+                }
+                RequestRunner runner = this.pollRunner();
+                log.trace("Running " + runner.toString());
+                if (coalesceAfterNanos >= 0) {
+                    this.dispatchQueue.supersede(runner, coalesceAfterNanos).forEach(this::recordCoalesced);
+                }
+                this.dispatchQueue.submit(runner, nowNanos - lateNanos);
+            } catch (RuntimeException e) {
+                this.recordFailedDispatch(next, nowNanos - lateNanos, e);
+            }
+            this.fillRunnerQueue();
+        }
+    }
 
-                futures.add(threadPool.submit(runner));
+    /**
+     * Submits {@link RequestRunner}s regardless of the points in time of their events, until
+     * {@link this#MAX_PENDING_RUNNERS} of them are waiting for a worker. The next wakeup is registered by
+     * {@link this#onCompletion} as soon as a runner completes, so the executor is kept busy without queueing up the
+     * whole scenario.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
+     */
+    private void dispatchAsFastAsPossible() {
 
-            } else {
-                try {
-                    /* Sleep for a while in order to save resources. This will be interrupted if fastForward, stop or
-                        pause is called or if the speed is changed.
-                     */
-                    Thread.sleep(this.SLEEP_INTERVAL_WHEN_PAUSED);
-                } catch (InterruptedException e) {
-                    log.trace(e);
+        this.fillRunnerQueue();
+        while (!this.runnerQueue.isEmpty() && this.dispatchQueue.getPendingRunners() < MAX_PENDING_RUNNERS) {
+            RequestRunner next = this.runnerQueue.getFirst();
+            try {
+                if (!this.mayAdmit(next)) {
+                    if (this.applyBackPressure(next, Long.MAX_VALUE)) {
+                        continue;
+                    }
+                    break;
                 }
+                RequestRunner runner = this.pollRunner();
+                log.trace("Running " + runner.toString());
+                this.dispatchQueue.submit(runner, this.clock.nanoTime());
+            } catch (RuntimeException e) {
+                this.recordFailedDispatch(next, this.clock.nanoTime(), e);
             }
+            this.lastDispatchedPointInTimeNanos = next.event.getPointInTimeNanos();
+            this.fillRunnerQueue();
         }
-
-        this.simulationEndTime = System.currentTimeMillis();
     }
 
     /**
-     * Starts this {@link Simulation}, if it hasn't been started before.
+     * Records a {@link RequestRunner} that could not be submitted, e.g. because its event type failed to determine
+     * its ordering key, as {@link ExecutionStatus#COMPLETED_EXCEPTIONALLY} and removes it from
+     * {@link this#runnerQueue}, unless it has been removed already. This way, a single broken event neither stops
+     * the simulation nor blocks the runners behind it.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
      *
-     * @return the state the simulation is in
+     * @param runner         the runner
+     * @param scheduledNanos the point in time the event of the runner was due at
+     * @param failure        the exception that prevented the runner from being submitted
      */
-    public synchronized SimulationState start() {
-        if (this.simulationState == SimulationState.INITIALIZED) {
-            this.simulationState = SimulationState.RUNNING;
-            this.simulationStarttime = System.currentTimeMillis();
-            thread.start();
-            log.info("Started simulation " + this.id);
+    private void recordFailedDispatch(final RequestRunner runner, final long scheduledNanos,
+                                      final RuntimeException failure) {
+
+        log.error("Dispatching " + runner + " of simulation " + id + " failed", failure);
+        if (!this.runnerQueue.isEmpty() && this.runnerQueue.getFirst() == runner) {
+            this.pollRunner();
         }
-        return this.simulationState;
+        long nowNanos = this.clock.nanoTime();
+        this.results.record(runner.event.getId(), ExecutionStatus.COMPLETED_EXCEPTIONALLY, failure, scheduledNanos,
+                nowNanos, nowNanos, 0);
     }
 
     /**
-     * Get the id.
+     * Checks whether a {@link RequestRunner} may be submitted without exceeding {@link this#maxInFlight} and
+     * {@link this#maxInFlightPerTarget}.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
      *
-     * @return the id
+     * @param runner the runner
+     * @return {@code true}, if the runner may be submitted right away
      */
-    public int getId() {
-        return id;
+    private boolean mayAdmit(final RequestRunner runner) {
+
+        if (this.maxInFlight > 0 && this.dispatchQueue.getInFlightRunners() >= this.maxInFlight) {
+            return false;
+        }
+        String targetKey = runner.getTargetKey();
+        return this.maxInFlightPerTarget <= 0 || targetKey == null
+                || this.executor.getInFlight(targetKey) < this.maxInFlightPerTarget;
     }
 
     /**
-     * Toggles the state of the {@link Simulation} between running and paused.
-     * Does nothing if the simulation hasn't been started before or has already finished or terminated.
+     * Applies {@link this#backPressurePolicy} to the next {@link RequestRunner}, which may not be submitted right
+     * away, see {@link this#mayAdmit(RequestRunner)}. If the runner is dropped, it is removed from
+     * {@link this#runnerQueue}. Otherwise, dispatching has to wait for a runner in flight to complete.
+     * <p>
+     * If the limit of a target has been reached, a wakeup is registered after {@link this#TARGET_RETRY_NANOS} in both
+     * modes, since the runners in flight to the target may belong to other simulations, whose completions this
+     * simulation is not notified of.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
+     *
+     * @param runner           the next runner, i.e. the first runner of {@link this#runnerQueue}
+     * @param pointInTimeNanos the current point in time, up to which the runners are due
+     * @return {@code true}, if the runner has been dropped, {@code false}, if dispatching has to wait
      */
-    public synchronized SimulationState togglePause() {
+    private boolean applyBackPressure(final RequestRunner runner, final long pointInTimeNanos) {
 
-        if (this.simulationState == SimulationState.RUNNING) {
-            this.simulationState = SimulationState.PAUSED;
-            this.putOnHoldOn = System.currentTimeMillis();
-            log.info("Paused simulation " + id);
-        } else if (this.simulationState == SimulationState.PAUSED) {
-            this.pausedMillis += System.currentTimeMillis() - this.putOnHoldOn;
-            this.simulationState = SimulationState.RUNNING;
-            log.info("Restarted simulation " + id + " from paused state");
-            log.debug("pausedMillis is now " + this.pausedMillis);
-            log.debug("currentPointInTime is now " + this.getPointInTime());
+        if (this.backPressurePolicy == BackPressurePolicy.SHED) {
+            this.metrics.recordShed();
+            log.debug("Shed " + runner);
+        } else if (this.backPressurePolicy == BackPressurePolicy.COALESCE
+                && this.isSuperseded(runner, pointInTimeNanos)) {
+            this.recordCoalesced(runner);
+        } else {
+            boolean simulationFull = this.maxInFlight > 0
+                    && this.dispatchQueue.getInFlightRunners() >= this.maxInFlight;
+            if (!simulationFull) {
+                this.scheduler.cancel(this.pendingWakeup);
+                this.pendingWakeup = this.scheduler.schedule(this, TARGET_RETRY_NANOS);
+            }
+            return false;
         }
-        this.thread.interrupt(); //wake the thread up
-        return this.simulationState;
+
+        this.pollRunner();
+        this.fillRunnerQueue();
+        return true;
     }
 
     /**
-     * Terminates this simulation.
+     * Counts a {@link RequestRunner} that has been dropped in favor of a later runner with the same ordering key.
      *
-     * @return the simulation state
+     * @param runner the dropped runner
      */
-    public synchronized SimulationState stop() {
-        if (this.simulationState != SimulationState.FINISHED) {
-            this.simulationState = SimulationState.TERMINATED;
-            this.thread.interrupt(); //wake the thread up
-        }
-        this.simulationEndTime = System.currentTimeMillis();
-        return this.simulationState;
+    private void recordCoalesced(final RequestRunner runner) {
+        this.metrics.recordCoalesced(runner.event.getEventTypeInstance().getTypeName());
+        log.debug("Coalesced " + runner);
     }
 
     /**
-     * Fast-forwards the simulation to a supplied event.
+     * Checks whether a {@link RequestRunner} of a state-like event type (see {@link EventType#isStateLike()}) is
+     * superseded by a later runner of {@link this#runnerQueue} for the same type and ordering key that is due as well.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
      *
-     * @param eventId the id of the event the simulation should be forwarded to
-     * @return the simulation state
-     * @throws IllegalArgumentException if the supplied eventId does not belong to any event of this simulation
+     * @param runner           the runner
+     * @param pointInTimeNanos the current point in time, up to which the runners are due
+     * @return {@code true}, if only the later runner needs to be submitted
      */
-    public synchronized SimulationState fastForwardTo(final long eventId) {
+    private boolean isSuperseded(final RequestRunner runner, final long pointInTimeNanos) {
 
-        boolean paused = this.simulationState == SimulationState.PAUSED;
+        EventType eventType = runner.event.getEventTypeInstance();
+        String orderingKey = runner.getOrderingKey();
+        if (!eventType.isStateLike() || orderingKey == null) {
+            return false;
+        }
 
-        if (!paused) {
-            this.togglePause();
+        for (RequestRunner later : this.runnerQueue) {
+            if (later.event.getPointInTimeNanos() > pointInTimeNanos) {
+                return false;
+            }
+            if (later != runner && later.event.getEventTypeInstance() == eventType
+                    && orderingKey.equals(later.getOrderingKey())) {
+                return true;
+            }
         }
+        return false;
+    }
 
-        boolean eventExists = false;
-        for (RequestRunner requestRunner : runnerQueue) {
-            if (requestRunner.event.getId() == eventId) {
-                eventExists = true;
+    /**
+     * Prepares the {@link RequestRunner}s whose events are due within {@link this#prepareLeadMillis} at the current
+     * speed, see {@link RequestRunner#prepare()}.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
+     */
+    private void prepareUpcomingRunners() {
+
+        if (this.prepareLeadMillis <= 0) {
+            return;
+        }
+
+        long horizonNanos = this.currentPointInTimeNanos()
+                + (long) (TimeUnit.MILLISECONDS.toNanos(this.prepareLeadMillis) * this.currentSpeed);
+        this.fillRunnerQueue();
+        Iterator<RequestRunner> runners = this.runnerQueue.iterator();
+        for (int i = 0; i < this.preparedRunners; i++) {
+            runners.next();
+        }
+        while (runners.hasNext()) {
+            RequestRunner runner = runners.next();
+            if (runner.event.getPointInTimeNanos() > horizonNanos) {
                 break;
             }
+            try {
+                runner.prepare();
+            } catch (RuntimeException e) {
+                log.warn("Preparing " + runner + " failed, it will be prepared when it runs", e);
+            }
+            this.preparedRunners++;
         }
+    }
 
-        if (!eventExists) {
-            this.togglePause();
-            throw new IllegalArgumentException("there is no event with id " + eventId + " that belongs to this sim");
+    /**
+     * Removes the next {@link RequestRunner} from {@link this#runnerQueue}.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
+     *
+     * @return the runner
+     */
+    private RequestRunner pollRunner() {
+
+        if (this.preparedRunners > 0) {
+            this.preparedRunners--;
         }
+        return this.runnerQueue.removeFirst();
+    }
 
-        while (this.runnerQueue.getFirst().event.getId() != eventId) {
+    /**
+     * Registers an immediate wakeup in {@link SimulationMode#AS_FAST_AS_POSSIBLE}, unless one is pending already.
+     */
+    private void requestRefill() {
 
-            this.futures.add(this.threadPool.submit(this.runnerQueue.removeFirst()));
+        this.execute(() -> {
+            if (this.mode == SimulationMode.AS_FAST_AS_POSSIBLE && this.simulationState == SimulationState.RUNNING
+                    && this.pendingWakeup == null) {
+                this.pendingWakeup = this.scheduler.schedule(this, 0);
+            }
+        });
+    }
 
-        }
+    /**
+     * Replaces the pending wakeup, if any, with a wakeup for the point in time the next {@link RequestRunner} in
+     * {@link this#runnerQueue} is due at the current speed, or has to be prepared if that is earlier. In
+     * {@link SimulationMode#AS_FAST_AS_POSSIBLE}, the wakeup is registered for right now.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
+     */
+    private void scheduleNextWakeup() {
 
-        this.fastForwardedMillis += (this.runnerQueue.getFirst().event.getPointInTime() - this.getPointInTime());
+        this.scheduler.cancel(this.pendingWakeup);
+        this.pendingWakeup = null;
 
-        if (!paused) {
-            this.togglePause();
+        if (this.simulationState != SimulationState.RUNNING) {
+            return;
         }
 
-        this.thread.interrupt(); //wake the thread up
+        this.fillRunnerQueue();
+        if (this.runnerQueue.isEmpty() || this.mode != SimulationMode.PACED) {
+            this.pendingWakeup = this.scheduler.schedule(this, 0);
+            return;
+        }
 
-        return this.simulationState;
+        long dueNanos = this.toClockNanos(this.runnerQueue.getFirst().event.getPointInTimeNanos());
+        if (this.prepareLeadMillis > 0 && this.preparedRunners < this.runnerQueue.size()) {
+            Iterator<RequestRunner> runners = this.runnerQueue.iterator();
+            for (int i = 0; i < this.preparedRunners; i++) {
+                runners.next();
+            }
+            long prepareNanos = this.toClockNanos(runners.next().event.getPointInTimeNanos())
+                    - TimeUnit.MILLISECONDS.toNanos(this.prepareLeadMillis);
+            dueNanos = Math.min(dueNanos, prepareNanos);
+        }
+        this.pendingWakeup = this.scheduler.scheduleAt(this, dueNanos);
     }
 
     /**
-     * Getter for {@link this#scenario}.
+     * Converts a point in time of the simulated timeline into the point in time of {@link this#clock} it is reached
+     * at, assuming the simulation keeps running at the current speed.
+     * <p>
+     * The result is computed from the start of the simulation rather than from the current point in time, so
+     * rounding errors do not add up over many wakeups.
      *
-     * @return {@link this#scenario}
+     * @param pointInTimeNanos the simulated point in time in ns
+     * @return the point in time as in {@link SimulationClock#nanoTime()}
      */
-    public Scenario getScenario() {
-        return scenario;
+    private long toClockNanos(final long pointInTimeNanos) {
+        return this.startNanos + this.pausedNanos + (long) Math.ceil(
+                (pointInTimeNanos - this.speedUpNanos - this.fastForwardedNanos) / this.currentSpeed);
     }
 
     /**
-     * Getter for {@link this#simulationState}
-     *
-     * @return {@link this#simulationState}
+     * Tops {@link this#runnerQueue} up with {@link RequestRunner}s for the next events of {@link this#eventCursor}.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
      */
-    public SimulationState getSimulationState() {
-        return simulationState;
+    private void fillRunnerQueue() {
+
+        while (this.runnerQueue.size() < RUNNER_WINDOW_SIZE && this.eventCursor.hasNext()) {
+            Event event = this.eventCursor.next();
+            this.runnerQueue.addLast(event.getEventTypeInstance().getRequestRunnerFor(event, this.configuration));
+        }
     }
 
     /**
-     * Getter for {@link this#currentSpeed}.
+     * Called by the {@link RequestRunnerExecutor} when one of the {@link RequestRunner}s of this simulation has
+     * completed. Records the result in {@link this#results} and its timing in {@link this#metrics}.
      *
-     * @return the value of {@link this#currentSpeed}
+     * @param runner          the runner
+     * @param report          the report returned by the runner or {@code null}, if it threw
+     * @param failure         the {@link Throwable} thrown by the runner or {@code null}, if it returned a report
+     * @param scheduledNanos  the point in time the event of the runner was due at
+     * @param dispatchNanos   the point in time the runner was submitted
+     * @param startNanos      the point in time the runner was started
+     * @param completionNanos the point in time the runner completed
+     * @param attempts        the number of times the runner has been run, including retries
      */
-    public double getCurrentSpeed() {
-        return currentSpeed;
+    private void onCompletion(final RequestRunner runner, final ExecutionReport report, final Throwable failure,
+                              final long scheduledNanos, final long dispatchNanos, final long startNanos,
+                              final long completionNanos, final int attempts) {
+
+        ExecutionStatus status = report != null ? report.getStatus() : ExecutionStatus.COMPLETED_EXCEPTIONALLY;
+        Throwable throwable = report != null ? report.getThrowable() : failure;
+        this.results.record(runner.event.getId(), status, throwable, scheduledNanos, dispatchNanos,
+                completionNanos, attempts);
+        this.metrics.record(runner.event.getEventTypeInstance().getTypeName(), scheduledNanos, dispatchNanos,
+                startNanos, completionNanos);
+        if (this.mode == SimulationMode.AS_FAST_AS_POSSIBLE) {
+            this.requestRefill();
+        } else if (this.maxInFlight > 0 || this.maxInFlightPerTarget > 0) {
+            this.execute(this::unblock);
+        }
     }
 
     /**
-     * Getter for {@link this#configuration}
-     *
-     * @return {@link this#configuration}
+     * Resumes dispatching if it waits for a {@link RequestRunner} in flight to complete.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
      */
-    public Configuration getConfiguration() {
-        return configuration;
-    }
+    private void unblock() {
 
+        if (this.blocked) {
+            this.blocked = false;
+            this.scheduleNextWakeup();
+        }
+    }
 
     /**
-     * Getter for {@link this#selectedPhases}
-     *
-     * @return {@link this#selectedPhases}
+     * Removes the pending wakeup, if any, from the {@link WakeupScheduler}.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
      */
-    public Collection<Phase> getSelectedPhases() {
-        return new LinkedList<>(this.selectedPhases);
+    private void cancelWakeup() {
+
+        this.scheduler.cancel(this.pendingWakeup);
+        this.pendingWakeup = null;
     }
 
     /**
-     * Getter for the current relative point in time.
+     * Prepares this {@link Simulation}, so it starts without a cold start.
+     * <p>
+     * Every {@link EventType} used by the selected phases warms up the targets of its events, e.g. by resolving host
+     * names, opening pooled connections and logging in, see {@link EventType#warmUp(Collection, Configuration)}.
+     * Afterwards the code paths of the {@link RequestRunner}s are warmed up by creating and preparing
+     * {@link this#jitWarmupIterations} throwaway runners per event type, and the runners of the first events are
+     * created and prepared. The simulation is {@link SimulationState#PREPARED} if all event types are ready and stays
+     * {@link SimulationState#INITIALIZED} otherwise, so it can be prepared again. It can be started in either case.
+     * <p>
+     * The warm-up runs on the calling thread rather than as a command, since it may take seconds and other control
+     * operations would have to wait for it. Only its result is applied as a command, unless the simulation has been
+     * started in the meantime.
      *
-     * @return the current relative point in time
+     * @return the report on the readiness of the event types
+     * @throws IllegalStateException if the simulation has already been started
      */
-    public long getPointInTime() {
-        switch (this.simulationState) {
-            case RUNNING:
-                return (long) ((System.currentTimeMillis() - this.simulationStarttime - this.pausedMillis)
-                        * this.currentSpeed) + this.speedUpMillis + this.fastForwardedMillis;
-            case PAUSED:
-                return (long) ((this.putOnHoldOn - this.simulationStarttime - this.pausedMillis)
-                        * this.currentSpeed) + this.speedUpMillis + this.fastForwardedMillis;
-            case FINISHED:
-            case TERMINATED:
-                return (long) ((this.simulationEndTime - this.simulationStarttime - this.pausedMillis)
-                        * this.currentSpeed) + this.speedUpMillis + this.fastForwardedMillis;
-            default:
-                return 0;
+    public PreparationReport prepare() {
+
+        long prepareStartNanos = System.nanoTime();
+        Map<EventType, List<Event>> eventsByType = this.call(this::groupEventsByType);
+        PreparationReport report = new PreparationReport();
+
+        int warmedUpRunners = 0;
+        for (Map.Entry<EventType, List<Event>> entry : eventsByType.entrySet()) {
+            EventType eventType = entry.getKey();
+            List<Event> events = entry.getValue();
+
+            long typeStartNanos = System.nanoTime();
+            Throwable failure = null;
+            try {
+                eventType.warmUp(events, this.configuration);
+            } catch (Exception | LinkageError e) {
+                log.warn("Warming up " + eventType.getTypeName() + " for simulation " + id + " failed", e);
+                failure = e;
+            }
+            report.add(eventType.getTypeName(), failure,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - typeStartNanos));
+
+            try {
+                for (int i = 0; i < this.jitWarmupIterations; i++) {
+                    Event event = events.get(i % events.size());
+                    eventType.getRequestRunnerFor(event, this.configuration).prepare();
+                    warmedUpRunners++;
+                }
+            } catch (RuntimeException e) {
+                log.debug("Warming up the runners of " + eventType.getTypeName() + " failed", e);
+            }
         }
+        report.setWarmedUpRunners(warmedUpRunners);
+
+        return this.call(() -> this.applyPreparation(report, prepareStartNanos));
     }
 
     /**
-     * Call this method when the simulation speed has changed.
+     * Groups the events of the selected phases by their {@link EventType} for {@link this#prepare()}.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
+     *
+     * @return the events mapped by their type, in the order the types first occur
+     * @throws IllegalStateException if the simulation has already been started
      */
-    public synchronized void changeSpeed(double newSpeed) {
-        if (!(this.simulationState == SimulationState.FINISHED || this.simulationState == SimulationState.TERMINATED)) {
+    private Map<EventType, List<Event>> groupEventsByType() {
 
-            double oldSpeed = this.currentSpeed;
-            if (Math.abs(newSpeed - oldSpeed) > THRESHOLD) {
-                //do stuff
-                log.debug("Changing speed from " + oldSpeed + " to " + newSpeed + "!");
-                long pointInTime = this.getPointInTime();
-                log.debug("Before speed change: pointInTime=" + pointInTime + ", speedUpMillis=" + speedUpMillis);
-                speedUpMillis = pointInTime - this.fastForwardedMillis
-                        - (long) ((pointInTime - this.fastForwardedMillis - this.speedUpMillis) / oldSpeed * newSpeed);
-                this.currentSpeed = newSpeed;
-                log.debug("After speed change: pointInTime=" + this.getPointInTime() + ", speedUpMillis=" + speedUpMillis);
+        if (this.simulationState != SimulationState.INITIALIZED
+                && this.simulationState != SimulationState.PREPARED) {
+            throw new IllegalStateException("only simulations that have not been started can be prepared!");
+        }
+
+        Map<EventType, List<Event>> eventsByType = new LinkedHashMap<>();
+        for (Phase phase : this.selectedPhases) {
+            for (Event event : phase.getAllEvents()) {
+                eventsByType.computeIfAbsent(event.getEventTypeInstance(), t -> new ArrayList<>()).add(event);
             }
-            this.thread.interrupt();  //wake the thread up
         }
+        return eventsByType;
     }
 
     /**
-     * Getter for {@link this#futures}.
+     * Applies the result of the warm-up of {@link this#prepare()}: creates and prepares the runners of the first
+     * events and updates the state. Does nothing but finish the report if the simulation has been started while it
+     * was warmed up.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
      *
-     * @return the value of {@link this#futures}
+     * @param report            the report on the warm-up
+     * @param prepareStartNanos the point in time (as in {@link System#nanoTime()}) the preparation has started at
+     * @return the report
      */
-    public Collection<Future<ExecutionReport>> getFutures() {
-        return futures;
+    private PreparationReport applyPreparation(final PreparationReport report, final long prepareStartNanos) {
+
+        if (this.simulationState == SimulationState.INITIALIZED
+                || this.simulationState == SimulationState.PREPARED) {
+            this.fillRunnerQueue();
+            for (RequestRunner runner : this.runnerQueue) {
+                try {
+                    runner.prepare();
+                } catch (RuntimeException e) {
+                    log.warn("Preparing " + runner + " failed, it will be prepared when it runs", e);
+                }
+            }
+            this.preparedRunners = this.runnerQueue.size();
+            this.simulationState = report.isReady() ? SimulationState.PREPARED : SimulationState.INITIALIZED;
+        }
+
+        report.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - prepareStartNanos));
+        this.preparationReport = report;
+        log.info("Prepared simulation " + id + " in " + report.getDurationMillis() + " ms, ready: "
+                + report.isReady());
+        return report;
+    }
+
+    /**
+     * Starts this {@link Simulation}, if it hasn't been started before.
+     *
+     * @return the state the simulation is in
+     */
+    public SimulationState start() {
+        return this.call(this::doStart);
+    }
+
+    /**
+     * Applies {@link this#start()}.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
+     *
+     * @return the state the simulation is in
+     */
+    private SimulationState doStart() {
+        if (this.simulationState == SimulationState.INITIALIZED
+                || this.simulationState == SimulationState.PREPARED) {
+            this.simulationState = SimulationState.RUNNING;
+            this.startNanos = this.clock.nanoTime();
+            this.scheduleNextWakeup();
+            log.info("Started simulation " + this.id);
+        }
+        return this.simulationState;
+    }
+
+    /**
+     * Get the id.
+     *
+     * @return the id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Toggles the state of the {@link Simulation} between running and paused.
+     * Does nothing if the simulation hasn't been started before or has already finished or terminated.
+     *
+     * @return the simulation state
+     */
+    public SimulationState togglePause() {
+        return this.call(this::doTogglePause);
+    }
+
+    /**
+     * Applies {@link this#togglePause()}.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
+     *
+     * @return the simulation state
+     */
+    private SimulationState doTogglePause() {
+
+        if (this.simulationState == SimulationState.RUNNING) {
+            this.simulationState = SimulationState.PAUSED;
+            this.putOnHoldNanos = this.clock.nanoTime();
+            this.cancelWakeup();
+            log.info("Paused simulation " + id);
+        } else if (this.simulationState == SimulationState.PAUSED) {
+            this.pausedNanos += this.clock.nanoTime() - this.putOnHoldNanos;
+            this.simulationState = SimulationState.RUNNING;
+            this.scheduleNextWakeup();
+            log.info("Restarted simulation " + id + " from paused state");
+            log.debug("pausedNanos is now " + this.pausedNanos);
+            log.debug("currentPointInTimeNanos is now " + this.currentPointInTimeNanos());
+        }
+        return this.simulationState;
+    }
+
+    /**
+     * Terminates this simulation.
+     *
+     * @return the simulation state
+     */
+    public SimulationState stop() {
+        return this.call(this::doStop);
+    }
+
+    /**
+     * Applies {@link this#stop()}.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
+     *
+     * @return the simulation state
+     */
+    private SimulationState doStop() {
+        if (this.simulationState != SimulationState.FINISHED) {
+            this.simulationState = SimulationState.TERMINATED;
+            this.cancelWakeup();
+            this.dispatchQueue.close(true);
+        }
+        this.endNanos = this.clock.nanoTime();
+        return this.simulationState;
+    }
+
+    /**
+     * Fast-forwards the simulation to a supplied event.
+     * <p>
+     * The {@link RequestRunner}s of all events before the supplied one are submitted right away, see
+     * {@link this#seekTo(long, SeekMode)}. The event is looked up by id instead of scanning the remaining events.
+     *
+     * @param eventId the id of the event the simulation should be forwarded to
+     * @return the simulation state
+     * @throws IllegalArgumentException if the supplied eventId does not belong to any event of this simulation
+     */
+    public SimulationState fastForwardTo(final long eventId) {
+        return this.call(() -> this.doFastForwardTo(eventId));
+    }
+
+    /**
+     * Applies {@link this#fastForwardTo(long)}.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
+     *
+     * @param eventId the id of the event the simulation should be forwarded to
+     * @return the simulation state
+     * @throws IllegalArgumentException if the supplied eventId does not belong to any event of this simulation
+     */
+    private SimulationState doFastForwardTo(final long eventId) {
+
+        Event target = this.eventCursor.findAhead(eventId);
+        for (RequestRunner requestRunner : this.runnerQueue) {
+            if (requestRunner.event.getId() == eventId) {
+                target = requestRunner.event;
+                break;
+            }
+        }
+
+        if (target == null) {
+            throw new IllegalArgumentException("there is no event with id " + eventId + " that belongs to this sim");
+        }
+
+        this.seek(Math.max(target.getPointInTimeNanos(), this.currentPointInTimeNanos()), SeekMode.EXECUTE);
+
+        return this.simulationState;
+    }
+
+    /**
+     * Moves the simulation forward to a point in time.
+     * <p>
+     * The events between the current point in time and the supplied one are either executed right away or skipped,
+     * depending on the {@link SeekMode}. When executing, their {@link RequestRunner}s are submitted to the
+     * {@link RequestRunnerExecutor} in a single batch. When skipping, the remaining events are skipped by binary
+     * search, so seeking is cheap even for scenarios with millions of events.
+     *
+     * @param pointInTime the relative point in time in ms the simulation should be moved to
+     * @param seekMode    what should happen to the events that are jumped over
+     * @return the simulation state
+     * @throws IllegalArgumentException if the point in time lies before the current point in time
+     * @throws IllegalStateException    if the simulation is neither running nor paused
+     */
+    public SimulationState seekTo(final long pointInTime, final SeekMode seekMode) {
+        return this.call(() -> this.doSeekTo(pointInTime, seekMode));
+    }
+
+    /**
+     * Applies {@link this#seekTo(long, SeekMode)}.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
+     *
+     * @param pointInTime the relative point in time in ms the simulation should be moved to
+     * @param seekMode    what should happen to the events that are jumped over
+     * @return the simulation state
+     * @throws IllegalArgumentException if the point in time lies before the current point in time
+     * @throws IllegalStateException    if the simulation is neither running nor paused
+     */
+    private SimulationState doSeekTo(final long pointInTime, final SeekMode seekMode) {
+
+        if (this.simulationState != SimulationState.RUNNING && this.simulationState != SimulationState.PAUSED) {
+            throw new IllegalStateException("only running or paused simulations can seek!");
+        }
+
+        long pointInTimeNanos = TimeUnit.MILLISECONDS.toNanos(pointInTime);
+        if (pointInTimeNanos < this.currentPointInTimeNanos()) {
+            throw new IllegalArgumentException("simulations can not seek backwards!");
+        }
+
+        this.seek(pointInTimeNanos, seekMode);
+
+        return this.simulationState;
+    }
+
+    /**
+     * Rewinds the simulation to a point in time, so all events from that point in time on are run again.
+     * <p>
+     * The events are kept in immutable sorted arrays, so the position of the point in time is found by binary search
+     * and no events have to be copied. A running or paused simulation keeps its state. A finished or terminated
+     * simulation is paused at the point in time and replays the events once it is resumed via
+     * {@link this#togglePause()}. The results of earlier runs are kept, the replayed events are recorded again.
+     *
+     * @param pointInTime the relative point in time in ms the simulation should be rewound to
+     * @return the simulation state
+     * @throws IllegalArgumentException if the point in time is negative
+     * @throws IllegalStateException    if the simulation has not been started yet
+     */
+    public SimulationState rewindTo(final long pointInTime) {
+        return this.call(() -> this.doRewindTo(pointInTime));
+    }
+
+    /**
+     * Applies {@link this#rewindTo(long)}.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
+     *
+     * @param pointInTime the relative point in time in ms the simulation should be rewound to
+     * @return the simulation state
+     * @throws IllegalArgumentException if the point in time is negative
+     * @throws IllegalStateException    if the simulation has not been started yet
+     */
+    private SimulationState doRewindTo(final long pointInTime) {
+
+        if (pointInTime < 0) {
+            throw new IllegalArgumentException("simulations can not be rewound to a negative point in time!");
+        }
+        this.rewind(TimeUnit.MILLISECONDS.toNanos(pointInTime));
+
+        return this.simulationState;
+    }
+
+    /**
+     * Rewinds the simulation to a supplied event, so it and all events after it are run again, see
+     * {@link this#rewindTo(long)}. The event may lie before or after the current point in time.
+     *
+     * @param eventId the id of the event the simulation should be rewound to
+     * @return the simulation state
+     * @throws IllegalArgumentException if the supplied eventId does not belong to any event of this simulation
+     * @throws IllegalStateException    if the simulation has not been started yet
+     */
+    public SimulationState rewindToEvent(final long eventId) {
+        return this.call(() -> this.doRewindToEvent(eventId));
+    }
+
+    /**
+     * Applies {@link this#rewindToEvent(long)}.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
+     *
+     * @param eventId the id of the event the simulation should be rewound to
+     * @return the simulation state
+     * @throws IllegalArgumentException if the supplied eventId does not belong to any event of this simulation
+     * @throws IllegalStateException    if the simulation has not been started yet
+     */
+    private SimulationState doRewindToEvent(final long eventId) {
+
+        Event target = this.eventCursor.find(eventId);
+        if (target == null) {
+            throw new IllegalArgumentException("there is no event with id " + eventId + " that belongs to this sim");
+        }
+        this.rewind(target.getPointInTimeNanos());
+
+        return this.simulationState;
+    }
+
+    /**
+     * Moves the simulation to a point in time that may lie before the current one and replays the events from there.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
+     *
+     * @param pointInTimeNanos the relative point in time in ns the simulation should be moved to
+     * @throws IllegalStateException if the simulation has not been started yet
+     */
+    private void rewind(final long pointInTimeNanos) {
+
+        boolean paused;
+        switch (this.simulationState) {
+            case RUNNING:
+                paused = false;
+                this.doTogglePause();
+                break;
+            case PAUSED:
+                paused = true;
+                break;
+            case FINISHED:
+            case TERMINATED:
+                paused = true;
+                this.putOnHoldNanos = this.endNanos;
+                this.simulationState = SimulationState.PAUSED;
+                if (this.dispatchQueue.isClosed()) {
+                    this.dispatchQueue = this.executor.open(this.id, this.dispatchQueue.getWeight(), this.scheduler,
+                            this::onCompletion);
+                }
+                break;
+            default:
+                throw new IllegalStateException("only simulations that have been started can be rewound!");
+        }
+
+        this.runnerQueue.clear();
+        this.preparedRunners = 0;
+        this.blocked = false;
+        this.eventCursor.rewindTo(pointInTimeNanos);
+        this.fillRunnerQueue();
+
+        this.fastForwardedNanos += pointInTimeNanos - this.currentPointInTimeNanos();
+        if (this.mode == SimulationMode.AS_FAST_AS_POSSIBLE) {
+            this.lastDispatchedPointInTimeNanos = pointInTimeNanos;
+        }
+        log.info("Rewound simulation " + id + " to " + pointInTimeNanos + " ns, "
+                + (this.eventCursor.getRemaining() + this.runnerQueue.size()) + " event(s) left to replay");
+
+        if (!paused) {
+            this.doTogglePause();
+        }
+    }
+
+    /**
+     * Moves the simulation forward to a point in time that does not lie before the current one.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
+     *
+     * @param pointInTimeNanos the relative point in time in ns the simulation should be moved to
+     * @param seekMode         what should happen to the events that are jumped over
+     */
+    private void seek(final long pointInTimeNanos, final SeekMode seekMode) {
+
+        boolean paused = this.simulationState == SimulationState.PAUSED;
+
+        if (!paused) {
+            this.doTogglePause();
+        }
+
+        List<RequestRunner> jumpedOver = new ArrayList<>();
+        long skipped = 0;
+        this.fillRunnerQueue();
+        while (!this.runnerQueue.isEmpty()
+                && this.runnerQueue.getFirst().event.getPointInTimeNanos() < pointInTimeNanos) {
+            RequestRunner runner = this.pollRunner();
+            if (seekMode == SeekMode.EXECUTE) {
+                jumpedOver.add(runner);
+            } else {
+                skipped++;
+            }
+        }
+
+        if (this.runnerQueue.isEmpty()) {
+            if (seekMode == SeekMode.EXECUTE) {
+                for (Event event : this.eventCursor.nextUntil(pointInTimeNanos)) {
+                    jumpedOver.add(event.getEventTypeInstance().getRequestRunnerFor(event, this.configuration));
+                }
+            } else {
+                skipped += this.eventCursor.skipUntil(pointInTimeNanos);
+            }
+            this.fillRunnerQueue();
+        }
+
+        this.dispatchQueue.submitAll(jumpedOver, this.clock.nanoTime());
+        log.info("Simulation " + id + " jumped to " + pointInTimeNanos + " ns, executing " + jumpedOver.size()
+                + " and skipping " + skipped + " event(s)");
+
+        this.fastForwardedNanos += pointInTimeNanos - this.currentPointInTimeNanos();
+        if (this.mode == SimulationMode.AS_FAST_AS_POSSIBLE) {
+            this.lastDispatchedPointInTimeNanos = pointInTimeNanos;
+        }
+
+        if (!paused) {
+            this.doTogglePause();
+        }
+    }
+
+    /**
+     * Getter for {@link this#scenario}.
+     *
+     * @return {@link this#scenario}
+     */
+    public Scenario getScenario() {
+        return scenario;
+    }
+
+    /**
+     * Getter for {@link this#simulationState}
+     *
+     * @return {@link this#simulationState}
+     */
+    public SimulationState getSimulationState() {
+        return this.timeline.simulationState;
+    }
+
+    /**
+     * Getter for {@link this#currentSpeed}.
+     *
+     * @return the value of {@link this#currentSpeed}
+     */
+    public double getCurrentSpeed() {
+        return this.timeline.currentSpeed;
+    }
+
+    /**
+     * Getter for {@link this#configuration}
+     *
+     * @return {@link this#configuration}
+     */
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+
+
+    /**
+     * Getter for {@link this#selectedPhases}
+     *
+     * @return {@link this#selectedPhases}
+     */
+    public Collection<Phase> getSelectedPhases() {
+        return new LinkedList<>(this.selectedPhases);
+    }
+
+    /**
+     * Getter for the current relative point in time. In {@link SimulationMode#AS_FAST_AS_POSSIBLE}, this is the point
+     * in time of the event that has been dispatched most recently.
+     *
+     * @return the current relative point in time in ms, rounded down
+     */
+    public long getPointInTime() {
+        return Math.floorDiv(this.getPointInTimeNanos(), TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    /**
+     * Getter for the current relative point in time with sub-millisecond resolution. In
+     * {@link SimulationMode#AS_FAST_AS_POSSIBLE}, this is the point in time of the event that has been dispatched
+     * most recently.
+     *
+     * @return the current relative point in time in ns
+     */
+    public long getPointInTimeNanos() {
+        return this.timeline.getPointInTimeNanos(this.clock);
+    }
+
+    /**
+     * Getter for the current relative point in time as seen by the command that is being applied, which may be ahead
+     * of {@link this#timeline}.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
+     *
+     * @return the current relative point in time in ns
+     */
+    private long currentPointInTimeNanos() {
+        return new Timeline(this).getPointInTimeNanos(this.clock);
+    }
+
+    /**
+     * Call this method when the simulation speed has changed.
+     */
+    public void changeSpeed(double newSpeed) {
+        this.call(() -> {
+            this.doChangeSpeed(newSpeed);
+            return null;
+        });
+    }
+
+    /**
+     * Applies {@link this#changeSpeed(double)}.
+     * <p>
+     * Must only be called from within a command, see {@link this#execute(Runnable)}.
+     *
+     * @param newSpeed the new speed
+     */
+    private void doChangeSpeed(final double newSpeed) {
+        if (!(this.simulationState == SimulationState.FINISHED || this.simulationState == SimulationState.TERMINATED)) {
+
+            double oldSpeed = this.currentSpeed;
+            if (Math.abs(newSpeed - oldSpeed) > THRESHOLD) {
+                //do stuff
+                log.debug("Changing speed from " + oldSpeed + " to " + newSpeed + "!");
+                long pointInTime = this.currentPointInTimeNanos();
+                log.debug("Before speed change: pointInTimeNanos=" + pointInTime + ", speedUpNanos=" + speedUpNanos);
+                speedUpNanos = pointInTime - this.fastForwardedNanos
+                        - (long) ((pointInTime - this.fastForwardedNanos - this.speedUpNanos) / oldSpeed * newSpeed);
+                this.currentSpeed = newSpeed;
+                log.debug("After speed change: pointInTimeNanos=" + this.currentPointInTimeNanos() + ", speedUpNanos="
+                        + speedUpNanos);
+            }
+            this.scheduleNextWakeup();
+        }
+    }
+
+    /**
+     * Getter for the weight this simulation has when sharing the {@link RequestRunnerExecutor} with other
+     * simulations.
+     *
+     * @return the dispatch weight
+     */
+    public double getDispatchWeight() {
+        return this.dispatchQueue.getWeight();
+    }
+
+    /**
+     * Changes the weight this simulation has when sharing the {@link RequestRunnerExecutor} with other simulations.
+     * A simulation with weight 2 gets twice as many runners executed as a simulation with weight 1 while both have
+     * runners pending.
+     *
+     * @param weight the new weight
+     * @throws IllegalArgumentException if the weight is not positive
+     */
+    public void setDispatchWeight(final double weight) {
+        this.dispatchQueue.setWeight(weight);
+        log.debug("Changed dispatch weight of simulation " + id + " to " + weight);
+    }
+
+    /**
+     * Getter for {@link this#prepareLeadMillis}.
+     *
+     * @return the value of {@link this#prepareLeadMillis}
+     */
+    public long getPrepareLeadMillis() {
+        return prepareLeadMillis;
+    }
+
+    /**
+     * Setter for {@link this#prepareLeadMillis}. 0 disables preparing the {@link RequestRunner}s ahead of time.
+     *
+     * @param prepareLeadMillis the new value for {@link this#prepareLeadMillis}
+     * @throws IllegalArgumentException if the lead time is negative
+     */
+    public void setPrepareLeadMillis(final long prepareLeadMillis) {
+        if (prepareLeadMillis < 0) {
+            throw new IllegalArgumentException("prepareLeadMillis must not be negative!");
+        }
+        this.call(() -> this.prepareLeadMillis = prepareLeadMillis);
+    }
+
+    /**
+     * Getter for {@link this#coalesceAfterMillis}.
+     *
+     * @return the value of {@link this#coalesceAfterMillis}
+     */
+    public long getCoalesceAfterMillis() {
+        return coalesceAfterMillis;
+    }
+
+    /**
+     * Setter for {@link this#coalesceAfterMillis}.
+     * <p>
+     * Once a {@link RequestRunner} of a state-like event type (see {@link EventType#isStateLike()}) is behind
+     * schedule by this time, only the latest update per ordering key is sent: due runners that are superseded by a
+     * later due runner are dropped, and so are the submitted runners for the same key that have not been started yet
+     * once the next update is submitted, if the oldest of them has been waiting for a worker this long. The dropped
+     * runners are counted by {@link SimulationMetrics}. This only applies in {@link SimulationMode#PACED}.
+     *
+     * @param coalesceAfterMillis the new value for {@link this#coalesceAfterMillis}, negative to disable coalescing
+     *                            due to lag
+     */
+    public void setCoalesceAfterMillis(final long coalesceAfterMillis) {
+        this.call(() -> this.coalesceAfterMillis = coalesceAfterMillis);
+    }
+
+    /**
+     * Getter for {@link this#jitWarmupIterations}.
+     *
+     * @return the value of {@link this#jitWarmupIterations}
+     */
+    public int getJitWarmupIterations() {
+        return jitWarmupIterations;
+    }
+
+    /**
+     * Setter for {@link this#jitWarmupIterations}.
+     *
+     * @param jitWarmupIterations the new value for {@link this#jitWarmupIterations}, 0 to skip warming up the code
+     *                            paths of the {@link RequestRunner}s
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public void setJitWarmupIterations(final int jitWarmupIterations) {
+        if (jitWarmupIterations < 0) {
+            throw new IllegalArgumentException("jitWarmupIterations must not be negative!");
+        }
+        this.jitWarmupIterations = jitWarmupIterations;
+    }
+
+    /**
+     * Getter for {@link this#mode}.
+     *
+     * @return the value of {@link this#mode}
+     */
+    public SimulationMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Setter for {@link this#mode}.
+     *
+     * @param mode the new value for {@link this#mode}
+     * @throws IllegalStateException if the simulation has already been started
+     */
+    public void setMode(final SimulationMode mode) {
+        this.call(() -> {
+            if (this.simulationState != SimulationState.INITIALIZED
+                    && this.simulationState != SimulationState.PREPARED) {
+                throw new IllegalStateException("the mode can only be changed before the simulation is started!");
+            }
+            this.mode = mode;
+            log.debug("Changed mode of simulation " + id + " to " + mode);
+            return mode;
+        });
+    }
+
+    /**
+     * Getter for the time the dispatching of this simulation is behind its scenario clock, i.e. the time between the
+     * point in time of the oldest event that is due and has not been dispatched yet and the current point in time.
+     * It grows while dispatching waits due to back-pressure, see {@link this#setBackPressure}.
+     *
+     * @return the lag in ns or 0, if all due events have been dispatched or the simulation runs in
+     * {@link SimulationMode#AS_FAST_AS_POSSIBLE}
+     */
+    public long getLagNanos() {
+        Timeline timeline = this.timeline;
+        if (timeline.mode == SimulationMode.AS_FAST_AS_POSSIBLE
+                || timeline.backlogPointInTimeNanos == Long.MAX_VALUE) {
+            return 0;
+        }
+        return Math.max(0, timeline.getPointInTimeNanos(this.clock) - timeline.backlogPointInTimeNanos);
+    }
+
+    /**
+     * Limits the number of {@link RequestRunner}s in flight, i.e. submitted and not yet completed, so a slow target
+     * does not pile up runners in the {@link RequestRunnerExecutor}.
+     *
+     * @param maxInFlight          the maximum number of runners of this simulation in flight, 0 for no limit
+     * @param maxInFlightPerTarget the maximum number of runners of all simulations in flight to the same target, 0 for
+     *                             no limit
+     * @param backPressurePolicy   what happens to a due runner that exceeds one of the limits
+     * @throws IllegalArgumentException if a limit is negative or the policy is {@code null}
+     */
+    public void setBackPressure(final int maxInFlight, final int maxInFlightPerTarget,
+                                final BackPressurePolicy backPressurePolicy) {
+        if (maxInFlight < 0 || maxInFlightPerTarget < 0) {
+            throw new IllegalArgumentException("in-flight limits must not be negative!");
+        }
+        if (backPressurePolicy == null) {
+            throw new IllegalArgumentException("backPressurePolicy must not be null!");
+        }
+        this.call(() -> {
+            this.maxInFlight = maxInFlight;
+            this.maxInFlightPerTarget = maxInFlightPerTarget;
+            this.backPressurePolicy = backPressurePolicy;
+            this.unblock();
+            return backPressurePolicy;
+        });
+    }
+
+    /**
+     * Getter for {@link this#maxInFlight}.
+     *
+     * @return the value of {@link this#maxInFlight}
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Getter for {@link this#maxInFlightPerTarget}.
+     *
+     * @return the value of {@link this#maxInFlightPerTarget}
+     */
+    public int getMaxInFlightPerTarget() {
+        return maxInFlightPerTarget;
+    }
+
+    /**
+     * Getter for {@link this#backPressurePolicy}.
+     *
+     * @return the value of {@link this#backPressurePolicy}
+     */
+    public BackPressurePolicy getBackPressurePolicy() {
+        return backPressurePolicy;
+    }
+
+    /**
+     * Getter for {@link this#preparationReport}.
+     *
+     * @return the value of {@link this#preparationReport}
+     */
+    public PreparationReport getPreparationReport() {
+        return preparationReport;
+    }
+
+    /**
+     * Getter for {@link this#results}.
+     *
+     * @return the value of {@link this#results}
+     */
+    public ExecutionResultStore getResults() {
+        return results;
+    }
+
+    /**
+     * Getter for {@link this#metrics}.
+     *
+     * @return the value of {@link this#metrics}
+     */
+    public SimulationMetrics getMetrics() {
+        return metrics;
     }
 
     /**
@@ -415,24 +1609,129 @@ public class Simulation implements Runnable {
     @Override
     public String toString() {
         return "Simulation{" +
-                "SLEEP_INTERVAL_WHEN_PAUSED=" + SLEEP_INTERVAL_WHEN_PAUSED +
-                ", threadPool=" + threadPool +
+                "dispatchQueue=" + dispatchQueue +
                 ", id=" + id +
                 ", scenario=" + scenario +
+                ", eventCursor=" + eventCursor +
                 ", runnerQueue=" + runnerQueue +
                 ", THRESHOLD=" + THRESHOLD +
-                ", simulationStarttime=" + simulationStarttime +
+                ", startNanos=" + startNanos +
                 ", simulationState=" + simulationState +
-                ", pausedMillis=" + pausedMillis +
-                ", putOnHoldOn=" + putOnHoldOn +
-                ", simulationEndTime=" + simulationEndTime +
-                ", futures=" + futures +
+                ", pausedNanos=" + pausedNanos +
+                ", putOnHoldNanos=" + putOnHoldNanos +
+                ", endNanos=" + endNanos +
+                ", results=" + results.size() +
                 ", configuration=" + configuration +
                 ", selectedPhases=" + selectedPhases +
+                ", mode=" + mode +
                 ", currentSpeed=" + currentSpeed +
-                ", speedUpMillis=" + speedUpMillis +
-                ", fastForwardedMillis=" + fastForwardedMillis +
-                ", thread=" + thread +
+                ", speedUpNanos=" + speedUpNanos +
+                ", fastForwardedNanos=" + fastForwardedNanos +
                 '}';
     }
+
+    /**
+     * An immutable snapshot of the state and the timeline of a {@link Simulation}, published after every command so
+     * other threads can read consistent values without locking.
+     */
+    private static final class Timeline {
+
+        /**
+         * The state of the simulation.
+         */
+        private final SimulationState simulationState;
+        /**
+         * The mode of the simulation.
+         */
+        private final SimulationMode mode;
+        /**
+         * The point in time the simulation has been started at.
+         */
+        private final long startNanos;
+        /**
+         * The amount of time in ns the simulation has been on hold.
+         */
+        private final long pausedNanos;
+        /**
+         * The point in time the simulation has been put on hold at.
+         */
+        private final long putOnHoldNanos;
+        /**
+         * The point in time the simulation terminated or finished at.
+         */
+        private final long endNanos;
+        /**
+         * The speed of the simulation.
+         */
+        private final double currentSpeed;
+        /**
+         * The offset in ns caused by changes of the speed.
+         */
+        private final long speedUpNanos;
+        /**
+         * The offset in ns caused by fast-forwarding and rewinding.
+         */
+        private final long fastForwardedNanos;
+        /**
+         * The point in time in ns of the event that has been dispatched most recently in
+         * {@link SimulationMode#AS_FAST_AS_POSSIBLE}.
+         */
+        private final long lastDispatchedPointInTimeNanos;
+        /**
+         * The point in time in ns of the next event that has not been dispatched yet or {@link Long#MAX_VALUE}, if
+         * there is none.
+         */
+        private final long backlogPointInTimeNanos;
+
+        /**
+         * Constructor.
+         * <p>
+         * Must only be called from within a command or while the simulation is being constructed.
+         *
+         * @param simulation the simulation whose current values should be captured
+         */
+        private Timeline(final Simulation simulation) {
+            this.simulationState = simulation.simulationState;
+            this.mode = simulation.mode;
+            this.startNanos = simulation.startNanos;
+            this.pausedNanos = simulation.pausedNanos;
+            this.putOnHoldNanos = simulation.putOnHoldNanos;
+            this.endNanos = simulation.endNanos;
+            this.currentSpeed = simulation.currentSpeed;
+            this.speedUpNanos = simulation.speedUpNanos;
+            this.fastForwardedNanos = simulation.fastForwardedNanos;
+            this.lastDispatchedPointInTimeNanos = simulation.lastDispatchedPointInTimeNanos;
+            this.backlogPointInTimeNanos = simulation.runnerQueue.isEmpty() ? Long.MAX_VALUE
+                    : simulation.runnerQueue.getFirst().event.getPointInTimeNanos();
+        }
+
+        /**
+         * Getter for the relative point in time of the simulation.
+         *
+         * @param clock the clock the timeline is measured with
+         * @return the relative point in time in ns
+         */
+        private long getPointInTimeNanos(final SimulationClock clock) {
+            if (this.mode == SimulationMode.AS_FAST_AS_POSSIBLE) {
+                return this.lastDispatchedPointInTimeNanos;
+            }
+            long nowNanos;
+            switch (this.simulationState) {
+                case RUNNING:
+                    nowNanos = clock.nanoTime();
+                    break;
+                case PAUSED:
+                    nowNanos = this.putOnHoldNanos;
+                    break;
+                case FINISHED:
+                case TERMINATED:
+                    nowNanos = this.endNanos;
+                    break;
+                default:
+                    return 0;
+            }
+            return (long) ((nowNanos - this.startNanos - this.pausedNanos) * this.currentSpeed) + this.speedUpNanos
+                    + this.fastForwardedNanos;
+        }
+    }
 }
@@ -0,0 +1,36 @@
+package edu.kit.pse.beprepared.simulation;
+
+/**
+ * The source of time the {@link SimulationScheduler} and the {@link Simulation}s measure the simulated timeline
+ * with.
+ * <p>
+ * Points in time are given in ns of an arbitrary origin, like {@link System#nanoTime()}, so they only have a meaning
+ * relative to each other. In particular, they must never go backwards.
+ */
+public interface SimulationClock {
+
+    /**
+     * Returns the current point in time.
+     *
+     * @return the current point in time in ns
+     */
+    long nanoTime();
+
+    /**
+     * Waits until a point in time has been reached.
+     *
+     * @param deadlineNanos the point in time (as in {@link this#nanoTime()}) to wait for
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    void sleepUntil(long deadlineNanos) throws InterruptedException;
+
+    /**
+     * Getter for the time before a deadline within which {@link this#sleepUntil(long)} stops parking the calling
+     * thread and spins instead. Callers that wait by other means, e.g. on a {@link java.util.concurrent.DelayQueue},
+     * should hand over to {@link this#sleepUntil(long)} this long before the deadline, so they are not delayed by
+     * the coarse wakeups of the operating system.
+     *
+     * @return the time in ns
+     */
+    long getSpinNanos();
+}
@@ -0,0 +1,281 @@
+package edu.kit.pse.beprepared.simulation;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * This class collects timing metrics of the {@link RequestRunner}s of a {@link Simulation}, both in total and per
+ * {@link edu.kit.pse.beprepared.model.EventType}.
+ * <p>
+ * For every runner three durations are recorded:
+ * <ul>
+ * <li>the dispatch lateness, i.e. the time between the point in time its event was due at the current speed and the
+ * point in time it has been submitted to the {@link RequestRunnerExecutor},</li>
+ * <li>the queue wait, i.e. the time it waited in the executor for a free worker, and</li>
+ * <li>the execution latency, i.e. the time it took to run.</li>
+ * </ul>
+ * Additionally, the runners dropped due to back-pressure are counted and the current lag and number of runners in
+ * flight of the simulation can be read through gauges.
+ */
+public class SimulationMetrics {
+
+    /**
+     * The metrics of all runners.
+     */
+    private final Latencies total;
+    /**
+     * The metrics of the runners, mapped by the name of the type of their event.
+     */
+    private final ConcurrentHashMap<String, Latencies> byEventType;
+    /**
+     * The point in time the first completed runner has been submitted.
+     */
+    private long firstDispatchNanos;
+    /**
+     * The point in time the last runner has completed.
+     */
+    private long lastCompletionNanos;
+    /**
+     * The number of runners that have been dropped by {@link BackPressurePolicy#SHED}.
+     */
+    private final AtomicLong shedRunners;
+    /**
+     * The number of runners that have been dropped in favor of a later runner with the same ordering key.
+     */
+    private final AtomicLong coalescedRunners;
+    /**
+     * The number of runners that have been dropped in favor of a later runner with the same ordering key, mapped by
+     * the name of the type of their event.
+     */
+    private final ConcurrentHashMap<String, AtomicLong> coalescedByEventType;
+    /**
+     * The gauge of the time in ns the simulation is behind its scenario clock.
+     */
+    private volatile LongSupplier lagGauge;
+    /**
+     * The gauge of the number of runners of the simulation in flight.
+     */
+    private volatile IntSupplier inFlightGauge;
+
+    /**
+     * Constructor.
+     * <p>
+     * Creates new, empty metrics.
+     */
+    public SimulationMetrics() {
+        this.total = new Latencies();
+        this.byEventType = new ConcurrentHashMap<>();
+        this.firstDispatchNanos = Long.MAX_VALUE;
+        this.lastCompletionNanos = Long.MIN_VALUE;
+        this.shedRunners = new AtomicLong();
+        this.coalescedRunners = new AtomicLong();
+        this.coalescedByEventType = new ConcurrentHashMap<>();
+        this.lagGauge = () -> 0;
+        this.inFlightGauge = () -> 0;
+    }
+
+    /**
+     * Records the timing of a completed runner.
+     *
+     * @param eventType       the name of the type of the event of the runner
+     * @param scheduledNanos  the point in time the event of the runner was due at
+     * @param dispatchNanos   the point in time the runner was submitted
+     * @param startNanos      the point in time the runner was started
+     * @param completionNanos the point in time the runner completed
+     */
+    public void record(final String eventType, final long scheduledNanos, final long dispatchNanos,
+                       final long startNanos, final long completionNanos) {
+
+        synchronized (this) {
+            this.firstDispatchNanos = Math.min(this.firstDispatchNanos, dispatchNanos);
+            this.lastCompletionNanos = Math.max(this.lastCompletionNanos, completionNanos);
+        }
+        this.total.record(scheduledNanos, dispatchNanos, startNanos, completionNanos);
+        this.byEventType.computeIfAbsent(eventType, t -> new Latencies())
+                .record(scheduledNanos, dispatchNanos, startNanos, completionNanos);
+    }
+
+    /**
+     * Counts a runner that has been dropped by {@link BackPressurePolicy#SHED}.
+     */
+    public void recordShed() {
+        this.shedRunners.incrementAndGet();
+    }
+
+    /**
+     * Counts a runner that has been dropped in favor of a later runner with the same ordering key.
+     *
+     * @param eventType the name of the type of the event of the runner
+     */
+    public void recordCoalesced(final String eventType) {
+        this.coalescedRunners.incrementAndGet();
+        this.coalescedByEventType.computeIfAbsent(eventType, t -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Sets the gauges the lag and the number of runners in flight are read from.
+     *
+     * @param lagGauge      the gauge of the time in ns the simulation is behind its scenario clock
+     * @param inFlightGauge the gauge of the number of runners of the simulation in flight
+     */
+    public void setGauges(final LongSupplier lagGauge, final IntSupplier inFlightGauge) {
+        this.lagGauge = lagGauge;
+        this.inFlightGauge = inFlightGauge;
+    }
+
+    /**
+     * Getter for the sustained throughput, i.e. the number of completed runners divided by the time between the
+     * submission of the first and the completion of the last one.
+     *
+     * @return the number of completed runners per second or 0, if less than two runners have completed
+     */
+    public synchronized double getRequestsPerSecond() {
+
+        long count = this.total.executionLatency.getCount();
+        long elapsedNanos = this.lastCompletionNanos - this.firstDispatchNanos;
+        if (count < 2 || elapsedNanos <= 0) {
+            return 0;
+        }
+        return count * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Getter for {@link this#total}.
+     *
+     * @return the value of {@link this#total}
+     */
+    public Latencies getTotal() {
+        return total;
+    }
+
+    /**
+     * Getter for {@link this#byEventType}.
+     *
+     * @return an unmodifiable view of {@link this#byEventType}
+     */
+    public Map<String, Latencies> getByEventType() {
+        return Collections.unmodifiableMap(byEventType);
+    }
+
+    /**
+     * Getter for {@link this#shedRunners}.
+     *
+     * @return the value of {@link this#shedRunners}
+     */
+    public long getShedRunners() {
+        return shedRunners.get();
+    }
+
+    /**
+     * Getter for {@link this#coalescedRunners}.
+     *
+     * @return the value of {@link this#coalescedRunners}
+     */
+    public long getCoalescedRunners() {
+        return coalescedRunners.get();
+    }
+
+    /**
+     * Getter for {@link this#coalescedByEventType}.
+     *
+     * @return a snapshot of {@link this#coalescedByEventType}
+     */
+    public Map<String, Long> getCoalescedByEventType() {
+        Map<String, Long> coalesced = new HashMap<>();
+        this.coalescedByEventType.forEach((type, count) -> coalesced.put(type, count.get()));
+        return coalesced;
+    }
+
+    /**
+     * Getter for the current value of {@link this#lagGauge}.
+     *
+     * @return the time in ns the simulation is behind its scenario clock
+     */
+    public long getLagNanos() {
+        return this.lagGauge.getAsLong();
+    }
+
+    /**
+     * Getter for the current value of {@link this#inFlightGauge}.
+     *
+     * @return the number of runners of the simulation in flight
+     */
+    public int getInFlightRunners() {
+        return this.inFlightGauge.getAsInt();
+    }
+
+    /**
+     * The histograms of the three durations recorded for a set of runners.
+     */
+    public static final class Latencies {
+
+        /**
+         * The histogram of the dispatch lateness.
+         */
+        private final LatencyHistogram dispatchLateness;
+        /**
+         * The histogram of the queue wait.
+         */
+        private final LatencyHistogram queueWait;
+        /**
+         * The histogram of the execution latency.
+         */
+        private final LatencyHistogram executionLatency;
+
+        /**
+         * Constructor.
+         */
+        private Latencies() {
+            this.dispatchLateness = new LatencyHistogram();
+            this.queueWait = new LatencyHistogram();
+            this.executionLatency = new LatencyHistogram();
+        }
+
+        /**
+         * Records the timing of a completed runner.
+         *
+         * @param scheduledNanos  the point in time the event of the runner was due at
+         * @param dispatchNanos   the point in time the runner was submitted
+         * @param startNanos      the point in time the runner was started
+         * @param completionNanos the point in time the runner completed
+         */
+        private void record(final long scheduledNanos, final long dispatchNanos, final long startNanos,
+                            final long completionNanos) {
+            this.dispatchLateness.record(dispatchNanos - scheduledNanos);
+            this.queueWait.record(startNanos - dispatchNanos);
+            this.executionLatency.record(completionNanos - startNanos);
+        }
+
+        /**
+         * Getter for {@link this#dispatchLateness}.
+         *
+         * @return the value of {@link this#dispatchLateness}
+         */
+        public LatencyHistogram getDispatchLateness() {
+            return dispatchLateness;
+        }
+
+        /**
+         * Getter for {@link this#queueWait}.
+         *
+         * @return the value of {@link this#queueWait}
+         */
+        public LatencyHistogram getQueueWait() {
+            return queueWait;
+        }
+
+        /**
+         * Getter for {@link this#executionLatency}.
+         *
+         * @return the value of {@link this#executionLatency}
+         */
+        public LatencyHistogram getExecutionLatency() {
+            return executionLatency;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package edu.kit.pse.beprepared.simulation;
+
+/**
+ * This enum contains the different ways a {@link Simulation} can dispatch its {@link RequestRunner}s.
+ */
+public enum SimulationMode {
+    /**
+     * Every runner is dispatched when the point in time of its event is reached at the current speed.
+     */
+    PACED,
+    /**
+     * The points in time of the events are ignored. The runners are dispatched in chronological order as fast as the
+     * {@link RequestRunnerExecutor} can run them, which turns the scenario into a stress test of the targets.
+     */
+    AS_FAST_AS_POSSIBLE
+}
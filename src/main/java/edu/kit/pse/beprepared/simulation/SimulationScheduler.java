@@ -0,0 +1,215 @@
+package edu.kit.pse.beprepared.simulation;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.DelayQueue;
+
+/**
+ * This class is the process-wide dispatcher that drives all {@link Simulation}s.
+ * <p>
+ * Instead of owning a thread each, simulations register a {@link Wakeup} for the point in time their next event is
+ * due. A small, fixed number of dispatcher threads waits on a {@link DelayQueue} and hands every expired wakeup back
+ * to its simulation, which then submits all due {@link RequestRunner}s and registers its next wakeup. Pausing or
+ * changing the speed of a simulation cancels its pending wakeup and registers a new one, so no thread ever has to be
+ * interrupted. The dispatcher threads also run tasks handed over by the simulations, e.g. applying the commands of
+ * control operations, so threads serving requests never end up dispatching runners.
+ * <p>
+ * All points in time are measured with a {@link SimulationClock}. A dispatcher thread takes a wakeup from the queue
+ * {@link SimulationClock#getSpinNanos()} before it is due and waits for the rest with
+ * {@link SimulationClock#sleepUntil(long)}, so simulations are woken up with sub-millisecond precision.
+ */
+@Component
+public class SimulationScheduler implements WakeupScheduler {
+
+    /**
+     * The {@link Logger} used by objects of this class.
+     */
+    private final Logger log = Logger.getLogger(SimulationScheduler.class);
+    /**
+     * The clock all points in time are measured with.
+     */
+    private final SimulationClock clock;
+    /**
+     * The pending wakeups of all simulations, ordered by due time.
+     */
+    private final DelayQueue<Wakeup> wakeups;
+    /**
+     * The threads that take expired wakeups from {@link this#wakeups} and dispatch them.
+     */
+    private final Thread[] dispatcherThreads;
+    /**
+     * Whether {@link this#shutdown()} has been called.
+     */
+    private volatile boolean shutdown;
+
+    /**
+     * Constructor.
+     * <p>
+     * Creates a new scheduler using a {@link SystemSimulationClock} and starts its dispatcher threads.
+     *
+     * @param dispatcherThreads the number of dispatcher threads
+     */
+    public SimulationScheduler(final int dispatcherThreads) {
+        this(new SystemSimulationClock(), dispatcherThreads);
+    }
+
+    /**
+     * Constructor.
+     * <p>
+     * Creates a new scheduler and starts its dispatcher threads.
+     *
+     * @param clock             the clock all points in time are measured with
+     * @param dispatcherThreads the number of dispatcher threads
+     */
+    @Autowired
+    public SimulationScheduler(final SimulationClock clock,
+                               @Value("${beprepared.scheduler.dispatcher-threads:2}") final int dispatcherThreads) {
+
+        if (dispatcherThreads < 1) {
+            throw new IllegalArgumentException("at least one dispatcher thread is required!");
+        }
+
+        this.clock = clock;
+        this.wakeups = new DelayQueue<>();
+        this.dispatcherThreads = new Thread[dispatcherThreads];
+        this.shutdown = false;
+
+        for (int i = 0; i < dispatcherThreads; i++) {
+            Thread thread = new Thread(this::dispatchLoop, "simulation-dispatcher-" + i);
+            thread.setDaemon(true);
+            this.dispatcherThreads[i] = thread;
+            thread.start();
+        }
+
+        log.info("Started simulation scheduler with " + dispatcherThreads + " dispatcher thread(s)");
+    }
+
+    /**
+     * Registers a wakeup for the supplied {@link Simulation}.
+     *
+     * @param simulation the simulation that should be woken up
+     * @param delayNanos the time in ns from now on after which the simulation should be woken up
+     * @return the registered wakeup, which can be passed to {@link this#cancel(Wakeup)}
+     */
+    @Override
+    public Wakeup schedule(final Simulation simulation, final long delayNanos) {
+        return this.scheduleAt(simulation, this.clock.nanoTime() + Math.max(0, delayNanos));
+    }
+
+    /**
+     * Registers a wakeup for the supplied {@link Simulation} at a point in time. Points in time in the past wake the
+     * simulation up right away.
+     *
+     * @param simulation the simulation that should be woken up
+     * @param dueNanos   the point in time (as in {@link SimulationClock#nanoTime()}) the simulation should be woken
+     *                   up at
+     * @return the registered wakeup, which can be passed to {@link this#cancel(Wakeup)}
+     */
+    @Override
+    public Wakeup scheduleAt(final Simulation simulation, final long dueNanos) {
+
+        Wakeup wakeup = new Wakeup(simulation, this.clock, dueNanos);
+        this.wakeups.add(wakeup);
+        return wakeup;
+    }
+
+    /**
+     * Registers a task that is run by this scheduler at a point in time. Points in time in the past run the task
+     * right away.
+     *
+     * @param task     the task
+     * @param dueNanos the point in time (as in {@link SimulationClock#nanoTime()}) the task should be run at
+     * @return the registered wakeup, which can be passed to {@link this#cancel(Wakeup)}
+     */
+    @Override
+    public Wakeup scheduleTask(final Runnable task, final long dueNanos) {
+
+        Wakeup wakeup = new Wakeup(task, this.clock, dueNanos);
+        this.wakeups.add(wakeup);
+        return wakeup;
+    }
+
+    /**
+     * Runs a task on a dispatcher thread as soon as possible, without waiting for it to complete.
+     *
+     * @param task the task
+     */
+    @Override
+    public void execute(final Runnable task) {
+        this.scheduleTask(task, this.clock.nanoTime());
+    }
+
+    /**
+     * Cancels a pending wakeup. Does nothing if the wakeup is {@code null} or has already been dispatched.
+     *
+     * @param wakeup the wakeup that should be cancelled
+     */
+    @Override
+    public void cancel(final Wakeup wakeup) {
+
+        if (wakeup != null) {
+            this.wakeups.remove(wakeup);
+        }
+    }
+
+    /**
+     * Getter for {@link this#clock}.
+     *
+     * @return the value of {@link this#clock}
+     */
+    @Override
+    public SimulationClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Getter for the number of pending wakeups.
+     *
+     * @return the number of pending wakeups
+     */
+    public int getPendingWakeups() {
+        return this.wakeups.size();
+    }
+
+    /**
+     * Stops all dispatcher threads. Pending wakeups are discarded.
+     */
+    @PreDestroy
+    public void shutdown() {
+
+        this.shutdown = true;
+        for (Thread thread : this.dispatcherThreads) {
+            thread.interrupt();
+        }
+        this.wakeups.clear();
+
+        log.info("Stopped simulation scheduler");
+    }
+
+    /**
+     * The loop executed by every dispatcher thread.
+     */
+    private void dispatchLoop() {
+
+        while (!this.shutdown) {
+            Wakeup wakeup;
+            try {
+                wakeup = this.wakeups.take();
+                this.clock.sleepUntil(wakeup.getDueNanos());
+            } catch (InterruptedException e) {
+                log.trace(e);
+                continue;
+            }
+
+            try {
+                wakeup.dispatch();
+            } catch (RuntimeException e) {
+                log.error("Dispatching " + wakeup + " failed", e);
+            }
+        }
+    }
+}
@@ -8,6 +8,11 @@ public enum SimulationState {
      * The {@link Simulation} has been initialized, but has not been started.
      */
     INITIALIZED,
+    /**
+     * The {@link Simulation} has been prepared, i.e. the connections to its targets are open, but it has not been
+     * started.
+     */
+    PREPARED,
     /**
      * The {@link Simulation} is currently running.
      */
@@ -0,0 +1,98 @@
+package edu.kit.pse.beprepared.simulation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The {@link SimulationClock} backed by {@link System#nanoTime()}.
+ * <p>
+ * Unlike {@link System#currentTimeMillis()}, {@link System#nanoTime()} is monotonic, so adjustments of the system
+ * time (e.g. by NTP) do not make the simulated timeline jump. Waiting parks the calling thread until
+ * {@link this#spinNanos} before the deadline and spins for the rest, since parking alone overshoots by the timer
+ * resolution of the operating system, which is often tens of microseconds or more.
+ */
+@Component
+public class SystemSimulationClock implements SimulationClock {
+
+    /**
+     * The time in microseconds before a deadline within which the calling thread spins, if none is configured.
+     */
+    public static final long DEFAULT_SPIN_MICROS = 200;
+
+    /**
+     * The time in ns before a deadline within which the calling thread spins instead of being parked.
+     */
+    private final long spinNanos;
+
+    /**
+     * Constructor.
+     * <p>
+     * Creates a clock that spins for the last {@link this#DEFAULT_SPIN_MICROS} before a deadline.
+     */
+    public SystemSimulationClock() {
+        this(DEFAULT_SPIN_MICROS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param spinMicros the time in microseconds before a deadline within which the calling thread spins. 0
+     *                   disables spinning.
+     * @throws IllegalArgumentException if the time is negative
+     */
+    @Autowired
+    public SystemSimulationClock(@Value("${beprepared.clock.spin-micros:200}") final long spinMicros) {
+
+        if (spinMicros < 0) {
+            throw new IllegalArgumentException("spinMicros must not be negative!");
+        }
+        this.spinNanos = TimeUnit.MICROSECONDS.toNanos(spinMicros);
+    }
+
+    /**
+     * Returns the current point in time.
+     *
+     * @return the value of {@link System#nanoTime()}
+     */
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Parks the calling thread until {@link this#spinNanos} before the deadline and spins until the deadline has
+     * been reached.
+     *
+     * @param deadlineNanos the point in time (as in {@link System#nanoTime()}) to wait for
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    @Override
+    public void sleepUntil(final long deadlineNanos) throws InterruptedException {
+
+        long remainingNanos;
+        while ((remainingNanos = deadlineNanos - System.nanoTime()) > 0) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (remainingNanos > this.spinNanos) {
+                LockSupport.parkNanos(remainingNanos - this.spinNanos);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Getter for {@link this#spinNanos}.
+     *
+     * @return the value of {@link this#spinNanos}
+     */
+    @Override
+    public long getSpinNanos() {
+        return spinNanos;
+    }
+}
@@ -0,0 +1,90 @@
+package edu.kit.pse.beprepared.simulation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link SimulationClock} that only moves when it is told to.
+ * <p>
+ * Waiting for a point in time advances the clock to it right away, so nothing ever waits in real time. Together with
+ * a {@link VirtualWakeupScheduler}, this allows to run long scenarios in milliseconds and to verify or benchmark the
+ * scheduling logic without the noise of the wall clock.
+ */
+public class VirtualSimulationClock implements SimulationClock {
+
+    /**
+     * The current point in time in ns.
+     */
+    private final AtomicLong nowNanos;
+
+    /**
+     * Constructor.
+     * <p>
+     * Creates a clock starting at point in time 0.
+     */
+    public VirtualSimulationClock() {
+        this(0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param startNanos the point in time in ns the clock starts at
+     */
+    public VirtualSimulationClock(final long startNanos) {
+        this.nowNanos = new AtomicLong(startNanos);
+    }
+
+    /**
+     * Returns the current point in time.
+     *
+     * @return the current point in time in ns
+     */
+    @Override
+    public long nanoTime() {
+        return this.nowNanos.get();
+    }
+
+    /**
+     * Advances the clock to the deadline, unless it has been passed already.
+     *
+     * @param deadlineNanos the point in time to wait for
+     */
+    @Override
+    public void sleepUntil(final long deadlineNanos) {
+        this.advanceTo(deadlineNanos);
+    }
+
+    /**
+     * Returns 0, since the clock never parks a thread.
+     *
+     * @return 0
+     */
+    @Override
+    public long getSpinNanos() {
+        return 0;
+    }
+
+    /**
+     * Advances the clock to a point in time. The clock never goes backwards, so points in time that have been passed
+     * already are ignored.
+     *
+     * @param pointInTimeNanos the point in time in ns
+     */
+    public void advanceTo(final long pointInTimeNanos) {
+        this.nowNanos.accumulateAndGet(pointInTimeNanos, Math::max);
+    }
+
+    /**
+     * Advances the clock by a duration.
+     *
+     * @param durationNanos the duration in ns
+     * @throws IllegalArgumentException if the duration is negative
+     */
+    public void advanceBy(final long durationNanos) {
+
+        if (durationNanos < 0) {
+            throw new IllegalArgumentException("the clock can not go backwards!");
+        }
+        this.nowNanos.addAndGet(durationNanos);
+    }
+}
@@ -0,0 +1,209 @@
+package edu.kit.pse.beprepared.simulation;
+
+import org.apache.log4j.Logger;
+
+import java.util.PriorityQueue;
+
+/**
+ * A {@link WakeupScheduler} on a {@link VirtualSimulationClock}.
+ * <p>
+ * This scheduler has no threads. Wakeups are dispatched on the calling thread by {@link this#advance()},
+ * {@link this#advanceTo(long)} and {@link this#runUntilIdle()}, which move the clock straight to the point in time
+ * the next wakeup is due at. Tasks handed over by {@link this#execute(Runnable)} are run right away on the calling
+ * thread. Pausing, changing the speed and fast-forwarding behave exactly as in real time, except that the time in
+ * between only passes when the clock is advanced.
+ * <p>
+ * The {@link RequestRunner}s of the simulations are still run by their {@link RequestRunnerExecutor}. In
+ * {@link SimulationMode#AS_FAST_AS_POSSIBLE}, the next runners are only dispatched once earlier ones have completed,
+ * so {@link this#runUntilIdle()} may return before such a simulation has finished.
+ */
+public class VirtualWakeupScheduler implements WakeupScheduler {
+
+    /**
+     * The {@link Logger} used by objects of this class.
+     */
+    private final Logger log = Logger.getLogger(VirtualWakeupScheduler.class);
+    /**
+     * The clock all points in time are measured with.
+     */
+    private final VirtualSimulationClock clock;
+    /**
+     * The pending wakeups of all simulations, ordered by due time.
+     */
+    private final PriorityQueue<Wakeup> wakeups;
+
+    /**
+     * Constructor.
+     * <p>
+     * Creates a scheduler on a new {@link VirtualSimulationClock} starting at point in time 0.
+     */
+    public VirtualWakeupScheduler() {
+        this(new VirtualSimulationClock());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param clock the clock all points in time are measured with
+     */
+    public VirtualWakeupScheduler(final VirtualSimulationClock clock) {
+        this.clock = clock;
+        this.wakeups = new PriorityQueue<>();
+    }
+
+    /**
+     * Registers a wakeup for the supplied {@link Simulation}.
+     *
+     * @param simulation the simulation that should be woken up
+     * @param delayNanos the time in ns from now on after which the simulation should be woken up
+     * @return the registered wakeup, which can be passed to {@link this#cancel(Wakeup)}
+     */
+    @Override
+    public Wakeup schedule(final Simulation simulation, final long delayNanos) {
+        return this.scheduleAt(simulation, this.clock.nanoTime() + Math.max(0, delayNanos));
+    }
+
+    /**
+     * Registers a wakeup for the supplied {@link Simulation} at a point in time.
+     *
+     * @param simulation the simulation that should be woken up
+     * @param dueNanos   the point in time (as in {@link SimulationClock#nanoTime()}) the simulation should be woken
+     *                   up at
+     * @return the registered wakeup, which can be passed to {@link this#cancel(Wakeup)}
+     */
+    @Override
+    public synchronized Wakeup scheduleAt(final Simulation simulation, final long dueNanos) {
+
+        Wakeup wakeup = new Wakeup(simulation, this.clock, dueNanos);
+        this.wakeups.add(wakeup);
+        return wakeup;
+    }
+
+    /**
+     * Registers a task that is run by this scheduler at a point in time. Points in time in the past run the task
+     * right away.
+     *
+     * @param task     the task
+     * @param dueNanos the point in time (as in {@link SimulationClock#nanoTime()}) the task should be run at
+     * @return the registered wakeup, which can be passed to {@link this#cancel(Wakeup)}
+     */
+    @Override
+    public synchronized Wakeup scheduleTask(final Runnable task, final long dueNanos) {
+
+        Wakeup wakeup = new Wakeup(task, this.clock, dueNanos);
+        this.wakeups.add(wakeup);
+        return wakeup;
+    }
+
+    /**
+     * Runs a task right away on the calling thread, since this scheduler has no threads of its own.
+     *
+     * @param task the task
+     */
+    @Override
+    public void execute(final Runnable task) {
+        task.run();
+    }
+
+    /**
+     * Cancels a pending wakeup. Does nothing if the wakeup is {@code null} or has already been dispatched.
+     *
+     * @param wakeup the wakeup that should be cancelled
+     */
+    @Override
+    public synchronized void cancel(final Wakeup wakeup) {
+
+        if (wakeup != null) {
+            this.wakeups.remove(wakeup);
+        }
+    }
+
+    /**
+     * Getter for {@link this#clock}.
+     *
+     * @return the value of {@link this#clock}
+     */
+    @Override
+    public VirtualSimulationClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Getter for the number of pending wakeups.
+     *
+     * @return the number of pending wakeups
+     */
+    public synchronized int getPendingWakeups() {
+        return this.wakeups.size();
+    }
+
+    /**
+     * Advances the clock to the next pending wakeup, unless it is due already, and dispatches it.
+     *
+     * @return whether a wakeup has been dispatched
+     */
+    public boolean advance() {
+        return this.dispatchNext(Long.MAX_VALUE);
+    }
+
+    /**
+     * Dispatches all wakeups that are due until a point in time, advancing the clock to each of them, and finally
+     * advances the clock to the point in time. Wakeups registered while doing so are dispatched as well, if they are
+     * due until the point in time.
+     *
+     * @param pointInTimeNanos the point in time (as in {@link SimulationClock#nanoTime()})
+     * @return the number of wakeups that have been dispatched
+     */
+    public int advanceTo(final long pointInTimeNanos) {
+
+        int dispatched = 0;
+        while (this.dispatchNext(pointInTimeNanos)) {
+            dispatched++;
+        }
+        this.clock.advanceTo(pointInTimeNanos);
+        return dispatched;
+    }
+
+    /**
+     * Dispatches wakeups until none is pending anymore, advancing the clock to each of them.
+     *
+     * @return the number of wakeups that have been dispatched
+     */
+    public int runUntilIdle() {
+
+        int dispatched = 0;
+        while (this.advance()) {
+            dispatched++;
+        }
+        return dispatched;
+    }
+
+    /**
+     * Advances the clock to the next pending wakeup and dispatches it, if it is due until a point in time.
+     * <p>
+     * The wakeup is dispatched without holding the monitor of this scheduler, since the simulation registers its next
+     * wakeup while being dispatched, and its {@link RequestRunner}s may do so from other threads.
+     *
+     * @param pointInTimeNanos the point in time (as in {@link SimulationClock#nanoTime()})
+     * @return whether a wakeup has been dispatched
+     */
+    private boolean dispatchNext(final long pointInTimeNanos) {
+
+        Wakeup wakeup;
+        synchronized (this) {
+            wakeup = this.wakeups.peek();
+            if (wakeup == null || wakeup.getDueNanos() > pointInTimeNanos) {
+                return false;
+            }
+            this.wakeups.poll();
+        }
+
+        this.clock.advanceTo(wakeup.getDueNanos());
+        try {
+            wakeup.dispatch();
+        } catch (RuntimeException e) {
+            log.error("Dispatching " + wakeup + " failed", e);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,124 @@
+package edu.kit.pse.beprepared.simulation;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A wakeup of a {@link Simulation} registered at a {@link WakeupScheduler}, or a task registered to be run by it.
+ */
+public final class Wakeup implements Delayed {
+
+    /**
+     * The simulation that should be woken up, or {@code null} if {@link this#task} should be run instead.
+     */
+    private final Simulation simulation;
+    /**
+     * The task that should be run, or {@code null} if {@link this#simulation} should be woken up instead.
+     */
+    private final Runnable task;
+    /**
+     * The clock {@link this#dueNanos} is measured with.
+     */
+    private final SimulationClock clock;
+    /**
+     * The point in time (as in {@link SimulationClock#nanoTime()}) the simulation should be woken up at.
+     */
+    private final long dueNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param simulation the simulation that should be woken up
+     * @param clock      the clock {@code dueNanos} is measured with
+     * @param dueNanos   the point in time (as in {@link SimulationClock#nanoTime()}) the simulation should be
+     *                   woken up at
+     */
+    Wakeup(final Simulation simulation, final SimulationClock clock, final long dueNanos) {
+        this.simulation = simulation;
+        this.task = null;
+        this.clock = clock;
+        this.dueNanos = dueNanos;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param task     the task that should be run
+     * @param clock    the clock {@code dueNanos} is measured with
+     * @param dueNanos the point in time (as in {@link SimulationClock#nanoTime()}) the task should be run at
+     */
+    Wakeup(final Runnable task, final SimulationClock clock, final long dueNanos) {
+        this.simulation = null;
+        this.task = task;
+        this.clock = clock;
+        this.dueNanos = dueNanos;
+    }
+
+    /**
+     * Hands this wakeup to its simulation, or runs its task.
+     */
+    void dispatch() {
+
+        if (this.simulation != null) {
+            this.simulation.onWakeup(this);
+        } else {
+            this.task.run();
+        }
+    }
+
+    /**
+     * Getter for {@link this#simulation}.
+     *
+     * @return the value of {@link this#simulation}
+     */
+    Simulation getSimulation() {
+        return simulation;
+    }
+
+    /**
+     * Getter for {@link this#dueNanos}.
+     *
+     * @return the value of {@link this#dueNanos}
+     */
+    long getDueNanos() {
+        return dueNanos;
+    }
+
+    /**
+     * Returns the remaining delay until the wakeup is handed over to {@link SimulationClock#sleepUntil(long)},
+     * i.e. until {@link SimulationClock#getSpinNanos()} before it is due, in the given time unit.
+     *
+     * @param unit the time unit
+     * @return the remaining delay; zero or negative values indicate that the delay has already elapsed
+     */
+    @Override
+    public long getDelay(final TimeUnit unit) {
+        return unit.convert(this.dueNanos - this.clock.getSpinNanos() - this.clock.nanoTime(),
+                TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Compares this wakeup with another one by their due time.
+     *
+     * @param other the {@link Delayed} to compare with
+     * @return a value < 0 if this wakeup is due first, a value > 0 if the other one is due first and 0 otherwise
+     */
+    @Override
+    public int compareTo(final Delayed other) {
+        if (other instanceof Wakeup) {
+            return Long.compare(this.dueNanos, ((Wakeup) other).dueNanos);
+        }
+        return Long.compare(this.getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Returns a description of this wakeup for log messages.
+     *
+     * @return the description
+     */
+    @Override
+    public String toString() {
+        return (this.simulation != null ? "simulation " + this.simulation.getId() : "task " + this.task)
+                + " due at " + this.dueNanos;
+    }
+}
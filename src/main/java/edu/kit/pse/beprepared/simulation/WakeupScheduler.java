@@ -0,0 +1,62 @@
+package edu.kit.pse.beprepared.simulation;
+
+/**
+ * Wakes {@link Simulation}s up at the points in time their next events are due, and runs the tasks they and their
+ * {@link RequestRunnerExecutor} hand over, e.g. applying the commands of a simulation.
+ * <p>
+ * {@link SimulationScheduler} does so in real time. {@link VirtualWakeupScheduler} jumps from one wakeup to the next
+ * on a {@link VirtualSimulationClock}, so simulations can be run without waiting for their events to come due.
+ */
+public interface WakeupScheduler {
+
+    /**
+     * Registers a wakeup for the supplied {@link Simulation}.
+     *
+     * @param simulation the simulation that should be woken up
+     * @param delayNanos the time in ns from now on after which the simulation should be woken up
+     * @return the registered wakeup, which can be passed to {@link this#cancel(Wakeup)}
+     */
+    Wakeup schedule(Simulation simulation, long delayNanos);
+
+    /**
+     * Registers a wakeup for the supplied {@link Simulation} at a point in time. Points in time in the past wake the
+     * simulation up right away.
+     *
+     * @param simulation the simulation that should be woken up
+     * @param dueNanos   the point in time (as in {@link SimulationClock#nanoTime()}) the simulation should be woken
+     *                   up at
+     * @return the registered wakeup, which can be passed to {@link this#cancel(Wakeup)}
+     */
+    Wakeup scheduleAt(Simulation simulation, long dueNanos);
+
+    /**
+     * Registers a task that is run by this scheduler at a point in time, e.g. to resubmit a {@link RequestRunner}
+     * after a delay. Points in time in the past run the task right away.
+     *
+     * @param task     the task
+     * @param dueNanos the point in time (as in {@link SimulationClock#nanoTime()}) the task should be run at
+     * @return the registered wakeup, which can be passed to {@link this#cancel(Wakeup)}
+     */
+    Wakeup scheduleTask(Runnable task, long dueNanos);
+
+    /**
+     * Runs a task on a thread of this scheduler as soon as possible, without waiting for it to complete.
+     *
+     * @param task the task
+     */
+    void execute(Runnable task);
+
+    /**
+     * Cancels a pending wakeup. Does nothing if the wakeup is {@code null} or has already been dispatched.
+     *
+     * @param wakeup the wakeup that should be cancelled
+     */
+    void cancel(Wakeup wakeup);
+
+    /**
+     * Getter for the clock all points in time of this scheduler are measured with.
+     *
+     * @return the clock
+     */
+    SimulationClock getClock();
+}
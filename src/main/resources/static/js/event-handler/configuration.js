@@ -135,7 +135,7 @@ function onConfigChange() {
                 case 'GeolocationInputField' :
                     throw new Error("GeolocationInputField not supported in config dialog!");
                 case 'MultipleChoiceInputField' :
-                    const arr = data[d.key];
+                    const arr = data[d.key] || [];
                     arr.forEach(v => {
                         $(`#${d.key + v}`).prop('checked', true);
                     });
@@ -0,0 +1,111 @@
+package edu.kit.pse.beprepared.eventTypes.sensorThingsCreateObservation;
+
+import io.moquette.broker.Server;
+import io.moquette.broker.config.MemoryConfig;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@RunWith(JUnit4.class)
+public class MqttObservationPublisherTest {
+
+    private Server broker;
+    private String brokerUrl;
+    private MqttClient subscriber;
+    private BlockingQueue<String> received;
+
+    @Before
+    public void setUp() throws Exception {
+
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty("host", "localhost");
+        properties.setProperty("port", String.valueOf(port));
+        properties.setProperty("persistent_store", "");
+        properties.setProperty("allow_anonymous", "true");
+        this.broker = new Server();
+        this.broker.startServer(new MemoryConfig(properties));
+        this.brokerUrl = "tcp://localhost:" + port;
+
+        this.received = new LinkedBlockingQueue<>();
+        this.subscriber = new MqttClient(this.brokerUrl, MqttClient.generateClientId(), new MemoryPersistence());
+        this.subscriber.connect();
+        this.subscriber.subscribe(MqttObservationPublisher.topicOf(7), 1,
+                (topic, message) -> this.received.add(new String(message.getPayload(), StandardCharsets.UTF_8)));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.subscriber.disconnect();
+        this.subscriber.close();
+        this.broker.stopServer();
+    }
+
+    @Test
+    public void testPublishObservation() throws Exception {
+
+        // preset
+
+        final MqttObservationPublisher publisherUnderTest = MqttObservationPublisher.of(this.brokerUrl);
+
+        // run method under test
+
+        publisherUnderTest.publish(7, MqttObservationPublisher.payloadOf(Instant.ofEpochMilli(0), "42"), 1);
+
+        // check result
+
+        assertThat(this.received.poll(5, TimeUnit.SECONDS),
+                is("{\"phenomenonTime\":\"1970-01-01T00:00:00Z\",\"result\":\"42\"}"));
+        assertThat(MqttObservationPublisher.topicOf(7), is("v1.0/Datastreams(7)/Observations"));
+
+    }
+
+    @Test
+    public void testObservationsOfDatastreamStayInOrder() throws Exception {
+
+        // preset
+
+        final MqttObservationPublisher publisherUnderTest = MqttObservationPublisher.of(this.brokerUrl);
+        final List<String> expected = new ArrayList<>();
+
+        // run method under test
+
+        for (int i = 0; i < 100; i++) {
+            byte[] payload = MqttObservationPublisher.payloadOf(Instant.ofEpochMilli(i), String.valueOf(i));
+            publisherUnderTest.publish(7, payload, 0);
+            expected.add(new String(payload, StandardCharsets.UTF_8));
+        }
+
+        // check result
+
+        final List<String> actual = new ArrayList<>();
+        while (actual.size() < expected.size()) {
+            String payload = this.received.poll(5, TimeUnit.SECONDS);
+            assertThat(payload, notNullValue());
+            actual.add(payload);
+        }
+        assertThat(actual, is(expected));
+
+    }
+}
@@ -0,0 +1,111 @@
+package edu.kit.pse.beprepared.eventTypes.sensorThingsCreateObservation;
+
+import de.fraunhofer.iosb.ilt.sta.ServiceFailureException;
+import de.fraunhofer.iosb.ilt.sta.model.Observation;
+import de.fraunhofer.iosb.ilt.sta.model.ext.DataArrayDocument;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@RunWith(JUnit4.class)
+public class ObservationBatcherTest {
+
+    private static final long WINDOW_MILLIS = 500;
+
+    @Test
+    public void testHandsEachObservationItsOwnEntry() throws Exception {
+
+        // preset -> the server answers with the entries grouped by datastream, i.e. those of datastream 1 first
+
+        final List<DataArrayDocument> sent = new ArrayList<>();
+        final ObservationBatcher batcherUnderTest = new ObservationBatcher("http://localhost", document -> {
+            sent.add(document);
+            return Arrays.asList("Observations(1)", ObservationBatcher.ERROR, "Observations(3)");
+        });
+
+        // run method under test -> the observations of the datastreams interleave
+
+        CompletableFuture<String> first = batcherUnderTest.add(1, new Observation(), WINDOW_MILLIS);
+        CompletableFuture<String> second = batcherUnderTest.add(2, new Observation(), WINDOW_MILLIS);
+        CompletableFuture<String> third = batcherUnderTest.add(1, new Observation(), WINDOW_MILLIS);
+
+        // check result -> a single request, every observation got the entry of its position in the document
+
+        assertThat(first.get(10, TimeUnit.SECONDS), is("Observations(1)"));
+        assertThat(second.get(10, TimeUnit.SECONDS), is("Observations(3)"));
+        assertThat(third.get(10, TimeUnit.SECONDS), is(ObservationBatcher.ERROR));
+        assertThat(sent.size(), is(1));
+
+    }
+
+    @Test
+    public void testClosesBatchAfterWindow() throws Exception {
+
+        // preset
+
+        final BlockingQueue<DataArrayDocument> sent = new LinkedBlockingQueue<>();
+        final ObservationBatcher batcherUnderTest = new ObservationBatcher("http://localhost", document -> {
+            sent.add(document);
+            return Arrays.asList("Observations(1)");
+        });
+
+        // run method under test -> one observation before and one after the window of the first batch
+
+        CompletableFuture<String> first = batcherUnderTest.add(1, new Observation(), WINDOW_MILLIS);
+        boolean doneWithinWindow = first.isDone();
+        DataArrayDocument firstDocument = sent.poll(10, TimeUnit.SECONDS);
+        String firstEntry = first.get(10, TimeUnit.SECONDS);
+        CompletableFuture<String> second = batcherUnderTest.add(1, new Observation(), WINDOW_MILLIS);
+        DataArrayDocument secondDocument = sent.poll(10, TimeUnit.SECONDS);
+
+        // check result -> nothing has been sent within the window, the late observation has been sent on its own
+
+        assertThat(doneWithinWindow, is(false));
+        assertThat(firstEntry, is("Observations(1)"));
+        assertThat(second.get(10, TimeUnit.SECONDS), is("Observations(1)"));
+        assertThat(firstDocument == null, is(false));
+        assertThat(secondDocument == null, is(false));
+        assertThat(secondDocument == firstDocument, is(false));
+
+    }
+
+    @Test
+    public void testFailsAllObservationsIfRequestFails() throws Exception {
+
+        // preset
+
+        final ObservationBatcher batcherUnderTest = new ObservationBatcher("http://localhost", document -> {
+            throw new ServiceFailureException("Service Unavailable");
+        });
+
+        // run method under test
+
+        CompletableFuture<String> first = batcherUnderTest.add(1, new Observation(), WINDOW_MILLIS);
+        CompletableFuture<String> second = batcherUnderTest.add(2, new Observation(), WINDOW_MILLIS);
+
+        // check result -> both observations report the failure of the request
+
+        for (CompletableFuture<String> result : Arrays.asList(first, second)) {
+            Throwable cause = null;
+            try {
+                result.get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                cause = e.getCause();
+            }
+            assertThat(cause instanceof ServiceFailureException, is(true));
+        }
+
+    }
+}
@@ -0,0 +1,81 @@
+package edu.kit.pse.beprepared.eventTypes.telegramMessageEvent;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@RunWith(JUnit4.class)
+public class TokenBucketTest {
+
+    @Test
+    public void testBurstThenQueue() {
+
+        // preset -> 10 tokens per second, burst of 2
+
+        final TokenBucket bucketUnderTest = new TokenBucket(10, 2);
+        final long now = System.nanoTime();
+
+        // run method under test & check result -> the burst passes, further tokens are borrowed in order
+
+        assertThat(bucketUnderTest.reserve(now), is(0L));
+        assertThat(bucketUnderTest.reserve(now), is(0L));
+        assertThat(bucketUnderTest.reserve(now), is(TimeUnit.MILLISECONDS.toNanos(100)));
+        assertThat(bucketUnderTest.reserve(now), is(TimeUnit.MILLISECONDS.toNanos(200)));
+
+        // run method under test & check result -> after 1s the bucket is full again
+
+        final long later = now + TimeUnit.SECONDS.toNanos(1);
+        assertThat(bucketUnderTest.reserve(later), is(0L));
+        assertThat(bucketUnderTest.reserve(later), is(0L));
+        assertThat(bucketUnderTest.reserve(later), greaterThan(0L));
+
+    }
+
+    @Test
+    public void testPause() {
+
+        // preset
+
+        final TokenBucket bucketUnderTest = new TokenBucket(10, 2);
+        final long now = System.nanoTime();
+
+        // run method under test -> retry after 3s
+
+        bucketUnderTest.pause(now, 3000);
+
+        // check result
+
+        assertThat(bucketUnderTest.reserve(now), is(TimeUnit.SECONDS.toNanos(3)));
+        assertThat(bucketUnderTest.reserve(now), is(TimeUnit.MILLISECONDS.toNanos(3100)));
+
+    }
+
+    @Test
+    public void testTryAcquireDoesNotBorrow() {
+
+        // preset -> 10 tokens per second, burst of 2
+
+        final TokenBucket bucketUnderTest = new TokenBucket(10, 2);
+        final long now = System.nanoTime();
+
+        // run method under test & check result -> the burst passes, then callers are told to come back in 100ms
+
+        assertThat(bucketUnderTest.tryAcquire(now), is(0L));
+        assertThat(bucketUnderTest.tryAcquire(now), is(0L));
+        assertThat(bucketUnderTest.tryAcquire(now), is(TimeUnit.MILLISECONDS.toNanos(100)));
+        assertThat(bucketUnderTest.tryAcquire(now), is(TimeUnit.MILLISECONDS.toNanos(100)));
+
+        // run method under test & check result -> nothing has been borrowed, so a token is free after 100ms
+
+        final long later = now + TimeUnit.MILLISECONDS.toNanos(100);
+        assertThat(bucketUnderTest.tryAcquire(later), is(0L));
+        bucketUnderTest.pause(later, 3000);
+        assertThat(bucketUnderTest.tryAcquire(later), is(TimeUnit.SECONDS.toNanos(3)));
+
+    }
+}
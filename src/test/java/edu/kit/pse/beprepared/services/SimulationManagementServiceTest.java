@@ -1,16 +1,18 @@
 package edu.kit.pse.beprepared.services;
 
 import edu.kit.pse.beprepared.eventTypes.mockEventType.MockEvent;
-import edu.kit.pse.beprepared.eventTypes.mockEventType.MockEventRunner;
 import edu.kit.pse.beprepared.eventTypes.mockEventType.MockEventType;
 import edu.kit.pse.beprepared.model.*;
 import edu.kit.pse.beprepared.services.exceptions.ConfigurationNotFoundException;
 import edu.kit.pse.beprepared.services.exceptions.PhaseNotFoundException;
 import edu.kit.pse.beprepared.services.exceptions.ScenarioNotFoundException;
 import edu.kit.pse.beprepared.services.exceptions.SimulationNotFoundException;
-import edu.kit.pse.beprepared.simulation.ExecutionReport;
+import edu.kit.pse.beprepared.simulation.ExecutionResultStore;
 import edu.kit.pse.beprepared.simulation.ExecutionStatus;
+import edu.kit.pse.beprepared.simulation.PreparationReport;
 import edu.kit.pse.beprepared.simulation.Simulation;
+import edu.kit.pse.beprepared.simulation.SimulationMetrics;
+import edu.kit.pse.beprepared.simulation.SimulationMode;
 import org.hamcrest.Matchers;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -28,10 +30,6 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -210,6 +208,43 @@ public class SimulationManagementServiceTest {
 
     }
 
+    @Test
+    public void testPrepareSimulation() throws SimulationNotFoundException {
+
+        // preset
+
+        final int simulationId = 42;
+        final Simulation mockSimulation = mock(Simulation.class);
+        final PreparationReport report = new PreparationReport();
+
+        when(simulationRepository.getSimulationById(simulationId)).thenReturn(mockSimulation);
+        when(mockSimulation.prepare()).thenReturn(report);
+
+        // run method under test
+
+        PreparationReport result = this.simulationManagementService.prepareSimulation(simulationId);
+
+        // check result
+
+        assertThat(result, is(sameInstance(report)));
+
+    }
+
+    @Test(expected = SimulationNotFoundException.class)
+    public void testPrepareSimulationSimulationNotFound() throws Exception {
+
+        // preset
+
+        final int simulationId = 42;
+
+        when(simulationRepository.getSimulationById(simulationId)).thenReturn(null);
+
+        // run method under test
+
+        this.simulationManagementService.prepareSimulation(simulationId);
+
+    }
+
     @Test
     public void testStartSimulation() throws SimulationNotFoundException {
 
@@ -377,43 +412,21 @@ public class SimulationManagementServiceTest {
 
         final int simulationId = 42;
         final Simulation mockSimulation = mock(Simulation.class);
-        final ExecutionReport mockExecutionReport = mock(ExecutionReport.class);
-        final Collection<Future<ExecutionReport>> futures = new LinkedList<>();
-        futures.add(new Future<ExecutionReport>() {
-            @Override
-            public boolean cancel(boolean mayInterruptIfRunning) {
-                return false;
-            }
-
-            @Override
-            public boolean isCancelled() {
-                return false;
-            }
-
-            @Override
-            public boolean isDone() {
-                return false;
-            }
-
-            @Override
-            public ExecutionReport get() throws InterruptedException, ExecutionException {
-                return mockExecutionReport;
-            }
-
-            @Override
-            public ExecutionReport get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
-                return mockExecutionReport;
-            }
-        });
         final long pointInTime = System.currentTimeMillis();
+        final Phase phase = new Phase("phase");
+        final MockEvent event = new MockEvent(new MockEventType(), pointInTime, "bouncyCat");
+        phase.addEvent(event);
+        final ExecutionResultStore results = new ExecutionResultStore();
+        final long nanos = System.nanoTime();
+        results.record(event.getId(), ExecutionStatus.COMPLETED_NORMAL, null, nanos, nanos, nanos);
+        results.record(event.getId() + 1, ExecutionStatus.COMPLETED_EXCEPTIONALLY,
+                new IllegalStateException("bouncyCat"), nanos, nanos, nanos);
 
         when(simulationRepository.getSimulationById(simulationId)).thenReturn(mockSimulation);
-        when(mockSimulation.getFutures()).thenReturn(futures);
-        when(mockExecutionReport.getStatus()).thenReturn(ExecutionStatus.COMPLETED_NORMAL);
-        when(mockExecutionReport.getRunner()).thenReturn(new MockEventRunner(new MockEvent(new MockEventType(),
-                pointInTime, "bouncyCat"), new Configuration(pointInTime, null)));
-        when(mockExecutionReport.getThrowable()).thenReturn(null);
-        when(mockExecutionReport.getPointInTime()).thenReturn(pointInTime);
+        when(mockSimulation.getResults()).thenReturn(results);
+        when(mockSimulation.getSelectedPhases()).thenReturn(Arrays.asList(phase));
+        when(mockSimulation.getConfiguration()).thenReturn(new Configuration(pointInTime, null));
+        when(mockSimulation.getMetrics()).thenReturn(new SimulationMetrics());
 
         // run method under test
 
@@ -433,8 +446,10 @@ public class SimulationManagementServiceTest {
 
         assertThat(lines.get(0).matches(" Report for simulation with id [0-9]+ "), is(true));
         assertThat(lines.get(2), Matchers.endsWith("1"));
-        assertThat(lines.get(3), Matchers.endsWith("0"));
-        assertThat(lines.get(4), Matchers.endsWith("1"));
+        assertThat(lines.get(3), Matchers.endsWith("1"));
+        assertThat(lines.get(4), Matchers.endsWith("2"));
+        assertThat(lines.stream().anyMatch(l -> l.contains("IllegalStateException: bouncyCat")), is(true));
+        assertThat(lines.stream().anyMatch(l -> l.startsWith("Latencies for all event types")), is(true));
 
     }
 
@@ -489,6 +504,114 @@ public class SimulationManagementServiceTest {
 
     }
 
+    @Test
+    public void testChangeWeightValidInput() throws Exception {
+
+        // preset
+
+        final int simulationId = 42;
+        final double newWeight = 4.7;
+        final Simulation mockSimulation = mock(Simulation.class);
+
+        when(simulationRepository.getSimulationById(simulationId)).thenReturn(mockSimulation);
+
+        // run method under test
+
+        this.simulationManagementService.changeSimulationWeight(simulationId, newWeight);
+
+        // check result
+
+        verify(mockSimulation).setDispatchWeight(newWeight);
+
+    }
+
+    @Test(expected = SimulationNotFoundException.class)
+    public void testChangeWeightSimulationNotFound() throws Exception {
+
+        // preset
+
+        final int simulationId = 42;
+
+        when(simulationRepository.getSimulationById(simulationId)).thenReturn(null);
+
+        // run method under test
+
+        this.simulationManagementService.changeSimulationWeight(simulationId, 1);
+
+    }
+
+    @Test
+    public void testChangeModeValidInput() throws Exception {
+
+        // preset
+
+        final int simulationId = 42;
+        final Simulation mockSimulation = mock(Simulation.class);
+
+        when(simulationRepository.getSimulationById(simulationId)).thenReturn(mockSimulation);
+
+        // run method under test
+
+        this.simulationManagementService.changeSimulationMode(simulationId, SimulationMode.AS_FAST_AS_POSSIBLE);
+
+        // check result
+
+        verify(mockSimulation).setMode(SimulationMode.AS_FAST_AS_POSSIBLE);
+
+    }
+
+    @Test(expected = SimulationNotFoundException.class)
+    public void testChangeModeSimulationNotFound() throws Exception {
+
+        // preset
+
+        final int simulationId = 42;
+
+        when(simulationRepository.getSimulationById(simulationId)).thenReturn(null);
+
+        // run method under test
+
+        this.simulationManagementService.changeSimulationMode(simulationId, SimulationMode.AS_FAST_AS_POSSIBLE);
+
+    }
+
+    @Test
+    public void testGetSimulationMetricsValidInput() throws Exception {
+
+        // preset
+
+        final int simulationId = 42;
+        final Simulation mockSimulation = mock(Simulation.class);
+        final SimulationMetrics metrics = new SimulationMetrics();
+
+        when(simulationRepository.getSimulationById(simulationId)).thenReturn(mockSimulation);
+        when(mockSimulation.getMetrics()).thenReturn(metrics);
+
+        // run method under test
+
+        SimulationMetrics result = this.simulationManagementService.getSimulationMetrics(simulationId);
+
+        // check result
+
+        assertThat(result, is(sameInstance(metrics)));
+
+    }
+
+    @Test(expected = SimulationNotFoundException.class)
+    public void testGetSimulationMetricsSimulationNotFound() throws Exception {
+
+        // preset
+
+        final int simulationId = 42;
+
+        when(simulationRepository.getSimulationById(simulationId)).thenReturn(null);
+
+        // run method under test
+
+        this.simulationManagementService.getSimulationMetrics(simulationId);
+
+    }
+
 
     @TestConfiguration
     static class SimulationManagementServiceTestConfiguration {
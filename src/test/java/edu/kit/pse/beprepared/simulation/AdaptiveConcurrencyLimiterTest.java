@@ -0,0 +1,126 @@
+package edu.kit.pse.beprepared.simulation;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@RunWith(JUnit4.class)
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long LATENCY = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    public void testGrowsWhileLatencyIsStable() {
+
+        // preset
+
+        final AdaptiveConcurrencyLimiter limiterUnderTest = new AdaptiveConcurrencyLimiter(4, 1, 100);
+
+        // run method under test -> 20 rounds of requests at the limit, all with the same latency
+
+        for (int round = 0; round < 20; round++) {
+            for (long ticket : this.acquireAll(limiterUnderTest)) {
+                limiterUnderTest.release(ticket, LATENCY, false);
+            }
+        }
+
+        // check result -> the limit grows by about half a request per round, since it only grows while at least half
+        // of it is in use
+
+        assertThat(limiterUnderTest.getLimit(), allOf(greaterThanOrEqualTo(12), lessThanOrEqualTo(16)));
+        assertThat(limiterUnderTest.getInFlight(), is(0));
+
+    }
+
+    @Test
+    public void testBacksOffOncePerRoundOnOverload() {
+
+        // preset
+
+        final AdaptiveConcurrencyLimiter limiterUnderTest = new AdaptiveConcurrencyLimiter(16, 1, 100);
+        List<Long> tickets = this.acquireAll(limiterUnderTest);
+
+        // run method under test -> all requests of the round are rejected with 503
+
+        assertThat(limiterUnderTest.tryAcquire(), is(-1L));
+        for (long ticket : tickets) {
+            limiterUnderTest.release(ticket, LATENCY, true);
+        }
+
+        // check result -> the limit has been halved once
+
+        assertThat(limiterUnderTest.getLimit(), is(8));
+
+    }
+
+    @Test
+    public void testBacksOffOnLatencySpike() {
+
+        // preset -> a full window of requests establishes the baseline
+
+        final AdaptiveConcurrencyLimiter limiterUnderTest = new AdaptiveConcurrencyLimiter(10, 1, 100);
+        for (int i = 0; i < AdaptiveConcurrencyLimiter.BASELINE_WINDOW; i++) {
+            limiterUnderTest.release(limiterUnderTest.tryAcquire(), LATENCY, false);
+        }
+        int limit = limiterUnderTest.getLimit();
+
+        // run method under test -> the target starts queueing, so the latency triples
+
+        for (int i = 0; i < AdaptiveConcurrencyLimiter.SMOOTHING_SAMPLES * 2; i++) {
+            limiterUnderTest.release(limiterUnderTest.tryAcquire(), 3 * LATENCY, false);
+        }
+
+        // check result
+
+        assertThat(limiterUnderTest.getLimit(), lessThan(limit));
+
+    }
+
+    @Test
+    public void testHoldsLimitDespiteTailLatency() {
+
+        // preset -> a healthy target, whose latency varies around its median with a long tail: every 20th request
+        // takes 5 times as long, every 100th 20 times
+
+        final AdaptiveConcurrencyLimiter limiterUnderTest = new AdaptiveConcurrencyLimiter(16, 1, 100);
+        final Random random = new Random(42);
+
+        // run method under test -> 200 rounds of requests at the limit
+
+        int request = 0;
+        for (int round = 0; round < 200; round++) {
+            for (long ticket : this.acquireAll(limiterUnderTest)) {
+                double factor = Math.exp(0.3 * random.nextGaussian());
+                if (++request % 100 == 0) {
+                    factor *= 20;
+                } else if (request % 20 == 0) {
+                    factor *= 5;
+                }
+                limiterUnderTest.release(ticket, (long) (LATENCY * factor), false);
+            }
+        }
+
+        // check result -> single slow requests are no latency spikes, so the limit has not shrunk
+
+        assertThat(limiterUnderTest.getLimit(), greaterThanOrEqualTo(16));
+
+    }
+
+    private List<Long> acquireAll(final AdaptiveConcurrencyLimiter limiter) {
+
+        List<Long> tickets = new ArrayList<>();
+        long ticket;
+        while ((ticket = limiter.tryAcquire()) >= 0) {
+            tickets.add(ticket);
+        }
+        return tickets;
+    }
+}
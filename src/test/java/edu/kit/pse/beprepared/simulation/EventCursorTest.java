@@ -0,0 +1,140 @@
+package edu.kit.pse.beprepared.simulation;
+
+import edu.kit.pse.beprepared.eventTypes.mockEventType.MockEvent;
+import edu.kit.pse.beprepared.eventTypes.mockEventType.MockEventType;
+import edu.kit.pse.beprepared.model.Event;
+import edu.kit.pse.beprepared.model.Phase;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@RunWith(JUnit4.class)
+public class EventCursorTest {
+
+    private MockEventType eventType;
+    private Phase first;
+    private Phase second;
+
+    @Before
+    public void setUp() {
+
+        this.eventType = new MockEventType();
+
+        // events at 0s, 2s, 4s, 6s and 1s, 2s, 3s, added out of order
+        this.first = new Phase("first");
+        this.second = new Phase("second");
+        for (long at : new long[]{6, 0, 4, 2}) {
+            this.first.addEvent(this.event(at));
+        }
+        for (long at : new long[]{3, 1, 2}) {
+            this.second.addEvent(this.event(at));
+        }
+    }
+
+    @Test
+    public void testMergesPhasesChronologically() {
+
+        // preset
+
+        final EventCursor cursorUnderTest = new EventCursor(Arrays.asList(this.first, this.second));
+
+        // run method under test
+
+        List<Event> events = new ArrayList<>();
+        while (cursorUnderTest.hasNext()) {
+            events.add(cursorUnderTest.next());
+        }
+
+        // check result -> the events of both phases in chronological order, ties in the order of the phases
+
+        assertThat(this.secondsOf(events), is(Arrays.asList(0L, 1L, 2L, 2L, 3L, 4L, 6L)));
+        assertThat(this.first.getAllEvents().contains(events.get(2)), is(true));
+        assertThat(this.second.getAllEvents().contains(events.get(3)), is(true));
+        assertThat(cursorUnderTest.getRemaining(), is(0L));
+
+    }
+
+    @Test
+    public void testSkipUntil() {
+
+        // preset
+
+        final EventCursor cursorUnderTest = new EventCursor(Arrays.asList(this.first, this.second));
+        cursorUnderTest.next();
+
+        // run method under test
+
+        long skipped = cursorUnderTest.skipUntil(TimeUnit.SECONDS.toNanos(3));
+
+        // check result -> the events at 1s, 2s and 2s have been skipped, the event at 3s is next
+
+        assertThat(skipped, is(3L));
+        assertThat(cursorUnderTest.getRemaining(), is(3L));
+        assertThat(cursorUnderTest.next().getPointInTimeNanos(), is(TimeUnit.SECONDS.toNanos(3)));
+
+    }
+
+    @Test
+    public void testRewindTo() {
+
+        // preset -> all events have been returned
+
+        final EventCursor cursorUnderTest = new EventCursor(Arrays.asList(this.first, this.second));
+        List<Event> all = cursorUnderTest.nextUntil(Long.MAX_VALUE);
+
+        // run method under test
+
+        cursorUnderTest.rewindTo(TimeUnit.SECONDS.toNanos(2));
+
+        // check result -> the same events from 2s on are returned again
+
+        assertThat(cursorUnderTest.getRemaining(), is(5L));
+        assertThat(cursorUnderTest.nextUntil(Long.MAX_VALUE), is(all.subList(2, all.size())));
+
+    }
+
+    @Test
+    public void testFindAheadWithEqualPointsInTime() {
+
+        // preset -> three events at the same point in time, the first of them has been returned
+
+        Phase phase = new Phase("phase");
+        Event a = this.event(5);
+        Event b = this.event(5);
+        Event c = this.event(5);
+        phase.addEvents(Arrays.asList(a, b, c));
+        final EventCursor cursorUnderTest = new EventCursor(Arrays.asList(phase));
+        Event returned = cursorUnderTest.next();
+
+        // run method under test & check result -> only the returned event is behind the cursor
+
+        for (Event event : Arrays.asList(a, b, c)) {
+            assertThat(cursorUnderTest.find(event.getId()), is(event));
+            assertThat(cursorUnderTest.findAhead(event.getId()), is(event == returned ? null : event));
+        }
+        assertThat(cursorUnderTest.find(-1), nullValue());
+
+    }
+
+    private Event event(final long second) {
+        return new MockEvent(this.eventType, TimeUnit.SECONDS.toMillis(second), "value");
+    }
+
+    private List<Long> secondsOf(final List<Event> events) {
+
+        List<Long> seconds = new ArrayList<>();
+        for (Event event : events) {
+            seconds.add(TimeUnit.NANOSECONDS.toSeconds(event.getPointInTimeNanos()));
+        }
+        return seconds;
+    }
+}
@@ -0,0 +1,69 @@
+package edu.kit.pse.beprepared.simulation;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@RunWith(JUnit4.class)
+public class LatencyHistogramTest {
+
+    @Test
+    public void testPercentilesWithinPrecision() {
+
+        // preset
+
+        final LatencyHistogram histogramUnderTest = new LatencyHistogram();
+
+        // run method under test -> record 1ms .. 1000ms
+
+        for (int i = 1; i <= 1000; i++) {
+            histogramUnderTest.record(i * 1_000_000L);
+        }
+
+        // check result
+
+        assertThat(histogramUnderTest.getCount(), is(1000L));
+        assertThat(histogramUnderTest.getMin(), is(1_000_000L));
+        assertThat(histogramUnderTest.getMax(), is(1_000_000_000L));
+        assertThat(histogramUnderTest.getMean(), closeTo(500.5e6, 1));
+        assertThat((double) histogramUnderTest.getValueAtPercentile(50), closeTo(500e6, 500e6 / 64));
+        assertThat((double) histogramUnderTest.getValueAtPercentile(99), closeTo(990e6, 990e6 / 64));
+        assertThat(histogramUnderTest.getValueAtPercentile(100), is(1_000_000_000L));
+
+    }
+
+    @Test
+    public void testEmptyAndOutOfRangeValues() {
+
+        // preset
+
+        final LatencyHistogram histogramUnderTest = new LatencyHistogram();
+
+        // check result -> empty
+
+        assertThat(histogramUnderTest.getValueAtPercentile(99), is(0L));
+        assertThat(histogramUnderTest.getMin(), is(0L));
+
+        // run method under test -> negative and huge values
+
+        histogramUnderTest.record(-5);
+        histogramUnderTest.record(Long.MAX_VALUE);
+
+        // check result
+
+        assertThat(histogramUnderTest.getMin(), is(0L));
+        assertThat(histogramUnderTest.getMax(), is(Long.MAX_VALUE));
+        assertThat(histogramUnderTest.getValueAtPercentile(100), is(Long.MAX_VALUE));
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile() {
+
+        new LatencyHistogram().getValueAtPercentile(101);
+
+    }
+}
@@ -0,0 +1,204 @@
+package edu.kit.pse.beprepared.simulation;
+
+import edu.kit.pse.beprepared.eventTypes.mockEventType.MockEvent;
+import edu.kit.pse.beprepared.eventTypes.mockEventType.MockEventRunner;
+import edu.kit.pse.beprepared.eventTypes.mockEventType.MockEventType;
+import edu.kit.pse.beprepared.model.Configuration;
+import edu.kit.pse.beprepared.model.Event;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@RunWith(JUnit4.class)
+public class RequestRunnerExecutorTest {
+
+    private VirtualWakeupScheduler scheduler;
+    private RequestRunnerExecutor executor;
+
+    @Before
+    public void setUp() {
+        this.scheduler = new VirtualWakeupScheduler();
+    }
+
+    @After
+    public void tearDown() {
+        this.executor.shutdown();
+    }
+
+    @Test
+    public void testRunsRunnersWithSameOrderingKeySeriallyInOrder() throws Exception {
+
+        // preset -> plenty of workers, every runner records when it runs and how many runners of its key are running
+
+        this.executor = new RequestRunnerExecutor(8);
+        final List<Integer> order = new CopyOnWriteArrayList<>();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        MockEventType eventType = new MockEventType() {
+            @Override
+            public RequestRunner getRequestRunnerFor(Event event, Configuration configuration) {
+                return new MockEventRunner(event, configuration) {
+                    @Override
+                    public ExecutionReport call() throws Exception {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        order.add((int) event.getPointInTime());
+                        Thread.sleep(2);
+                        running.decrementAndGet();
+                        return super.call();
+                    }
+                };
+            }
+
+            @Override
+            public String getOrderingKey(Event event) {
+                return "team";
+            }
+        };
+        RequestRunnerExecutor.DispatchQueue queue = this.open();
+
+        // run method under test
+
+        List<Future<ExecutionReport>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Event event = new MockEvent(eventType, i, "value");
+            results.add(queue.submit(eventType.getRequestRunnerFor(event, new Configuration(0, null)), 0));
+        }
+        for (Future<ExecutionReport> result : results) {
+            result.get(10, TimeUnit.SECONDS);
+        }
+
+        // check result -> one runner at a time, in submission order
+
+        assertThat(maxRunning.get(), is(1));
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            expected.add(i);
+        }
+        assertThat(order, is(expected));
+
+    }
+
+    @Test
+    public void testRunsRunnersWithDifferentOrderingKeysInParallel() throws Exception {
+
+        // preset -> every runner waits until the runners of both keys are running at the same time
+
+        this.executor = new RequestRunnerExecutor(2);
+        final CountDownLatch bothRunning = new CountDownLatch(2);
+        MockEventType eventType = new MockEventType() {
+            @Override
+            public RequestRunner getRequestRunnerFor(Event event, Configuration configuration) {
+                return new MockEventRunner(event, configuration) {
+                    @Override
+                    public ExecutionReport call() throws Exception {
+                        bothRunning.countDown();
+                        if (!bothRunning.await(10, TimeUnit.SECONDS)) {
+                            return new ExecutionReport(this, ExecutionStatus.COMPLETED_EXCEPTIONALLY, null, 0);
+                        }
+                        return super.call();
+                    }
+                };
+            }
+
+            @Override
+            public String getOrderingKey(Event event) {
+                return ((MockEvent) event).getaProperty();
+            }
+        };
+        RequestRunnerExecutor.DispatchQueue queue = this.open();
+
+        // run method under test
+
+        Future<ExecutionReport> first = queue.submit(eventType.getRequestRunnerFor(
+                new MockEvent(eventType, 0, "team a"), new Configuration(0, null)), 0);
+        Future<ExecutionReport> second = queue.submit(eventType.getRequestRunnerFor(
+                new MockEvent(eventType, 0, "team b"), new Configuration(0, null)), 0);
+
+        // check result -> neither runner waited for the other one
+
+        assertThat(first.get(20, TimeUnit.SECONDS).getStatus(), is(ExecutionStatus.COMPLETED_NORMAL));
+        assertThat(second.get(20, TimeUnit.SECONDS).getStatus(), is(ExecutionStatus.COMPLETED_NORMAL));
+
+    }
+
+    @Test
+    public void testAsyncRunnersReleaseWorkerLaneAndPermit() throws Exception {
+
+        // preset -> a single worker, a single permit for the target and a single ordering key, the runners hand their
+        // requests over to a batch that has not been sent yet
+
+        this.executor = new RequestRunnerExecutor(1, ExecutionMode.PLATFORM, 1, 64, 1, 1, new RetryPolicy());
+        final List<CompletableFuture<ExecutionReport>> batch = new CopyOnWriteArrayList<>();
+        MockEventType eventType = new MockEventType() {
+            @Override
+            public RequestRunner getRequestRunnerFor(Event event, Configuration configuration) {
+                return new MockEventRunner(event, configuration) {
+                    @Override
+                    public CompletableFuture<ExecutionReport> callAsync() {
+                        CompletableFuture<ExecutionReport> result = new CompletableFuture<>();
+                        batch.add(result);
+                        return result;
+                    }
+                };
+            }
+
+            @Override
+            public String getOrderingKey(Event event) {
+                return "datastream";
+            }
+
+            @Override
+            public String getTargetKey(Event event, Configuration configuration) {
+                return "target";
+            }
+        };
+        RequestRunnerExecutor.DispatchQueue queue = this.open();
+
+        // run method under test
+
+        List<Future<ExecutionReport>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Event event = new MockEvent(eventType, i, "value");
+            results.add(queue.submit(eventType.getRequestRunnerFor(event, new Configuration(0, null)), 0));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (batch.size() < 5 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        int startedBeforeSent = batch.size();
+        boolean doneBeforeSent = results.get(0).isDone();
+        for (CompletableFuture<ExecutionReport> result : batch) {
+            result.complete(new ExecutionReport(null, ExecutionStatus.COMPLETED_NORMAL, null, 0));
+        }
+
+        // check result -> all runners joined the batch, although none of them had completed
+
+        assertThat(startedBeforeSent, is(5));
+        assertThat(doneBeforeSent, is(false));
+        for (Future<ExecutionReport> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS).getStatus(), is(ExecutionStatus.COMPLETED_NORMAL));
+        }
+        assertThat(this.executor.getInFlight("target"), is(0));
+
+    }
+
+    private RequestRunnerExecutor.DispatchQueue open() {
+        return this.executor.open(1, 1, this.scheduler,
+                (runner, report, failure, scheduledNanos, dispatchNanos, startNanos, completionNanos, n) -> {
+                });
+    }
+}
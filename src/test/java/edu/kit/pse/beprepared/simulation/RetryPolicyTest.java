@@ -0,0 +1,251 @@
+package edu.kit.pse.beprepared.simulation;
+
+import edu.kit.pse.beprepared.eventTypes.mockEventType.MockEvent;
+import edu.kit.pse.beprepared.eventTypes.mockEventType.MockEventRunner;
+import edu.kit.pse.beprepared.eventTypes.mockEventType.MockEventType;
+import edu.kit.pse.beprepared.model.Configuration;
+import edu.kit.pse.beprepared.model.Event;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@RunWith(JUnit4.class)
+public class RetryPolicyTest {
+
+    private Event event;
+
+    @Before
+    public void setUp() {
+        this.event = new MockEvent(new MockEventType(), 0, "value");
+    }
+
+    @Test
+    public void testRetriesTransientFailure() throws Exception {
+
+        // preset -> the first two attempts lose the connection
+
+        final RetryPolicy policyUnderTest = new RetryPolicy(3, 100, 2000, 0.1);
+        RetryPolicy.Execution execution = policyUnderTest.wrap(this.failingRunner(2, new IOException("reset")));
+
+        // run method under test
+
+        long firstDelayNanos = execution.attempt().join();
+        long secondDelayNanos = execution.attempt().join();
+        long thirdDelayNanos = execution.attempt().join();
+
+        // check result -> the third attempt succeeded after waiting at most 100ms and 200ms
+
+        assertThat(firstDelayNanos, allOf(greaterThanOrEqualTo(0L),
+                lessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100))));
+        assertThat(secondDelayNanos, allOf(greaterThanOrEqualTo(0L),
+                lessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(200))));
+        assertThat(thirdDelayNanos, lessThan(0L));
+        assertThat(execution.getReport().getStatus(), is(ExecutionStatus.COMPLETED_NORMAL));
+        assertThat(execution.getAttempts(), is(3));
+
+    }
+
+    @Test
+    public void testDoesNotRetryPermanentFailure() throws Exception {
+
+        // preset
+
+        final RetryPolicy policyUnderTest = new RetryPolicy(3, 100, 2000, 0.1);
+        RetryPolicy.Execution execution = policyUnderTest.wrap(
+                new MockEventRunner(this.event, new Configuration(0, null)) {
+                    @Override
+                    public ExecutionReport call() throws Exception {
+                        throw new IllegalStateException("invalid event");
+                    }
+                });
+
+        // run method under test
+
+        long delayNanos = execution.attempt().join();
+
+        // check result
+
+        assertThat(delayNanos, lessThan(0L));
+        assertThat(execution.getThrown() instanceof IllegalStateException, is(true));
+        assertThat(execution.getAttempts(), is(1));
+
+    }
+
+    @Test
+    public void testBudgetCapsRetries() throws Exception {
+
+        // preset -> the target is down, and every runner sent to it refills the budget by half a retry
+
+        final RetryPolicy policyUnderTest = new RetryPolicy(3, 0, 0, 0.5);
+
+        // run method under test
+
+        int attempts = 0;
+        for (int i = 0; i < 40; i++) {
+            RetryPolicy.Execution execution = policyUnderTest.wrap(
+                    this.failingRunner(Integer.MAX_VALUE, new IOException("connection refused")));
+            while (execution.attempt().join() >= 0) {
+                // retry right away
+            }
+            attempts += execution.getAttempts();
+        }
+
+        // check result -> without the budget, every runner would have been retried twice; with it, the retries are
+        // capped by the reserve plus half a retry per runner
+
+        assertThat(attempts - 40, allOf(greaterThan(20), lessThanOrEqualTo((int) RetryPolicy.BUDGET_RESERVE + 20)));
+
+    }
+
+    @Test
+    public void testWorkerIsFreedDuringBackoff() throws Exception {
+
+        // preset -> a single worker, the first runner loses its connection once
+
+        final VirtualWakeupScheduler scheduler = new VirtualWakeupScheduler();
+        final RequestRunnerExecutor executor = new RequestRunnerExecutor(1, ExecutionMode.PLATFORM, 1, 64, 16, 512,
+                new RetryPolicy(3, 1000, 1000, 0.1));
+        final AtomicInteger attempts = new AtomicInteger();
+        final CountDownLatch completed = new CountDownLatch(1);
+        RequestRunnerExecutor.DispatchQueue queue = executor.open(Integer.MAX_VALUE, 1, scheduler,
+                (runner, report, failure, scheduledNanos, dispatchNanos, startNanos, completionNanos, n) -> {
+                    if (runner.getEvent() == this.event) {
+                        attempts.set(n);
+                        completed.countDown();
+                    }
+                });
+
+        try {
+
+            // run method under test -> another runner is submitted while the first one waits for its retry
+
+            Future<ExecutionReport> failing = queue.submit(this.failingRunner(1, new IOException("reset")), 0);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (scheduler.getPendingWakeups() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            Future<ExecutionReport> other = queue.submit(new MockEventRunner(
+                    new MockEvent(new MockEventType(), 0, "other"), new Configuration(0, null)), 0);
+            ExecutionReport otherReport = other.get(10, TimeUnit.SECONDS);
+            boolean failingDoneDuringBackoff = failing.isDone();
+            scheduler.runUntilIdle();
+            ExecutionReport failingReport = failing.get(10, TimeUnit.SECONDS);
+            completed.await(10, TimeUnit.SECONDS);
+
+            // check result -> the only worker ran the other runner in the meantime, then the retry succeeded
+
+            assertThat(otherReport.getStatus(), is(ExecutionStatus.COMPLETED_NORMAL));
+            assertThat(failingDoneDuringBackoff, is(false));
+            assertThat(failingReport.getStatus(), is(ExecutionStatus.COMPLETED_NORMAL));
+            assertThat(attempts.get(), is(2));
+
+        } finally {
+            executor.shutdown();
+        }
+
+    }
+
+    @Test
+    public void testClosingCancelsRunnerWaitingForRetry() throws Exception {
+
+        // preset -> the runner loses its connection once
+
+        final VirtualWakeupScheduler scheduler = new VirtualWakeupScheduler();
+        final RequestRunnerExecutor executor = new RequestRunnerExecutor(1, ExecutionMode.PLATFORM, 1, 64, 16, 512,
+                new RetryPolicy(3, 1000, 1000, 0.1));
+        RequestRunnerExecutor.DispatchQueue queue = executor.open(Integer.MAX_VALUE, 1, scheduler,
+                (runner, report, failure, scheduledNanos, dispatchNanos, startNanos, completionNanos, n) -> {
+                });
+
+        try {
+
+            // run method under test -> the simulation is stopped while the runner waits for its retry
+
+            Future<ExecutionReport> failing = queue.submit(this.failingRunner(1, new IOException("reset")), 0);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (scheduler.getPendingWakeups() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            queue.close(true);
+            scheduler.runUntilIdle();
+
+            // check result -> the retry has been cancelled instead of being sent to the target
+
+            assertThat(failing.isCancelled(), is(true));
+            assertThat(queue.getInFlightRunners(), is(0));
+
+        } finally {
+            executor.shutdown();
+        }
+
+    }
+
+    @Test
+    public void testErrorDuringAttemptCompletesRunner() throws Exception {
+
+        // preset -> a single worker
+
+        final VirtualWakeupScheduler scheduler = new VirtualWakeupScheduler();
+        final RequestRunnerExecutor executor = new RequestRunnerExecutor(1, ExecutionMode.PLATFORM, 1, 64, 16, 512,
+                new RetryPolicy(3, 1000, 1000, 0.1));
+        RequestRunnerExecutor.DispatchQueue queue = executor.open(Integer.MAX_VALUE, 1, scheduler,
+                (runner, report, failure, scheduledNanos, dispatchNanos, startNanos, completionNanos, n) -> {
+                });
+
+        try {
+
+            // run method under test -> the first runner throws an error, which the retry policy does not catch
+
+            Future<ExecutionReport> failing = queue.submit(new MockEventRunner(this.event, new Configuration(0, null)) {
+                @Override
+                public ExecutionReport call() {
+                    throw new AssertionError("broken runner");
+                }
+            }, 0);
+            Throwable thrown = null;
+            try {
+                failing.get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                thrown = e.getCause();
+            }
+            Future<ExecutionReport> other = queue.submit(new MockEventRunner(
+                    new MockEvent(new MockEventType(), 0, "other"), new Configuration(0, null)), 0);
+
+            // check result -> the error became the result of the runner, and the worker survived it
+
+            assertThat(thrown instanceof AssertionError, is(true));
+            assertThat(other.get(10, TimeUnit.SECONDS).getStatus(), is(ExecutionStatus.COMPLETED_NORMAL));
+
+        } finally {
+            executor.shutdown();
+        }
+
+    }
+
+    private MockEventRunner failingRunner(final int failures, final Exception exception) {
+
+        return new MockEventRunner(this.event, new Configuration(0, null)) {
+
+            private int remaining = failures;
+
+            @Override
+            public ExecutionReport call() throws Exception {
+                if (this.remaining-- > 0) {
+                    return new ExecutionReport(this, ExecutionStatus.COMPLETED_EXCEPTIONALLY, exception, 0);
+                }
+                return super.call();
+            }
+        };
+    }
+}
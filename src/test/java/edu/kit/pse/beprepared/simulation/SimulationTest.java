@@ -0,0 +1,449 @@
+package edu.kit.pse.beprepared.simulation;
+
+import edu.kit.pse.beprepared.eventTypes.mockEventType.MockEvent;
+import edu.kit.pse.beprepared.eventTypes.mockEventType.MockEventRunner;
+import edu.kit.pse.beprepared.eventTypes.mockEventType.MockEventType;
+import edu.kit.pse.beprepared.model.Configuration;
+import edu.kit.pse.beprepared.model.Event;
+import edu.kit.pse.beprepared.model.Phase;
+import edu.kit.pse.beprepared.model.Scenario;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@RunWith(JUnit4.class)
+public class SimulationTest {
+
+    private static final int NUM_OF_EVENTS = 3600;
+
+    private VirtualWakeupScheduler scheduler;
+    private RequestRunnerExecutor executor;
+    private List<Event> events;
+    private Simulation simulationUnderTest;
+
+    @Before
+    public void setUp() {
+
+        this.scheduler = new VirtualWakeupScheduler();
+        this.executor = new RequestRunnerExecutor(2);
+
+        // one event per second for an hour
+        MockEventType eventType = new MockEventType();
+        Phase phase = new Phase("phase");
+        this.events = new ArrayList<>();
+        for (int i = 0; i < NUM_OF_EVENTS; i++) {
+            Event event = new MockEvent(eventType, TimeUnit.SECONDS.toMillis(i), "value");
+            phase.addEvent(event);
+            this.events.add(event);
+        }
+
+        this.simulationUnderTest = new Simulation(new Scenario("scenario", new Phase("standard")),
+                Collections.singletonList(phase), new Configuration(0, null), 1.0, this.scheduler, this.executor);
+    }
+
+    @After
+    public void tearDown() {
+        this.executor.shutdown();
+    }
+
+    @Test
+    public void testRunsWholeScenarioInVirtualTime() throws Exception {
+
+        // run method under test
+
+        this.simulationUnderTest.start();
+        this.scheduler.runUntilIdle();
+
+        // check result
+
+        assertThat(this.simulationUnderTest.getSimulationState(), is(SimulationState.FINISHED));
+        assertThat(this.simulationUnderTest.getPointInTime(), is(TimeUnit.SECONDS.toMillis(NUM_OF_EVENTS - 1)));
+
+        ExecutionResultStore results = this.awaitResults();
+        for (int row = 0; row < results.size(); row++) {
+            assertThat(results.getStatus(row), is(ExecutionStatus.COMPLETED_NORMAL));
+            assertThat(results.getDispatchNanos(row), is(results.getScheduledNanos(row)));
+        }
+
+    }
+
+    @Test
+    public void testConvertsVirtualTimesOfResults() throws Exception {
+
+        // run method under test
+
+        this.simulationUnderTest.start();
+        this.scheduler.runUntilIdle();
+        ExecutionResultStore results = this.awaitResults();
+        long nowMillis = System.currentTimeMillis();
+
+        // check result -> the first event was due when the simulation started, i.e. moments ago in real time, the
+        // others follow one virtual second after another
+
+        long firstMillis = Long.MAX_VALUE;
+        long lastMillis = Long.MIN_VALUE;
+        for (int row = 0; row < results.size(); row++) {
+            firstMillis = Math.min(firstMillis, results.toEpochMillis(results.getScheduledNanos(row)));
+            lastMillis = Math.max(lastMillis, results.toEpochMillis(results.getScheduledNanos(row)));
+        }
+        assertThat(firstMillis, allOf(greaterThan(nowMillis - TimeUnit.SECONDS.toMillis(10)),
+                lessThanOrEqualTo(nowMillis)));
+        assertThat(lastMillis - firstMillis, is(TimeUnit.SECONDS.toMillis(NUM_OF_EVENTS - 1)));
+
+    }
+
+    @Test
+    public void testPauseAndSpeedChange() {
+
+        // preset
+
+        final long second = TimeUnit.SECONDS.toNanos(1);
+        this.simulationUnderTest.start();
+
+        // run method under test -> run 10s, pause for 100s, run 5s at double speed
+
+        this.scheduler.advanceTo(10 * second);
+        this.simulationUnderTest.togglePause();
+        this.scheduler.advanceTo(110 * second);
+        long pausedPointInTime = this.simulationUnderTest.getPointInTime();
+        this.simulationUnderTest.togglePause();
+        this.simulationUnderTest.changeSpeed(2);
+        this.scheduler.advanceTo(115 * second);
+
+        // check result
+
+        assertThat(pausedPointInTime, is(TimeUnit.SECONDS.toMillis(10)));
+        assertThat(this.simulationUnderTest.getPointInTime(), is(TimeUnit.SECONDS.toMillis(20)));
+        assertThat(this.simulationUnderTest.getSimulationState(), is(SimulationState.RUNNING));
+
+    }
+
+    @Test
+    public void testFastForward() {
+
+        // preset
+
+        final Event target = this.events.get(100);
+        this.simulationUnderTest.start();
+        this.scheduler.advanceTo(TimeUnit.SECONDS.toNanos(10));
+
+        // run method under test
+
+        this.simulationUnderTest.fastForwardTo(target.getId());
+
+        // check result
+
+        assertThat(this.simulationUnderTest.getPointInTime(), is(target.getPointInTime()));
+        assertThat(this.simulationUnderTest.getSimulationState(), is(SimulationState.RUNNING));
+
+    }
+
+    @Test
+    public void testSeekSkip() throws Exception {
+
+        // preset
+
+        this.simulationUnderTest.start();
+        this.scheduler.advanceTo(TimeUnit.SECONDS.toNanos(10));
+
+        // run method under test
+
+        this.simulationUnderTest.seekTo(TimeUnit.SECONDS.toMillis(3000), SeekMode.SKIP);
+        this.scheduler.runUntilIdle();
+
+        // check result -> events 0..10 and 3000..3599 have been executed
+
+        assertThat(this.simulationUnderTest.getSimulationState(), is(SimulationState.FINISHED));
+        assertThat(this.awaitResults(11 + NUM_OF_EVENTS - 3000).size(), is(11 + NUM_OF_EVENTS - 3000));
+
+    }
+
+    @Test
+    public void testSeekExecute() throws Exception {
+
+        // preset
+
+        this.simulationUnderTest.start();
+
+        // run method under test
+
+        this.simulationUnderTest.seekTo(TimeUnit.SECONDS.toMillis(3000), SeekMode.EXECUTE);
+
+        // check result
+
+        assertThat(this.simulationUnderTest.getPointInTime(), is(TimeUnit.SECONDS.toMillis(3000)));
+        this.scheduler.runUntilIdle();
+        assertThat(this.simulationUnderTest.getSimulationState(), is(SimulationState.FINISHED));
+        assertThat(this.awaitResults(NUM_OF_EVENTS).size(), is(NUM_OF_EVENTS));
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSeekBackwards() {
+
+        // preset
+
+        this.simulationUnderTest.start();
+        this.scheduler.advanceTo(TimeUnit.SECONDS.toNanos(10));
+
+        // run method under test
+
+        this.simulationUnderTest.seekTo(TimeUnit.SECONDS.toMillis(5), SeekMode.SKIP);
+
+    }
+
+    @Test
+    public void testRewindFinishedSimulation() throws Exception {
+
+        // preset
+
+        this.simulationUnderTest.start();
+        this.scheduler.runUntilIdle();
+        this.awaitResults();
+
+        // run method under test
+
+        SimulationState state = this.simulationUnderTest.rewindTo(TimeUnit.SECONDS.toMillis(3000));
+
+        // check result -> paused at the point in time, replays the last 600 events once resumed
+
+        assertThat(state, is(SimulationState.PAUSED));
+        assertThat(this.simulationUnderTest.getPointInTime(), is(TimeUnit.SECONDS.toMillis(3000)));
+        this.simulationUnderTest.togglePause();
+        this.scheduler.runUntilIdle();
+        assertThat(this.simulationUnderTest.getSimulationState(), is(SimulationState.FINISHED));
+        assertThat(this.awaitResults(NUM_OF_EVENTS + 600).size(), is(NUM_OF_EVENTS + 600));
+
+    }
+
+    @Test
+    public void testRewindToEvent() throws Exception {
+
+        // preset
+
+        final Event target = this.events.get(5);
+        this.simulationUnderTest.start();
+        this.scheduler.advanceTo(TimeUnit.SECONDS.toNanos(10));
+
+        // run method under test
+
+        SimulationState state = this.simulationUnderTest.rewindToEvent(target.getId());
+
+        // check result -> events 5..10 are run twice
+
+        assertThat(state, is(SimulationState.RUNNING));
+        assertThat(this.simulationUnderTest.getPointInTime(), is(target.getPointInTime()));
+        this.scheduler.runUntilIdle();
+        assertThat(this.awaitResults(NUM_OF_EVENTS + 6).size(), is(NUM_OF_EVENTS + 6));
+
+    }
+
+    @Test
+    public void testShedWhenInFlightLimitReached() throws Exception {
+
+        // preset -> the runners block until released, so the first one stays in flight
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        MockEventType eventType = this.blockingEventType(started, release, null, null, false);
+        Phase phase = new Phase("phase");
+        for (int i = 0; i <= 10; i++) {
+            phase.addEvent(new MockEvent(eventType, TimeUnit.SECONDS.toMillis(i), "value"));
+        }
+        this.simulationUnderTest = new Simulation(new Scenario("scenario", new Phase("standard")),
+                Collections.singletonList(phase), new Configuration(0, null), 1.0, this.scheduler, this.executor);
+        this.simulationUnderTest.setBackPressure(1, 0, BackPressurePolicy.SHED);
+
+        // run method under test
+
+        this.simulationUnderTest.start();
+        this.scheduler.advanceTo(TimeUnit.SECONDS.toNanos(10));
+
+        // check result -> all runners but the first one have been shed
+
+        assertThat(this.simulationUnderTest.getMetrics().getInFlightRunners(), is(1));
+        assertThat(this.simulationUnderTest.getMetrics().getShedRunners(), is(10L));
+        release.countDown();
+        assertThat(this.awaitResults(1).size(), is(1));
+
+    }
+
+    @Test
+    public void testCoalesceStalePositionUpdates() throws Exception {
+
+        // preset -> position updates of a single team, the first one blocks until released, so the others pile up
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        MockEventType eventType = this.blockingEventType(started, release, "team", null, true);
+        Phase phase = new Phase("phase");
+        for (int i = 0; i <= 10; i++) {
+            phase.addEvent(new MockEvent(eventType, TimeUnit.SECONDS.toMillis(i), "value"));
+        }
+        this.simulationUnderTest = new Simulation(new Scenario("scenario", new Phase("standard")),
+                Collections.singletonList(phase), new Configuration(0, null), 1.0, this.scheduler, this.executor);
+        this.simulationUnderTest.setCoalesceAfterMillis(1500);
+
+        // run method under test -> the first update is running before the others are submitted
+
+        this.simulationUnderTest.start();
+        this.scheduler.advanceTo(0);
+        assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+        this.scheduler.advanceTo(TimeUnit.SECONDS.toNanos(10));
+        release.countDown();
+
+        // check result -> updates 1..8 have been dropped once they were waiting for 2s, 0, 9 and 10 have been sent
+
+        assertThat(this.awaitResults(3).size(), is(3));
+        assertThat(this.simulationUnderTest.getMetrics().getCoalescedRunners(), is(8L));
+        assertThat(this.simulationUnderTest.getMetrics().getCoalescedByEventType().get(MockEventType.TYPE_NAME),
+                is(8L));
+
+    }
+
+    @Test
+    public void testTargetLimitSharedWithOtherSimulation() throws Exception {
+
+        // preset -> another simulation keeps the only slot of the shared target busy until released
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        MockEventType blockingType = this.blockingEventType(started, release, null, "target", false);
+        MockEventType eventType = new MockEventType() {
+            @Override
+            public String getTargetKey(Event event, Configuration configuration) {
+                return "target";
+            }
+        };
+        Phase otherPhase = new Phase("other");
+        otherPhase.addEvent(new MockEvent(blockingType, 0, "value"));
+        Simulation other = new Simulation(new Scenario("other", new Phase("standard")),
+                Collections.singletonList(otherPhase), new Configuration(0, null), 1.0, this.scheduler, this.executor);
+        other.start();
+        this.scheduler.runUntilIdle();
+        assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+
+        Phase phase = new Phase("phase");
+        for (int i = 0; i < 5; i++) {
+            phase.addEvent(new MockEvent(eventType, TimeUnit.SECONDS.toMillis(i), "value"));
+        }
+        this.simulationUnderTest = new Simulation(new Scenario("scenario", new Phase("standard")),
+                Collections.singletonList(phase), new Configuration(0, null), 1.0, this.scheduler, this.executor);
+        this.simulationUnderTest.setMode(SimulationMode.AS_FAST_AS_POSSIBLE);
+        this.simulationUnderTest.setBackPressure(0, 1, BackPressurePolicy.BLOCK);
+
+        // run method under test -> nothing of this simulation is in flight, so only a retry wakeup can unblock it
+
+        this.simulationUnderTest.start();
+        this.scheduler.advanceTo(TimeUnit.MILLISECONDS.toNanos(10));
+        int resultsWhileBlocked = this.simulationUnderTest.getResults().size();
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (this.simulationUnderTest.getResults().size() < 5 && System.nanoTime() < deadline) {
+            this.scheduler.runUntilIdle();
+            Thread.sleep(1);
+        }
+
+        // check result
+
+        assertThat(resultsWhileBlocked, is(0));
+        assertThat(this.awaitResults(5).size(), is(5));
+        assertThat(this.simulationUnderTest.getSimulationState(), is(SimulationState.FINISHED));
+
+    }
+
+    @Test
+    public void testBrokenEventDoesNotStopSimulation() throws Exception {
+
+        // preset -> the event type fails to determine the ordering key of the third event
+
+        MockEventType eventType = new MockEventType() {
+            @Override
+            public String getOrderingKey(Event event) {
+                if (event.getPointInTime() == TimeUnit.SECONDS.toMillis(2)) {
+                    throw new NumberFormatException("malformed batch window");
+                }
+                return null;
+            }
+        };
+        Phase phase = new Phase("phase");
+        for (int i = 0; i < 5; i++) {
+            phase.addEvent(new MockEvent(eventType, TimeUnit.SECONDS.toMillis(i), "value"));
+        }
+        this.simulationUnderTest = new Simulation(new Scenario("scenario", new Phase("standard")),
+                Collections.singletonList(phase), new Configuration(0, null), 1.0, this.scheduler, this.executor);
+
+        // run method under test
+
+        this.simulationUnderTest.start();
+        this.scheduler.runUntilIdle();
+
+        // check result -> the broken event has been recorded as failed, the others have been sent
+
+        assertThat(this.simulationUnderTest.getSimulationState(), is(SimulationState.FINISHED));
+        ExecutionResultStore results = this.awaitResults(5);
+        assertThat(results.count(ExecutionStatus.COMPLETED_EXCEPTIONALLY), is(1));
+        assertThat(results.count(ExecutionStatus.COMPLETED_NORMAL), is(4));
+
+    }
+
+    private MockEventType blockingEventType(final CountDownLatch started, final CountDownLatch release,
+                                            final String orderingKey, final String targetKey,
+                                            final boolean stateLike) {
+
+        return new MockEventType() {
+            @Override
+            public RequestRunner getRequestRunnerFor(Event event, Configuration configuration) {
+                return new MockEventRunner(event, configuration) {
+                    @Override
+                    public ExecutionReport call() throws Exception {
+                        started.countDown();
+                        release.await();
+                        return super.call();
+                    }
+                };
+            }
+
+            @Override
+            public String getOrderingKey(Event event) {
+                return orderingKey;
+            }
+
+            @Override
+            public String getTargetKey(Event event, Configuration configuration) {
+                return targetKey;
+            }
+
+            @Override
+            public boolean isStateLike() {
+                return stateLike;
+            }
+        };
+    }
+
+    private ExecutionResultStore awaitResults() throws InterruptedException {
+        return this.awaitResults(NUM_OF_EVENTS);
+    }
+
+    private ExecutionResultStore awaitResults(final int expected) throws InterruptedException {
+
+        ExecutionResultStore results = this.simulationUnderTest.getResults();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (results.size() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(results.size(), is(expected));
+        return results;
+    }
+}
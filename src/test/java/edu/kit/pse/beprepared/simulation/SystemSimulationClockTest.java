@@ -0,0 +1,56 @@
+package edu.kit.pse.beprepared.simulation;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@RunWith(JUnit4.class)
+public class SystemSimulationClockTest {
+
+    @Test
+    public void testSleepUntilReachesDeadline() throws Exception {
+
+        // preset
+
+        final SystemSimulationClock clockUnderTest = new SystemSimulationClock(500);
+        final long deadlineNanos = clockUnderTest.nanoTime() + TimeUnit.MILLISECONDS.toNanos(5);
+
+        // run method under test
+
+        clockUnderTest.sleepUntil(deadlineNanos);
+
+        // check result
+
+        assertThat(clockUnderTest.nanoTime(), is(greaterThanOrEqualTo(deadlineNanos)));
+        assertThat(clockUnderTest.getSpinNanos(), is(TimeUnit.MICROSECONDS.toNanos(500)));
+
+    }
+
+    @Test(expected = InterruptedException.class)
+    public void testSleepUntilInterrupted() throws Exception {
+
+        // preset
+
+        final SystemSimulationClock clockUnderTest = new SystemSimulationClock(0);
+        Thread.currentThread().interrupt();
+
+        // run method under test
+
+        clockUnderTest.sleepUntil(clockUnderTest.nanoTime() + TimeUnit.SECONDS.toNanos(10));
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSpinTime() {
+
+        // run method under test
+
+        new SystemSimulationClock(-1);
+
+    }
+}